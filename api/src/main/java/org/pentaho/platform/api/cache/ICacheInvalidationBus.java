@@ -0,0 +1,54 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.api.cache;
+
+/**
+ * Tells caches of repository content when that content changes, so they can keep entries for as long as they are
+ * valid instead of relying on timeouts or explicit flushes.
+ * <p>
+ * Changes are collected for a short while and delivered in batches, on a thread of the bus.
+ */
+public interface ICacheInvalidationBus {
+  /**
+   * Subscribes a listener to the changes below a path, including changes made on other servers of a cluster.
+   *
+   * @param pathPrefix          a repository path, such as <code>/etc/mondrian</code>; <code>/</code> for every change
+   * @param listener            the listener
+   * @param includeLocalChanges whether to also deliver the changes made through this server, for listeners whose cache
+   *                            is not already updated when it writes to the repository
+   */
+  void subscribe( String pathPrefix, ICacheInvalidationListener listener, boolean includeLocalChanges );
+
+  /**
+   * Subscribes a listener to the changes below a path, like {@link #subscribe(String, ICacheInvalidationListener,
+   * boolean)} with local changes, but delivers the changes made through this server right away, on the thread that
+   * saved them, so that this server never reads its own writes from the cache. The listener must be quick and must not
+   * use the repository.
+   * <p>
+   * Buses that cannot deliver changes as they are saved deliver them in the next batch.
+   *
+   * @param pathPrefix a repository path; <code>/</code> for every change
+   * @param listener   the listener
+   */
+  default void subscribeSynchronously( String pathPrefix, ICacheInvalidationListener listener ) {
+    subscribe( pathPrefix, listener, true );
+  }
+
+  /**
+   * Unsubscribes a listener from every path it was subscribed to.
+   *
+   * @param listener the listener
+   */
+  void unsubscribe( ICacheInvalidationListener listener );
+}
@@ -0,0 +1,32 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.api.cache;
+
+import java.util.Set;
+
+/**
+ * Receives the repository paths that changed below the path prefix it was subscribed with.
+ *
+ * @see ICacheInvalidationBus
+ */
+public interface ICacheInvalidationListener {
+  /**
+   * Called with a batch of changes. Each path appears once per batch, whatever the number of changes to it. Paths are
+   * repository paths, such as <code>/etc/metadata/steel-wheels.xmi</code>; a moved file is reported at its old and new
+   * paths.
+   *
+   * @param paths the changed paths, never empty
+   */
+  void pathsChanged( Set<String> paths );
+}
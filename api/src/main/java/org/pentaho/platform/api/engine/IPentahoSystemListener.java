@@ -13,6 +13,8 @@
 
 package org.pentaho.platform.api.engine;
 
+import java.util.List;
+
 /**
  * Classes that implement this interface can be notified about key system events, in order to perform one-time
  * operations such as initialization, maintenance or other tasks.
@@ -32,4 +34,18 @@ public interface IPentahoSystemListener {
    */
   public void shutdown();
 
+  /**
+   * The listeners that must have started before this one, named by their class name, either simple or fully
+   * qualified. A name also matches the subclasses of the named class.
+   * <p>
+   * A listener that does not declare its dependencies, by returning <code>null</code>, starts after every listener
+   * configured before it. A listener that does declare them, even as an empty list, may start concurrently with any
+   * listener it does not depend on.
+   *
+   * @return the names of the listeners this one depends on, or <code>null</code> if they are not declared
+   */
+  default List<String> getStartupDependencies() {
+    return null;
+  }
+
 }
@@ -20,6 +20,7 @@ import org.pentaho.ui.xul.XulOverlay;
 import org.springframework.beans.factory.ListableBeanFactory;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -215,6 +216,16 @@ public interface IPlatformPlugin extends IPluginLifecycleListener {
    */
   public ClassLoaderType getLoaderType();
 
+  /**
+   * Returns the ids of the plugins that must be registered before this one, as declared by the <code>depends-on</code>
+   * attribute of the plugin. Plugins that do not depend on each other may be registered concurrently.
+   *
+   * @return the ids of the plugins this plugin depends on, never <code>null</code>
+   */
+  default List<String> getDependencies() {
+    return Collections.emptyList();
+  }
+
   /**
    * Return a List of scripts registered for a given context.
    *
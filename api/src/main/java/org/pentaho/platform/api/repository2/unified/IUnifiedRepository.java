@@ -14,6 +14,7 @@
 package org.pentaho.platform.api.repository2.unified;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
@@ -667,6 +668,21 @@ public interface IUnifiedRepository {
    */
   Map<String, Serializable> getFileMetadata( final Serializable fileId );
 
+  /**
+   * Gets the metadata of several files at once
+   * 
+   * @param files
+   *          files
+   * @return the metadata of each file, in the order of {@code files}
+   */
+  default List<Map<String, Serializable>> getFileMetadataInBatch( final List<RepositoryFile> files ) {
+    List<Map<String, Serializable>> metadata = new ArrayList<Map<String, Serializable>>( files.size() );
+    for ( RepositoryFile file : files ) {
+      metadata.add( getFileMetadata( file.getId() ) );
+    }
+    return metadata;
+  }
+
   /**
    * Returns a list of characters which cannot be used in file/folder names. These characters must be escaped using
    * percent-encoding. Callers may safely cache this value. Note that it is the responsibility of the
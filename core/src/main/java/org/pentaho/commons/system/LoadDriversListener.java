@@ -17,6 +17,8 @@ import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.engine.IPentahoSystemListener;
 
 import java.sql.Driver;
+import java.util.Collections;
+import java.util.List;
 import java.util.ServiceLoader;
 
 /**
@@ -35,6 +37,11 @@ public class LoadDriversListener implements IPentahoSystemListener {
     return true;
   }
 
+  @Override
+  public List<String> getStartupDependencies() {
+    return Collections.emptyList();
+  }
+
   @Override public void shutdown() {
 
   }
@@ -131,6 +131,10 @@ public class PentahoSystem {
 
   public static final String CORS_REQUESTS_ALLOWED_ORIGINS = "system.cors-requests-allowed-domains";
 
+  public static final String SYSTEM_LISTENER_THREADS = "system-listener-threads"; //$NON-NLS-1$
+
+  private static final int DEFAULT_SYSTEM_LISTENER_THREADS = 4;
+
   private static Map globalAttributes;
 
   private static SimpleParameterProvider globalParameters;
@@ -491,9 +495,9 @@ public class PentahoSystem {
 
   private static void notifySystemListenersOfStartup( final IPentahoSession session ) throws PentahoSystemException {
     if ( listeners != null && listeners.size() > 0 ) {
-
-      for ( final IPentahoSystemListener systemListener : listeners ) {
-        try {
+      new SystemListenerStartup( getSystemListenerThreads() ).run( listeners, new SystemListenerStartup.Step() {
+        @Override
+        public void start( final IPentahoSystemListener systemListener ) throws Exception {
           // ensure that the Authentication/IPentahoSession is correct between ISystemListeners
           runAsSystem( new Callable<Void>() {
             @Override
@@ -521,16 +525,29 @@ public class PentahoSystem {
               return null;
             }
           } );
-        } catch ( Exception e ) {
-          if ( e instanceof PentahoSystemException ) {
-            throw (PentahoSystemException) e;
-          } else {
-            throw new PentahoSystemException( e );
-          }
         }
+      } );
+    }
+  }
 
+  /**
+   * The number of system listeners that may start at the same time, from the <code>system-listener-threads</code>
+   * setting. One starts them one after the other.
+   */
+  private static int getSystemListenerThreads() {
+    int threads = DEFAULT_SYSTEM_LISTENER_THREADS;
+    if ( systemSettingsService != null ) {
+      String setting = systemSettingsService.getSystemSetting( SYSTEM_LISTENER_THREADS, null );
+      if ( StringUtils.isNotBlank( setting ) ) {
+        try {
+          threads = Integer.parseInt( setting.trim() );
+        } catch ( NumberFormatException e ) {
+          Logger.warn( PentahoSystem.class.getName(), "Ignoring invalid " + SYSTEM_LISTENER_THREADS //$NON-NLS-1$
+            + " setting: " + setting ); //$NON-NLS-1$
+        }
       }
     }
+    return threads;
   }
 
   /**
@@ -19,11 +19,25 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class StandaloneTempFileDeleter implements ITempFileDeleter {
 
+  private static final List<Consumer<File>> deleteListeners = new CopyOnWriteArrayList<Consumer<File>>();
+
   private List<File> tmpFileList = Collections.synchronizedList( new ArrayList<File>() );
 
+  /**
+   * Registers a listener that is told about every temporary file deleted by any deleter, for caches that hand out
+   * the names of temporary files.
+   *
+   * @param listener called with each deleted file
+   */
+  public static void addDeleteListener( Consumer<File> listener ) {
+    deleteListeners.add( listener );
+  }
+
   public void trackTempFile( File aFile ) {
     if ( aFile != null ) {
       tmpFileList.add( aFile );
@@ -38,6 +52,9 @@ public class StandaloneTempFileDeleter implements ITempFileDeleter {
         if ( file.exists() ) {
           file.delete();
         }
+        for ( Consumer<File> listener : deleteListeners ) {
+          listener.accept( file );
+        }
       }
       tmpFileList.clear();
     }
@@ -0,0 +1,302 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.engine.core.system;
+
+import org.pentaho.platform.api.engine.IPentahoSystemListener;
+import org.pentaho.platform.api.engine.PentahoSystemException;
+import org.pentaho.platform.util.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the system listeners on a bounded pool of threads. A listener only starts once the listeners it
+ * {@link IPentahoSystemListener#getStartupDependencies() depends on} have started; a listener that does not declare
+ * its dependencies waits for every listener configured before it.
+ * <p>
+ * Once a listener fails, with an exception or an error, no other listener is started. The first failure, in the
+ * order of the listeners, is thrown and any other failure is logged. Otherwise the time taken by each listener, and
+ * the chain of listeners that determined the startup time, are logged.
+ */
+class SystemListenerStartup {
+
+  /**
+   * Starts one listener.
+   */
+  interface Step {
+    void start( IPentahoSystemListener listener ) throws Exception;
+  }
+
+  private final int threads;
+
+  SystemListenerStartup( final int threads ) {
+    this.threads = threads;
+  }
+
+  void run( final List<IPentahoSystemListener> listeners, final Step step ) throws PentahoSystemException {
+    List<Integer> order = new ArrayList<>();
+    List<List<Integer>> dependencies = resolveDependencies( listeners, order );
+    Timings timings = new Timings( listeners.size() );
+    AtomicBoolean failed = new AtomicBoolean();
+
+    if ( threads <= 1 || listeners.size() <= 1 ) {
+      for ( int index : order ) {
+        if ( !runStep( index, listeners, step, timings, failed ) ) {
+          break;
+        }
+      }
+    } else {
+      ExecutorService executor = Executors.newFixedThreadPool( Math.min( threads, listeners.size() ),
+        new StartupThreadFactory() );
+      try {
+        List<CompletableFuture<?>> futures = new ArrayList<>( Collections.nCopies( listeners.size(), null ) );
+        for ( int index : order ) {
+          final int current = index;
+          CompletableFuture<?>[] prerequisites = dependencies.get( index ).stream().map( futures::get )
+            .toArray( CompletableFuture[]::new );
+          futures.set( index, CompletableFuture.allOf( prerequisites ).thenRunAsync( () -> {
+            if ( !runStep( current, listeners, step, timings, failed ) ) {
+              // fail the step explicitly, so that the listeners depending on it complete without being started
+              throw new CompletionException( new PentahoSystemException( "System listener " //$NON-NLS-1$
+                + name( listeners.get( current ) ) + " was not started" ) ); //$NON-NLS-1$
+            }
+          }, executor ) );
+        }
+        CompletableFuture.allOf( futures.toArray( new CompletableFuture[ 0 ] ) ).join();
+      } catch ( CompletionException e ) {
+        // every step has completed; the failures the steps recorded are thrown below
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    PentahoSystemException firstFailure = null;
+    for ( int index = 0; index < listeners.size(); index++ ) {
+      Throwable failure = timings.failures[ index ];
+      if ( failure == null ) {
+        continue;
+      }
+      if ( firstFailure == null ) {
+        firstFailure = failure instanceof PentahoSystemException
+          ? (PentahoSystemException) failure : new PentahoSystemException( failure );
+      } else {
+        Logger.error( PentahoSystem.class.getName(), "System listener " //$NON-NLS-1$
+          + name( listeners.get( index ) ) + " failed to start as well", failure ); //$NON-NLS-1$
+      }
+    }
+    if ( firstFailure != null ) {
+      throw firstFailure;
+    }
+    report( listeners, dependencies, timings );
+  }
+
+  /**
+   * @return <code>false</code> if the listener failed, or was not started because another listener had failed
+   */
+  private static boolean runStep( final int index, final List<IPentahoSystemListener> listeners, final Step step,
+                                  final Timings timings, final AtomicBoolean failed ) {
+    if ( failed.get() ) {
+      return false;
+    }
+    timings.starts[ index ] = System.nanoTime();
+    try {
+      step.start( listeners.get( index ) );
+      return true;
+    } catch ( Throwable e ) {
+      timings.failures[ index ] = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+      failed.set( true );
+      return false;
+    } finally {
+      timings.ends[ index ] = System.nanoTime();
+    }
+  }
+
+  /**
+   * Finds the indexes of the listeners each listener must wait for, and fills <code>order</code> with the indexes of
+   * all the listeners, each after those it waits for. Unknown dependencies and dependency cycles are logged and
+   * ignored.
+   */
+  static List<List<Integer>> resolveDependencies( final List<IPentahoSystemListener> listeners,
+                                                  final List<Integer> order ) {
+    List<List<Integer>> dependencies = new ArrayList<>( listeners.size() );
+    for ( int index = 0; index < listeners.size(); index++ ) {
+      List<Integer> prerequisites = new ArrayList<>();
+      List<String> declared = listeners.get( index ).getStartupDependencies();
+      if ( declared == null ) {
+        for ( int previous = 0; previous < index; previous++ ) {
+          prerequisites.add( previous );
+        }
+      } else {
+        for ( String name : declared ) {
+          boolean found = false;
+          for ( int other = 0; other < listeners.size(); other++ ) {
+            if ( other != index && matches( listeners.get( other ), name ) ) {
+              found = true;
+              if ( !prerequisites.contains( other ) ) {
+                prerequisites.add( other );
+              }
+            }
+          }
+          if ( !found ) {
+            Logger.warn( PentahoSystem.class.getName(), "System listener " //$NON-NLS-1$
+              + name( listeners.get( index ) ) + " depends on " + name //$NON-NLS-1$
+              + ", which is not configured" ); //$NON-NLS-1$
+          }
+        }
+      }
+      dependencies.add( prerequisites );
+    }
+
+    int[] state = new int[ listeners.size() ]; // 0 = not visited, 1 = visiting, 2 = ordered
+    for ( int index = 0; index < listeners.size(); index++ ) {
+      visit( index, listeners, dependencies, state, order );
+    }
+    return dependencies;
+  }
+
+  private static void visit( final int index, final List<IPentahoSystemListener> listeners,
+                             final List<List<Integer>> dependencies, final int[] state, final List<Integer> order ) {
+    if ( state[ index ] != 0 ) {
+      return;
+    }
+    state[ index ] = 1;
+    for ( Iterator<Integer> it = dependencies.get( index ).iterator(); it.hasNext(); ) {
+      int prerequisite = it.next();
+      if ( state[ prerequisite ] == 1 ) {
+        Logger.warn( PentahoSystem.class.getName(), "Ignoring the dependency of system listener " //$NON-NLS-1$
+          + name( listeners.get( index ) ) + " on " + name( listeners.get( prerequisite ) ) //$NON-NLS-1$
+          + ", as they depend on each other" ); //$NON-NLS-1$
+        it.remove();
+      } else {
+        visit( prerequisite, listeners, dependencies, state, order );
+      }
+    }
+    state[ index ] = 2;
+    order.add( index );
+  }
+
+  private static boolean matches( final IPentahoSystemListener listener, final String name ) {
+    for ( Class<?> type = listener.getClass(); type != null; type = type.getSuperclass() ) {
+      if ( type.getName().equals( name ) || type.getSimpleName().equals( name ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String name( final IPentahoSystemListener listener ) {
+    return listener.getClass().getSimpleName();
+  }
+
+  /**
+   * Follows back, from the listener that finished last, the dependency that finished last before each listener.
+   *
+   * @return the indexes of the listeners on that path, first to last
+   */
+  static List<Integer> criticalPath( final List<List<Integer>> dependencies, final long[] ends ) {
+    List<Integer> path = new ArrayList<>();
+    int current = latest( allIndexes( ends.length ), ends );
+    while ( current >= 0 ) {
+      path.add( 0, current );
+      current = latest( dependencies.get( current ), ends );
+    }
+    return path;
+  }
+
+  private static List<Integer> allIndexes( final int count ) {
+    List<Integer> indexes = new ArrayList<>( count );
+    for ( int index = 0; index < count; index++ ) {
+      indexes.add( index );
+    }
+    return indexes;
+  }
+
+  private static int latest( final List<Integer> indexes, final long[] ends ) {
+    int latest = -1;
+    for ( int index : indexes ) {
+      if ( latest < 0 || ends[ index ] > ends[ latest ] ) {
+        latest = index;
+      }
+    }
+    return latest;
+  }
+
+  private void report( final List<IPentahoSystemListener> listeners, final List<List<Integer>> dependencies,
+                       final Timings timings ) {
+    if ( listeners.isEmpty() ) {
+      return;
+    }
+    long first = Long.MAX_VALUE;
+    long last = Long.MIN_VALUE;
+    long work = 0;
+    for ( int index = 0; index < listeners.size(); index++ ) {
+      first = Math.min( first, timings.starts[ index ] );
+      last = Math.max( last, timings.ends[ index ] );
+      work += timings.millis( index );
+      if ( PentahoSystem.debug ) {
+        Logger.debug( PentahoSystem.class, "System listener " + name( listeners.get( index ) ) //$NON-NLS-1$
+          + " started in " + timings.millis( index ) + " ms" ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+
+    StringBuilder path = new StringBuilder();
+    for ( int index : criticalPath( dependencies, timings.ends ) ) {
+      if ( path.length() > 0 ) {
+        path.append( " -> " ); //$NON-NLS-1$
+      }
+      path.append( name( listeners.get( index ) ) ).append( " (" ).append( timings.millis( index ) ) //$NON-NLS-1$
+        .append( " ms)" ); //$NON-NLS-1$
+    }
+    Logger.info( PentahoSystem.class.getName(), "Started " + listeners.size() //$NON-NLS-1$
+      + " system listeners in " + ( last - first ) / 1000000L + " ms, doing " + work //$NON-NLS-1$ //$NON-NLS-2$
+      + " ms of work on up to " + Math.max( 1, Math.min( threads, listeners.size() ) ) //$NON-NLS-1$
+      + " threads; critical path: " + path ); //$NON-NLS-1$
+  }
+
+  private static class Timings {
+    private final long[] starts;
+    private final long[] ends;
+    private final Throwable[] failures;
+
+    Timings( final int count ) {
+      starts = new long[ count ];
+      ends = new long[ count ];
+      failures = new Throwable[ count ];
+    }
+
+    long millis( final int index ) {
+      return ( ends[ index ] - starts[ index ] ) / 1000000L;
+    }
+  }
+
+  private static class StartupThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread( final Runnable runnable ) {
+      Thread thread = new Thread( runnable, "system-listener-startup-" + count.incrementAndGet() ); //$NON-NLS-1$
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+}
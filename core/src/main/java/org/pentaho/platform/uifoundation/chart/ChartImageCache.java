@@ -0,0 +1,394 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.pentaho.platform.engine.core.system.StandaloneTempFileDeleter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps rendered chart images in memory so that <code>GetImage</code> can serve them without a round trip through
+ * <code>system/tmp</code>.
+ * <p>
+ * Every image is written to the temporary file the caller allocated for it before its name is cached, so the name
+ * handed out resolves on any server sharing <code>system/tmp</code>, and after a restart, to the complete image rather
+ * than to an empty placeholder. The cache only saves reading the file back: evicted images are simply forgotten. An
+ * image whose file is deleted by the {@link StandaloneTempFileDeleter} is forgotten as well.
+ * <p>
+ * Images are stored once per distinct content: charts that render to identical bytes, such as the same dashboard
+ * chart generated for many viewers, share one copy and one ETag, however many image names refer to them. The total
+ * size of the stored content is bounded. Content can optionally be kept in direct buffers outside the Java heap.
+ */
+public class ChartImageCache {
+
+  public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+  public static final int DEFAULT_MAX_IMAGE_BYTES = 1024 * 1024;
+
+  public static final int DEFAULT_MAX_IMAGES = 10000;
+
+  private static final ChartImageCache instance = new ChartImageCache();
+
+  static {
+    StandaloneTempFileDeleter.addDeleteListener( instance::fileDeleted );
+  }
+
+  private final Map<String, Content> contents = new LinkedHashMap<String, Content>( 16, 0.75f, true );
+
+  private final Map<String, Alias> aliases = new LinkedHashMap<String, Alias>();
+
+  private final Map<File, Alias> aliasesByFile = new HashMap<File, Alias>();
+
+  private long contentBytes;
+
+  private volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+  private volatile int maxImageBytes = DEFAULT_MAX_IMAGE_BYTES;
+
+  private volatile int maxImages = DEFAULT_MAX_IMAGES;
+
+  private volatile boolean offHeap;
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder spillCount = new LongAdder();
+
+  public static ChartImageCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Normalizes an image name, so that the name a chart is stored under and the name <code>GetImage</code> is asked for
+   * match regardless of path separators.
+   *
+   * @param name the image name, relative to the solution root
+   * @return the normalized name
+   */
+  public static String normalizeName( String name ) {
+    String normalized = name.replace( '\\', '/' );
+    while ( normalized.startsWith( "/" ) ) { //$NON-NLS-1$
+      normalized = normalized.substring( 1 );
+    }
+    return normalized;
+  }
+
+  /**
+   * Writes a rendered image to its file and keeps it in memory.
+   *
+   * @param name     the image name, relative to the solution root
+   * @param bytes    the rendered image
+   * @param mimeType the content type of the image
+   * @param file     the temporary file allocated for the image
+   * @return <code>false</code> if the image was only written to its file
+   * @throws IOException if writing the file failed; the image is not cached then
+   */
+  public boolean put( String name, byte[] bytes, String mimeType, File file ) throws IOException {
+    FileUtils.writeByteArrayToFile( file, bytes );
+    if ( maxBytes <= 0 || bytes.length > maxImageBytes || bytes.length > maxBytes ) {
+      spillCount.increment();
+      return false;
+    }
+
+    String key = normalizeName( name );
+    String digest = DigestUtils.sha256Hex( bytes );
+    synchronized ( this ) {
+      removeAlias( key, null );
+      Content content = contents.get( digest );
+      if ( content == null ) {
+        content = new Content( digest, wrap( bytes ) );
+        contents.put( digest, content );
+        contentBytes += bytes.length;
+      }
+      Alias alias = new Alias( key, content, mimeType, file.getAbsoluteFile() );
+      content.aliases.add( alias );
+      aliases.put( key, alias );
+      aliasesByFile.put( alias.file, alias );
+      evict( selectVictims() );
+    }
+    return true;
+  }
+
+  /**
+   * Gets a cached image.
+   *
+   * @param name the image name, relative to the solution root
+   * @return the image, or <code>null</code> if it is not in memory
+   */
+  public CachedImage get( String name ) {
+    Alias alias;
+    synchronized ( this ) {
+      alias = aliases.get( normalizeName( name ) );
+      if ( alias != null ) {
+        // touch the content so that popular charts stay in memory
+        contents.get( alias.content.digest );
+      }
+    }
+    if ( alias == null ) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    return new CachedImage( alias.content.read(), alias.mimeType, alias.content.digest );
+  }
+
+  /**
+   * Forgets an image. Its file is left alone.
+   *
+   * @param name the image name, relative to the solution root
+   */
+  public synchronized void remove( String name ) {
+    removeAlias( normalizeName( name ), null );
+  }
+
+  /**
+   * Forgets the image whose file was deleted, so that its name no longer resolves.
+   *
+   * @param file the deleted file
+   */
+  synchronized void fileDeleted( File file ) {
+    Alias alias = aliasesByFile.get( file.getAbsoluteFile() );
+    if ( alias != null ) {
+      removeAlias( alias.name, alias );
+    }
+  }
+
+  /**
+   * Forgets every image. Their files are left alone.
+   */
+  public synchronized void clear() {
+    contents.clear();
+    aliases.clear();
+    aliasesByFile.clear();
+    contentBytes = 0;
+  }
+
+  private ByteBuffer wrap( byte[] bytes ) {
+    if ( !offHeap ) {
+      return ByteBuffer.wrap( bytes.clone() );
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect( bytes.length );
+    buffer.put( bytes );
+    buffer.flip();
+    return buffer;
+  }
+
+  private void removeAlias( String key, Alias expected ) {
+    Alias alias = aliases.get( key );
+    if ( alias == null || ( expected != null && alias != expected ) ) {
+      return;
+    }
+    aliases.remove( key );
+    aliasesByFile.remove( alias.file, alias );
+    Content content = alias.content;
+    content.aliases.remove( alias );
+    if ( content.aliases.isEmpty() && contents.remove( content.digest ) != null ) {
+      contentBytes -= content.length;
+    }
+  }
+
+  /**
+   * Picks the images to forget: the least recently used content beyond the byte limit and the oldest names beyond the
+   * image limit. Must be called while holding the lock.
+   */
+  private Set<Alias> selectVictims() {
+    Set<Alias> victims = new LinkedHashSet<Alias>();
+    long bytes = contentBytes;
+    Iterator<Content> lru = contents.values().iterator();
+    while ( bytes > maxBytes && lru.hasNext() ) {
+      Content content = lru.next();
+      victims.addAll( content.aliases );
+      bytes -= content.length;
+    }
+    int excess = aliases.size() - Math.max( maxImages, 0 );
+    Iterator<Alias> oldest = aliases.values().iterator();
+    while ( excess-- > 0 && oldest.hasNext() ) {
+      victims.add( oldest.next() );
+    }
+    return victims;
+  }
+
+  /**
+   * Forgets the victims; their files already hold the images. Must be called while holding the lock.
+   */
+  private void evict( Set<Alias> victims ) {
+    for ( Alias victim : victims ) {
+      removeAlias( victim.name, victim );
+      spillCount.increment();
+    }
+  }
+
+  /**
+   * Sets the maximum number of bytes of image content kept in memory. Zero disables the cache.
+   */
+  public void setMaxBytes( long maxBytes ) {
+    this.maxBytes = maxBytes;
+    synchronized ( this ) {
+      evict( selectVictims() );
+    }
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Sets the size above which an image is only written to its file.
+   */
+  public void setMaxImageBytes( int maxImageBytes ) {
+    this.maxImageBytes = maxImageBytes;
+  }
+
+  public int getMaxImageBytes() {
+    return maxImageBytes;
+  }
+
+  /**
+   * Sets the maximum number of image names kept. The oldest names beyond it are forgotten.
+   */
+  public void setMaxImages( int maxImages ) {
+    this.maxImages = maxImages;
+    synchronized ( this ) {
+      evict( selectVictims() );
+    }
+  }
+
+  public int getMaxImages() {
+    return maxImages;
+  }
+
+  /**
+   * Keeps content added from now on in direct buffers outside the Java heap.
+   */
+  public void setOffHeap( boolean offHeap ) {
+    this.offHeap = offHeap;
+  }
+
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  public synchronized int getImageCount() {
+    return aliases.size();
+  }
+
+  public synchronized int getContentCount() {
+    return contents.size();
+  }
+
+  public synchronized long getContentBytes() {
+    return contentBytes;
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * @return the number of images that were only written to their files, or forgotten since
+   */
+  public long getSpillCount() {
+    return spillCount.sum();
+  }
+
+  /**
+   * A cached image as served to a client.
+   */
+  public static class CachedImage {
+
+    private final byte[] bytes;
+
+    private final String mimeType;
+
+    private final String eTag;
+
+    CachedImage( byte[] bytes, String mimeType, String digest ) {
+      this.bytes = bytes;
+      this.mimeType = mimeType;
+      this.eTag = "\"" + digest + "\""; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    public byte[] getBytes() {
+      return bytes;
+    }
+
+    public String getMimeType() {
+      return mimeType;
+    }
+
+    /**
+     * @return a strong ETag derived from the image content, quoted for use in an HTTP header
+     */
+    public String getETag() {
+      return eTag;
+    }
+  }
+
+  private static class Content {
+
+    private final String digest;
+
+    private final ByteBuffer data;
+
+    private final int length;
+
+    private final Set<Alias> aliases = new LinkedHashSet<Alias>();
+
+    Content( String digest, ByteBuffer data ) {
+      this.digest = digest;
+      this.data = data;
+      this.length = data.remaining();
+    }
+
+    byte[] read() {
+      byte[] bytes = new byte[length];
+      data.duplicate().get( bytes );
+      return bytes;
+    }
+  }
+
+  private static class Alias {
+
+    private final String name;
+
+    private final Content content;
+
+    private final String mimeType;
+
+    private final File file;
+
+    Alias( String name, Content content, String mimeType, File file ) {
+      this.name = name;
+      this.content = content;
+      this.mimeType = mimeType;
+      this.file = file;
+    }
+  }
+}
@@ -0,0 +1,456 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.util.messages.LocaleHelper;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders charts on a fixed number of worker threads, so that peaks of chart requests do not run an unbounded number
+ * of Java2D renders at once.
+ * <p>
+ * Pending renders are queued per user and the workers take from the user queues in turn, so one user's large
+ * dashboard does not hold up everybody else's charts. {@link #renderAll(String, List)} renders a batch of charts in
+ * parallel, limited to {@link #getMaxParallelPerRequest()} at a time for the batch. The calling thread's session,
+ * security context, context class loader and locale are carried over to the worker. Render times are recorded per
+ * chart type. The shared instance is shut down with the system, by the charting system listener.
+ */
+public class ChartRenderingService {
+
+  public static final int DEFAULT_MAX_PARALLEL_PER_REQUEST = 4;
+
+  public static final int DEFAULT_MAX_QUEUED = 1000;
+
+  private static final Log logger = LogFactory.getLog( ChartRenderingService.class );
+
+  private static final String ANONYMOUS = ""; //$NON-NLS-1$
+
+  private static volatile ChartRenderingService instance;
+
+  private final Map<String, Deque<RenderTask<?>>> queues = new LinkedHashMap<String, Deque<RenderTask<?>>>();
+
+  private final int maxQueued;
+
+  private int queued;
+
+  private boolean shutdown;
+
+  private final List<Thread> workers = new ArrayList<Thread>();
+
+  private final ThreadLocal<Boolean> isWorker = new ThreadLocal<Boolean>();
+
+  private volatile int maxParallelPerRequest = DEFAULT_MAX_PARALLEL_PER_REQUEST;
+
+  private final Map<String, RenderStats> renderStats = new ConcurrentHashMap<String, RenderStats>();
+
+  public ChartRenderingService() {
+    this( getDefaultWorkerCount(), DEFAULT_MAX_QUEUED );
+  }
+
+  public ChartRenderingService( int workerCount, int maxQueued ) {
+    if ( workerCount < 1 ) {
+      throw new IllegalArgumentException( "workerCount must be positive" ); //$NON-NLS-1$
+    }
+    if ( maxQueued < 1 ) {
+      throw new IllegalArgumentException( "maxQueued must be positive" ); //$NON-NLS-1$
+    }
+    this.maxQueued = maxQueued;
+    for ( int i = 1; i <= workerCount; i++ ) {
+      Thread worker = new Thread( new Worker(), "ChartRenderingService pool-" + i ); //$NON-NLS-1$
+      worker.setDaemon( true );
+      workers.add( worker );
+      worker.start();
+    }
+  }
+
+  public static ChartRenderingService getInstance() {
+    ChartRenderingService service = instance;
+    if ( service == null ) {
+      synchronized ( ChartRenderingService.class ) {
+        service = instance;
+        if ( service == null ) {
+          service = new ChartRenderingService();
+          instance = service;
+        }
+      }
+    }
+    return service;
+  }
+
+  /**
+   * Replaces the shared service, shutting down the previous one.
+   *
+   * @param service the new service
+   */
+  public static void setInstance( ChartRenderingService service ) {
+    ChartRenderingService previous;
+    synchronized ( ChartRenderingService.class ) {
+      previous = instance;
+      instance = service;
+    }
+    if ( previous != null && previous != service ) {
+      previous.shutdown();
+    }
+  }
+
+  /**
+   * Queues a render for the given user. Blocks while the queue is full.
+   *
+   * @param user      the user the render is queued for
+   * @param chartType the type of chart, used for render time statistics
+   * @param render    renders the chart
+   * @return the pending result
+   * @throws InterruptedException if interrupted while waiting for room in the queue
+   */
+  public <T> Future<T> submit( String user, String chartType, Callable<T> render ) throws InterruptedException {
+    RenderTask<T> task = new RenderTask<T>( chartType, render );
+    String queueKey = user != null ? user : ANONYMOUS;
+    synchronized ( queues ) {
+      while ( queued >= maxQueued && !shutdown ) {
+        queues.wait();
+      }
+      if ( shutdown ) {
+        throw new RejectedExecutionException( "ChartRenderingService is shut down" ); //$NON-NLS-1$
+      }
+      Deque<RenderTask<?>> queue = queues.get( queueKey );
+      if ( queue == null ) {
+        queue = new ArrayDeque<RenderTask<?>>();
+        queues.put( queueKey, queue );
+      }
+      queue.addLast( task );
+      queued++;
+      queues.notifyAll();
+    }
+    return task;
+  }
+
+  /**
+   * Renders a chart on the worker pool and waits for it. Renders requested from a worker thread, or after shutdown,
+   * run on the calling thread.
+   *
+   * @param chartType the type of chart, used for render time statistics
+   * @param render    renders the chart
+   * @return the result of the render
+   * @throws Exception whatever the render throws
+   */
+  public <T> T render( String chartType, Callable<T> render ) throws Exception {
+    if ( Boolean.TRUE.equals( isWorker.get() ) ) {
+      // part of a render that is already being timed
+      return render.call();
+    }
+    if ( isShutdown() ) {
+      return timed( chartType, render );
+    }
+    return await( submit( getCurrentUser(), chartType, render ) );
+  }
+
+  /**
+   * Renders a batch of charts, such as the charts of one dashboard, in parallel. At most
+   * {@link #getMaxParallelPerRequest()} of them are queued at once.
+   *
+   * @param chartType the type of chart, used for render time statistics
+   * @param renders   renders the charts
+   * @return the results, in the order of the renders
+   * @throws Exception the first failure among the renders
+   */
+  public <T> List<T> renderAll( String chartType, List<? extends Callable<T>> renders ) throws Exception {
+    List<T> results = new ArrayList<T>( renders.size() );
+    boolean worker = Boolean.TRUE.equals( isWorker.get() );
+    if ( worker || isShutdown() ) {
+      for ( Callable<T> render : renders ) {
+        results.add( worker ? render.call() : timed( chartType, render ) );
+      }
+      return results;
+    }
+
+    String user = getCurrentUser();
+    final Semaphore permits = new Semaphore( Math.max( 1, maxParallelPerRequest ) );
+    List<Future<T>> futures = new ArrayList<Future<T>>( renders.size() );
+    try {
+      for ( final Callable<T> render : renders ) {
+        // renders cancelled by a shutdown never give their permit back
+        while ( !permits.tryAcquire( 100, TimeUnit.MILLISECONDS ) ) {
+          if ( isShutdown() ) {
+            throw new RejectedExecutionException( "ChartRenderingService is shut down" ); //$NON-NLS-1$
+          }
+        }
+        futures.add( submit( user, chartType, new Callable<T>() {
+          public T call() throws Exception {
+            try {
+              return render.call();
+            } finally {
+              permits.release();
+            }
+          }
+        } ) );
+      }
+      for ( Future<T> future : futures ) {
+        results.add( await( future ) );
+      }
+    } finally {
+      for ( Future<T> future : futures ) {
+        future.cancel( false );
+      }
+    }
+    return results;
+  }
+
+  private static <T> T await( Future<T> future ) throws Exception {
+    try {
+      return future.get();
+    } catch ( ExecutionException e ) {
+      Throwable cause = e.getCause();
+      if ( cause instanceof Exception ) {
+        throw (Exception) cause;
+      }
+      if ( cause instanceof Error ) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  private <T> T timed( String chartType, Callable<T> render ) throws Exception {
+    long start = System.nanoTime();
+    try {
+      return render.call();
+    } finally {
+      record( chartType, System.nanoTime() - start );
+    }
+  }
+
+  private void record( String chartType, long nanos ) {
+    String key = chartType != null ? chartType : ANONYMOUS;
+    RenderStats stats = renderStats.get( key );
+    if ( stats == null ) {
+      renderStats.putIfAbsent( key, new RenderStats() );
+      stats = renderStats.get( key );
+    }
+    stats.record( nanos );
+  }
+
+  private RenderTask<?> take() throws InterruptedException {
+    synchronized ( queues ) {
+      while ( queued == 0 && !shutdown ) {
+        queues.wait();
+      }
+      if ( queued == 0 ) {
+        return null;
+      }
+      // round robin: take from the first user, then move that user to the back of the line
+      Iterator<Map.Entry<String, Deque<RenderTask<?>>>> users = queues.entrySet().iterator();
+      Map.Entry<String, Deque<RenderTask<?>>> next = users.next();
+      users.remove();
+      RenderTask<?> task = next.getValue().pollFirst();
+      if ( !next.getValue().isEmpty() ) {
+        queues.put( next.getKey(), next.getValue() );
+      }
+      queued--;
+      queues.notifyAll();
+      return task;
+    }
+  }
+
+  private static String getCurrentUser() {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    return session != null && session.getName() != null ? session.getName() : ANONYMOUS;
+  }
+
+  /**
+   * Sets how many charts of one {@link #renderAll(String, List)} batch may be queued or rendering at once.
+   */
+  public void setMaxParallelPerRequest( int maxParallelPerRequest ) {
+    this.maxParallelPerRequest = maxParallelPerRequest;
+  }
+
+  public int getMaxParallelPerRequest() {
+    return maxParallelPerRequest;
+  }
+
+  public int getWorkerCount() {
+    return workers.size();
+  }
+
+  public int getQueueDepth() {
+    synchronized ( queues ) {
+      return queued;
+    }
+  }
+
+  /**
+   * @return render statistics by chart type
+   */
+  public Map<String, RenderStats> getRenderStats() {
+    return Collections.unmodifiableMap( new TreeMap<String, RenderStats>( renderStats ) );
+  }
+
+  public boolean isShutdown() {
+    synchronized ( queues ) {
+      return shutdown;
+    }
+  }
+
+  /**
+   * Stops the workers. Renders still queued are cancelled.
+   */
+  public void shutdown() {
+    synchronized ( queues ) {
+      shutdown = true;
+      for ( Deque<RenderTask<?>> queue : queues.values() ) {
+        for ( RenderTask<?> task : queue ) {
+          task.cancel( false );
+        }
+      }
+      queues.clear();
+      queued = 0;
+      queues.notifyAll();
+    }
+  }
+
+  private static int getDefaultWorkerCount() {
+    return Math.max( 2, Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * Render counts and times for one chart type.
+   */
+  public static class RenderStats {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record( long nanos ) {
+      count.increment();
+      totalNanos.add( nanos );
+      maxNanos.accumulateAndGet( nanos, Math::max );
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public double getAverageMillis() {
+      long renders = count.sum();
+      return renders == 0 ? 0d : ( totalNanos.sum() / (double) renders ) / 1000000d;
+    }
+
+    public double getMaxMillis() {
+      return maxNanos.get() / 1000000d;
+    }
+
+    public double getTotalMillis() {
+      return totalNanos.sum() / 1000000d;
+    }
+  }
+
+  private class RenderTask<T> extends FutureTask<T> {
+
+    private final String chartType;
+
+    private final IPentahoSession session;
+
+    private final Locale localeBase;
+
+    private final Locale localeOverride;
+
+    private final SecurityContext securityContext;
+
+    private final ClassLoader contextClassLoader;
+
+    RenderTask( String chartType, Callable<T> render ) {
+      super( render );
+      this.chartType = chartType;
+      this.session = PentahoSessionHolder.getSession();
+      this.localeBase = LocaleHelper.getThreadLocaleBase();
+      this.localeOverride = LocaleHelper.getThreadLocaleOverride();
+      this.securityContext = SecurityContextHolder.getContext();
+      this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @Override
+    public void run() {
+      Thread worker = Thread.currentThread();
+      ClassLoader workerClassLoader = worker.getContextClassLoader();
+      PentahoSessionHolder.setSession( session );
+      SecurityContextHolder.setContext( securityContext );
+      worker.setContextClassLoader( contextClassLoader );
+      LocaleHelper.setThreadLocaleBase( localeBase );
+      LocaleHelper.setThreadLocaleOverride( localeOverride );
+      long start = System.nanoTime();
+      try {
+        super.run();
+      } finally {
+        record( chartType, System.nanoTime() - start );
+        PentahoSessionHolder.removeSession();
+        SecurityContextHolder.clearContext();
+        // the worker must not keep a plugin class loader alive
+        worker.setContextClassLoader( workerClassLoader );
+        LocaleHelper.setThreadLocaleBase( null );
+        LocaleHelper.setThreadLocaleOverride( null );
+      }
+    }
+  }
+
+  private class Worker implements Runnable {
+
+    public void run() {
+      isWorker.set( Boolean.TRUE );
+      while ( true ) {
+        RenderTask<?> task;
+        try {
+          task = take();
+        } catch ( InterruptedException e ) {
+          return;
+        }
+        if ( task == null ) {
+          return;
+        }
+        try {
+          task.run();
+        } catch ( RuntimeException e ) {
+          logger.error( "Chart render failed", e ); //$NON-NLS-1$
+        }
+      }
+    }
+  }
+}
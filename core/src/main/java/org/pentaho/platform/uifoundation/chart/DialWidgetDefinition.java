@@ -520,10 +520,13 @@ public class DialWidgetDefinition extends WidgetDefinition implements ChartDefin
    */
   public void addInterval( final MeterInterval interval ) {
     intervals.add( interval );
-    Range range = interval.getRange();
+    extendRange( interval.getRange(), intervals.size() == 1 );
+  }
+
+  private void extendRange( final Range range, final boolean firstInterval ) {
     double min = range.getLowerBound();
     double max = range.getUpperBound();
-    if ( rangeLimited && ( intervals.size() == 1 ) ) {
+    if ( rangeLimited && firstInterval ) {
       setMinimum( min );
       setMaximum( max );
     } else {
@@ -536,6 +539,30 @@ public class DialWidgetDefinition extends WidgetDefinition implements ChartDefin
     }
   }
 
+  /**
+   * Copies this dial definition for another value. The range of the copy is derived from the value and the intervals
+   * the same way as parsing the dial definition for that value would, so a dial parsed once can be rendered for many
+   * values at the same time.
+   * 
+   * @param value
+   *          The value to be displayed by the copy
+   * @return the copy
+   */
+  public DialWidgetDefinition copyForValue( final double value ) {
+    DialWidgetDefinition copy;
+    try {
+      copy = (DialWidgetDefinition) clone();
+    } catch ( CloneNotSupportedException e ) {
+      throw new IllegalStateException( e );
+    }
+    copy.setValue( Double.valueOf( value ) );
+    copy.deriveMinMax( value );
+    for ( int i = 0; i < intervals.size(); i++ ) {
+      copy.extendRange( ( (MeterInterval) intervals.get( i ) ).getRange(), i == 0 );
+    }
+    return copy;
+  }
+
   /**
    * Sets the value to be displayed on the dial image
    * 
@@ -99,8 +99,8 @@ import java.awt.Stroke;
 import java.awt.TexturePaint;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
@@ -111,6 +111,7 @@ import java.text.SimpleDateFormat;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 
 public class JFreeChartEngine {
 
@@ -1093,12 +1094,14 @@ public class JFreeChartEngine {
   }
 
   /**
-   * Create a PNG image file from a JFreeChart object
+   * Create a PNG image from a JFreeChart object and store it in the {@link ChartImageCache}
    * 
    * @param chart
    *          The chart object to create an image from
+   * @param name
+   *          The name of the image, relative to the solution, without extension
    * @param path
-   *          The path and name of the image file to create
+   *          The path and name of the image file
    * @param width
    *          The width of the image in pixels
    * @param height
@@ -1107,10 +1110,12 @@ public class JFreeChartEngine {
    *          A writer for the iamge map to be written to
    * @throws IOException
    */
-  private static void saveChartAsPNG( final JFreeChart chart, final String path, final int width, final int height,
-      final PrintWriter writer, final ChartRenderingInfo info ) throws IOException {
-    File file = new File( path + ".png" ); //$NON-NLS-1$
-    ChartUtilities.saveChartAsPNG( file, chart, width, height, info );
+  private static void saveChartAsPNG( final JFreeChart chart, final String name, final String path, final int width,
+      final int height, final PrintWriter writer, final ChartRenderingInfo info ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ChartUtilities.writeChartAsPNG( out, chart, width, height, info );
+    ChartImageCache.getInstance().put( name + ".png", out.toByteArray(), "image/png", //$NON-NLS-1$ //$NON-NLS-2$
+        new File( path + ".png" ) ); //$NON-NLS-1$
 
     // TODO support tool tip generators
 
@@ -1123,20 +1128,22 @@ public class JFreeChartEngine {
   }
 
   /**
-   * Create an SVG image file from a JFreeChart object
+   * Create an SVG image from a JFreeChart object and store it in the {@link ChartImageCache}
    * 
    * @param chart
    *          The chart object to create an image from
+   * @param name
+   *          The name of the image, relative to the solution, without extension
    * @param path
-   *          The path and name of the image file to create
+   *          The path and name of the image file
    * @param width
    *          The width of the image in pixels
    * @param height
    *          The height of the image in pixels
    * @throws IOException
    */
-  private static void saveChartAsSVG( final JFreeChart chart, final String path, final int width, final int height,
-      final ChartRenderingInfo info ) throws IOException {
+  private static void saveChartAsSVG( final JFreeChart chart, final String name, final String path, final int width,
+      final int height, final ChartRenderingInfo info ) throws IOException {
     // THE FOLLOWING CODE BASED ON THE EXAMPLE IN THE BATIK DOCUMENTATION...
     // Get a DOMImplementation
     org.w3c.dom.DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
@@ -1148,21 +1155,26 @@ public class JFreeChartEngine {
     svgGenerator.getGeneratorContext().setPrecision( 6 );
     // Ask the chart to render into the SVG Graphics2D implementation
     chart.draw( svgGenerator, new Rectangle2D.Double( 0, 0, width, height ), info );
-    // Finally, stream out SVG to a file using UTF-8 character to byte
+    // Finally, stream out SVG using the system character to byte
     // encoding
     boolean useCSS = true;
-    Writer out =
-        new OutputStreamWriter( new FileOutputStream( new File( path + ".svg" ) ), LocaleHelper.getSystemEncoding() ); //$NON-NLS-1$
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Writer out = new OutputStreamWriter( bytes, LocaleHelper.getSystemEncoding() );
     svgGenerator.stream( out, useCSS );
+    out.flush();
+    ChartImageCache.getInstance().put( name + ".svg", bytes.toByteArray(), "image/svg+xml", //$NON-NLS-1$ //$NON-NLS-2$
+        new File( path + ".svg" ) ); //$NON-NLS-1$
   }
 
   /**
-   * Create an image file from a JFreeChart object
+   * Create an image from a JFreeChart object
    * 
    * @param chart
    *          The chart object to create an image from
+   * @param name
+   *          The name of the image, relative to the solution, without extension
    * @param path
-   *          The path and name of the image file to create
+   *          The path and name of the image file
    * @param width
    *          The width of the image in pixels
    * @param height
@@ -1172,12 +1184,13 @@ public class JFreeChartEngine {
    * @param writer
    * @throws IOException
    */
-  private static void saveChart( final JFreeChart chart, final String path, final int width, final int height,
-      final int outputType, final PrintWriter writer, final ChartRenderingInfo info ) throws IOException {
+  private static void saveChart( final JFreeChart chart, final String name, final String path, final int width,
+      final int height, final int outputType, final PrintWriter writer, final ChartRenderingInfo info )
+    throws IOException {
     if ( outputType == JFreeChartEngine.OUTPUT_PNG ) {
-      JFreeChartEngine.saveChartAsPNG( chart, path, width, height, writer, info );
+      JFreeChartEngine.saveChartAsPNG( chart, name, path, width, height, writer, info );
     } else if ( outputType == JFreeChartEngine.OUTPUT_SVG ) {
-      JFreeChartEngine.saveChartAsSVG( chart, path, width, height, info );
+      JFreeChartEngine.saveChartAsSVG( chart, name, path, width, height, info );
     }
     // TODO support other image types, e.g. JPG, GIF
   }
@@ -1238,12 +1251,19 @@ public class JFreeChartEngine {
       final int width, final int height, final int outputType, final PrintWriter writer, final ChartRenderingInfo info,
       final ILogger logger ) {
 
-    JFreeChart chart = JFreeChartEngine.getChart( dataset, title, units, width, height, logger );
-
     try {
-      String filePath = PentahoSystem.getApplicationContext().getFileOutputPath( fileName );
-      JFreeChartEngine.saveChart( chart, filePath, width, height, outputType, writer, info );
-    } catch ( IOException e ) {
+      // render on the shared, bounded chart rendering pool
+      ChartRenderingService.getInstance().render( dataset.getClass().getSimpleName(), new Callable<Void>() {
+        public Void call() throws IOException {
+          JFreeChart chart = JFreeChartEngine.getChart( dataset, title, units, width, height, logger );
+          String filePath = PentahoSystem.getApplicationContext().getFileOutputPath( fileName );
+          JFreeChartEngine.saveChart( chart, fileName, filePath, width, height, outputType, writer, info );
+          return null;
+        }
+      } );
+    } catch ( RuntimeException e ) {
+      throw e;
+    } catch ( Exception e ) {
       logger.error( Messages.getInstance().getString( "ChartEngine.ERROR_0001_COULD_NOT_CREATE_CHART" ), e ); //$NON-NLS-1$
     }
   }
@@ -34,6 +34,7 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.services.SolutionURIResolver;
 import org.pentaho.platform.engine.services.actionsequence.ActionSequenceResource;
 import org.pentaho.platform.engine.services.runtime.TemplateUtil;
+import org.pentaho.platform.uifoundation.chart.ChartRenderingService;
 import org.pentaho.platform.uifoundation.chart.DialWidgetDefinition;
 import org.pentaho.platform.uifoundation.chart.JFreeChartEngine;
 import org.pentaho.platform.uifoundation.chart.WidgetDefinition;
@@ -51,6 +52,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class WidgetGridComponent extends XmlComponent {
 
@@ -237,14 +239,28 @@ public class WidgetGridComponent extends XmlComponent {
       // XML document can't be read. We'll just return a null document.
     }
 
-    // create a dial definition from the XML definition
-    WidgetDefinition widgetDefinition =
-        new DialWidgetDefinition( dialDefinition, 0, widgetWidth, widgetHeight, getSession() );
+    return createDials( resultSet, dialDefinition );
+  }
 
-    return createDials( resultSet, widgetDefinition );
+  protected Document createDials( final IPentahoResultSet resultSet, final Document dialDefinition ) {
+    // the dial definition is parsed once and copied for the value of each row
+    WidgetDefinition widgetDefinition = null;
+    if ( dialDefinition != null ) {
+      widgetDefinition = new DialWidgetDefinition( dialDefinition, 0, widgetWidth, widgetHeight, getSession() );
+    }
+    return createWidgets( resultSet, widgetDefinition );
   }
 
+  /**
+   * @deprecated use {@link #createDials(IPentahoResultSet, Document)}; a {@link DialWidgetDefinition} is copied for
+   *             each row, any other definition is rendered for one row after the other
+   */
+  @Deprecated
   protected Document createDials( final IPentahoResultSet resultSet, final WidgetDefinition widgetDefinition ) {
+    return createWidgets( resultSet, widgetDefinition );
+  }
+
+  private Document createWidgets( final IPentahoResultSet resultSet, final WidgetDefinition prototype ) {
 
     if ( resultSet == null ) {
       error( Messages.getInstance().getErrorString( "WidgetGrid.ERROR_0001_NO_RESULTS_FROM_ACTION" ) ); //$NON-NLS-1$
@@ -292,20 +308,51 @@ public class WidgetGridComponent extends XmlComponent {
       return null;
     }
 
-    double value;
-    String name;
+    // each dial gets its own copy of the definition, so that the dials can be rendered in parallel
+    List<String> names = new ArrayList<String>();
+    List<WidgetDefinition> dials = new ArrayList<WidgetDefinition>();
+    List<Callable<String>> renders = new ArrayList<Callable<String>>();
     Object[] row = resultSet.next();
     while ( row != null ) {
-      name = row[nameColumnNo].toString();
       try {
-        value = Double.parseDouble( row[valueColumnNo].toString() );
-        createDial( value, name, root, widgetDefinition );
+        double value = Double.parseDouble( row[valueColumnNo].toString() );
+        if ( prototype instanceof DialWidgetDefinition ) {
+          final WidgetDefinition widgetDefinition = ( (DialWidgetDefinition) prototype ).copyForValue( value );
+          names.add( row[nameColumnNo].toString() );
+          dials.add( widgetDefinition );
+          renders.add( new Callable<String>() {
+            public String call() {
+              try {
+                return renderDial( widgetDefinition );
+              } catch ( Exception e ) {
+                // a dial that cannot be rendered is left out, as before
+                return null;
+              }
+            }
+          } );
+        } else {
+          // a definition that cannot be copied is shared by all rows, so they are rendered one after the other
+          createDial( value, row[nameColumnNo].toString(), root, prototype );
+        }
       } catch ( Exception e ) {
         //ignore
       }
 
       row = resultSet.next();
     }
+
+    List<String> fileNames;
+    try {
+      fileNames = ChartRenderingService.getInstance().renderAll( DialWidgetDefinition.class.getSimpleName(), renders );
+    } catch ( Exception e ) {
+      error( Messages.getInstance().getErrorString( "WidgetGrid.ERROR_0006_CANT_RENDER_DIALS" ), e ); //$NON-NLS-1$
+      return null;
+    }
+    for ( int i = 0; i < dials.size(); i++ ) {
+      if ( fileNames.get( i ) != null ) {
+        addDial( names.get( i ), fileNames.get( i ), root, dials.get( i ) );
+      }
+    }
     setXslProperty( "urlTarget", "pentaho_popup" ); //$NON-NLS-1$ //$NON-NLS-2$
     setXslProperty( "columns", Integer.toString( columns ) ); //$NON-NLS-1$
     if ( style != null ) {
@@ -314,11 +361,27 @@ public class WidgetGridComponent extends XmlComponent {
     return result;
   }
 
+  /**
+   * @deprecated dials are rendered by {@link #renderDial(WidgetDefinition)} and added by
+   *             {@link #addDial(String, String, Element, WidgetDefinition)}; this renders and adds one dial on the
+   *             calling thread, reusing the given definition
+   */
+  @Deprecated
   protected void createDial( final double value, final String name, final Element root,
       final WidgetDefinition widgetDefinition ) {
-
     widgetDefinition.setValue( new Double( value ) );
+    String fileName = renderDial( widgetDefinition );
+    if ( fileName != null ) {
+      addDial( name, fileName, root, widgetDefinition );
+    }
+  }
 
+  /**
+   * Renders a dial to a temporary file. Runs on a chart rendering worker.
+   *
+   * @return the name of the file, or <code>null</code> if the dial could not be rendered
+   */
+  protected String renderDial( final WidgetDefinition widgetDefinition ) {
     StringWriter stringWriter = new StringWriter();
     PrintWriter printWriter = new PrintWriter( stringWriter );
 
@@ -339,8 +402,18 @@ public class WidgetGridComponent extends XmlComponent {
       // TODO Auto-generated catch block
       e.printStackTrace();
     }
+    if ( fileName == null ) {
+      return null;
+    }
     JFreeChartEngine.saveChart( widgetDefinition, dialName, units, filePathWithoutExtension, widgetWidth, widgetHeight,
         JFreeChartEngine.OUTPUT_PNG, printWriter, this );
+    return fileName;
+  }
+
+  protected void addDial( final String name, final String fileName, final Element root,
+      final WidgetDefinition widgetDefinition ) {
+    // TODO get units from somewhere
+    String units = ""; //$NON-NLS-1$
 
     Element widgetNode = root.addElement( "widget" ); //$NON-NLS-1$
 
@@ -349,7 +422,7 @@ public class WidgetGridComponent extends XmlComponent {
     widgetNode.addElement( "width" ).setText( Integer.toString( widgetWidth ) ); //$NON-NLS-1$
     widgetNode.addElement( "height" ).setText( Integer.toString( widgetHeight ) ); //$NON-NLS-1$
     Element valueNode = widgetNode.addElement( "value" ); //$NON-NLS-1$
-    valueNode.setText( Double.toString( value ) );
+    valueNode.setText( Double.toString( widgetDefinition.getValue().doubleValue() ) );
     valueNode.addAttribute( "in-image", Boolean.toString( widgetDefinition.getValueFont() != null ) ); //$NON-NLS-1$
     root.addElement( "image" ).setText( fileName ); //$NON-NLS-1$
     widgetNode.addElement( "image" ).setText( fileName ); //$NON-NLS-1$
@@ -0,0 +1,45 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.engine.core.system;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StandaloneTempFileDeleterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDeleteListenersAreToldAboutDeletedFiles() throws Exception {
+    List<File> deleted = new CopyOnWriteArrayList<File>();
+    StandaloneTempFileDeleter.addDeleteListener( deleted::add );
+    File file = folder.newFile( "tmp_chart_1.png" );
+    StandaloneTempFileDeleter deleter = new StandaloneTempFileDeleter();
+    deleter.trackTempFile( file );
+
+    deleter.doTempFileCleanup();
+
+    assertFalse( file.exists() );
+    assertTrue( deleted.contains( file ) );
+    assertFalse( deleter.hasTempFile( file.getName() ) );
+  }
+}
@@ -0,0 +1,166 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.engine.core.system;
+
+import org.junit.Test;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.IPentahoSystemListener;
+import org.pentaho.platform.api.engine.PentahoSystemException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SystemListenerStartupTest {
+
+  private final List<String> started = Collections.synchronizedList( new ArrayList<>() );
+
+  private class Listener implements IPentahoSystemListener {
+    private final String name;
+    private final List<String> dependencies;
+    private CountDownLatch latch;
+
+    Listener( String name, String... dependencies ) {
+      this.name = name;
+      this.dependencies = dependencies.length == 1 && dependencies[ 0 ] == null ? null : Arrays.asList( dependencies );
+    }
+
+    @Override
+    public boolean startup( IPentahoSession session ) {
+      started.add( name );
+      if ( latch != null ) {
+        latch.countDown();
+        try {
+          return latch.await( 10, TimeUnit.SECONDS );
+        } catch ( InterruptedException e ) {
+          return false;
+        }
+      }
+      return !name.startsWith( "failing" );
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<String> getStartupDependencies() {
+      return dependencies;
+    }
+  }
+
+  private class Repository extends Listener {
+    Repository() {
+      super( "repository", (String) null );
+    }
+  }
+
+  private void run( int threads, IPentahoSystemListener... listeners ) throws PentahoSystemException {
+    new SystemListenerStartup( threads ).run( Arrays.asList( listeners ), listener -> {
+      if ( !listener.startup( null ) ) {
+        throw new PentahoSystemException( "failed" );
+      }
+    } );
+  }
+
+  @Test
+  public void testUndeclaredListenersStartInOrder() throws Exception {
+    run( 4, new Listener( "a", (String) null ), new Listener( "b", (String) null ),
+      new Listener( "c", (String) null ) );
+
+    assertEquals( Arrays.asList( "a", "b", "c" ), started );
+  }
+
+  @Test
+  public void testListenersStartAfterTheirDependencies() throws Exception {
+    run( 4, new Listener( "plugins", (String) null ), new Repository(), new Listener( "content", "Repository" ),
+      new Listener( "reports" ) );
+
+    assertEquals( 4, started.size() );
+    assertTrue( started.indexOf( "repository" ) < started.indexOf( "content" ) );
+    assertTrue( started.indexOf( "plugins" ) < started.indexOf( "repository" ) );
+  }
+
+  @Test
+  public void testIndependentListenersStartConcurrently() throws Exception {
+    CountDownLatch bothStarted = new CountDownLatch( 2 );
+    Listener first = new Listener( "first" );
+    Listener second = new Listener( "second" );
+    first.latch = bothStarted;
+    second.latch = bothStarted;
+
+    run( 2, first, second );
+
+    assertEquals( 0, bothStarted.getCount() );
+  }
+
+  @Test
+  public void testFailureStopsTheStartup() {
+    try {
+      run( 4, new Listener( "a", (String) null ), new Listener( "failing", (String) null ),
+        new Listener( "c", (String) null ) );
+      fail();
+    } catch ( PentahoSystemException e ) {
+      assertEquals( Arrays.asList( "a", "failing" ), started );
+    }
+  }
+
+  @Test
+  public void testErrorOnAWorkerFailsTheStartup() {
+    Listener broken = new Listener( "broken" ) {
+      @Override
+      public boolean startup( IPentahoSession session ) {
+        super.startup( session );
+        throw new NoClassDefFoundError( "missing" );
+      }
+    };
+    try {
+      // content depends on every Listener, the broken one included
+      run( 4, new Repository(), broken, new Listener( "content", "Listener" ) );
+      fail();
+    } catch ( PentahoSystemException e ) {
+      assertTrue( e.getCause() instanceof NoClassDefFoundError );
+      assertEquals( 2, started.size() );
+      assertTrue( started.contains( "broken" ) );
+      assertFalse( started.contains( "content" ) );
+    }
+  }
+
+  @Test
+  public void testCyclesAreIgnored() {
+    List<Integer> order = new ArrayList<>();
+    List<IPentahoSystemListener> listeners = Arrays.asList( new Listener( "a", "Repository" ), new Repository() );
+
+    SystemListenerStartup.resolveDependencies( listeners, order );
+
+    assertEquals( Arrays.asList( 1, 0 ), order );
+  }
+
+  @Test
+  public void testCriticalPath() {
+    List<List<Integer>> dependencies = Arrays.asList( Collections.emptyList(), Collections.emptyList(),
+      Arrays.asList( 0, 1 ), Collections.singletonList( 0 ) );
+
+    assertEquals( Arrays.asList( 1, 2 ), SystemListenerStartup.criticalPath( dependencies,
+      new long[] { 10, 30, 50, 40 } ) );
+  }
+}
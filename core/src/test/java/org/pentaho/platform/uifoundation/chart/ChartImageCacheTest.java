@@ -0,0 +1,169 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChartImageCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ChartImageCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new ChartImageCache();
+  }
+
+  private File file( String name ) {
+    return new File( folder.getRoot(), name );
+  }
+
+  @Test
+  public void testImageIsServedFromMemory() throws Exception {
+    byte[] png = { 1, 2, 3 };
+
+    assertTrue( cache.put( "system/tmp/a.png", png, "image/png", file( "a.png" ) ) );
+
+    ChartImageCache.CachedImage image = cache.get( "system\\tmp\\a.png" );
+    assertNotNull( image );
+    assertArrayEquals( png, image.getBytes() );
+    assertEquals( "image/png", image.getMimeType() );
+    assertTrue( image.getETag().startsWith( "\"" ) );
+    // the name resolves to the complete image on disk as well
+    assertArrayEquals( png, FileUtils.readFileToByteArray( file( "a.png" ) ) );
+    assertNull( cache.get( "system/tmp/b.png" ) );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+  }
+
+  @Test
+  public void testIdenticalImagesShareContent() throws Exception {
+    cache.put( "system/tmp/a.png", new byte[] { 1, 2, 3 }, "image/png", file( "a.png" ) );
+    cache.put( "system/tmp/b.png", new byte[] { 1, 2, 3 }, "image/png", file( "b.png" ) );
+    cache.put( "system/tmp/c.png", new byte[] { 4, 5, 6 }, "image/png", file( "c.png" ) );
+
+    assertEquals( 3, cache.getImageCount() );
+    assertEquals( 2, cache.getContentCount() );
+    assertEquals( 6, cache.getContentBytes() );
+    assertEquals( cache.get( "system/tmp/a.png" ).getETag(), cache.get( "system/tmp/b.png" ).getETag() );
+    assertFalse( cache.get( "system/tmp/a.png" ).getETag().equals( cache.get( "system/tmp/c.png" ).getETag() ) );
+  }
+
+  @Test
+  public void testOversizedImageGoesToFile() throws Exception {
+    cache.setMaxImageBytes( 2 );
+
+    assertFalse( cache.put( "system/tmp/a.png", new byte[] { 1, 2, 3 }, "image/png", file( "a.png" ) ) );
+
+    assertNull( cache.get( "system/tmp/a.png" ) );
+    assertArrayEquals( new byte[] { 1, 2, 3 }, FileUtils.readFileToByteArray( file( "a.png" ) ) );
+    assertEquals( 1, cache.getSpillCount() );
+  }
+
+  @Test
+  public void testEvictedContentIsForgotten() throws Exception {
+    cache.setMaxBytes( 5 );
+    cache.put( "system/tmp/a.png", new byte[] { 1, 2, 3 }, "image/png", file( "a.png" ) );
+    long written = file( "a.png" ).lastModified();
+    cache.put( "system/tmp/b.png", new byte[] { 4, 5, 6 }, "image/png", file( "b.png" ) );
+
+    assertNull( cache.get( "system/tmp/a.png" ) );
+    assertNotNull( cache.get( "system/tmp/b.png" ) );
+    assertArrayEquals( new byte[] { 1, 2, 3 }, FileUtils.readFileToByteArray( file( "a.png" ) ) );
+    assertEquals( written, file( "a.png" ).lastModified() );
+    assertEquals( 2, folder.getRoot().list().length );
+    assertEquals( 3, cache.getContentBytes() );
+  }
+
+  @Test
+  public void testOldestNamesBeyondLimitAreForgotten() throws Exception {
+    cache.setMaxImages( 1 );
+    cache.put( "system/tmp/a.png", new byte[] { 1 }, "image/png", file( "a.png" ) );
+    cache.put( "system/tmp/b.png", new byte[] { 1 }, "image/png", file( "b.png" ) );
+
+    assertNull( cache.get( "system/tmp/a.png" ) );
+    assertTrue( file( "a.png" ).exists() );
+    assertEquals( 1, cache.getImageCount() );
+    assertEquals( 1, cache.getContentCount() );
+  }
+
+  @Test
+  public void testImageIsForgottenWhenItsFileIsDeleted() throws Exception {
+    cache.put( "system/tmp/a.svg", new byte[] { 1, 2 }, "image/svg+xml", file( "a.svg" ) );
+    cache.put( "system/tmp/b.svg", new byte[] { 1, 2 }, "image/svg+xml", file( "b.svg" ) );
+
+    file( "a.svg" ).delete();
+    cache.fileDeleted( file( "a.svg" ) );
+
+    assertNull( cache.get( "system/tmp/a.svg" ) );
+    assertNotNull( cache.get( "system/tmp/b.svg" ) );
+    assertEquals( 1, cache.getImageCount() );
+  }
+
+  @Test
+  public void testImageIsNotCachedWhenItsFileCannotBeWritten() throws Exception {
+    File directory = folder.newFolder( "a.png" );
+
+    try {
+      cache.put( "system/tmp/a.png", new byte[] { 1 }, "image/png", directory );
+      fail();
+    } catch ( IOException e ) {
+      // expected
+    }
+
+    assertNull( cache.get( "system/tmp/a.png" ) );
+    assertEquals( 0, cache.getImageCount() );
+  }
+
+  @Test
+  public void testOffHeapContent() throws Exception {
+    cache.setOffHeap( true );
+    cache.put( "system/tmp/a.png", new byte[] { 7, 8, 9 }, "image/png", file( "a.png" ) );
+
+    assertArrayEquals( new byte[] { 7, 8, 9 }, cache.get( "system/tmp/a.png" ).getBytes() );
+    assertArrayEquals( new byte[] { 7, 8, 9 }, cache.get( "system/tmp/a.png" ).getBytes() );
+  }
+
+  @Test
+  public void testRemoveAndClear() throws Exception {
+    cache.put( "system/tmp/a.png", new byte[] { 1 }, "image/png", file( "a.png" ) );
+    cache.put( "system/tmp/b.png", new byte[] { 2 }, "image/png", file( "b.png" ) );
+
+    cache.remove( "system/tmp/a.png" );
+    assertEquals( 1, cache.getImageCount() );
+    assertEquals( 1, cache.getContentBytes() );
+
+    cache.clear();
+    assertEquals( 0, cache.getImageCount() );
+    assertEquals( 0, cache.getContentBytes() );
+    assertTrue( file( "a.png" ).exists() );
+  }
+}
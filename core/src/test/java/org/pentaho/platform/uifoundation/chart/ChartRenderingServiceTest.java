@@ -0,0 +1,149 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChartRenderingServiceTest {
+
+  private ChartRenderingService service;
+
+  @After
+  public void tearDown() {
+    if ( service != null ) {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  public void testUsersAreServedInTurn() throws Exception {
+    service = new ChartRenderingService( 1, 100 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+
+    Future<?> blocker = service.submit( "blocker", "test", () -> release.await( 5, TimeUnit.SECONDS ) );
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for ( String name : Arrays.asList( "a1", "a2", "a3" ) ) {
+      futures.add( service.submit( "alice", "test", () -> order.add( name ) ) );
+    }
+    futures.add( service.submit( "bob", "test", () -> order.add( "b1" ) ) );
+
+    release.countDown();
+    blocker.get( 5, TimeUnit.SECONDS );
+    for ( Future<?> future : futures ) {
+      future.get( 5, TimeUnit.SECONDS );
+    }
+
+    assertEquals( Arrays.asList( "a1", "b1", "a2", "a3" ), order );
+  }
+
+  @Test
+  public void testRenderAllLimitsParallelismPerRequest() throws Exception {
+    service = new ChartRenderingService( 8, 100 );
+    service.setMaxParallelPerRequest( 2 );
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    List<Callable<Integer>> renders = new ArrayList<Callable<Integer>>();
+    for ( int i = 0; i < 10; i++ ) {
+      final int chart = i;
+      renders.add( () -> {
+        peak.accumulateAndGet( running.incrementAndGet(), Math::max );
+        Thread.sleep( 20 );
+        running.decrementAndGet();
+        return chart;
+      } );
+    }
+
+    List<Integer> results = service.renderAll( "PieDatasetChartDefinition", renders );
+
+    assertEquals( Arrays.asList( 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 ), results );
+    assertTrue( peak.get() <= 2 );
+    assertEquals( 10, service.getRenderStats().get( "PieDatasetChartDefinition" ).getCount() );
+  }
+
+  @Test
+  public void testRenderRethrowsFailure() throws Exception {
+    service = new ChartRenderingService( 1, 10 );
+    try {
+      service.render( "test", () -> {
+        throw new IllegalStateException( "boom" );
+      } );
+      fail();
+    } catch ( IllegalStateException e ) {
+      assertEquals( "boom", e.getMessage() );
+    }
+  }
+
+  @Test
+  public void testNestedRenderRunsOnWorker() throws Exception {
+    service = new ChartRenderingService( 1, 10 );
+
+    // with a single worker, waiting on the pool from inside a render would deadlock
+    String result = service.render( "outer", () -> service.render( "inner", () -> "done" ) );
+
+    assertEquals( "done", result );
+    assertEquals( 1, service.getRenderStats().get( "inner" ).getCount() );
+    assertEquals( 1, service.getRenderStats().get( "outer" ).getCount() );
+  }
+
+  @Test
+  public void testRenderAfterShutdownRunsInline() throws Exception {
+    service = new ChartRenderingService( 1, 10 );
+    service.shutdown();
+
+    assertEquals( Thread.currentThread().getName(), service.render( "test", () -> Thread.currentThread().getName() ) );
+  }
+
+  @Test
+  public void testRenderCarriesSecurityContextAndClassLoader() throws Exception {
+    service = new ChartRenderingService( 1, 10 );
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    ClassLoader caller = Thread.currentThread().getContextClassLoader();
+    ClassLoader plugin = new URLClassLoader( new URL[0], caller );
+    SecurityContextHolder.setContext( context );
+    Thread.currentThread().setContextClassLoader( plugin );
+    try {
+      assertSame( context, service.render( "test", SecurityContextHolder::getContext ) );
+      assertSame( plugin, service.render( "test", () -> Thread.currentThread().getContextClassLoader() ) );
+    } finally {
+      Thread.currentThread().setContextClassLoader( caller );
+      SecurityContextHolder.clearContext();
+    }
+
+    // the worker is left as it was
+    assertNotSame( plugin, service.render( "test", () -> Thread.currentThread().getContextClassLoader() ) );
+    assertNotSame( context, service.render( "test", SecurityContextHolder::getContext ) );
+  }
+}
@@ -0,0 +1,57 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.uifoundation.chart;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class DialWidgetDefinitionTest {
+
+  private static final String DIAL = "<dial><range-limited>%s</range-limited><intervals>" //$NON-NLS-1$
+    + "<interval><label>low</label><minimum>0</minimum><maximum>30</maximum>" //$NON-NLS-1$
+    + "<text-color>#FF0000</text-color></interval>" //$NON-NLS-1$
+    + "<interval><label>high</label><minimum>30</minimum><maximum>100</maximum>" //$NON-NLS-1$
+    + "<text-color>#00FF00</text-color></interval></intervals></dial>"; //$NON-NLS-1$
+
+  @Test
+  public void testCopyForValueMatchesParsingForThatValue() throws Exception {
+    for ( String rangeLimited : new String[] { "true", "false" } ) { //$NON-NLS-1$ //$NON-NLS-2$
+      Document document = DocumentHelper.parseText( String.format( DIAL, rangeLimited ) );
+      DialWidgetDefinition prototype = new DialWidgetDefinition( document, 0, 100, 100, null );
+      for ( double value : new double[] { -5, 0, 37, 250 } ) {
+        DialWidgetDefinition parsed = new DialWidgetDefinition( document, value, 100, 100, null );
+        DialWidgetDefinition copy = prototype.copyForValue( value );
+
+        assertNotSame( prototype, copy );
+        assertEquals( parsed.getValue().doubleValue(), copy.getValue().doubleValue(), 0 );
+        assertEquals( parsed.getMinimum(), copy.getMinimum(), 0 );
+        assertEquals( parsed.getMaximum(), copy.getMaximum(), 0 );
+        assertEquals( parsed.getIntervals().size(), copy.getIntervals().size() );
+      }
+      assertEquals( 0, prototype.getValue().doubleValue(), 0 );
+    }
+  }
+
+  @Test
+  public void testCopiesShareTheParsedIntervals() throws Exception {
+    Document document = DocumentHelper.parseText( String.format( DIAL, "true" ) ); //$NON-NLS-1$
+    DialWidgetDefinition prototype = new DialWidgetDefinition( document, 0, 100, 100, null );
+
+    assertSame( prototype.getIntervals(), prototype.copyForValue( 42 ).getIntervals() );
+  }
+}
@@ -16,6 +16,7 @@ import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 import org.pentaho.platform.api.engine.IContentInfo;
 import org.pentaho.platform.api.engine.IPentahoDefinableObjectFactory;
+import org.pentaho.platform.api.engine.IPentahoObjectRegistration;
 import org.pentaho.platform.api.engine.IPlatformPlugin;
 import org.pentaho.platform.api.engine.IPluginProvider;
 import org.pentaho.platform.api.engine.IPluginResourceLoader;
@@ -29,6 +30,7 @@ import org.pentaho.platform.config.SystemConfig;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.core.system.StandaloneSession;
 import org.pentaho.platform.engine.core.system.boot.PlatformInitializationException;
+import org.pentaho.platform.engine.core.system.objfac.references.SingletonPentahoObjectReference;
 import org.pentaho.platform.engine.services.solution.SolutionEngine;
 import org.pentaho.platform.plugin.services.pluginmgr.servicemgr.DefaultServiceManager;
 import org.pentaho.platform.repository2.unified.fs.FileSystemBackedUnifiedRepository;
@@ -38,10 +40,13 @@ import org.pentaho.test.platform.utils.TestResourceLocation;
 import org.pentaho.ui.xul.XulOverlay;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -162,6 +167,35 @@ public class PentahoSystemPluginManagerIT extends DefaultPluginManagerIT {
     assertEquals( "ContentInfo should have been deregistered.", 0, contentInfos.size() );
   }
 
+  @Test
+  public void testPluginIndexFollowsReloadAndUnload() throws Exception {
+    init0();
+    microPlatform.start();
+    microPlatform.define( IPluginProvider.class, Tst5PluginProvider.class ).start();
+
+    pluginManager.reload();
+    ClassLoader loader = pluginManager.getClassLoader( "good-plugin1" );
+    assertEquals( "good-plugin1", pluginManager.getPluginIdForClassLoader( loader ) );
+
+    // a classloader registered after the index was built is still found
+    ClassLoader late = mock( ClassLoader.class );
+    IPentahoObjectRegistration registration = PentahoSystem.registerReference(
+      new SingletonPentahoObjectReference.Builder<>( ClassLoader.class ).object( late )
+        .attributes( Collections.singletonMap( PentahoSystemPluginManager.PLUGIN_ID, "late-plugin" ) ).build(),
+      ClassLoader.class );
+    assertEquals( "late-plugin", pluginManager.getPluginIdForClassLoader( late ) );
+    registration.remove();
+
+    pluginManager.unloadAllPlugins();
+    assertNull( pluginManager.getPluginIdForClassLoader( loader ) );
+
+    pluginManager.reload();
+    ClassLoader reloaded = pluginManager.getClassLoader( "good-plugin1" );
+    assertNotSame( loader, reloaded );
+    assertNull( pluginManager.getPluginIdForClassLoader( loader ) );
+    assertEquals( "good-plugin1", pluginManager.getPluginIdForClassLoader( reloaded ) );
+  }
+
   @Test
   @Override
   public void test5c_getBeanBadClassname() throws PlatformInitializationException {
@@ -0,0 +1,182 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor backing the monitoring event bus.
+ * <p/>
+ * Runs dispatch tasks on a fixed number of daemon workers fed by a bounded queue. When the queue is full, tasks run
+ * on the posting thread so that producers are slowed down instead of the JVM spawning more threads; only tasks
+ * submitted through {@link #tryExecute(Runnable)} are dropped. Queue depth, drop counts and queue-to-dispatch latency
+ * are tracked.
+ */
+public class MonitoringEventExecutor implements Executor {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+  private Logger logger = LoggerFactory.getLogger( MonitoringEventExecutor.class );
+
+  private final ThreadPoolExecutor threadPool;
+
+  private final LongAdder executedCount = new LongAdder();
+
+  private final LongAdder droppedCount = new LongAdder();
+
+  private final LongAdder totalLatencyNanos = new LongAdder();
+
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+  public MonitoringEventExecutor() {
+    this( getDefaultWorkerCount(), DEFAULT_QUEUE_CAPACITY );
+  }
+
+  public MonitoringEventExecutor( int workerCount, int queueCapacity ) {
+    if ( workerCount < 1 ) {
+      throw new IllegalArgumentException( "workerCount must be positive" );
+    }
+    if ( queueCapacity < 1 ) {
+      throw new IllegalArgumentException( "queueCapacity must be positive" );
+    }
+
+    threadPool = new ThreadPoolExecutor( workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<Runnable>( queueCapacity ), new MonitoringThreadFactory(),
+      new ThreadPoolExecutor.AbortPolicy() );
+  }
+
+  /**
+   * Submits a task for execution. When the queue is full, the task runs on the submitting thread, so that producers
+   * are slowed down instead of events being lost. Tasks submitted after {@link #shutdown()} are dropped.
+   */
+  @Override
+  public void execute( Runnable task ) {
+    Runnable timedTask = new TimedTask( task, System.nanoTime() );
+    try {
+      threadPool.execute( timedTask );
+    } catch ( RejectedExecutionException e ) {
+      if ( threadPool.isShutdown() ) {
+        droppedCount.increment();
+        return;
+      }
+      // back-pressure: the poster pays for the dispatch
+      timedTask.run();
+    }
+  }
+
+  /**
+   * Submits a task which may be dropped, e.g. one that a later task supersedes.
+   *
+   * @param task the task
+   * @return <code>false</code> if the task was dropped because the queue is full; <code>true</code> otherwise
+   */
+  public boolean tryExecute( Runnable task ) {
+    try {
+      threadPool.execute( new TimedTask( task, System.nanoTime() ) );
+    } catch ( RejectedExecutionException e ) {
+      droppedCount.increment();
+      logger.debug( "monitoring event queue is full, dropping dispatch task" );
+      return false;
+    }
+    return true;
+  }
+
+  public int getWorkerCount() {
+    return threadPool.getMaximumPoolSize();
+  }
+
+  public int getQueueDepth() {
+    return threadPool.getQueue().size();
+  }
+
+  public int getQueueCapacity() {
+    return threadPool.getQueue().size() + threadPool.getQueue().remainingCapacity();
+  }
+
+  public long getExecutedCount() {
+    return executedCount.sum();
+  }
+
+  public long getDroppedCount() {
+    return droppedCount.sum();
+  }
+
+  /**
+   * @return average time, in milliseconds, between a task being submitted and it starting to run
+   */
+  public double getAverageLatencyMillis() {
+    long executed = executedCount.sum();
+    return executed == 0 ? 0d : ( totalLatencyNanos.sum() / (double) executed ) / 1000000d;
+  }
+
+  /**
+   * @return longest time, in milliseconds, between a task being submitted and it starting to run
+   */
+  public double getMaxLatencyMillis() {
+    return maxLatencyNanos.get() / 1000000d;
+  }
+
+  public void shutdown() {
+    threadPool.shutdown();
+  }
+
+  private static int getDefaultWorkerCount() {
+    return Math.max( 2, Runtime.getRuntime().availableProcessors() );
+  }
+
+  private class TimedTask implements Runnable {
+
+    private final Runnable task;
+
+    private final long submittedNanos;
+
+    TimedTask( Runnable task, long submittedNanos ) {
+      this.task = task;
+      this.submittedNanos = submittedNanos;
+    }
+
+    @Override
+    public void run() {
+      long latency = System.nanoTime() - submittedNanos;
+      totalLatencyNanos.add( latency );
+      maxLatencyNanos.accumulateAndGet( latency, Math::max );
+      executedCount.increment();
+
+      task.run();
+    }
+  }
+
+  private static class MonitoringThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadNumber = new AtomicInteger( 1 );
+
+    @Override
+    public Thread newThread( Runnable r ) {
+      Thread thread = new Thread( r, "MonitoringService pool-" + threadNumber.getAndIncrement() );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+}
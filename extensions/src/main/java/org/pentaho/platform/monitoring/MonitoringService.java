@@ -24,35 +24,58 @@ import org.pentaho.platform.monitoring.subscribers.MonitoringDeadEventSubscriber
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Wrapper for the AsyncEventBus class.
  * <p/>
- * The methods of AsyncEventBus use internal synchronization, so this singleton is thread-safe
+ * The methods of AsyncEventBus use internal synchronization, so this singleton is thread-safe and posting does not
+ * take any lock of its own. Events are dispatched on a {@link MonitoringEventExecutor}, which has a fixed number of
+ * workers and a bounded queue.
+ * <p/>
+ * Event types listed in {@link #setCoalescedEventTypes(Collection)} are coalesced: while an event of such a type is
+ * waiting to be dispatched, a newer event of the same type and id replaces it. Only coalesced events are dropped when
+ * the dispatch queue is full; other events are then dispatched by the posting thread. No event types are coalesced
+ * unless they are configured, see monitoring-eventbus-plugin/plugin.spring.xml.
  */
 public class MonitoringService implements IMonitoringService {
 
   private Logger logger = LoggerFactory.getLogger( MonitoringService.class );
 
+  private final MonitoringEventExecutor executor;
+
   private AsyncEventBus asyncEventBus; // asynchronous dispatching of events
 
+  private volatile Set<String> coalescedEventTypes = Collections.emptySet();
+
+  private final Map<Map.Entry<Class<?>, Serializable>, IMonitoringEvent> pendingCoalescedEvents =
+    new ConcurrentHashMap<>();
+
+  private final LongAdder postedCount = new LongAdder();
+
+  private final LongAdder coalescedCount = new LongAdder();
+
 
   public MonitoringService() {
+    this( new MonitoringEventExecutor() );
+  }
+
+  public MonitoringService( int workerCount, int queueCapacity ) {
+    this( new MonitoringEventExecutor( workerCount, queueCapacity ) );
+  }
+
+  protected MonitoringService( MonitoringEventExecutor executor ) {
 
-    asyncEventBus = new AsyncEventBus( Executors.newCachedThreadPool(
-        new ThreadFactory() {
-          @Override
-          public Thread newThread( Runnable r ) {
-            Thread thread = Executors.defaultThreadFactory().newThread( r );
-            thread.setDaemon( true );
-            thread.setName( "MonitoringService pool" );
-            return thread;
-          }
-        }
-    ) );
+    this.executor = executor;
+    asyncEventBus = new AsyncEventBus( executor );
 
     // register the bus with PentahoSystem
     PentahoSystem.registerReference(
@@ -73,7 +96,7 @@ public class MonitoringService implements IMonitoringService {
    * @param subscriber IMonitoringSubscriber event handler
    */
   @Override
-  public synchronized <T extends IMonitoringSubscriber> void register( T subscriber ) {
+  public <T extends IMonitoringSubscriber> void register( T subscriber ) {
     logger.debug( "registering subscriber " + ( subscriber != null ? subscriber.getSubscriberId() : "null" ) );
     getAsyncEventBus().register( subscriber );
   }
@@ -84,7 +107,7 @@ public class MonitoringService implements IMonitoringService {
    * @param subscriber IMonitoringSubscriber event handler
    */
   @Override
-  public synchronized <T extends IMonitoringSubscriber> void unregister( T subscriber ) {
+  public <T extends IMonitoringSubscriber> void unregister( T subscriber ) {
     logger.debug( "unregistering subscriber " + ( subscriber != null ? subscriber.getSubscriberId() : "null" ) );
     getAsyncEventBus().unregister( subscriber );
   }
@@ -95,9 +118,83 @@ public class MonitoringService implements IMonitoringService {
    * @param event IMonitoringEvent event object
    */
   @Override
-  public synchronized <T extends IMonitoringEvent> void post( T event ) {
-    logger.debug( "posting event " + ( event != null ? event.getId() : "null" ) );
-    getAsyncEventBus().post( event );
+  public <T extends IMonitoringEvent> void post( T event ) {
+    if ( logger.isDebugEnabled() ) {
+      logger.debug( "posting event " + ( event != null ? event.getId() : "null" ) );
+    }
+    postedCount.increment();
+
+    if ( event != null && coalescedEventTypes.contains( event.getClass().getName() ) ) {
+      postCoalesced( event );
+    } else {
+      getAsyncEventBus().post( event );
+    }
+  }
+
+  private void postCoalesced( IMonitoringEvent event ) {
+    Map.Entry<Class<?>, Serializable> key = new AbstractMap.SimpleImmutableEntry<>( event.getClass(), event.getId() );
+    if ( pendingCoalescedEvents.put( key, event ) != null ) {
+      // the pending event is superseded by this newer one
+      coalescedCount.increment();
+      return;
+    }
+
+    // the event stays pending until a worker picks it up, which is the coalescing window; the bus then dispatches
+    // it through the same executor, which runs it on the worker rather than dropping it if the queue is full
+    boolean accepted = executor.tryExecute( () -> {
+      IMonitoringEvent newest = pendingCoalescedEvents.remove( key );
+      if ( newest != null ) {
+        getAsyncEventBus().post( newest );
+      }
+    } );
+
+    if ( !accepted && !pendingCoalescedEvents.remove( key, event ) ) {
+      // a newer event replaced this one while its task was rejected; nothing would ever dispatch it, so it gets a
+      // dispatch attempt of its own instead of being dropped along with this one
+      IMonitoringEvent newer = pendingCoalescedEvents.remove( key );
+      if ( newer != null ) {
+        postCoalesced( newer );
+      }
+    }
+  }
+
+  /**
+   * Sets the fully qualified class names of the event types which are coalesced while pending dispatch.
+   *
+   * @param coalescedEventTypes event class names
+   */
+  public void setCoalescedEventTypes( Collection<String> coalescedEventTypes ) {
+    this.coalescedEventTypes = coalescedEventTypes != null
+      ? Collections.unmodifiableSet( new HashSet<>( coalescedEventTypes ) )
+      : Collections.<String>emptySet();
+  }
+
+  public Set<String> getCoalescedEventTypes() {
+    return coalescedEventTypes;
+  }
+
+  public long getPostedCount() {
+    return postedCount.sum();
+  }
+
+  public long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  public long getDroppedCount() {
+    return executor.getDroppedCount();
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueueDepth();
+  }
+
+  public double getAverageDispatchLatencyMillis() {
+    return executor.getAverageLatencyMillis();
+  }
+
+  public double getMaxDispatchLatencyMillis() {
+    return executor.getMaxLatencyMillis();
   }
 
   private AsyncEventBus getAsyncEventBus() {
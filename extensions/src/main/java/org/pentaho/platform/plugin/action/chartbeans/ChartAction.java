@@ -35,6 +35,7 @@ import org.pentaho.platform.api.engine.IPentahoRequestContext;
 import org.pentaho.platform.engine.core.system.PentahoRequestContextHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.plugin.action.messages.Messages;
+import org.pentaho.platform.uifoundation.chart.ChartRenderingService;
 import org.pentaho.platform.util.messages.LocaleHelper;
 
 import javax.imageio.ImageIO;
@@ -198,9 +199,10 @@ public class ChartAction implements IStreamingAction {
     try {
       IChartLinkGenerator chartLinkGenerator =
         contentLinkingTemplate == null ? null : new ChartLinkGenerator( contentLinkingTemplate );
-      is =
-        ChartBeanFactory.createChart( data, scalingFactor, convertNullsToZero, valueColumn, seriesColumn,
-          categoryColumn, chartModel, chartLinkGenerator, chartWidth, chartHeight, getOutputType() );
+      // render on the shared, bounded chart rendering pool
+      is = ChartRenderingService.getInstance().render( getChartType(),
+        () -> ChartBeanFactory.createChart( data, scalingFactor, convertNullsToZero, valueColumn, seriesColumn,
+          categoryColumn, chartModel, chartLinkGenerator, chartWidth, chartHeight, getOutputType() ) );
       // Wrap output as necessary
       if ( OpenFlashChartPlugin.PLUGIN_ID.equals( chartEngine ) ) {
         // Convert stream to string, insert into HTML fragment and re-stream it
@@ -279,6 +281,10 @@ public class ChartAction implements IStreamingAction {
     }
   }
 
+  private String getChartType() {
+    return chartModel.getPlot() != null ? chartModel.getPlot().getClass().getSimpleName() : chartEngine;
+  }
+
   public void setContentLinkingTemplate( String template ) {
     contentLinkingTemplate = template;
   }
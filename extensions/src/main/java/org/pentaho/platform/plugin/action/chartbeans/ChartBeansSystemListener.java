@@ -22,9 +22,11 @@ import org.pentaho.platform.api.engine.IPluginManager;
 import org.pentaho.platform.api.engine.PluginBeanException;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.plugin.action.messages.Messages;
+import org.pentaho.platform.uifoundation.chart.ChartRenderingService;
 import org.pentaho.platform.util.logging.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -118,12 +120,21 @@ public class ChartBeansSystemListener implements IPentahoSystemListener {
     return plugins;
   }
 
+  /**
+   * Chart plugins may be overridden by plugin beans, so the plugins must be registered first.
+   */
+  @Override
+  public List<String> getStartupDependencies() {
+    return Collections.singletonList( "PluginAdapter" ); //$NON-NLS-1$
+  }
+
   public void setConfigFile( String configFile ) {
     this.configFile = configFile;
   }
 
   public void shutdown() {
-    // Nothing required
+    // stops the chart rendering workers; a render requested afterwards starts a new service
+    ChartRenderingService.setInstance( null );
   }
 
 }
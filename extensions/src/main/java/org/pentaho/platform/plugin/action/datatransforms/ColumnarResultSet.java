@@ -0,0 +1,249 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.datatransforms;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.pentaho.commons.connection.IPentahoMetaData;
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.memory.MemoryResultSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A column-oriented, dictionary encoded copy of an {@link IPentahoResultSet}, read once so that the datatransforms
+ * can group, join and pivot on primitive codes instead of calling <code>getValueAt</code> and comparing boxed values
+ * for every row.
+ * <p>
+ * Each column keeps one <code>int</code> code per row and one copy of each distinct value. Codes are assigned in
+ * the order values are first seen, so comparing codes of the same column is the same as comparing the values with
+ * <code>equals</code>.
+ */
+public class ColumnarResultSet {
+
+  /**
+   * Number of rows from which the columns of an in-memory result set are encoded in parallel.
+   */
+  public static final int PARALLEL_THRESHOLD = 100000;
+
+  private static final int READER_THREADS = Math.max( 1, Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
+  /**
+   * Encodes the columns of large result sets. It is bounded and separate from the common pool, so a big transform
+   * cannot hold up other work; once its queue is full a column is encoded by the thread reading the result set.
+   */
+  private static final ThreadPoolExecutor READERS =
+    new ThreadPoolExecutor( READER_THREADS, READER_THREADS, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<Runnable>( READER_THREADS * 8 ),
+      new BasicThreadFactory.Builder().namingPattern( "columnar-read-%d" ).daemon( true ).build(), //$NON-NLS-1$
+      new ThreadPoolExecutor.CallerRunsPolicy() );
+
+  static {
+    READERS.allowCoreThreadTimeOut( true );
+  }
+
+  private final IPentahoMetaData metaData;
+
+  private final int rowCount;
+
+  private final Column[] columns;
+
+  private ColumnarResultSet( IPentahoMetaData metaData, int rowCount, Column[] columns ) {
+    this.metaData = metaData;
+    this.rowCount = rowCount;
+    this.columns = columns;
+  }
+
+  /**
+   * Reads every column of a result set.
+   */
+  public static ColumnarResultSet read( IPentahoResultSet source ) {
+    int[] all = new int[ source.getColumnCount() ];
+    for ( int i = 0; i < all.length; i++ ) {
+      all[ i ] = i;
+    }
+    return read( source, all );
+  }
+
+  /**
+   * Reads the given columns of a result set. Columns that are not read are <code>null</code> in the copy.
+   *
+   * @param source  the result set
+   * @param indexes the zero based indexes of the columns to read
+   */
+  public static ColumnarResultSet read( final IPentahoResultSet source, int... indexes ) {
+    final Column[] columns = new Column[ source.getColumnCount() ];
+    int rowCount = source.getRowCount();
+    if ( rowCount < 0 ) {
+      // forward only source, such as a streaming result set: one pass over the rows
+      for ( int index : indexes ) {
+        columns[ index ] = new Column( 16 );
+      }
+      rowCount = 0;
+      Object[] row = source.next();
+      while ( row != null ) {
+        for ( int index : indexes ) {
+          columns[ index ].add( row[ index ] );
+        }
+        rowCount++;
+        row = source.next();
+      }
+    } else {
+      // getValueAt is only safe to call from several threads on an in-memory result set
+      if ( rowCount >= PARALLEL_THRESHOLD && indexes.length > 1 && source instanceof MemoryResultSet ) {
+        readInParallel( source, rowCount, indexes, columns );
+      } else {
+        for ( int index : indexes ) {
+          columns[ index ] = readColumn( source, rowCount, index );
+        }
+      }
+    }
+    return new ColumnarResultSet( source.getMetaData(), rowCount, columns );
+  }
+
+  private static void readInParallel( final IPentahoResultSet source, final int rowCount, int[] indexes,
+      final Column[] columns ) {
+    List<Future<?>> reads = new ArrayList<Future<?>>( indexes.length );
+    for ( final int index : indexes ) {
+      reads.add( READERS.submit( () -> {
+        columns[ index ] = readColumn( source, rowCount, index );
+      } ) );
+    }
+    for ( Future<?> read : reads ) {
+      try {
+        read.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException( e );
+      } catch ( ExecutionException e ) {
+        Throwable cause = e.getCause();
+        if ( cause instanceof RuntimeException ) {
+          throw (RuntimeException) cause;
+        }
+        if ( cause instanceof Error ) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException( cause );
+      }
+    }
+  }
+
+  private static Column readColumn( IPentahoResultSet source, int rowCount, int index ) {
+    Column column = new Column( rowCount );
+    for ( int row = 0; row < rowCount; row++ ) {
+      column.add( source.getValueAt( row, index ) );
+    }
+    return column;
+  }
+
+  public IPentahoMetaData getMetaData() {
+    return metaData;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  /**
+   * @param index the zero based index of the column
+   * @return the column, or <code>null</code> if it was not read
+   */
+  public Column getColumn( int index ) {
+    return columns[ index ];
+  }
+
+  /**
+   * Gets the header of a column, or <code>null</code> if the result set has no metadata.
+   */
+  public Object getColumnHeader( int index ) {
+    if ( metaData == null ) {
+      return null;
+    }
+    Object[][] headers = metaData.getColumnHeaders();
+    if ( headers == null || headers.length == 0 || headers[ 0 ].length <= index ) {
+      return null;
+    }
+    return headers[ 0 ][ index ];
+  }
+
+  /**
+   * One dictionary encoded column.
+   */
+  public static class Column {
+
+    private int[] codes;
+
+    private int size;
+
+    private final Map<Object, Integer> dictionary = new HashMap<Object, Integer>();
+
+    private final List<Object> values = new ArrayList<Object>();
+
+    Column( int capacity ) {
+      codes = new int[ Math.max( capacity, 1 ) ];
+    }
+
+    void add( Object value ) {
+      Integer code = dictionary.get( value );
+      if ( code == null ) {
+        code = values.size();
+        dictionary.put( value, code );
+        values.add( value );
+      }
+      if ( size == codes.length ) {
+        codes = Arrays.copyOf( codes, size * 2 );
+      }
+      codes[ size++ ] = code;
+    }
+
+    public int getCode( int row ) {
+      return codes[ row ];
+    }
+
+    public Object getValue( int row ) {
+      return values.get( codes[ row ] );
+    }
+
+    /**
+     * @return the number of distinct values, which is one more than the largest code
+     */
+    public int getDistinctCount() {
+      return values.size();
+    }
+
+    public Object getDistinctValue( int code ) {
+      return values.get( code );
+    }
+
+    /**
+     * @return the code of a value, or -1 if the column does not contain it
+     */
+    public int indexOf( Object value ) {
+      Integer code = dictionary.get( value );
+      return code != null ? code : -1;
+    }
+  }
+}
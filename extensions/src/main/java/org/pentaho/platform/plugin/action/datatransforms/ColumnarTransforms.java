@@ -0,0 +1,249 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.datatransforms;
+
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.memory.MemoryMetaData;
+import org.pentaho.commons.connection.memory.MemoryResultSet;
+
+import java.text.Format;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Crosstab and flatten transforms over a {@link ColumnarResultSet}. The source is read once and rows are grouped on
+ * dictionary codes, so the cost grows linearly with the number of rows.
+ */
+public class ColumnarTransforms {
+
+  private ColumnarTransforms() {
+  }
+
+  /**
+   * Pivots a result set. Each output row holds the values of the columns other than the pivot and measures columns,
+   * followed by one column per pivot value holding the measure for that value, or <code>null</code>.
+   * <p>
+   * Without a unique row identifier column a new output row starts whenever the non pivot columns change from one
+   * input row to the next, so the input is expected to be ordered. With one, rows are grouped on that column, in any
+   * order, and the other values are taken from the first row of each group.
+   * <p>
+   * Pivot columns appear in the order their values are first seen. If ordered, they are sorted on the value of the
+   * sort column in the first row of each pivot value, formatted with the sort format if there is one. Pivot values
+   * that format to the same header share a column.
+   *
+   * @param source                    the result set
+   * @param pivotColumn               the zero based index of the column whose values become columns
+   * @param measuresColumn            the zero based index of the column holding the values of the pivot columns
+   * @param sortColumn                the zero based index of the column to sort pivot columns on, or -1 for the pivot
+   *                                  column itself
+   * @param format                    formats pivot values into column headers, or <code>null</code>
+   * @param sortFormat                formats sort values before comparing them, or <code>null</code>
+   * @param ordered                   whether to sort the pivot columns
+   * @param uniqueRowIdentifierColumn the zero based index of the column identifying an output row, or -1
+   * @return the pivoted result set
+   */
+  public static IPentahoResultSet crossTab( IPentahoResultSet source, int pivotColumn, int measuresColumn,
+      int sortColumn, Format format, Format sortFormat, boolean ordered, int uniqueRowIdentifierColumn ) {
+    ColumnarResultSet data = ColumnarResultSet.read( source );
+    int rowCount = data.getRowCount();
+    ColumnarResultSet.Column pivot = data.getColumn( pivotColumn );
+    ColumnarResultSet.Column measures = data.getColumn( measuresColumn );
+
+    int[] keyColumns = new int[ data.getColumnCount() ];
+    int keyCount = 0;
+    for ( int i = 0; i < data.getColumnCount(); i++ ) {
+      if ( i != pivotColumn && i != measuresColumn ) {
+        keyColumns[ keyCount++ ] = i;
+      }
+    }
+
+    // output column of each pivot value, after the key columns
+    Integer[] pivotCodes = new Integer[ pivot.getDistinctCount() ];
+    for ( int code = 0; code < pivotCodes.length; code++ ) {
+      pivotCodes[ code ] = code;
+    }
+    if ( ordered ) {
+      final Object[] sortKeys = sortKeys( data, pivot, sortColumn, sortFormat );
+      Arrays.sort( pivotCodes, new Comparator<Integer>() {
+        public int compare( Integer a, Integer b ) {
+          return compareValues( sortKeys[ a ], sortKeys[ b ] );
+        }
+      } );
+    }
+    int[] pivotTarget = new int[ pivotCodes.length ];
+    Map<String, Integer> headers = new LinkedHashMap<String, Integer>();
+    for ( Integer code : pivotCodes ) {
+      Object value = pivot.getDistinctValue( code );
+      String header = format != null && value != null ? format.format( value ) : String.valueOf( value );
+      Integer target = headers.get( header );
+      if ( target == null ) {
+        target = keyCount + headers.size();
+        headers.put( header, target );
+      }
+      pivotTarget[ code ] = target;
+    }
+
+    int width = keyCount + headers.size();
+    List<Object[]> rows = new ArrayList<Object[]>();
+    int[] groupOfCode = null;
+    ColumnarResultSet.Column identifier = null;
+    if ( uniqueRowIdentifierColumn >= 0 ) {
+      identifier = data.getColumn( uniqueRowIdentifierColumn );
+      groupOfCode = new int[ identifier.getDistinctCount() ];
+      Arrays.fill( groupOfCode, -1 );
+    }
+    Object[] current = null;
+    for ( int row = 0; row < rowCount; row++ ) {
+      if ( identifier != null ) {
+        int code = identifier.getCode( row );
+        if ( groupOfCode[ code ] < 0 ) {
+          groupOfCode[ code ] = rows.size();
+          rows.add( newRow( data, keyColumns, keyCount, width, row ) );
+        }
+        current = rows.get( groupOfCode[ code ] );
+      } else if ( current == null || !sameKey( data, keyColumns, keyCount, row - 1, row ) ) {
+        current = newRow( data, keyColumns, keyCount, width, row );
+        rows.add( current );
+      }
+      current[ pivotTarget[ pivot.getCode( row ) ] ] = measures.getValue( row );
+    }
+
+    Object[] columnHeaders = new Object[ width ];
+    for ( int i = 0; i < keyCount; i++ ) {
+      columnHeaders[ i ] = data.getColumnHeader( keyColumns[ i ] );
+    }
+    for ( Map.Entry<String, Integer> header : headers.entrySet() ) {
+      columnHeaders[ header.getValue() ] = header.getKey();
+    }
+    return toResultSet( columnHeaders, rows );
+  }
+
+  /**
+   * Flattens a result set. Consecutive rows with the same value in the flatten column become one output row holding
+   * that value followed by the other columns of each of the rows in turn.
+   *
+   * @param source        the result set
+   * @param flattenColumn the zero based index of the column to flatten on
+   * @return the flattened result set
+   */
+  public static IPentahoResultSet flatten( IPentahoResultSet source, int flattenColumn ) {
+    ColumnarResultSet data = ColumnarResultSet.read( source );
+    int rowCount = data.getRowCount();
+    int columnCount = data.getColumnCount();
+    ColumnarResultSet.Column flatten = data.getColumn( flattenColumn );
+
+    // find the runs first, so that every output row can be allocated at its final width
+    int[] runStarts = new int[ rowCount + 1 ];
+    int runs = 0;
+    int longestRun = 0;
+    for ( int row = 0; row < rowCount; row++ ) {
+      if ( row == 0 || flatten.getCode( row ) != flatten.getCode( row - 1 ) ) {
+        if ( runs > 0 ) {
+          longestRun = Math.max( longestRun, row - runStarts[ runs - 1 ] );
+        }
+        runStarts[ runs++ ] = row;
+      }
+    }
+    if ( runs > 0 ) {
+      longestRun = Math.max( longestRun, rowCount - runStarts[ runs - 1 ] );
+    }
+    runStarts[ runs ] = rowCount;
+
+    int others = columnCount - 1;
+    int width = 1 + others * longestRun;
+    List<Object[]> rows = new ArrayList<Object[]>( runs );
+    for ( int run = 0; run < runs; run++ ) {
+      Object[] flat = new Object[ width ];
+      flat[ 0 ] = flatten.getValue( runStarts[ run ] );
+      int target = 1;
+      for ( int row = runStarts[ run ]; row < runStarts[ run + 1 ]; row++ ) {
+        for ( int column = 0; column < columnCount; column++ ) {
+          if ( column != flattenColumn ) {
+            flat[ target++ ] = data.getColumn( column ).getValue( row );
+          }
+        }
+      }
+      rows.add( flat );
+    }
+
+    Object[] columnHeaders = new Object[ width ];
+    columnHeaders[ 0 ] = data.getColumnHeader( flattenColumn );
+    int target = 1;
+    for ( int repeat = 0; repeat < longestRun; repeat++ ) {
+      for ( int column = 0; column < columnCount; column++ ) {
+        if ( column != flattenColumn ) {
+          columnHeaders[ target++ ] = data.getColumnHeader( column );
+        }
+      }
+    }
+    return toResultSet( columnHeaders, rows );
+  }
+
+  private static Object[] sortKeys( ColumnarResultSet data, ColumnarResultSet.Column pivot, int sortColumn,
+      Format sortFormat ) {
+    ColumnarResultSet.Column sort = sortColumn >= 0 ? data.getColumn( sortColumn ) : pivot;
+    Object[] keys = new Object[ pivot.getDistinctCount() ];
+    boolean[] seen = new boolean[ keys.length ];
+    for ( int row = 0; row < data.getRowCount(); row++ ) {
+      int code = pivot.getCode( row );
+      if ( !seen[ code ] ) {
+        seen[ code ] = true;
+        Object key = sort.getValue( row );
+        keys[ code ] = sortFormat != null && key != null ? sortFormat.format( key ) : key;
+      }
+    }
+    return keys;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  static int compareValues( Object a, Object b ) {
+    if ( a == null || b == null ) {
+      return a == null ? ( b == null ? 0 : -1 ) : 1;
+    }
+    if ( a instanceof Comparable && a.getClass().equals( b.getClass() ) ) {
+      return ( (Comparable<Object>) a ).compareTo( b );
+    }
+    return a.toString().compareTo( b.toString() );
+  }
+
+  private static boolean sameKey( ColumnarResultSet data, int[] keyColumns, int keyCount, int a, int b ) {
+    for ( int i = 0; i < keyCount; i++ ) {
+      ColumnarResultSet.Column column = data.getColumn( keyColumns[ i ] );
+      if ( column.getCode( a ) != column.getCode( b ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Object[] newRow( ColumnarResultSet data, int[] keyColumns, int keyCount, int width, int row ) {
+    Object[] values = new Object[ width ];
+    for ( int i = 0; i < keyCount; i++ ) {
+      values[ i ] = data.getColumn( keyColumns[ i ] ).getValue( row );
+    }
+    return values;
+  }
+
+  private static IPentahoResultSet toResultSet( Object[] columnHeaders, List<Object[]> rows ) {
+    MemoryResultSet result = new MemoryResultSet( new MemoryMetaData( new Object[][] { columnHeaders }, null ) );
+    for ( Object[] row : rows ) {
+      result.addRow( row );
+    }
+    return result;
+  }
+}
@@ -134,22 +134,14 @@ public class ResultSetCompareComponent extends ComponentBase {
       return false;
     }
     boolean anyMismatches = false;
-    boolean foundIt;
-    Object srcValue = null, compValue = null;
+    Object srcValue = null;
     ResultSetCompareAction compareAction = (ResultSetCompareAction) getActionDefinition();
     IActionOutput output = compareAction.getOutputCompareResult();
+    // hash the comparison column once, so that non-ordered input is matched in one pass over each result set
+    ColumnarResultSet.Column compColumn = ColumnarResultSet.read( rs2, compareCol ).getColumn( compareCol );
     for ( int sourceRows = 0; sourceRows < sourceRowCount; sourceRows++ ) {
-      foundIt = false;
       srcValue = rs1.getValueAt( sourceRows, compareCol );
-      // n+1 traversal. This accommodates non-ordered input
-      for ( int compRows = 0; compRows < compRowCount; compRows++ ) {
-        compValue = rs2.getValueAt( compRows, compareCol );
-        if ( compValue.equals( srcValue ) ) {
-          foundIt = true;
-          break;
-        }
-      }
-      if ( !foundIt ) {
+      if ( compColumn.indexOf( srcValue ) < 0 ) {
         if ( outputBuf.length() > 0 ) {
           outputBuf.append( "," ).append( srcValue.toString().trim() ); //$NON-NLS-1$
         } else {
@@ -52,6 +52,13 @@ public class ResultSetCrosstabComponent extends ComponentBase {
 
   private static final String UNIQUE_ROW_IDENTIFIER_COLUMN = "unique_row_identifier_column"; //$NON-NLS-1$ 
 
+  /**
+   * Opts in to {@link ColumnarTransforms}, which reads the result set once but lays the output out its own way, see
+   * {@link ColumnarTransforms#crossTab}. Off by default, so existing action sequences keep the layout of
+   * {@link PentahoDataTransmuter#crossTabOrdered}.
+   */
+  static final String COLUMNAR = "columnar"; //$NON-NLS-1$
+
   @Override
   public void done() {
     // TODO Auto-generated method stub
@@ -154,6 +161,10 @@ public class ResultSetCrosstabComponent extends ComponentBase {
         rSet =
             PentahoDataTransmuter.crossTab( (IPentahoResultSet) resultSetObject, columnToPivot - 1, measuresColumn - 1,
                 transformSortByColumn - 1, format, sortFormat, orderOutputColumns );
+      } else if ( getInputBooleanValue( ResultSetCrosstabComponent.COLUMNAR, false ) ) {
+        rSet =
+            ColumnarTransforms.crossTab( (IPentahoResultSet) resultSetObject, columnToPivot - 1, measuresColumn - 1,
+                transformSortByColumn - 1, format, sortFormat, orderOutputColumns, uniqueRowIdentifierColumn - 1 );
       } else {
         rSet =
             PentahoDataTransmuter.crossTabOrdered( (IPentahoResultSet) resultSetObject, columnToPivot - 1,
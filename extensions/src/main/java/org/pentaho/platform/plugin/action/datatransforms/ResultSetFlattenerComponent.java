@@ -46,6 +46,13 @@ public class ResultSetFlattenerComponent extends ComponentBase {
 
   private static final String FLATTEN_COLUMN = "flatten-column"; //$NON-NLS-1$
 
+  /**
+   * Opts in to {@link ColumnarTransforms}, which reads the result set once but lays the output out its own way, see
+   * {@link ColumnarTransforms#flatten}. Off by default, so existing action sequences keep the layout of
+   * {@link PentahoDataTransmuter#flattenResultSet}.
+   */
+  static final String COLUMNAR = "columnar"; //$NON-NLS-1$
+
   private static final long serialVersionUID = 5969716585776621813L;
 
   @Override
@@ -90,7 +97,13 @@ public class ResultSetFlattenerComponent extends ComponentBase {
       int column = (int) getInputLongValue( ResultSetFlattenerComponent.FLATTEN_COLUMN, 0 );
       column--;
       if ( getResultOutputName() != null ) {
-        setOutputValue( getResultOutputName(), PentahoDataTransmuter.flattenResultSet( resultset, column ) );
+        IPentahoResultSet flattened;
+        if ( getInputBooleanValue( ResultSetFlattenerComponent.COLUMNAR, false ) ) {
+          flattened = ColumnarTransforms.flatten( resultset, column );
+        } else {
+          flattened = PentahoDataTransmuter.flattenResultSet( resultset, column );
+        }
+        setOutputValue( getResultOutputName(), flattened );
       }
     }
     return true;
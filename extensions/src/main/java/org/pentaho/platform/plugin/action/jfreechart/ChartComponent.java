@@ -38,6 +38,7 @@ import org.pentaho.platform.plugin.action.messages.Messages;
 import org.pentaho.platform.uifoundation.chart.BarLineChartDefinition;
 import org.pentaho.platform.uifoundation.chart.CategoryDatasetChartDefinition;
 import org.pentaho.platform.uifoundation.chart.ChartDefinition;
+import org.pentaho.platform.uifoundation.chart.ChartRenderingService;
 import org.pentaho.platform.uifoundation.chart.DialWidgetDefinition;
 import org.pentaho.platform.uifoundation.chart.JFreeChartEngine;
 import org.pentaho.platform.uifoundation.chart.PentahoChartURLTagFragmentGenerator;
@@ -49,6 +50,7 @@ import org.pentaho.platform.uifoundation.chart.XYZSeriesCollectionChartDefinitio
 import org.pentaho.platform.util.xml.dom4j.XmlDom4JHelper;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -415,8 +417,6 @@ public class ChartComponent extends ComponentBase {
     /**************************** OUTPUT_PNG_BYTES *********************************************/
       case JFreeChartEngine.OUTPUT_PNG_BYTES:
 
-        chart = JFreeChartEngine.getChart( dataDefinition, title, "", width, height, this ); //$NON-NLS-1$
-
         // TODO Shouldn't the mime types and other strings here be constant somewhere? Where do we
         // put this type of general info ?
 
@@ -425,8 +425,9 @@ public class ChartComponent extends ComponentBase {
         contentItem.setMimeType( mimeType );
         try {
 
+          byte[] png = renderPNG( dataDefinition, title, width, height );
           OutputStream output = contentItem.getOutputStream( getActionName() );
-          ChartUtilities.writeChartAsPNG( output, chart, width, height );
+          output.write( png );
 
         } catch ( Exception e ) {
           error( Messages.getInstance().getErrorString( "ChartComponent.ERROR_0004_CANT_CREATE_IMAGE" ), e ); //$NON-NLS-1$
@@ -614,6 +615,19 @@ public class ChartComponent extends ComponentBase {
     return true;
   }
 
+  /**
+   * Renders the chart as PNG on the shared, bounded chart rendering pool.
+   */
+  private byte[] renderPNG( final Dataset dataDefinition, final String title, final int width, final int height )
+    throws Exception {
+    return ChartRenderingService.getInstance().render( dataDefinition.getClass().getSimpleName(), () -> {
+      JFreeChart chart = JFreeChartEngine.getChart( dataDefinition, title, "", width, height, this ); //$NON-NLS-1$
+      ByteArrayOutputStream png = new ByteArrayOutputStream();
+      ChartUtilities.writeChartAsPNG( png, chart, width, height );
+      return png.toByteArray();
+    } );
+  }
+
   @Override
   public boolean init() {
     // nothing to do here really
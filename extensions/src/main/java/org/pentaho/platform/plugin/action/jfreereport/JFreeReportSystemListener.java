@@ -16,15 +16,30 @@ package org.pentaho.platform.plugin.action.jfreereport;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.engine.IPentahoSystemListener;
 import org.pentaho.platform.plugin.action.jfreereport.helper.PentahoReportConfiguration;
+import org.pentaho.platform.plugin.action.jfreereport.helper.ReportTemplateCache;
 import org.pentaho.platform.plugin.action.messages.Messages;
 import org.pentaho.platform.util.logging.Logger;
 import org.pentaho.reporting.engine.classic.core.ClassicEngineBoot;
 
+import java.util.Collections;
+import java.util.List;
+
 public class JFreeReportSystemListener implements IPentahoSystemListener {
+
+  private int templateCacheSize = ReportTemplateCache.DEFAULT_MAX_ENTRIES;
+
   public JFreeReportSystemListener() {
   }
 
+  /**
+   * Sets the maximum number of parsed report definitions kept by {@link ReportTemplateCache}. Zero disables the cache.
+   */
+  public void setTemplateCacheSize( final int templateCacheSize ) {
+    this.templateCacheSize = templateCacheSize;
+  }
+
   public boolean startup( final IPentahoSession session ) {
+    ReportTemplateCache.getInstance().setMaxEntries( templateCacheSize );
     try {
       synchronized ( ClassicEngineBoot.class ) {
         ClassicEngineBoot.setUserConfig( new PentahoReportConfiguration() );
@@ -38,8 +53,16 @@ public class JFreeReportSystemListener implements IPentahoSystemListener {
     return true;
   }
 
+  /**
+   * Booting the reporting engine only needs the system settings.
+   */
+  @Override
+  public List<String> getStartupDependencies() {
+    return Collections.emptyList();
+  }
+
   public void shutdown() {
-    // Nothing required
+    ReportTemplateCache.getInstance().clear();
   }
 
 }
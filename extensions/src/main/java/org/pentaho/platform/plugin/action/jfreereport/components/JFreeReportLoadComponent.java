@@ -22,8 +22,10 @@ import org.pentaho.platform.api.engine.IPentahoRequestContext;
 import org.pentaho.platform.api.repository2.unified.RepositoryFilePermission;
 import org.pentaho.platform.engine.core.system.PentahoRequestContextHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.services.actionsequence.ActionSequenceResource;
 import org.pentaho.platform.plugin.action.jfreereport.AbstractJFreeReportComponent;
 import org.pentaho.platform.plugin.action.jfreereport.helper.PentahoResourceLoader;
+import org.pentaho.platform.plugin.action.jfreereport.helper.ReportTemplateCache;
 import org.pentaho.platform.plugin.action.jfreereport.helper.ReportUtils;
 import org.pentaho.platform.plugin.action.messages.Messages;
 import org.pentaho.reporting.engine.classic.core.MasterReport;
@@ -38,10 +40,13 @@ import org.xml.sax.InputSource;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 /**
  * A JFreeReport run contains at least three steps. Step 1: Parse the report definition. Step 2: Grab some data. Step 3:
@@ -149,14 +154,13 @@ public class JFreeReportLoadComponent extends AbstractJFreeReportComponent {
     return report;
   }
 
-  private MasterReport getReportFromInputParam() throws ResourceException, UnsupportedEncodingException, IOException {
+  private MasterReport getReportFromInputParam() throws Exception {
     MasterReport report = null;
 
     if ( isDefinedInput( AbstractJFreeReportComponent.REPORTGENERATEDEFN_REPORTDEFN ) ) {
       IActionParameter o = getInputParameter( AbstractJFreeReportComponent.REPORTGENERATEDEFN_REPORTDEFN );
       if ( o != null ) {
         String repDef = o.getStringValue();
-        ReportGenerator generator = ReportGenerator.getInstance();
         IPentahoRequestContext requestContext = PentahoRequestContextHolder.getRequestContext();
         URL url = null;
         try {
@@ -165,11 +169,16 @@ public class JFreeReportLoadComponent extends AbstractJFreeReportComponent {
           // a null URL is ok
           warn( Messages.getInstance().getString( "JFreeReportLoadComponent.WARN_COULD_NOT_CREATE_URL" ) ); //$NON-NLS-1$
         }
-        report =
-            generator
-                .parseReport(
-                  new InputSource( new ByteArrayInputStream( repDef.getBytes( "UTF-8" ) ) ),
-                  getDefinedResourceURL( url ) ); //$NON-NLS-1$
+        final String definition = repDef;
+        final URL contentBase = getDefinedResourceURL( url );
+        // the definition itself is the version, so the key only has to spread different definitions apart
+        String cacheKey = "xml:" + repDef.hashCode() + ":" + contentBase; //$NON-NLS-1$ //$NON-NLS-2$
+        report = ReportTemplateCache.getInstance().getReport( cacheKey, repDef, new Callable<MasterReport>() {
+          public MasterReport call() throws Exception {
+            return ReportGenerator.getInstance().parseReport(
+              new InputSource( new ByteArrayInputStream( definition.getBytes( "UTF-8" ) ) ), contentBase ); //$NON-NLS-1$
+          }
+        } );
       }
     }
 
@@ -271,49 +280,39 @@ public class JFreeReportLoadComponent extends AbstractJFreeReportComponent {
   private MasterReport parseReport( final IActionSequenceResource resource ) {
     try {
       // define the resource url so that PentahoResourceLoader recognizes the path.
-      String resourceUrl =
+      final String resourceUrl =
           PentahoResourceLoader.SOLUTION_SCHEMA_NAME + PentahoResourceLoader.SCHEMA_SEPARATOR + resource.getAddress();
 
       String fullyQualifiedServerUrl = PentahoSystem.getApplicationContext().getFullyQualifiedServerURL();
 
-      HashMap helperObjects = new HashMap();
+      TreeMap<String, Object> factoryParameters = new TreeMap<String, Object>();
 
-      helperObjects.put( new FactoryParameterKey( "pentahoBaseURL" ), fullyQualifiedServerUrl ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
+      factoryParameters.put( "pentahoBaseURL", fullyQualifiedServerUrl ); //$NON-NLS-1$
 
       // trim out the server and port
-      helperObjects.put( new FactoryParameterKey( "serverBaseURL" ), getBaseServerURL( fullyQualifiedServerUrl ) ); //$NON-NLS-1$
+      factoryParameters.put( "serverBaseURL", getBaseServerURL( fullyQualifiedServerUrl ) ); //$NON-NLS-1$
 
-      helperObjects.put(
-          new FactoryParameterKey( "solutionRoot" ), PentahoSystem.getApplicationContext().getSolutionPath( "" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+      factoryParameters.put( "solutionRoot", PentahoSystem.getApplicationContext().getSolutionPath( "" ) ); //$NON-NLS-1$ //$NON-NLS-2$
 
       // get the host:port portion only
-      helperObjects.put( new FactoryParameterKey( "hostColonPort" ), getHostColonPort( fullyQualifiedServerUrl ) ); //$NON-NLS-1$
+      factoryParameters.put( "hostColonPort", getHostColonPort( fullyQualifiedServerUrl ) ); //$NON-NLS-1$
 
       // get the requestContextPath
-      helperObjects
-          .put(
-            new FactoryParameterKey( "requestContextPath" ),
-            PentahoRequestContextHolder.getRequestContext().getContextPath() ); //$NON-NLS-1$
+      factoryParameters.put(
+          "requestContextPath", PentahoRequestContextHolder.getRequestContext().getContextPath() ); //$NON-NLS-1$
 
       Iterator it = getInputNames().iterator();
       while ( it.hasNext() ) {
         try {
           String inputName = (String) it.next();
           String inputValue = getInputStringValue( inputName );
-          helperObjects.put( new FactoryParameterKey( inputName ), inputValue );
+          factoryParameters.put( inputName, inputValue );
         } catch ( Exception e ) {
           //ignore
         }
       }
 
-      ResourceManager resourceManager = new ResourceManager();
-      resourceManager.registerDefaults();
-
-      ResourceKey contextKey = resourceManager.createKey( resourceUrl, helperObjects );
-      ResourceKey key = resourceManager.createKey( resourceUrl, helperObjects );
-
-      return ReportGenerator.getInstance().parseReport( resourceManager, key, contextKey );
-
+      return getTemplate( resourceUrl, factoryParameters, getReportVersion( resource ) );
     } catch ( Exception ex ) {
       error(
           Messages.getInstance().getErrorString( "JFreeReport.ERROR_0007_COULD_NOT_PARSE", resource.getAddress() ), ex ); //$NON-NLS-1$
@@ -321,6 +320,49 @@ public class JFreeReportLoadComponent extends AbstractJFreeReportComponent {
     }
   }
 
+  /**
+   * Gets a copy of the report template parsed with the given factory parameters. The parser sees the action inputs as
+   * well as the server environment, so the cached template is keyed on all of them; a template parsed for one set of
+   * inputs is never handed out for another.
+   *
+   * @param resourceUrl       the location of the report definition
+   * @param factoryParameters the factory parameters to parse the report with, sorted so that the key is stable
+   * @param version           the version of the report definition, or <code>null</code> to always parse it
+   */
+  MasterReport getTemplate( final String resourceUrl, final SortedMap<String, Object> factoryParameters,
+                            final Long version ) throws Exception {
+    return ReportTemplateCache.getInstance().getReport( resourceUrl + factoryParameters, version,
+      new Callable<MasterReport>() {
+        public MasterReport call() throws Exception {
+          return parseTemplate( resourceUrl, factoryParameters );
+        }
+      } );
+  }
+
+  MasterReport parseTemplate( final String resourceUrl, final Map<String, Object> factoryParameters )
+    throws Exception {
+    final HashMap helperObjects = new HashMap();
+    for ( Map.Entry<String, Object> parameter : factoryParameters.entrySet() ) {
+      helperObjects.put( new FactoryParameterKey( parameter.getKey() ), parameter.getValue() );
+    }
+    ResourceManager resourceManager = ReportTemplateCache.getInstance().getResourceManager();
+    ResourceKey contextKey = resourceManager.createKey( resourceUrl, helperObjects );
+    ResourceKey key = resourceManager.createKey( resourceUrl, helperObjects );
+    return ReportGenerator.getInstance().parseReport( resourceManager, key, contextKey );
+  }
+
+  /**
+   * Gets the version the template cache compares against for the given resource. Only repository files have one;
+   * anything else is parsed on every execution.
+   */
+  private Long getReportVersion( final IActionSequenceResource resource ) {
+    if ( resource.getSourceType() != IActionResource.SOLUTION_FILE_RESOURCE ) {
+      return null;
+    }
+    long lastModified = ActionSequenceResource.getLastModifiedDate( resource.getAddress(), null );
+    return lastModified >= 0 ? lastModified : null;
+  }
+
   @Override
   public boolean init() {
     return true;
@@ -0,0 +1,234 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.jfreereport.helper;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.reporting.engine.classic.core.MasterReport;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches parsed report definitions so that a report that is run many times, for example by bursting or from a
+ * dashboard, is parsed once.
+ * <p>
+ * Entries are keyed by the report location and the factory parameters used to parse it, and carry a version such as
+ * the repository file's last modified date. A lookup with a different version reparses the report. Callers always
+ * receive a clone of the cached template, which they are free to parameterize.
+ * <p>
+ * Parsing goes through a single {@link ResourceManager} shared by all executions, so the resources a report depends on
+ * are held in LibLoader's configured, bounded caches instead of being loaded again by a fresh manager each time.
+ */
+public class ReportTemplateCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 50;
+
+  private static final Log log = LogFactory.getLog( ReportTemplateCache.class );
+
+  private static final ReportTemplateCache instance = new ReportTemplateCache();
+
+  private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  private volatile ResourceManager resourceManager;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest ) {
+      return size() > maxEntries;
+    }
+  };
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder parseNanos = new LongAdder();
+
+  private final LongAdder savedNanos = new LongAdder();
+
+  public static ReportTemplateCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the resource manager shared by all cached parses.
+   *
+   * @return the shared resource manager, with the default loaders and factories registered
+   */
+  public ResourceManager getResourceManager() {
+    ResourceManager manager = resourceManager;
+    if ( manager == null ) {
+      synchronized ( this ) {
+        manager = resourceManager;
+        if ( manager == null ) {
+          manager = new ResourceManager();
+          manager.registerDefaults();
+          resourceManager = manager;
+        }
+      }
+    }
+    return manager;
+  }
+
+  /**
+   * Gets a clone of the cached report, parsing it when it is missing or its version changed.
+   *
+   * @param key     the location of the report, including anything else that affects how it is parsed
+   * @param version the current version of the report; <code>null</code> bypasses the cache
+   * @param loader  parses the report; may return <code>null</code>, which is not cached
+   * @return a clone of the report, or <code>null</code> if the loader returned <code>null</code>
+   * @throws Exception if the loader fails
+   */
+  public MasterReport getReport( String key, Object version, Callable<MasterReport> loader ) throws Exception {
+    if ( version == null || maxEntries <= 0 ) {
+      missCount.increment();
+      return parse( loader );
+    }
+
+    Entry entry;
+    synchronized ( entries ) {
+      entry = entries.get( key );
+    }
+    if ( entry != null && entry.version.equals( version ) ) {
+      hitCount.increment();
+      savedNanos.add( entry.parseNanos );
+      return (MasterReport) entry.report.clone();
+    }
+
+    missCount.increment();
+    // parsing happens outside the lock; concurrent misses on the same key may parse it twice
+    long start = System.nanoTime();
+    MasterReport report = parse( loader );
+    long elapsed = System.nanoTime() - start;
+    synchronized ( entries ) {
+      if ( report != null ) {
+        entries.put( key, new Entry( version, report, elapsed ) );
+      } else {
+        entries.remove( key );
+      }
+    }
+    return report != null ? (MasterReport) report.clone() : null;
+  }
+
+  private MasterReport parse( Callable<MasterReport> loader ) throws Exception {
+    long start = System.nanoTime();
+    try {
+      return loader.call();
+    } finally {
+      parseNanos.add( System.nanoTime() - start );
+    }
+  }
+
+  /**
+   * Removes the cached report with the given key.
+   *
+   * @param key the key the report was cached under
+   */
+  public void invalidate( String key ) {
+    synchronized ( entries ) {
+      entries.remove( key );
+    }
+  }
+
+  public void clear() {
+    synchronized ( entries ) {
+      entries.clear();
+    }
+    resourceManager = null;
+    if ( log.isDebugEnabled() ) {
+      log.debug( "Report template cache cleared" ); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Sets the maximum number of cached reports. Zero disables caching.
+   *
+   * @param maxEntries the maximum number of entries
+   */
+  public void setMaxEntries( int maxEntries ) {
+    this.maxEntries = maxEntries;
+    synchronized ( entries ) {
+      if ( maxEntries <= 0 ) {
+        entries.clear();
+      } else {
+        while ( entries.size() > maxEntries ) {
+          entries.remove( entries.keySet().iterator().next() );
+        }
+      }
+    }
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public int getSize() {
+    synchronized ( entries ) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * @return the fraction of lookups served from the cache, or 0 if there were none
+   */
+  public double getHitRate() {
+    long hits = hitCount.sum();
+    long total = hits + missCount.sum();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  /**
+   * @return the total time spent parsing reports, in milliseconds
+   */
+  public long getParseTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis( parseNanos.sum() );
+  }
+
+  /**
+   * @return the parse time avoided by cache hits, estimated from each entry's original parse, in milliseconds
+   */
+  public long getParseTimeSavedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis( savedNanos.sum() );
+  }
+
+  private static class Entry {
+
+    private final Object version;
+
+    private final MasterReport report;
+
+    private final long parseNanos;
+
+    Entry( Object version, MasterReport report, long parseNanos ) {
+      this.version = version;
+      this.report = report;
+      this.parseNanos = parseNanos;
+    }
+  }
+}
@@ -36,11 +36,15 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.xml.XMLHandlerCache;
 import org.pentaho.di.job.Job;
 import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.ObjectId;
 import org.pentaho.di.repository.RepositoriesMeta;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryDirectoryInterface;
 import org.pentaho.di.repository.RepositoryMeta;
+import org.pentaho.di.repository.RepositoryObject;
+import org.pentaho.di.repository.RepositoryObjectType;
 import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransAdapter;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.RowListener;
 import org.pentaho.di.trans.step.StepMetaDataCombi;
@@ -85,6 +89,12 @@ import java.util.Map;
  * 
  * Legitimate inputs: MONITORSTEP Takes the name of the step from which success and error rows can be detected
  * 
+ * STREAMING_OUTPUT When "true", TRANSFORM_SUCCESS_OUTPUT is a forward-only result set that the next action can read
+ * while the transformation is still running. Ignored when a count or error output is requested, since those need the
+ * finished run
+ * 
+ * STREAMING_BUFFER_SIZE The number of rows buffered between the transformation and the consumer when streaming
+ * 
  * KETTLELOGLEVEL Sets the logging level to be used in the EXECUTION_LOG_OUTPUT Valid settings: basic detail error debug
  * minimal rowlevel
  */
@@ -107,6 +117,10 @@ public class KettleComponent extends ComponentBase implements RowListener {
 
   private static final String MONITORSTEP = "monitor-step"; //$NON-NLS-1$
 
+  private static final String STREAMING_OUTPUT = "streaming-output"; //$NON-NLS-1$
+
+  private static final String STREAMING_BUFFER_SIZE = "streaming-buffer-size"; //$NON-NLS-1$
+
   private static final String KETTLELOGLEVEL = "kettle-logging-level"; //$NON-NLS-1$
 
   private static final String EXECUTION_STATUS_OUTPUT = "kettle-execution-status"; //$NON-NLS-1$
@@ -150,6 +164,11 @@ public class KettleComponent extends ComponentBase implements RowListener {
 
   private MemoryResultSet errorResults;
 
+  private KettleStepResultSet streamingResults;
+
+  // set once a streamed transformation runs; it then releases the repository and its metadata itself
+  private boolean streamingStarted;
+
   private String executionStatus;
 
   private String executionLog;
@@ -469,9 +488,14 @@ public class KettleComponent extends ComponentBase implements RowListener {
         String fileAddress = getActualFileName( transformResource );
 
         try {
+          final Repository kettleRepository = repository;
           if ( fileAddress != null ) { // We have an actual loadable
             // filesystem and file
-            transMeta = new TransMeta( fileAddress, repository, true );
+            final String transFile = fileAddress;
+            File file = new File( fileAddress );
+            transMeta = KettleMetaCache.getInstance().getTransMeta( "file:" + fileAddress, //$NON-NLS-1$
+                file.lastModified() + ":" + file.length(), //$NON-NLS-1$
+                () -> new TransMeta( transFile, kettleRepository, true ), repository );
             transMeta.setFilename( fileAddress );
           } else if ( repository != null && repository.isConnected() ) {
 
@@ -481,10 +505,14 @@ public class KettleComponent extends ComponentBase implements RowListener {
           } else {
             String jobXmlStr = getResourceAsString( getResource( KettleComponent.TRANSFORMFILE ) );
             jobXmlStr = jobXmlStr.replaceAll( "\\$\\{pentaho.solutionpath\\}", solutionPath ); //$NON-NLS-1$
-            jobXmlStr = jobXmlStr.replaceAll( "\\%\\%pentaho.solutionpath\\%\\%", solutionPath ); //$NON-NLS-1$
-            org.w3c.dom.Document doc = XmlW3CHelper.getDomFromString( jobXmlStr );
-            // create a tranformation from the document
-            transMeta = new TransMeta( doc.getFirstChild(), repository );
+            final String transXmlStr = jobXmlStr.replaceAll( "\\%\\%pentaho.solutionpath\\%\\%", solutionPath ); //$NON-NLS-1$
+            // the document is only parsed when the cached transformation is missing or its content changed
+            transMeta = KettleMetaCache.getInstance().getTransMeta( "xml:" + transformResource.getAddress(), //$NON-NLS-1$
+                transXmlStr, () -> {
+                  org.w3c.dom.Document doc = XmlW3CHelper.getDomFromString( transXmlStr );
+                  // create a tranformation from the document
+                  return new TransMeta( doc.getFirstChild(), kettleRepository );
+                }, repository );
           }
         } catch ( Exception e ) {
           error( Messages.getInstance().getErrorString(
@@ -536,8 +564,10 @@ public class KettleComponent extends ComponentBase implements RowListener {
             // XmlW3CHelper.getContentFromSolutionResource(fileAddress);
             jobXmlStr = jobXmlStr.replaceAll( "\\$\\{pentaho.solutionpath\\}", solutionPath ); //$NON-NLS-1$
             jobXmlStr = jobXmlStr.replaceAll( "\\%\\%pentaho.solutionpath\\%\\%", solutionPath ); //$NON-NLS-1$
-            org.w3c.dom.Document doc = XmlW3CHelper.getDomFromString( jobXmlStr );
-            if ( doc == null ) {
+            KettleMetaCache metaCache = KettleMetaCache.getInstance();
+            // a cached job for this exact content has already been validated
+            if ( !metaCache.hasJobMeta( "xml:" + fileAddress, jobXmlStr ) //$NON-NLS-1$
+                && XmlW3CHelper.getDomFromString( jobXmlStr ) == null ) {
               error( Messages.getInstance().getErrorString(
                   "Kettle.ERROR_0015_BAD_RESOURCE", KettleComponent.JOBFILE, fileAddress ) ); //$NON-NLS-1$
               debug( getKettleLog( true ) );
@@ -549,7 +579,10 @@ public class KettleComponent extends ComponentBase implements RowListener {
               // if we get a valid repository its great, if not try it
               // without
 
-              jobMeta = new JobMeta( solutionPath + fileAddress, repository );
+              final String jobFile = solutionPath + fileAddress;
+              final Repository jobRepository = repository;
+              jobMeta = metaCache.getJobMeta( "xml:" + fileAddress, jobXmlStr, //$NON-NLS-1$
+                  () -> new JobMeta( jobFile, jobRepository ), repository );
             } catch ( Exception e ) {
               error( Messages.getInstance().getString( "Kettle.ERROR_0023_NO_META" ), e ); //$NON-NLS-1$
             } finally {
@@ -593,7 +626,7 @@ public class KettleComponent extends ComponentBase implements RowListener {
       // transformation or job
 
       if ( transMeta != null ) {
-        result = executeTransformation( transMeta );
+        result = executeTransformation( transMeta, repository );
       }
       if ( jobMeta != null ) {
         result = executeJob( jobMeta, repository );
@@ -601,26 +634,10 @@ public class KettleComponent extends ComponentBase implements RowListener {
 
     } finally {
 
-      if ( repository != null ) {
-        if ( ComponentBase.debug ) {
-          debug( Messages.getInstance().getString( "Kettle.DEBUG_DISCONNECTING" ) ); //$NON-NLS-1$
-        }
-        try {
-          repository.disconnect();
-        } catch ( Exception ignored ) {
-          //ignore
-        }
-      }
-
-      if ( transMeta != null ) {
-        try {
-          cleanLogChannel( transMeta );
-          transMeta.clear();
-        } catch ( Exception ignored ) {
-          //ignore
-        }
-        transMeta = null;
+      if ( !streamingStarted ) {
+        release( repository, transMeta );
       }
+      transMeta = null;
       if ( jobMeta != null ) {
         try {
           cleanLogChannel( jobMeta );
@@ -646,6 +663,28 @@ public class KettleComponent extends ComponentBase implements RowListener {
 
   }
 
+  private void release( final Repository repository, final TransMeta transMeta ) {
+    if ( repository != null ) {
+      if ( ComponentBase.debug ) {
+        debug( Messages.getInstance().getString( "Kettle.DEBUG_DISCONNECTING" ) ); //$NON-NLS-1$
+      }
+      try {
+        repository.disconnect();
+      } catch ( Exception ignored ) {
+        //ignore
+      }
+    }
+
+    if ( transMeta != null ) {
+      try {
+        cleanLogChannel( transMeta );
+        transMeta.clear();
+      } catch ( Exception ignored ) {
+        //ignore
+      }
+    }
+  }
+
   private void cleanLogChannel( LoggingObjectInterface loi ) {
     try {
       cleanLogChannelFromMap( loi );
@@ -696,7 +735,7 @@ public class KettleComponent extends ComponentBase implements RowListener {
     return true;
   }
 
-  private boolean executeTransformation( final TransMeta transMeta ) {
+  private boolean executeTransformation( final TransMeta transMeta, final Repository repository ) {
     boolean success = true;
     Trans trans = null;
 
@@ -753,14 +792,34 @@ public class KettleComponent extends ComponentBase implements RowListener {
             "Kettle.ERROR_0012_ROW_LISTENER_CREATE_FAILED" ), e ); //$NON-NLS-1$
       }
 
+      if ( streamingResults != null ) {
+        // nobody waits for a streamed transformation, so it has to release its resources itself
+        final Trans running = trans;
+        trans.addTransListener( new StreamingTransListener( streamingResults, () -> {
+          cleanLogChannel( running );
+          running.cleanup();
+          release( repository, transMeta );
+        } ) );
+      }
+
       try {
         debug( Messages.getInstance().getString( "Kettle.DEBUG_STARTING_TRANSFORMATION" ) ); //$NON-NLS-1$
         trans.startThreads();
+        streamingStarted = streamingResults != null;
       } catch ( Exception e ) {
+        if ( streamingResults != null ) {
+          streamingResults.finish( true );
+        }
         throw new KettleComponentException( Messages.getInstance().getErrorString(
             "Kettle.ERROR_0013_TRANSFORMATION_START_FAILED" ), e ); //$NON-NLS-1$
       }
 
+      if ( streamingResults != null ) {
+        debug( Messages.getInstance().getString( "Kettle.DEBUG_STREAMING_TRANSFORMATION" ) ); //$NON-NLS-1$
+        setOutputValue( outputName, streamingResults );
+        return success;
+      }
+
       try {
         // It's running in a separate thread to allow monitoring,
         // etc.
@@ -806,6 +865,32 @@ public class KettleComponent extends ComponentBase implements RowListener {
     return success;
   }
 
+  /**
+   * Releases the resources of a streamed transformation once it finishes, then ends its stream. A transformation that
+   * finished with errors fails the stream, so the consumer gets an exception instead of a short result.
+   */
+  static class StreamingTransListener extends TransAdapter {
+
+    private final KettleStepResultSet stream;
+
+    private final Runnable release;
+
+    StreamingTransListener( final KettleStepResultSet stream, final Runnable release ) {
+      this.stream = stream;
+      this.release = release;
+    }
+
+    @Override
+    public void transFinished( final Trans finished ) {
+      boolean failed = finished.getErrors() > 0;
+      try {
+        release.run();
+      } finally {
+        stream.finish( failed );
+      }
+    }
+  }
+
   private boolean registerAsStepListener( String stepName, Trans trans ) throws KettleComponentException {
     boolean success = false;
 
@@ -835,8 +920,14 @@ public class KettleComponent extends ComponentBase implements RowListener {
             }
 
             MemoryMetaData metaData = new MemoryMetaData( columns, null );
-            results = new MemoryResultSet( metaData );
-            errorResults = new MemoryResultSet( metaData );
+            if ( isStreamingOutput() ) {
+              streamingResults = new KettleStepResultSet( metaData, getStreamingBufferSize(),
+                  KettleStepResultSet.DEFAULT_STALL_TIMEOUT_MILLIS );
+              streamingResults.setCloseCallback( trans::stopAll );
+            } else {
+              results = new MemoryResultSet( metaData );
+              errorResults = new MemoryResultSet( metaData );
+            }
 
             // add ourself as a row listener
             step.step.addRowListener( this );
@@ -853,6 +944,31 @@ public class KettleComponent extends ComponentBase implements RowListener {
     return success;
   }
 
+  private boolean isStreamingOutput() {
+    if ( !isDefinedInput( KettleComponent.STREAMING_OUTPUT )
+        || !getInputBooleanValue( KettleComponent.STREAMING_OUTPUT, false ) ) {
+      return false;
+    }
+    if ( isDefinedOutput( TRANSFORM_SUCCESS_COUNT_OUTPUT ) || isDefinedOutput( TRANSFORM_ERROR_OUTPUT )
+        || isDefinedOutput( TRANSFORM_ERROR_COUNT_OUTPUT ) || isDefinedOutput( EXECUTION_STATUS_OUTPUT )
+        || isDefinedOutput( EXECUTION_LOG_OUTPUT ) ) {
+      debug( Messages.getInstance().getString( "Kettle.DEBUG_STREAMING_DISABLED" ) ); //$NON-NLS-1$
+      return false;
+    }
+    return true;
+  }
+
+  private int getStreamingBufferSize() {
+    if ( isDefinedInput( KettleComponent.STREAMING_BUFFER_SIZE ) ) {
+      int bufferSize = (int) getInputLongValue( KettleComponent.STREAMING_BUFFER_SIZE,
+          KettleStepResultSet.DEFAULT_BUFFER_SIZE );
+      if ( bufferSize > 0 ) {
+        return bufferSize;
+      }
+    }
+    return KettleStepResultSet.DEFAULT_BUFFER_SIZE;
+  }
+
   private String getMonitorStepName() {
     String result = null;
 
@@ -1062,9 +1178,14 @@ public class KettleComponent extends ComponentBase implements RowListener {
 
       try {
         // Load the transformation from the repository
-        RepositoryDirectoryInterface repositoryDirectory =
+        final RepositoryDirectoryInterface repositoryDirectory =
             repository.loadRepositoryDirectoryTree().findDirectory( directoryName );
-        transMeta = repository.loadTransformation( transformationName, repositoryDirectory, null, true, null );
+        transMeta = KettleMetaCache.getInstance().getTransMeta(
+            getRepositoryKey( repository, directoryName, transformationName ),
+            getRepositoryVersion( repository, transformationName, repositoryDirectory,
+                RepositoryObjectType.TRANSFORMATION ),
+            () -> repository.loadTransformation( transformationName, repositoryDirectory, null, true, null ),
+            repository );
       } catch ( Exception e ) {
         error( Messages.getInstance().getErrorString(
             "Kettle.ERROR_0009_TRANSFROMATION_METADATA_NOT_FOUND", directoryName + "/" + transformationName ), e ); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1106,9 +1227,13 @@ public class KettleComponent extends ComponentBase implements RowListener {
 
       try {
         // Load the job from the repository
-        RepositoryDirectoryInterface repositoryDirectory =
+        final RepositoryDirectoryInterface repositoryDirectory =
             repository.loadRepositoryDirectoryTree().findDirectory( directoryName );
-        jobMeta = repository.loadJob( jobName, repositoryDirectory, null, null );
+        jobMeta = KettleMetaCache.getInstance().getJobMeta(
+            getRepositoryKey( repository, directoryName, jobName ),
+            getRepositoryVersion( repository, jobName, repositoryDirectory, RepositoryObjectType.JOB ),
+            () -> repository.loadJob( jobName, repositoryDirectory, null, null ),
+            repository );
       } catch ( Exception e ) {
         error( Messages.getInstance().getErrorString(
             "Kettle.ERROR_0020_JOB_METADATA_NOT_FOUND", directoryName + "/" + jobName ), e ); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1129,6 +1254,41 @@ public class KettleComponent extends ComponentBase implements RowListener {
     return null;
   }
 
+  private static String getRepositoryKey( final Repository repository, final String directoryName,
+                                          final String name ) {
+    return "repo:" + repository.getName() + ":" + directoryName + "/" + name; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  /**
+   * Gets the version of a transformation or job in the repository, used to detect republished content in the
+   * {@link KettleMetaCache}. Returns <code>null</code>, which bypasses the cache, when the version cannot be determined.
+   */
+  private Object getRepositoryVersion( final Repository repository, final String name,
+                                       final RepositoryDirectoryInterface repositoryDirectory,
+                                       final RepositoryObjectType objectType ) {
+    if ( repositoryDirectory == null ) {
+      return null;
+    }
+    try {
+      ObjectId objectId = objectType == RepositoryObjectType.JOB
+          ? repository.getJobId( name, repositoryDirectory )
+          : repository.getTransformationID( name, repositoryDirectory );
+      if ( objectId == null ) {
+        return null;
+      }
+      RepositoryObject objectInformation = repository.getObjectInformation( objectId, objectType );
+      if ( objectInformation == null || objectInformation.getModifiedDate() == null ) {
+        return null;
+      }
+      return objectId.getId() + "@" + objectInformation.getModifiedDate().getTime(); //$NON-NLS-1$
+    } catch ( KettleException e ) {
+      if ( ComponentBase.debug ) {
+        debug( e.getMessage(), e );
+      }
+      return null;
+    }
+  }
+
   private Repository connectToRepository() {
     boolean useRepository =
         PentahoSystem.getSystemSetting( "kettle/settings.xml", "repository.type", "files" ).equals( "rdbms" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
@@ -1235,6 +1395,16 @@ public class KettleComponent extends ComponentBase implements RowListener {
   }
 
   public void rowWrittenEvent( final RowMetaInterface rowMeta, final Object[] row ) throws KettleStepException {
+    if ( streamingResults != null ) {
+      try {
+        // blocks while the consumer is behind, which throttles the step
+        streamingResults.addRow( toPentahoRow( streamingResults.getColumnCount(), rowMeta, row ) );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new KettleStepException( e );
+      }
+      return;
+    }
     processRow( results, rowMeta, row );
   }
 
@@ -1247,9 +1417,14 @@ public class KettleComponent extends ComponentBase implements RowListener {
     if ( memResults == null ) {
       return;
     }
+    memResults.addRow( toPentahoRow( memResults.getColumnCount(), rowMeta, row ) );
+  }
+
+  private Object[] toPentahoRow( final int columnCount, final RowMetaInterface rowMeta, final Object[] row )
+    throws KettleStepException {
     try {
-      Object[] pentahoRow = new Object[memResults.getColumnCount()];
-      for ( int columnNo = 0; columnNo < memResults.getColumnCount(); columnNo++ ) {
+      Object[] pentahoRow = new Object[columnCount];
+      for ( int columnNo = 0; columnNo < columnCount; columnNo++ ) {
         ValueMetaInterface valueMeta = rowMeta.getValueMeta( columnNo );
 
         switch ( valueMeta.getType() ) {
@@ -1278,7 +1453,7 @@ public class KettleComponent extends ComponentBase implements RowListener {
             pentahoRow[columnNo] = rowMeta.getString( row, columnNo );
         }
       }
-      memResults.addRow( pentahoRow );
+      return pentahoRow;
     } catch ( KettleValueException e ) {
       throw new KettleStepException( e );
     }
@@ -0,0 +1,253 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.kettle;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.TransMeta;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches parsed transformation and job metadata so that repeated executions of the same transformation or job do not
+ * parse it again.
+ * <p>
+ * Entries are keyed by the location of the transformation or job and carry a version, such as a last modified date or
+ * the source XML. A lookup whose version differs from the cached one reloads the entry, so republished content is
+ * picked up on its next execution. Callers always receive a copy of the cached metadata, which they are free to
+ * parameterize and clear.
+ */
+public class KettleMetaCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 100;
+
+  private static final Log log = LogFactory.getLog( KettleMetaCache.class );
+
+  private static final KettleMetaCache instance = new KettleMetaCache();
+
+  private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest ) {
+      return size() > maxEntries;
+    }
+  };
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder invalidationCount = new LongAdder();
+
+  public static KettleMetaCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets a copy of the cached transformation metadata, loading it when it is missing or its version changed.
+   *
+   * @param key        the location of the transformation
+   * @param version    the current version of the transformation; <code>null</code> bypasses the cache
+   * @param loader     loads the transformation; may return <code>null</code>, which is not cached
+   * @param repository the repository the copy is attached to; may be <code>null</code>
+   * @return a copy of the transformation metadata, or <code>null</code> if the loader returned <code>null</code>
+   * @throws Exception if the loader fails
+   */
+  public TransMeta getTransMeta( String key, Object version, Callable<TransMeta> loader, Repository repository )
+    throws Exception {
+    TransMeta transMeta = get( "trans:" + key, version, loader );
+    return transMeta != null ? copyOf( transMeta, repository ) : null;
+  }
+
+  /**
+   * Gets a copy of the cached job metadata, loading it when it is missing or its version changed.
+   *
+   * @param key        the location of the job
+   * @param version    the current version of the job; <code>null</code> bypasses the cache
+   * @param loader     loads the job; may return <code>null</code>, which is not cached
+   * @param repository the repository the copy is attached to; may be <code>null</code>
+   * @return a copy of the job metadata, or <code>null</code> if the loader returned <code>null</code>
+   * @throws Exception if the loader fails
+   */
+  public JobMeta getJobMeta( String key, Object version, Callable<JobMeta> loader, Repository repository )
+    throws Exception {
+    JobMeta jobMeta = get( "job:" + key, version, loader );
+    return jobMeta != null ? copyOf( jobMeta, repository ) : null;
+  }
+
+  /**
+   * Checks whether the job with the given location and version is cached.
+   *
+   * @param key     the location of the job
+   * @param version the current version of the job
+   * @return <code>true</code> if a lookup with the same key and version would be a hit
+   */
+  public boolean hasJobMeta( String key, Object version ) {
+    if ( version == null ) {
+      return false;
+    }
+    synchronized ( entries ) {
+      Entry entry = entries.get( "job:" + key );
+      return entry != null && entry.version.equals( version );
+    }
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private <T> T get( String key, Object version, Callable<T> loader ) throws Exception {
+    if ( version == null || maxEntries <= 0 ) {
+      missCount.increment();
+      return loader.call();
+    }
+
+    Entry entry;
+    synchronized ( entries ) {
+      entry = entries.get( key );
+    }
+    if ( entry != null && entry.version.equals( version ) ) {
+      hitCount.increment();
+      return (T) entry.meta;
+    }
+
+    missCount.increment();
+    if ( entry != null ) {
+      invalidationCount.increment();
+    }
+
+    // loading happens outside the lock; concurrent misses on the same key may load it twice
+    T meta = loader.call();
+    synchronized ( entries ) {
+      if ( meta != null ) {
+        entries.put( key, new Entry( version, meta ) );
+      } else {
+        entries.remove( key );
+      }
+    }
+    return meta;
+  }
+
+  private static TransMeta copyOf( TransMeta source, Repository repository ) {
+    TransMeta copy = (TransMeta) source.clone();
+    copy.setName( source.getName() );
+    copy.setFilename( source.getFilename() );
+    copy.setRepositoryDirectory( source.getRepositoryDirectory() );
+    copy.setObjectId( source.getObjectId() );
+    copy.setRepository( repository );
+
+    // executions set their own variables; keep them off the cached instance
+    Variables variables = new Variables();
+    variables.copyVariablesFrom( source );
+    copy.shareVariablesWith( variables );
+    return copy;
+  }
+
+  private static JobMeta copyOf( JobMeta source, Repository repository ) {
+    JobMeta copy = (JobMeta) source.clone();
+    copy.setName( source.getName() );
+    copy.setFilename( source.getFilename() );
+    copy.setRepositoryDirectory( source.getRepositoryDirectory() );
+    copy.setObjectId( source.getObjectId() );
+    copy.setRepository( repository );
+
+    Variables variables = new Variables();
+    variables.copyVariablesFrom( source );
+    copy.shareVariablesWith( variables );
+    return copy;
+  }
+
+  /**
+   * Removes the cached transformation and job with the given location.
+   *
+   * @param key the location of the transformation or job
+   */
+  public void invalidate( String key ) {
+    synchronized ( entries ) {
+      if ( entries.remove( "trans:" + key ) != null ) {
+        invalidationCount.increment();
+      }
+      if ( entries.remove( "job:" + key ) != null ) {
+        invalidationCount.increment();
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized ( entries ) {
+      entries.clear();
+    }
+    if ( log.isDebugEnabled() ) {
+      log.debug( "Kettle metadata cache cleared" ); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Sets the maximum number of cached transformations and jobs. Zero disables caching.
+   *
+   * @param maxEntries the maximum number of entries
+   */
+  public void setMaxEntries( int maxEntries ) {
+    this.maxEntries = maxEntries;
+    synchronized ( entries ) {
+      if ( maxEntries <= 0 ) {
+        entries.clear();
+      } else {
+        while ( entries.size() > maxEntries ) {
+          entries.remove( entries.keySet().iterator().next() );
+        }
+      }
+    }
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public int getSize() {
+    synchronized ( entries ) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.sum();
+  }
+
+  private static class Entry {
+
+    private final Object version;
+
+    private final Object meta;
+
+    Entry( Object version, Object meta ) {
+      this.version = version;
+      this.meta = meta;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.kettle;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.commons.connection.IPeekable;
+import org.pentaho.commons.connection.IPentahoMetaData;
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.memory.MemoryResultSet;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A forward-only result set that exposes the rows written by a monitored Kettle step while the transformation is
+ * still running. Rows are handed over through a bounded queue: when the consumer falls behind, the step thread
+ * blocks in {@link #addRow(Object[])} until space frees up, so memory use is capped at the buffer size regardless of
+ * how many rows the step produces.
+ * <p>
+ * The consumer reads with {@link #next()}, which blocks until a row is available and returns <code>null</code> once
+ * the transformation has finished and every row has been read. If the transformation failed, it throws an
+ * {@link IllegalStateException} instead, so a failed run cannot be mistaken for a complete one. Closing the result
+ * set before the end releases the producer and runs the close callback, which {@link KettleComponent} uses to stop
+ * the transformation. A consumer that stops reading without closing is detected after the stall timeout and treated
+ * the same way.
+ */
+public class KettleStepResultSet implements IPentahoResultSet, IPeekable {
+
+  private static final Log logger = LogFactory.getLog( KettleStepResultSet.class );
+
+  public static final int DEFAULT_BUFFER_SIZE = 1000;
+
+  public static final long DEFAULT_STALL_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis( 5 );
+
+  private static final long POLL_MILLIS = 100;
+
+  private static final Object[] END_OF_ROWS = new Object[0];
+
+  private final IPentahoMetaData metaData;
+
+  private final BlockingQueue<Object[]> queue;
+
+  private final long stallTimeoutMillis;
+
+  private volatile boolean closed;
+
+  private volatile boolean finished;
+
+  private volatile boolean failed;
+
+  private volatile Runnable closeCallback;
+
+  private boolean exhausted;
+
+  private Object[] peekRow;
+
+  private int rowsRead;
+
+  public KettleStepResultSet( final IPentahoMetaData metaData ) {
+    this( metaData, DEFAULT_BUFFER_SIZE, DEFAULT_STALL_TIMEOUT_MILLIS );
+  }
+
+  public KettleStepResultSet( final IPentahoMetaData metaData, final int bufferSize, final long stallTimeoutMillis ) {
+    if ( bufferSize <= 0 ) {
+      throw new IllegalArgumentException( "bufferSize must be positive: " + bufferSize ); //$NON-NLS-1$
+    }
+    this.metaData = metaData;
+    this.queue = new ArrayBlockingQueue<Object[]>( bufferSize );
+    this.stallTimeoutMillis = stallTimeoutMillis;
+  }
+
+  /**
+   * Sets the action to run when the result set is closed before all rows have been produced.
+   */
+  public void setCloseCallback( final Runnable closeCallback ) {
+    this.closeCallback = closeCallback;
+  }
+
+  /**
+   * Hands a row to the consumer, blocking while the buffer is full.
+   *
+   * @param row the row to add
+   * @return <code>false</code> if the result set was closed and the row was discarded
+   * @throws InterruptedException if the producing thread is interrupted while waiting
+   */
+  public boolean addRow( final Object[] row ) throws InterruptedException {
+    return offer( row );
+  }
+
+  /**
+   * Signals that no more rows will be added. Rows already buffered remain readable.
+   */
+  public void finish() {
+    finish( false );
+  }
+
+  /**
+   * Signals that no more rows will be added. Rows already buffered remain readable.
+   *
+   * @param failed whether the transformation failed, in which case reading past the last row throws
+   */
+  public void finish( final boolean failed ) {
+    if ( finished ) {
+      return;
+    }
+    this.failed = failed;
+    finished = true;
+    try {
+      offer( END_OF_ROWS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      close();
+    }
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  public boolean isFailed() {
+    return failed;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  private boolean offer( final Object[] row ) throws InterruptedException {
+    long waited = 0;
+    while ( !closed ) {
+      if ( queue.offer( row, POLL_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        return true;
+      }
+      waited += POLL_MILLIS;
+      if ( stallTimeoutMillis > 0 && waited >= stallTimeoutMillis ) {
+        logger.warn( "Consumer of streamed Kettle rows stalled for " + waited //$NON-NLS-1$
+            + " ms; closing the result set" ); //$NON-NLS-1$
+        close();
+      }
+    }
+    return false;
+  }
+
+  public IPentahoMetaData getMetaData() {
+    return metaData;
+  }
+
+  public Object[] peek() {
+    if ( peekRow == null ) {
+      peekRow = next();
+    }
+    return peekRow;
+  }
+
+  public Object[] next() {
+    if ( peekRow != null ) {
+      Object[] row = peekRow;
+      peekRow = null;
+      return row;
+    }
+    if ( closed ) {
+      return null;
+    }
+    if ( exhausted ) {
+      return endOfRows();
+    }
+    try {
+      Object[] row = queue.take();
+      if ( row == END_OF_ROWS ) {
+        exhausted = true;
+        return endOfRows();
+      }
+      rowsRead++;
+      return row;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  private Object[] endOfRows() {
+    if ( failed ) {
+      throw new IllegalStateException( "The transformation producing the rows failed" ); //$NON-NLS-1$
+    }
+    return null;
+  }
+
+  public void close() {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    queue.clear();
+    Runnable callback = closeCallback;
+    if ( !finished && callback != null ) {
+      callback.run();
+    }
+  }
+
+  public void closeConnection() {
+    close();
+  }
+
+  public void dispose() {
+    close();
+  }
+
+  public boolean isScrollable() {
+    return false;
+  }
+
+  /**
+   * The total is only known once every row has been read; until then this returns -1.
+   */
+  public int getRowCount() {
+    return exhausted ? rowsRead : -1;
+  }
+
+  public int getColumnCount() {
+    return metaData.getColumnCount();
+  }
+
+  /**
+   * Random access is not supported on a stream; use {@link #memoryCopy()} to materialize the remaining rows.
+   */
+  public Object getValueAt( final int row, final int column ) {
+    return null;
+  }
+
+  public Object[] getDataRow( final int row ) {
+    return null;
+  }
+
+  public Object[] getDataColumn( final int column ) {
+    return null;
+  }
+
+  public void beforeFirst() {
+    // a stream cannot be rewound
+  }
+
+  /**
+   * Drains the remaining rows into a {@link MemoryResultSet}. This waits for the transformation to finish.
+   */
+  public IPentahoResultSet memoryCopy() {
+    MemoryResultSet cachedResultSet = new MemoryResultSet( metaData );
+    Object[] row = next();
+    while ( row != null ) {
+      cachedResultSet.addRow( row );
+      row = next();
+    }
+    return cachedResultSet;
+  }
+}
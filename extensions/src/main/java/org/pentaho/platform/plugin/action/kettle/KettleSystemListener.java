@@ -53,6 +53,11 @@ public class KettleSystemListener implements IPentahoSystemListener {
    */
   private boolean usePlatformLogFile = true;
 
+  /**
+   * Maximum number of parsed transformations and jobs kept by the {@link KettleMetaCache}; zero disables the cache.
+   */
+  private int metaCacheSize = KettleMetaCache.DEFAULT_MAX_ENTRIES;
+
   private org.apache.logging.log4j.Logger logger = LogManager.getLogger( getClass() );
 
   public boolean startup( final IPentahoSession session ) {
@@ -73,6 +78,8 @@ public class KettleSystemListener implements IPentahoSystemListener {
 
     hookInDataSourceProvider();
 
+    KettleMetaCache.getInstance().setMaxEntries( metaCacheSize );
+
     try {
       KettleSystemListener.environmentInit( session );
     } catch ( Throwable t ) {
@@ -172,13 +179,17 @@ public class KettleSystemListener implements IPentahoSystemListener {
   }
 
   public void shutdown() {
-    // Nothing required
+    KettleMetaCache.getInstance().clear();
   }
 
   public void setUsePlatformLogFile( final boolean usePlatformLogFile ) {
     this.usePlatformLogFile = usePlatformLogFile;
   }
 
+  public void setMetaCacheSize( final int metaCacheSize ) {
+    this.metaCacheSize = metaCacheSize;
+  }
+
   @VisibleForTesting
   Node getSlaveServerConfigNode( InputStream is )
     throws SAXException, IOException, ParserConfigurationException {
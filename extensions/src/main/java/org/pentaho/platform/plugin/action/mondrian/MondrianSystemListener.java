@@ -24,6 +24,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
 
 public class MondrianSystemListener implements IPentahoSystemListener {
 
@@ -64,6 +66,14 @@ public class MondrianSystemListener implements IPentahoSystemListener {
     }
   }
 
+  /**
+   * Loading mondrian.properties only needs the solution path.
+   */
+  @Override
+  public List<String> getStartupDependencies() {
+    return Collections.emptyList();
+  }
+
   public void shutdown() {
     // Nothing required
   }
@@ -46,6 +46,7 @@ import org.eigenbase.xom.XOMException;
 import org.eigenbase.xom.XOMUtil;
 import org.olap4j.OlapConnection;
 import org.owasp.encoder.Encode;
+import org.pentaho.platform.api.cache.ICacheInvalidationBus;
 import org.pentaho.platform.api.data.DBDatasourceServiceException;
 import org.pentaho.platform.api.data.IDBDatasourceService;
 import org.pentaho.platform.api.engine.ICacheManager;
@@ -837,6 +838,20 @@ public class MondrianCatalogHelper implements IAclAwareMondrianCatalogService {
     aclHelper = helper;
   }
 
+  /**
+   * Drops the cached catalogs when another server of the cluster changes them, so that they are loaded again on next
+   * use. Changes made through this helper update the cache themselves.
+   */
+  public void setCacheInvalidationBus( ICacheInvalidationBus cacheInvalidationBus ) {
+    cacheInvalidationBus.subscribe(
+      ClientRepositoryPaths.getEtcFolderPath() + RepositoryFile.SEPARATOR + MONDRIAN_DATASOURCE_FOLDER, paths -> {
+        final ICacheManager cacheMgr = PentahoSystem.getCacheManager( null );
+        if ( cacheMgr.cacheEnabled( MONDRIAN_CATALOG_CACHE_REGION ) ) {
+          cacheMgr.clearRegionCache( MONDRIAN_CATALOG_CACHE_REGION );
+        }
+      }, false );
+  }
+
   @Override
   public void setAclFor( String catalogName, RepositoryFileAcl acl ) {
     getAclHelper().setAclFor( getMondrianCatalogRepositoryHelper().getMondrianCatalogFile( catalogName ), acl );
@@ -40,6 +40,7 @@ import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFilePermission;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.PentahoSystemPublisher;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.plugin.action.messages.Messages;
 import org.pentaho.platform.plugin.action.olap.IOlapConnectionFilter;
@@ -89,6 +90,12 @@ public class OlapServiceImpl implements IOlapService {
 
   public static final String CATALOG_CACHE_REGION = "iolapservice-catalog-cache"; //$NON-NLS-1$
 
+  /**
+   * Published on the {@link PentahoSystemPublisher} with the name of the catalog whose schema was flushed, or
+   * <code>null</code> when all of them were.
+   */
+  public static final String SCHEMA_FLUSHED_TOPIC = "olap_schema_flushed"; //$NON-NLS-1$
+
   final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
 
   /**
@@ -485,6 +492,7 @@ public class OlapServiceImpl implements IOlapService {
     try ( OlapConnection connection = getConnection( name, session ) ) {
       final RolapConnection rc = connection.unwrap( RolapConnection.class );
       rc.getCacheControl( null ).flushSchema( rc.getSchema() );
+      PentahoSystemPublisher.getInstance().publish( SCHEMA_FLUSHED_TOPIC, name );
     } catch ( Exception e ) {
       LOG.warn( Messages.getInstance().getErrorString( "MondrianCatalogHelper.ERROR_0019_FAILED_TO_FLUSH", name ), e );
 
@@ -505,6 +513,7 @@ public class OlapServiceImpl implements IOlapService {
 
       flushHostedCatalogs();
       flushRemoteCatalogs( session );
+      PentahoSystemPublisher.getInstance().publish( SCHEMA_FLUSHED_TOPIC, null );
     } catch ( Exception e ) {
       throw new IOlapServiceException( e );
     } finally {
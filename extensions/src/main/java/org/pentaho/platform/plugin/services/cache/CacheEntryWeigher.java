@@ -0,0 +1,173 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import com.google.common.cache.Weigher;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Weighs cache entries by their approximate size in bytes.
+ * <p>
+ * An {@link IWeighable} reports its own size. Strings, boxed primitives and arrays are sized from their length.
+ * Collections and maps are sized from a sample of their elements. Any other object counts as {@link #DEFAULT_WEIGHT},
+ * unless serialization is turned on: then a serializable object is sized by serializing it once, on the thread that
+ * puts it in the cache, which is accurate but costs as much as the serialization itself.
+ */
+class CacheEntryWeigher implements Weigher<Object, Object> {
+
+  static final int DEFAULT_WEIGHT = 1024;
+
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private static final int OBJECT_OVERHEAD = 16;
+
+  private static final int REFERENCE = 8;
+
+  private static final int SAMPLE_SIZE = 32;
+
+  private static final int MAX_DEPTH = 4;
+
+  private final boolean serialize;
+
+  CacheEntryWeigher() {
+    this( false );
+  }
+
+  /**
+   * @param serialize whether serializable objects that cannot be sized otherwise are serialized to size them
+   */
+  CacheEntryWeigher( final boolean serialize ) {
+    this.serialize = serialize;
+  }
+
+  @Override
+  public int weigh( final Object key, final Object value ) {
+    long weight;
+    try {
+      weight = ENTRY_OVERHEAD + estimate( key, 0, serialize ) + estimate( value, 0, serialize );
+    } catch ( RuntimeException e ) {
+      // e.g. a collection modified while it was sampled
+      weight = ENTRY_OVERHEAD + DEFAULT_WEIGHT;
+    }
+    return (int) Math.min( Integer.MAX_VALUE, weight );
+  }
+
+  static long estimate( final Object object, final int depth ) {
+    return estimate( object, depth, false );
+  }
+
+  static long estimate( final Object object, final int depth, final boolean serialize ) {
+    if ( object == null ) {
+      return 0;
+    }
+    if ( object instanceof IWeighable ) {
+      return Math.max( 0, ( (IWeighable) object ).getWeight() );
+    }
+    if ( object instanceof String ) {
+      return 40 + 2L * ( (String) object ).length();
+    }
+    if ( object instanceof Number || object instanceof Boolean || object instanceof Character
+        || object instanceof Enum ) {
+      return OBJECT_OVERHEAD + REFERENCE;
+    }
+    if ( object instanceof byte[] ) {
+      return OBJECT_OVERHEAD + ( (byte[]) object ).length;
+    }
+    if ( object instanceof char[] ) {
+      return OBJECT_OVERHEAD + 2L * ( (char[]) object ).length;
+    }
+    if ( object instanceof int[] ) {
+      return OBJECT_OVERHEAD + 4L * ( (int[]) object ).length;
+    }
+    if ( object instanceof long[] ) {
+      return OBJECT_OVERHEAD + 8L * ( (long[]) object ).length;
+    }
+    if ( object instanceof double[] ) {
+      return OBJECT_OVERHEAD + 8L * ( (double[]) object ).length;
+    }
+    if ( object instanceof Object[] ) {
+      Object[] array = (Object[]) object;
+      return OBJECT_OVERHEAD + REFERENCE * array.length + sample( Arrays.asList( array ).iterator(),
+          array.length, depth, serialize );
+    }
+    if ( object instanceof Collection ) {
+      Collection<?> collection = (Collection<?>) object;
+      return 2 * OBJECT_OVERHEAD + 2 * REFERENCE * collection.size()
+          + sample( collection.iterator(), collection.size(), depth, serialize );
+    }
+    if ( object instanceof Map ) {
+      Map<?, ?> map = (Map<?, ?>) object;
+      return 2 * OBJECT_OVERHEAD + ( OBJECT_OVERHEAD + 4 * REFERENCE ) * map.size()
+          + sample( map.keySet().iterator(), map.size(), depth, serialize )
+          + sample( map.values().iterator(), map.size(), depth, serialize );
+    }
+    if ( serialize && object instanceof Serializable ) {
+      return serializedSize( object );
+    }
+    return DEFAULT_WEIGHT;
+  }
+
+  /**
+   * Estimates the elements of a collection from the first few of them.
+   */
+  private static long sample( final Iterator<?> elements, final int size, final int depth,
+                              final boolean serialize ) {
+    if ( size == 0 ) {
+      return 0;
+    }
+    if ( depth >= MAX_DEPTH ) {
+      return (long) size * REFERENCE;
+    }
+    long sampled = 0;
+    int count = 0;
+    while ( count < SAMPLE_SIZE && elements.hasNext() ) {
+      sampled += estimate( elements.next(), depth + 1, serialize );
+      count++;
+    }
+    return count == 0 ? 0 : sampled * size / count;
+  }
+
+  private static long serializedSize( final Object object ) {
+    CountingOutputStream counter = new CountingOutputStream();
+    try ( ObjectOutputStream out = new ObjectOutputStream( counter ) ) {
+      out.writeObject( object );
+    } catch ( IOException | RuntimeException e ) {
+      // not really serializable after all
+      return DEFAULT_WEIGHT;
+    }
+    return counter.count;
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write( final int b ) {
+      count++;
+    }
+
+    @Override
+    public void write( final byte[] b, final int off, final int len ) {
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * How often one cache entry was read, and its approximate size.
+ */
+@XmlRootElement( name = "key" )
+@XmlAccessorType( XmlAccessType.FIELD )
+public class CacheKeyStatistics {
+
+  private String key;
+
+  private long hitCount;
+
+  private long weight;
+
+  protected CacheKeyStatistics() {
+  }
+
+  public CacheKeyStatistics( final String key, final long hitCount, final long weight ) {
+    this.key = key;
+    this.hitCount = hitCount;
+    this.weight = weight;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the approximate size of the entry, in bytes, or -1 if it is not known
+   */
+  public long getWeight() {
+    return weight;
+  }
+}
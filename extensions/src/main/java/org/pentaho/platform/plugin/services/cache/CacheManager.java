@@ -14,6 +14,7 @@
 package org.pentaho.platform.plugin.services.cache;
 
 import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Statistics;
 import net.sf.ehcache.management.CacheStatistics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -43,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -115,7 +117,7 @@ import java.util.stream.Collectors;
  * @author mbatchel
  * 
  */
-public class CacheManager implements ICacheManager {
+public class CacheManager implements ICacheManager, ICacheStatisticsProvider {
 
   protected static final Log logger = LogFactory.getLog( CacheManager.class );
   // ~ Instance Fields ======================================================
@@ -167,6 +169,27 @@ public class CacheManager implements ICacheManager {
     PentahoSystem.addLogoutListener( this );
   }
 
+  /**
+   * Creates the cache manager named by the <code>cache-provider/manager</code> setting of <code>pentaho.xml</code>, such
+   * as {@link WeightedCacheManager}, or a <code>CacheManager</code> if there is none.
+   *
+   * @return the cache manager
+   */
+  public static ICacheManager create() {
+    ISystemSettings settings = PentahoSystem.getSystemSettings();
+    String managerClassname = settings != null ? settings.getSystemSetting( "cache-provider/manager", null ) : null; //$NON-NLS-1$
+    if ( managerClassname != null && !managerClassname.trim().isEmpty()
+        && !CacheManager.class.getName().equals( managerClassname.trim() ) ) {
+      Object manager = PentahoSystem.createObject( managerClassname.trim() );
+      if ( manager instanceof ICacheManager ) {
+        return (ICacheManager) manager;
+      }
+      CacheManager.logger.error( Messages.getInstance().getString(
+          "CacheManager.ERROR_0007_NOT_INSTANCE_OF_CACHE_MANAGER", managerClassname ) ); //$NON-NLS-1$
+    }
+    return new CacheManager();
+  }
+
   protected void setupRegionProvider( Properties cacheProperties ) {
     Object obj = PentahoSystem.createObject( regionFactoryClassname );  //Should be an HvCacheRegionFactory
     cacheExpirationRegistry = PentahoSystem.get( ICacheExpirationRegistry.class, null );
@@ -175,7 +198,7 @@ public class CacheManager implements ICacheManager {
       if ( obj instanceof RegionFactory ) {
         this.regionFactory = (RegionFactory) obj;  //cacheProvider changed to regionFactory for hibernate 5.3
         regionFactory.start( HibernateUtil.getSessionFactory().getSessionFactoryOptions(), cacheProperties );
-        regionCache = new HashMap<String, Cache>();
+        regionCache = new ConcurrentHashMap<String, Cache>();
         ( (SessionFactoryImplementor) HibernateUtil.getSessionFactory() ).getServiceRegistry()
           .getService( EventListenerRegistry.class ).prependListeners(
             EventType.LOAD, new HibernateLoadEventListener() );
@@ -222,7 +245,7 @@ public class CacheManager implements ICacheManager {
    * @param settings
    *          The Pentaho ISystemSettings object
    */
-  private Properties getCacheProperties( final ISystemSettings settings ) {
+  static Properties getCacheProperties( final ISystemSettings settings ) {
     Properties cacheProperties = new Properties();
     List propertySettings = settings.getSystemSettings( "cache-provider/properties/*" ); //$NON-NLS-1$
     for ( int i = 0; i < propertySettings.size(); i++ ) {
@@ -251,7 +274,7 @@ public class CacheManager implements ICacheManager {
     removeRegionCache( session.getName() );
   }
 
-  public boolean addCacheRegion( String region, Properties cacheProperties ) {
+  public synchronized boolean addCacheRegion( String region, Properties cacheProperties ) {
     boolean returnValue = false;
     if ( checkCacheEnabled() ) {
       if ( !cacheEnabled( region ) ) {
@@ -271,7 +294,7 @@ public class CacheManager implements ICacheManager {
     return returnValue;
   }
 
-  public boolean addCacheRegion( String region ) {
+  public synchronized boolean addCacheRegion( String region ) {
     boolean returnValue = false;
     if ( checkCacheEnabled() ) {
       if ( !cacheEnabled( region ) ) {
@@ -292,7 +315,7 @@ public class CacheManager implements ICacheManager {
     return returnValue;
   }
 
-  public boolean addCacheRegion( String region, Cache cache ) {
+  public synchronized boolean addCacheRegion( String region, Cache cache ) {
     if ( checkCacheEnabled() ) {
       if ( !cacheEnabled( region ) ) {
         regionCache.put( region, cache );
@@ -530,6 +553,85 @@ public class CacheManager implements ICacheManager {
     return getElementCountInRegionCache( GLOBAL );
   }
 
+  private Ehcache getEhcache( String region ) {
+    Cache cache = cacheEnabled && region != null ? regionCache.get( region ) : null;
+    return cache instanceof HvCache ? ( (HvCache) cache ).getStorageAccess().getCache() : null;
+  }
+
+  @Override
+  public List<CacheRegionStatistics> getRegionStatistics() {
+    List<CacheRegionStatistics> statistics = new ArrayList<CacheRegionStatistics>();
+    if ( cacheEnabled ) {
+      for ( String region : regionCache.keySet() ) {
+        CacheRegionStatistics regionStatistics = getRegionStatistics( region );
+        if ( regionStatistics != null ) {
+          statistics.add( regionStatistics );
+        }
+      }
+    }
+    return statistics;
+  }
+
+  @Override
+  public CacheRegionStatistics getRegionStatistics( String region ) {
+    Ehcache ehcache = getEhcache( region );
+    if ( ehcache == null ) {
+      return null;
+    }
+    Statistics statistics = ehcache.getStatistics();
+    long weight;
+    try {
+      weight = ehcache.calculateInMemorySize();
+    } catch ( RuntimeException e ) {
+      // some stores cannot be sized
+      weight = -1;
+    }
+    return new CacheRegionStatistics( region, statistics.getCacheHits(), statistics.getCacheMisses(),
+        statistics.getEvictionCount(), statistics.getObjectCount(), weight );
+  }
+
+  @Override
+  public List<CacheKeyStatistics> getHotKeys( String region, int count ) {
+    List<CacheKeyStatistics> keys = new ArrayList<CacheKeyStatistics>();
+    Ehcache ehcache = getEhcache( region );
+    if ( ehcache != null ) {
+      Map<CacheKeyStatistics, net.sf.ehcache.Element> elements = new HashMap<CacheKeyStatistics, net.sf.ehcache.Element>();
+      for ( Object key : ehcache.getKeys() ) {
+        // getQuiet does not count as a hit
+        net.sf.ehcache.Element element = ehcache.getQuiet( key );
+        if ( element != null ) {
+          CacheKeyStatistics keyStatistics =
+              new CacheKeyStatistics( CacheStatisticsSupport.keyName( region, key ), element.getHitCount(), -1 );
+          keys.add( keyStatistics );
+          elements.put( keyStatistics, element );
+        }
+      }
+      // serializing is expensive, so only the hottest keys are sized
+      List<CacheKeyStatistics> hottest = new ArrayList<CacheKeyStatistics>();
+      for ( CacheKeyStatistics keyStatistics : CacheStatisticsSupport.hottest( keys, count ) ) {
+        hottest.add( new CacheKeyStatistics( keyStatistics.getKey(), keyStatistics.getHitCount(),
+            elements.get( keyStatistics ).getSerializedSize() ) );
+      }
+      return hottest;
+    }
+    return keys;
+  }
+
+  @Override
+  public List<CacheSessionStatistics> getSessionCacheStatistics( int count ) {
+    CacheStatisticsSupport.SessionTotals totals = new CacheStatisticsSupport.SessionTotals();
+    Ehcache ehcache = getEhcache( SESSION );
+    if ( ehcache != null ) {
+      for ( Object key : ehcache.getKeys() ) {
+        net.sf.ehcache.Element element = ehcache.getQuiet( key );
+        if ( element != null ) {
+          totals.add( key, element.getSerializedSize() );
+        }
+      }
+    }
+    return totals.largest( count );
+  }
+
   private boolean checkRegionEnabled( String region ) {
     if ( checkCacheEnabled() ) {
       if ( cacheEnabled( region ) ) {
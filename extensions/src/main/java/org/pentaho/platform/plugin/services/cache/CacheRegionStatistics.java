@@ -0,0 +1,95 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A snapshot of the usage of one cache region.
+ */
+@XmlRootElement( name = "region" )
+@XmlAccessorType( XmlAccessType.FIELD )
+public class CacheRegionStatistics {
+
+  private String region;
+
+  private long hitCount;
+
+  private long missCount;
+
+  private long evictionCount;
+
+  private long entryCount;
+
+  private long weight;
+
+  protected CacheRegionStatistics() {
+  }
+
+  public CacheRegionStatistics( final String region, final long hitCount, final long missCount,
+                                final long evictionCount, final long entryCount, final long weight ) {
+    this.region = region;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.entryCount = entryCount;
+    this.weight = weight;
+  }
+
+  public String getRegion() {
+    return region;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the ratio of hits to lookups, or 1 if there were no lookups
+   */
+  public double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  /**
+   * @return the number of entries evicted to stay within the size of the region or because they expired
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public long getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * @return the approximate size of the entries, in bytes, or -1 if it is not known
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public String toString() {
+    return region + "[hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        + ", entries=" + entryCount + ", weight=" + weight + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+}
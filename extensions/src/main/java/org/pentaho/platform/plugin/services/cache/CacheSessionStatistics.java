@@ -0,0 +1,93 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The memory one user session holds: its entries in the session cache region and, when they can be weighed, its
+ * attributes.
+ */
+@XmlRootElement( name = "session" )
+@XmlAccessorType( XmlAccessType.FIELD )
+public class CacheSessionStatistics {
+
+  private String sessionId;
+
+  private String userName;
+
+  private long entryCount;
+
+  private long weight;
+
+  private long attributesWeight;
+
+  protected CacheSessionStatistics() {
+  }
+
+  public CacheSessionStatistics( final String sessionId, final long entryCount, final long weight ) {
+    this( sessionId, null, entryCount, weight, -1 );
+  }
+
+  public CacheSessionStatistics( final String sessionId, final String userName, final long entryCount,
+                                 final long weight, final long attributesWeight ) {
+    this.sessionId = sessionId;
+    this.userName = userName;
+    this.entryCount = entryCount;
+    this.weight = weight;
+    this.attributesWeight = attributesWeight;
+  }
+
+  /**
+   * @return a salted hash of the id of the session, which tells sessions apart without revealing them, or
+   *         <code>null</code> when it is not reported
+   */
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  /**
+   * @return the name of the user of the session, or <code>null</code> if it is not known
+   */
+  public String getUserName() {
+    return userName;
+  }
+
+  public long getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * @return the approximate size of the entries, in bytes
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  /**
+   * @return the approximate size of the attributes of the session, in bytes, or -1 if it is not known
+   */
+  public long getAttributesWeight() {
+    return attributesWeight;
+  }
+
+  /**
+   * @return the approximate size of the entries and the attributes of the session, in bytes
+   */
+  public long getTotalWeight() {
+    return weight + Math.max( 0, attributesWeight );
+  }
+}
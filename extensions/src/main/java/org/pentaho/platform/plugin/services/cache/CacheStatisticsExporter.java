@@ -0,0 +1,98 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.ICacheManager;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registers the statistics of the {@link ICacheManager} with the platform MBean server as
+ * <code>org.pentaho.platform:type=CacheStatistics</code>, when the cache manager keeps statistics.
+ * <p>
+ * JMX does not check that its clients are administrators, so sessions are reported without their ids.
+ */
+public class CacheStatisticsExporter implements CacheStatisticsMXBean {
+
+  private static final Log logger = LogFactory.getLog( CacheStatisticsExporter.class );
+
+  public static final String OBJECT_NAME = "org.pentaho.platform:type=CacheStatistics"; //$NON-NLS-1$
+
+  private final ICacheStatisticsProvider provider;
+
+  private ObjectName objectName;
+
+  public CacheStatisticsExporter( final ICacheManager cacheManager ) {
+    this.provider = cacheManager instanceof ICacheStatisticsProvider ? (ICacheStatisticsProvider) cacheManager : null;
+  }
+
+  public void init() {
+    if ( provider == null ) {
+      logger.debug( "The cache manager does not keep statistics, not registering " + OBJECT_NAME ); //$NON-NLS-1$
+      return;
+    }
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName( OBJECT_NAME );
+      if ( !server.isRegistered( name ) ) {
+        server.registerMBean( this, name );
+        objectName = name;
+      }
+    } catch ( JMException e ) {
+      logger.warn( "Could not register " + OBJECT_NAME, e ); //$NON-NLS-1$
+    }
+  }
+
+  public void destroy() {
+    if ( objectName != null ) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName );
+      } catch ( JMException e ) {
+        logger.debug( "Could not unregister " + OBJECT_NAME, e ); //$NON-NLS-1$
+      }
+      objectName = null;
+    }
+  }
+
+  @Override
+  public List<CacheRegionStatistics> getRegionStatistics() {
+    return provider != null ? provider.getRegionStatistics() : Collections.<CacheRegionStatistics>emptyList();
+  }
+
+  @Override
+  public List<CacheKeyStatistics> hotKeys( final String region, final int count ) {
+    return provider != null ? provider.getHotKeys( region, count ) : Collections.<CacheKeyStatistics>emptyList();
+  }
+
+  @Override
+  public List<CacheSessionStatistics> largestSessionCaches( final int count ) {
+    if ( provider == null ) {
+      return Collections.<CacheSessionStatistics>emptyList();
+    }
+    List<CacheSessionStatistics> sessions = new ArrayList<CacheSessionStatistics>();
+    for ( CacheSessionStatistics session : provider.getSessionCacheStatistics( count ) ) {
+      sessions.add( new CacheSessionStatistics( null, session.getUserName(), session.getEntryCount(),
+          session.getWeight(), session.getAttributesWeight() ) );
+    }
+    return sessions;
+  }
+}
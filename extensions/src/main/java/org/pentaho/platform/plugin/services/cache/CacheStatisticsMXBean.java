@@ -0,0 +1,40 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import java.util.List;
+
+/**
+ * The JMX view of an {@link ICacheStatisticsProvider}, registered by {@link CacheStatisticsExporter}.
+ */
+public interface CacheStatisticsMXBean {
+
+  /**
+   * @return the statistics of every region
+   */
+  List<CacheRegionStatistics> getRegionStatistics();
+
+  /**
+   * @param region the region
+   * @param count  the maximum number of keys to return
+   * @return the keys of the region that were read the most, most read first
+   */
+  List<CacheKeyStatistics> hotKeys( String region, int count );
+
+  /**
+   * @param count the maximum number of sessions to return
+   * @return the sessions whose entries in the session region are the largest, largest first, without their ids
+   */
+  List<CacheSessionStatistics> largestSessionCaches( int count );
+}
@@ -0,0 +1,139 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import org.pentaho.platform.api.engine.ICacheManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranking and aggregation shared by the {@link ICacheStatisticsProvider} implementations.
+ */
+final class CacheStatisticsSupport {
+
+  /**
+   * Separates the session id from the key in the keys of the session region
+   */
+  static final char SESSION_KEY_SEPARATOR = '\t';
+
+  /**
+   * Drawn once per server, so that masked session ids cannot be matched against known ones
+   */
+  private static final byte[] SESSION_ID_SALT = newSalt();
+
+  private static final int MASKED_SESSION_ID_LENGTH = 12;
+
+  private CacheStatisticsSupport() {
+  }
+
+  private static byte[] newSalt() {
+    byte[] salt = new byte[ 16 ];
+    new SecureRandom().nextBytes( salt );
+    return salt;
+  }
+
+  /**
+   * Statistics must not reveal session ids, which would let whoever reads them take over the sessions.
+   *
+   * @return a salted hash of the session id, which tells sessions apart without revealing them
+   */
+  static String maskSessionId( final String sessionId ) {
+    if ( sessionId == null ) {
+      return null;
+    }
+    try {
+      MessageDigest digest = MessageDigest.getInstance( "SHA-256" ); //$NON-NLS-1$
+      digest.update( SESSION_ID_SALT );
+      byte[] hash = digest.digest( sessionId.getBytes( StandardCharsets.UTF_8 ) );
+      StringBuilder masked = new StringBuilder( MASKED_SESSION_ID_LENGTH );
+      for ( int i = 0; masked.length() < MASKED_SESSION_ID_LENGTH; i++ ) {
+        masked.append( Character.forDigit( ( hash[ i ] >> 4 ) & 0xF, 16 ) )
+            .append( Character.forDigit( hash[ i ] & 0xF, 16 ) );
+      }
+      return masked.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException( e );
+    }
+  }
+
+  /**
+   * @return the key as it is reported, without the session id that prefixes the keys of the session region
+   */
+  static String keyName( final String region, final Object key ) {
+    String name = String.valueOf( key );
+    if ( ICacheManager.SESSION.equals( region ) ) {
+      int separator = name.indexOf( SESSION_KEY_SEPARATOR );
+      if ( separator >= 0 ) {
+        return name.substring( separator + 1 );
+      }
+    }
+    return name;
+  }
+
+  /**
+   * @return the <code>count</code> most read keys, most read first
+   */
+  static List<CacheKeyStatistics> hottest( final List<CacheKeyStatistics> keys, final int count ) {
+    keys.sort( Comparator.comparingLong( CacheKeyStatistics::getHitCount ).reversed() );
+    return new ArrayList<CacheKeyStatistics>( keys.subList( 0, Math.max( 0, Math.min( count, keys.size() ) ) ) );
+  }
+
+  /**
+   * @return the <code>count</code> sessions that hold the most memory, heaviest first
+   */
+  static List<CacheSessionStatistics> heaviest( final List<CacheSessionStatistics> sessions, final int count ) {
+    sessions.sort( Comparator.comparingLong( CacheSessionStatistics::getTotalWeight ).reversed() );
+    return new ArrayList<CacheSessionStatistics>(
+        sessions.subList( 0, Math.max( 0, Math.min( count, sessions.size() ) ) ) );
+  }
+
+  /**
+   * Adds up the entries of the session region per session.
+   */
+  static class SessionTotals {
+    private final Map<String, long[]> totals = new HashMap<String, long[]>();
+
+    void add( final Object key, final long weight ) {
+      if ( key instanceof String ) {
+        int separator = ( (String) key ).indexOf( SESSION_KEY_SEPARATOR );
+        if ( separator > 0 ) {
+          long[] total = totals.computeIfAbsent( ( (String) key ).substring( 0, separator ), id -> new long[ 2 ] );
+          total[ 0 ]++;
+          total[ 1 ] += weight;
+        }
+      }
+    }
+
+    /**
+     * @return the <code>count</code> sessions with the largest entries, largest first
+     */
+    List<CacheSessionStatistics> largest( final int count ) {
+      List<CacheSessionStatistics> sessions = new ArrayList<CacheSessionStatistics>( totals.size() );
+      for ( Map.Entry<String, long[]> total : totals.entrySet() ) {
+        sessions.add( new CacheSessionStatistics( maskSessionId( total.getKey() ), total.getValue()[ 0 ],
+            total.getValue()[ 1 ] ) );
+      }
+      return heaviest( sessions, count );
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import java.util.List;
+
+/**
+ * Implemented by cache managers that can report how their regions are used.
+ */
+public interface ICacheStatisticsProvider {
+
+  /**
+   * @return the statistics of every region
+   */
+  List<CacheRegionStatistics> getRegionStatistics();
+
+  /**
+   * @param region the region
+   * @return the statistics of the region, or <code>null</code> if there is no such region
+   */
+  CacheRegionStatistics getRegionStatistics( String region );
+
+  /**
+   * @param region the region
+   * @param count  the maximum number of keys to return
+   * @return the keys of the region that were read the most, most read first; empty if there is no such region
+   */
+  List<CacheKeyStatistics> getHotKeys( String region, int count );
+
+  /**
+   * @param count the maximum number of sessions to return
+   * @return the sessions whose entries in the session region are the largest, largest first
+   */
+  List<CacheSessionStatistics> getSessionCacheStatistics( int count );
+}
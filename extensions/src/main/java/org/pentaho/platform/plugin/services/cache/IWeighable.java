@@ -0,0 +1,27 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+/**
+ * A cache entry that knows its own approximate size, so that {@link CacheEntryWeigher} does not have to guess it.
+ */
+public interface IWeighable {
+
+  /**
+   * Called whenever the object is put in a {@link WeightedCacheManager} region, so it should be cheap.
+   *
+   * @return the approximate size of the object, in bytes
+   */
+  long getWeight();
+}
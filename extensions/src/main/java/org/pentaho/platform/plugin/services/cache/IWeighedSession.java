@@ -0,0 +1,29 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+/**
+ * A user session that can estimate how much memory its attributes hold, so that {@link WeightedCacheManager} can
+ * account for it next to the session's cache entries.
+ */
+public interface IWeighedSession {
+
+  /**
+   * Called whenever the session puts something in the session cache, so it should be cheap: implementations are
+   * expected to remember the estimates of attributes that did not change.
+   *
+   * @return the approximate size of the attributes of the session, in bytes
+   */
+  long getAttributesWeight();
+}
@@ -0,0 +1,595 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.services.messages.Messages;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link ICacheManager} that keeps each region in a concurrent in-memory cache bounded by the approximate size in
+ * bytes of its entries, rather than by their number, so that one large metadata Domain weighs more than many small
+ * strings. Regions can be added at any time from any thread, and keep hit, miss and eviction statistics.
+ * <p>
+ * To use it, name it in the <code>cache-provider/manager</code> setting of <code>pentaho.xml</code>. The
+ * <code>cache-provider/properties</code> set the defaults of every region, and can be overridden per region through
+ * {@link #addCacheRegion(String, Properties)}:
+ *
+ * <pre>
+ *  &lt;cache-provider&gt;
+ *    &lt;manager&gt;org.pentaho.platform.plugin.services.cache.WeightedCacheManager&lt;/manager&gt;
+ *    &lt;properties&gt;
+ *      &lt;property name=&quot;maxRegionBytes&quot;&gt;67108864&lt;/property&gt;
+ *      &lt;property name=&quot;expireAfterAccessSeconds&quot;&gt;0&lt;/property&gt;
+ *      &lt;property name=&quot;sessionSoftLimitBytes&quot;&gt;33554432&lt;/property&gt;
+ *      &lt;property name=&quot;sessionHardLimitBytes&quot;&gt;67108864&lt;/property&gt;
+ *      &lt;property name=&quot;serializeToWeigh&quot;&gt;false&lt;/property&gt;
+ *    &lt;/properties&gt;
+ *  &lt;/cache-provider&gt;
+ * </pre>
+ *
+ * A region is split into a few segments that are bounded separately, so an entry bigger than a quarter of the size
+ * of its region is not kept.
+ * <p>
+ * The memory held by each user session is accounted for as the size of its session cache entries plus, for an
+ * {@link IWeighedSession}, the size of its attributes. When a session holds more than the soft limit, its least
+ * recently used session cache entries are evicted, except the one just put. The hard limit is never exceeded: older
+ * entries are evicted to make room for a new one, and an entry that does not fit at all is not kept.
+ *
+ * @see CacheEntryWeigher
+ */
+public class WeightedCacheManager implements ICacheManager, ICacheStatisticsProvider {
+
+  protected static final Log logger = LogFactory.getLog( WeightedCacheManager.class );
+
+  /**
+   * The maximum approximate size of the entries of a region, in bytes
+   */
+  public static final String MAX_REGION_BYTES = "maxRegionBytes"; //$NON-NLS-1$
+
+  /**
+   * How long an entry is kept after it was last read or written, in seconds; 0 to keep it until it is evicted
+   */
+  public static final String EXPIRE_AFTER_ACCESS_SECONDS = "expireAfterAccessSeconds"; //$NON-NLS-1$
+
+  /**
+   * The size in bytes above which the least recently used session cache entries of a session are evicted; 0 for none
+   */
+  public static final String SESSION_SOFT_LIMIT_BYTES = "sessionSoftLimitBytes"; //$NON-NLS-1$
+
+  /**
+   * The size in bytes that the session cache entries and attributes of a session may not exceed; 0 for none
+   */
+  public static final String SESSION_HARD_LIMIT_BYTES = "sessionHardLimitBytes"; //$NON-NLS-1$
+
+  /**
+   * Whether entries that cannot be sized otherwise are serialized, when they are put, to weigh them; false by default
+   */
+  public static final String SERIALIZE_TO_WEIGH = "serializeToWeigh"; //$NON-NLS-1$
+
+  static final long DEFAULT_MAX_REGION_BYTES = 64L * 1024 * 1024;
+
+  private final CacheEntryWeigher weigher;
+
+  private final ConcurrentMap<String, Region> regions = new ConcurrentHashMap<String, Region>();
+
+  private final ConcurrentMap<String, SessionUsage> sessions = new ConcurrentHashMap<String, SessionUsage>();
+
+  private final Properties defaultProperties;
+
+  private final long sessionSoftLimit;
+
+  private final long sessionHardLimit;
+
+  public WeightedCacheManager() {
+    this( PentahoSystem.getSystemSettings() != null
+        ? CacheManager.getCacheProperties( PentahoSystem.getSystemSettings() ) : new Properties() );
+    PentahoSystem.addLogoutListener( this );
+  }
+
+  public WeightedCacheManager( final Properties defaultProperties ) {
+    this.defaultProperties = defaultProperties;
+    this.sessionSoftLimit = getLong( null, SESSION_SOFT_LIMIT_BYTES, 0 );
+    this.sessionHardLimit = getLong( null, SESSION_HARD_LIMIT_BYTES, 0 );
+    this.weigher = new CacheEntryWeigher( Boolean.parseBoolean(
+        defaultProperties.getProperty( SERIALIZE_TO_WEIGH, "false" ).trim() ) ); //$NON-NLS-1$
+    addCacheRegion( SESSION );
+    addCacheRegion( GLOBAL );
+  }
+
+  /**
+   * Estimates the size in bytes of an object, the way cache entries are weighed, without serializing it.
+   *
+   * @param object the object
+   * @return its approximate size in bytes
+   */
+  public static long estimateSize( final Object object ) {
+    try {
+      return CacheEntryWeigher.estimate( object, 0 );
+    } catch ( RuntimeException e ) {
+      // e.g. a collection modified while it was sampled
+      return CacheEntryWeigher.DEFAULT_WEIGHT;
+    }
+  }
+
+  private Region buildRegion( final String name, final Properties properties ) {
+    return new Region( name, getLong( properties, MAX_REGION_BYTES, DEFAULT_MAX_REGION_BYTES ),
+        getLong( properties, EXPIRE_AFTER_ACCESS_SECONDS, 0 ),
+        SESSION.equals( name ) ? this::sessionEntryRemoved : null );
+  }
+
+  private long getLong( final Properties properties, final String name, final long defaultValue ) {
+    String value = properties != null ? properties.getProperty( name ) : null;
+    if ( value == null ) {
+      value = defaultProperties.getProperty( name );
+    }
+    if ( value != null ) {
+      try {
+        return Long.parseLong( value.trim() );
+      } catch ( NumberFormatException e ) {
+        logger.warn( "Ignoring invalid cache property " + name + "=" + value ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+    return defaultValue;
+  }
+
+  private Region getRegion( final String region ) {
+    Region result = region != null ? regions.get( region ) : null;
+    if ( result == null ) {
+      logger.warn( Messages.getInstance().getString( "CacheManager.WARN_0003_REGION_DOES_NOT_EXIST", region ) ); //$NON-NLS-1$
+    }
+    return result;
+  }
+
+  @Override
+  public void cacheStop() {
+    for ( Region region : regions.values() ) {
+      region.cache.invalidateAll();
+    }
+    regions.clear();
+  }
+
+  @Override
+  public boolean cacheEnabled() {
+    return true;
+  }
+
+  @Override
+  public boolean cacheEnabled( final String region ) {
+    return region != null && regions.containsKey( region );
+  }
+
+  @Override
+  public void onLogout( final IPentahoSession session ) {
+    removeRegionCache( session.getName() );
+    if ( session.getId() != null ) {
+      removeSession( session.getId() );
+    }
+  }
+
+  @Override
+  public boolean addCacheRegion( final String region ) {
+    regions.computeIfAbsent( region, name -> buildRegion( name, null ) );
+    return true;
+  }
+
+  @Override
+  public boolean addCacheRegion( final String region, final Properties cacheProperties ) {
+    boolean[] added = new boolean[ 1 ];
+    regions.computeIfAbsent( region, name -> {
+      added[ 0 ] = true;
+      return buildRegion( name, cacheProperties );
+    } );
+    if ( !added[ 0 ] ) {
+      logger.warn( Messages.getInstance().getString( "CacheManager.WARN_0002_REGION_ALREADY_EXIST", region ) ); //$NON-NLS-1$
+    }
+    return added[ 0 ];
+  }
+
+  @Override
+  public void clearRegionCache( final String region ) {
+    Region cache = region != null ? regions.get( region ) : null;
+    if ( cache != null ) {
+      cache.cache.invalidateAll();
+    } else {
+      logger.info( Messages.getInstance().getString( "CacheManager.INFO_0001_CACHE_DOES_NOT_EXIST", region ) ); //$NON-NLS-1$
+    }
+  }
+
+  @Override
+  public void removeRegionCache( final String region ) {
+    // like CacheManager, the region stays available, empty
+    if ( cacheEnabled( region ) ) {
+      clearRegionCache( region );
+    }
+    // PentahoCacheSessionListener removes the region named after a session when the session expires
+    if ( region != null && sessions.containsKey( region ) ) {
+      removeSession( region );
+    }
+  }
+
+  @Override
+  public void clearCache() {
+    for ( Region region : regions.values() ) {
+      region.cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void putInRegionCache( final String region, final Object key, final Object value ) {
+    Region cache = getRegion( region );
+    if ( cache != null && key != null ) {
+      if ( value == null ) {
+        cache.cache.invalidate( key );
+      } else {
+        Weighted weighted = new Weighted( value, weigher.weigh( key, value ) );
+        cache.weight.addAndGet( weighted.weight );
+        cache.cache.put( key, weighted );
+      }
+    }
+  }
+
+  @Override
+  public Object getFromRegionCache( final String region, final Object key ) {
+    Region cache = getRegion( region );
+    if ( cache == null || key == null ) {
+      return null;
+    }
+    Weighted weighted = cache.cache.getIfPresent( key );
+    if ( weighted == null ) {
+      return null;
+    }
+    weighted.hits.increment();
+    weighted.lastAccess = System.nanoTime();
+    return weighted.value;
+  }
+
+  @Override
+  @SuppressWarnings( "rawtypes" )
+  public Set getAllEntriesFromRegionCache( final String region ) {
+    Region cache = getRegion( region );
+    if ( cache == null ) {
+      return null;
+    }
+    Set<Object> values = new HashSet<Object>();
+    for ( Weighted weighted : cache.cache.asMap().values() ) {
+      values.add( weighted.value );
+    }
+    return values;
+  }
+
+  @Override
+  @SuppressWarnings( "rawtypes" )
+  public Set getAllKeysFromRegionCache( final String region ) {
+    Region cache = getRegion( region );
+    return cache != null ? new HashSet<Object>( cache.cache.asMap().keySet() ) : null;
+  }
+
+  @Override
+  @SuppressWarnings( "rawtypes" )
+  public List getAllValuesFromRegionCache( final String region ) {
+    List<Object> values = new ArrayList<Object>();
+    Region cache = getRegion( region );
+    if ( cache != null ) {
+      for ( Weighted weighted : cache.cache.asMap().values() ) {
+        values.add( weighted.value );
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void removeFromRegionCache( final String region, final Object key ) {
+    Region cache = getRegion( region );
+    if ( cache != null && key != null ) {
+      cache.cache.invalidate( key );
+    }
+  }
+
+  @Override
+  public long getElementCountInRegionCache( final String region ) {
+    Region cache = getRegion( region );
+    return cache != null ? cache.cache.size() : -1;
+  }
+
+  @Override
+  public long getElementCountInSessionCache() {
+    return getElementCountInRegionCache( SESSION );
+  }
+
+  @Override
+  public long getElementCountInGlobalCache() {
+    return getElementCountInRegionCache( GLOBAL );
+  }
+
+  // ~======= Session and global caches
+
+  @Override
+  public void putInSessionCache( final IPentahoSession session, final String key, final Object value ) {
+    String cacheKey = getCorrectedKey( session, key );
+    Region cache = getRegion( SESSION );
+    if ( cache == null ) {
+      return;
+    }
+    if ( value == null ) {
+      cache.cache.invalidate( cacheKey );
+      return;
+    }
+    Weighted weighted = new Weighted( value, weigher.weigh( cacheKey, value ) );
+    SessionUsage usage = getSessionUsage( session );
+    long attributesWeight = sessionSoftLimit > 0 || sessionHardLimit > 0 ? usage.getAttributesWeight() : 0;
+    if ( sessionHardLimit > 0 ) {
+      if ( attributesWeight + weighted.weight > sessionHardLimit ) {
+        cache.cache.invalidate( cacheKey );
+        if ( logger.isDebugEnabled() ) {
+          logger.debug( "Not caching " + key + " (" + weighted.weight + " bytes) for session " + session.getId() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+              + ", which holds " + attributesWeight + " bytes of attributes" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return;
+      }
+      trim( cache, usage, null, sessionHardLimit - attributesWeight - weighted.weight );
+    }
+    usage.keys.add( cacheKey );
+    usage.weight.addAndGet( weighted.weight );
+    cache.weight.addAndGet( weighted.weight );
+    cache.cache.put( cacheKey, weighted );
+    if ( sessionSoftLimit > 0 ) {
+      trim( cache, usage, cacheKey, sessionSoftLimit - attributesWeight );
+    }
+  }
+
+  @Override
+  public Object getFromSessionCache( final IPentahoSession session, final String key ) {
+    return getFromRegionCache( SESSION, getCorrectedKey( session, key ) );
+  }
+
+  private SessionUsage getSessionUsage( final IPentahoSession session ) {
+    SessionUsage usage = sessions.get( session.getId() );
+    return usage != null ? usage : sessions.computeIfAbsent( session.getId(), id -> new SessionUsage( session ) );
+  }
+
+  /**
+   * Evicts the least recently used session cache entries of a session, but <code>keep</code>, until they weigh no
+   * more than <code>maxWeight</code>.
+   */
+  private void trim( final Region cache, final SessionUsage usage, final String keep, final long maxWeight ) {
+    long excess = usage.weight.get() - Math.max( 0, maxWeight );
+    if ( excess <= 0 ) {
+      return;
+    }
+    List<Map.Entry<String, Weighted>> entries = new ArrayList<Map.Entry<String, Weighted>>();
+    for ( String key : usage.keys ) {
+      Weighted weighted = key.equals( keep ) ? null : cache.cache.asMap().get( key );
+      if ( weighted != null ) {
+        entries.add( new AbstractMap.SimpleImmutableEntry<String, Weighted>( key, weighted ) );
+      }
+    }
+    entries.sort( Comparator.comparingLong( entry -> entry.getValue().lastAccess ) );
+    for ( Map.Entry<String, Weighted> entry : entries ) {
+      if ( excess <= 0 ) {
+        break;
+      }
+      if ( cache.cache.asMap().remove( entry.getKey(), entry.getValue() ) ) {
+        excess -= entry.getValue().weight;
+      }
+    }
+  }
+
+  private void sessionEntryRemoved( final RemovalNotification<Object, Weighted> removed ) {
+    String key = removed.getKey() instanceof String ? (String) removed.getKey() : null;
+    int separator = key != null ? key.indexOf( CacheStatisticsSupport.SESSION_KEY_SEPARATOR ) : -1;
+    SessionUsage usage = separator > 0 ? sessions.get( key.substring( 0, separator ) ) : null;
+    if ( usage != null && removed.getValue() != null ) {
+      usage.weight.addAndGet( -removed.getValue().weight );
+      if ( removed.getCause() != RemovalCause.REPLACED ) {
+        usage.keys.remove( key );
+        if ( usage.keys.isEmpty() && usage.session.get() == null ) {
+          // the session is gone without logging out
+          sessions.remove( key.substring( 0, separator ), usage );
+        }
+      }
+    }
+  }
+
+  @Override
+  public void removeFromSessionCache( final IPentahoSession session, final String key ) {
+    removeFromRegionCache( SESSION, getCorrectedKey( session, key ) );
+  }
+
+  @Override
+  public void killSessionCache( final IPentahoSession session ) {
+    if ( session.getId() != null ) {
+      removeSession( session.getId() );
+    }
+  }
+
+  /**
+   * Removes the session cache entries of a session, and forgets the session.
+   */
+  private void removeSession( final String sessionId ) {
+    SessionUsage usage = sessions.remove( sessionId );
+    Region cache = regions.get( SESSION );
+    if ( usage != null && cache != null ) {
+      cache.cache.invalidateAll( usage.keys );
+    }
+  }
+
+  @Override
+  public void killSessionCaches() {
+    removeRegionCache( SESSION );
+  }
+
+  @Override
+  public void putInGlobalCache( final Object key, final Object value ) {
+    putInRegionCache( GLOBAL, key, value );
+  }
+
+  @Override
+  public Object getFromGlobalCache( final Object key ) {
+    return getFromRegionCache( GLOBAL, key );
+  }
+
+  @Override
+  public void removeFromGlobalCache( final Object key ) {
+    removeFromRegionCache( GLOBAL, key );
+  }
+
+  private String getCorrectedKey( final IPentahoSession session, final String key ) {
+    String sessionId = session.getId();
+    if ( sessionId == null ) {
+      throw new IllegalArgumentException( Messages.getInstance().getErrorString( "CacheManager.ERROR_0001_NOSESSION" ) ); //$NON-NLS-1$
+    }
+    return sessionId + CacheStatisticsSupport.SESSION_KEY_SEPARATOR + key;
+  }
+
+  // ~======= Statistics
+
+  @Override
+  public CacheRegionStatistics getRegionStatistics( final String region ) {
+    Region cache = region != null ? regions.get( region ) : null;
+    return cache != null ? cache.getStatistics() : null;
+  }
+
+  @Override
+  public List<CacheRegionStatistics> getRegionStatistics() {
+    List<CacheRegionStatistics> statistics = new ArrayList<CacheRegionStatistics>();
+    for ( Map.Entry<String, Region> region : regions.entrySet() ) {
+      statistics.add( region.getValue().getStatistics() );
+    }
+    return statistics;
+  }
+
+  @Override
+  public List<CacheKeyStatistics> getHotKeys( final String region, final int count ) {
+    List<CacheKeyStatistics> keys = new ArrayList<CacheKeyStatistics>();
+    Region cache = region != null ? regions.get( region ) : null;
+    if ( cache != null ) {
+      for ( Map.Entry<Object, Weighted> entry : cache.cache.asMap().entrySet() ) {
+        keys.add( new CacheKeyStatistics( CacheStatisticsSupport.keyName( region, entry.getKey() ),
+            entry.getValue().hits.sum(), entry.getValue().weight ) );
+      }
+    }
+    return CacheStatisticsSupport.hottest( keys, count );
+  }
+
+  @Override
+  public List<CacheSessionStatistics> getSessionCacheStatistics( final int count ) {
+    List<CacheSessionStatistics> statistics = new ArrayList<CacheSessionStatistics>();
+    for ( Map.Entry<String, SessionUsage> entry : sessions.entrySet() ) {
+      SessionUsage usage = entry.getValue();
+      if ( usage.session.get() == null && usage.keys.isEmpty() ) {
+        // the session is gone without logging out
+        sessions.remove( entry.getKey(), usage );
+      } else {
+        statistics.add( new CacheSessionStatistics( CacheStatisticsSupport.maskSessionId( entry.getKey() ),
+            usage.userName, usage.keys.size(), usage.weight.get(), usage.getAttributesWeight() ) );
+      }
+    }
+    return CacheStatisticsSupport.heaviest( statistics, count );
+  }
+
+  /**
+   * A cached value, the weight it was given when it was put in the cache, the number of times it was read and when it
+   * was last read.
+   */
+  private static class Weighted {
+    private final Object value;
+    private final int weight;
+    private final LongAdder hits = new LongAdder();
+    private volatile long lastAccess = System.nanoTime();
+
+    Weighted( final Object value, final int weight ) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * The session cache entries of one session. The session is only weakly referenced, to weigh its attributes.
+   */
+  private static class SessionUsage {
+    private final String userName;
+    private final WeakReference<IPentahoSession> session;
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+    private final AtomicLong weight = new AtomicLong();
+
+    SessionUsage( final IPentahoSession session ) {
+      this.userName = session.getName();
+      this.session = new WeakReference<IPentahoSession>( session );
+    }
+
+    long getAttributesWeight() {
+      IPentahoSession session = this.session.get();
+      return session instanceof IWeighedSession ? ( (IWeighedSession) session ).getAttributesWeight() : 0;
+    }
+  }
+
+  private static class Region {
+    private final String name;
+    private final AtomicLong weight = new AtomicLong();
+    private final Cache<Object, Weighted> cache;
+
+    Region( final String name, final long maxBytes, final long expireAfterAccessSeconds,
+            final RemovalListener<Object, Weighted> removalListener ) {
+      this.name = name;
+      CacheBuilder<Object, Weighted> builder = CacheBuilder.newBuilder()
+          .maximumWeight( maxBytes )
+          .weigher( ( Object key, Weighted value ) -> value.weight )
+          .removalListener( (RemovalListener<Object, Weighted>) removed -> {
+            if ( removed.getValue() != null ) {
+              weight.addAndGet( -removed.getValue().weight );
+            }
+            if ( removalListener != null ) {
+              removalListener.onRemoval( removed );
+            }
+          } )
+          .recordStats();
+      if ( expireAfterAccessSeconds > 0 ) {
+        builder.expireAfterAccess( expireAfterAccessSeconds, TimeUnit.SECONDS );
+      }
+      cache = builder.build();
+    }
+
+    CacheRegionStatistics getStatistics() {
+      cache.cleanUp();
+      CacheStats stats = cache.stats();
+      return new CacheRegionStatistics( name, stats.hitCount(), stats.missCount(), stats.evictionCount(),
+          cache.size(), weight.get() );
+    }
+  }
+}
@@ -121,6 +121,14 @@ public class CachingPentahoMetadataDomainRepository extends PentahoMetadataDomai
     //getDomainIds();
   }
 
+  /**
+   * drop the cached domains once one of them changed
+   */
+  @Override
+  protected void domainChanged( final String domainId ) {
+    cache.clear();
+  }
+
   /**
    * flush the domains from memory
    */
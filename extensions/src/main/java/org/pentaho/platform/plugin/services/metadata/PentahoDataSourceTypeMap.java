@@ -36,16 +36,28 @@ class PentahoDataSourceTypeMap {
   private static final Log log = LogFactory.getLog( PentahoDataSourceTypeMap.class );
 
   /**
-   * Store mappings for datasource type -> collections of domain Ids
+   * Store mappings for datasource type -> collections of domain Ids. Copied on write, so that readers never wait.
    */
-  private Map<String, Set<String>> mapDataSourceTypeToDomainIds = new HashMap<>();
+  private volatile Map<String, Set<String>> mapDataSourceTypeToDomainIds = Collections.emptyMap();
 
   /**
    * Remove all domain Ids from datasource types.
    */
-  public void reset() {
+  public synchronized void reset() {
     log.debug( "reset()" );
-    mapDataSourceTypeToDomainIds.clear();
+    mapDataSourceTypeToDomainIds = Collections.emptyMap();
+  }
+
+  /**
+   * Replace all mappings with rebuilt ones.
+   * @param rebuilt datasource type -> domain Ids
+   */
+  public synchronized void replace( final Map<String, Set<String>> rebuilt ) {
+    log.debug( "replace()" );
+    final Map<String, Set<String>> copy = new HashMap<>( rebuilt.size() );
+    rebuilt.forEach( ( datasourceType, domainIds ) ->
+      copy.put( datasourceType, Collections.unmodifiableSet( new HashSet<>( domainIds ) ) ) );
+    mapDataSourceTypeToDomainIds = copy;
   }
 
   /**
@@ -53,23 +65,32 @@ class PentahoDataSourceTypeMap {
    * @param datasourceType
    * @param domainId
    */
-  public void addDatasourceType( String datasourceType, final String domainId ) {
+  public synchronized void addDatasourceType( String datasourceType, final String domainId ) {
     log.debug( String.format( "addDatasourceType( datasourceType: %s, domainId: %s )", datasourceType, domainId ) );
-    Set<String> setDomainIds = mapDataSourceTypeToDomainIds.get( datasourceType );
-    if ( setDomainIds == null ) {
-      setDomainIds = new HashSet<>();
-    }
-    setDomainIds.add( domainId );
-    mapDataSourceTypeToDomainIds.put( datasourceType, setDomainIds );
+    final Set<String> setDomainIds = mapDataSourceTypeToDomainIds.get( datasourceType );
+    final Set<String> copyDomainIds = setDomainIds == null ? new HashSet<>() : new HashSet<>( setDomainIds );
+    copyDomainIds.add( domainId );
+    final Map<String, Set<String>> copy = new HashMap<>( mapDataSourceTypeToDomainIds );
+    copy.put( datasourceType, Collections.unmodifiableSet( copyDomainIds ) );
+    mapDataSourceTypeToDomainIds = copy;
   }
 
   /**
    * Remove a single domain Id.
    * @param domainId
    */
-  public void deleteDomainId( final String domainId ) {
+  public synchronized void deleteDomainId( final String domainId ) {
     log.debug( String.format( "deleteDomainId( domainId: %s )", domainId ) );
-    mapDataSourceTypeToDomainIds.values().stream().forEach( setDomainIds -> setDomainIds.remove( domainId ) );
+    final Map<String, Set<String>> copy = new HashMap<>( mapDataSourceTypeToDomainIds );
+    copy.replaceAll( ( datasourceType, setDomainIds ) -> {
+      if ( !setDomainIds.contains( domainId ) ) {
+        return setDomainIds;
+      }
+      final Set<String> copyDomainIds = new HashSet<>( setDomainIds );
+      copyDomainIds.remove( domainId );
+      return Collections.unmodifiableSet( copyDomainIds );
+    } );
+    mapDataSourceTypeToDomainIds = copy;
   }
 
   /**
@@ -79,9 +100,8 @@ class PentahoDataSourceTypeMap {
    */
   public Set<String> getDatasourceType( String datasourceType ) {
     log.debug( String.format( "getDatasourceType( datasourceType: %s )", datasourceType ) );
-    return mapDataSourceTypeToDomainIds.containsKey( datasourceType )
-            ? mapDataSourceTypeToDomainIds.get( datasourceType )
-            : Collections.emptySet();
+    final Set<String> setDomainIds = mapDataSourceTypeToDomainIds.get( datasourceType );
+    return setDomainIds != null ? setDomainIds : Collections.emptySet();
   }
 
 }
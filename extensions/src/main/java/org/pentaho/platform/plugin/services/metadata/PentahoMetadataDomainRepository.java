@@ -16,6 +16,7 @@ package org.pentaho.platform.plugin.services.metadata;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.metadata.model.Domain;
@@ -27,6 +28,8 @@ import org.pentaho.metadata.repository.DomainStorageException;
 import org.pentaho.metadata.repository.IMetadataDomainRepository;
 import org.pentaho.metadata.util.LocalizationUtil;
 import org.pentaho.metadata.util.XmiParser;
+import org.pentaho.platform.api.cache.ICacheInvalidationBus;
+import org.pentaho.platform.api.engine.IApplicationContext;
 import org.pentaho.platform.api.engine.PentahoAccessControlException;
 import org.pentaho.platform.api.repository2.unified.IAclNodeHelper;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
@@ -35,20 +38,37 @@ import org.pentaho.platform.api.repository2.unified.RepositoryFileAcl;
 import org.pentaho.platform.api.repository2.unified.RepositoryFilePermission;
 import org.pentaho.platform.api.repository2.unified.UnifiedRepositoryException;
 import org.pentaho.platform.api.repository2.unified.data.simple.SimpleRepositoryFileData;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.plugin.services.messages.Messages;
 import org.pentaho.platform.repository2.unified.RepositoryUtils;
 import org.pentaho.platform.repository2.unified.fileio.RepositoryFileInputStream;
 import org.pentaho.platform.repository2.unified.jcr.JcrAclNodeHelper;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -58,9 +78,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Optional.ofNullable;
@@ -115,6 +143,26 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
 
   private static final String XMI_EXTENSION = ".xmi";
 
+  // The extension of the local file holding the binary snapshot of a parsed Domain
+  static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+  // The folder of the Domain snapshots, below the solution folder
+  private static final String SNAPSHOT_FOLDER = "system/tmp/metadata-snapshots";
+
+  // Identifies a Domain snapshot file ("PMDS")
+  private static final int SNAPSHOT_MAGIC = 0x504d4453;
+
+  // The version of the Domain snapshot format; snapshots of any other version are ignored
+  static final int SNAPSHOT_FORMAT_VERSION = 1;
+
+  // The classes a Domain snapshot may contain, and how deep and large it may be
+  private static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config.createFilter(
+    "maxdepth=200;maxbytes=268435456;org.pentaho.metadata.**;java.lang.Boolean;java.lang.Byte;java.lang.Character;"
+      + "java.lang.Double;java.lang.Enum;java.lang.Float;java.lang.Integer;java.lang.Long;java.lang.Number;"
+      + "java.lang.Short;java.lang.String;java.math.BigDecimal;java.math.BigInteger;java.util.ArrayList;java.util.Date;"
+      + "java.util.HashMap;java.util.HashSet;java.util.LinkedHashMap;java.util.LinkedHashSet;java.util.Locale;"
+      + "java.util.TreeMap;!*" );
+
   // caching immutable object
   private static final EnumSet<RepositoryFilePermission> READ = EnumSet.of( RepositoryFilePermission.READ );
 
@@ -139,7 +187,32 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   private IAclNodeHelper aclHelper;
 
   private final ReentrantReadWriteLock lock;
-  private boolean needToReload;
+  private volatile boolean needToReload;
+
+  // Whether a background reload of the mappings has been asked for, and whether one is running
+  private final AtomicBoolean reloadRequested = new AtomicBoolean();
+  private final AtomicBoolean reloadRunning = new AtomicBoolean();
+
+  // Runs the background reloads of all the repositories, one at a time; the thread goes away when idle
+  private static final ThreadPoolExecutor reloadExecutor = new ThreadPoolExecutor( 1, 1, 60, TimeUnit.SECONDS,
+    new LinkedBlockingQueue<>(), new BasicThreadFactory.Builder().namingPattern( "metadata-domains-reload" )
+      .daemon( true ).build() );
+
+  static {
+    reloadExecutor.allowCoreThreadTimeOut( true );
+  }
+
+  // Whether another server changed the metadata folder since the mappings were loaded
+  private volatile boolean changedElsewhere;
+
+  // Whether parsed Domains are kept as binary snapshots on the local disk
+  private boolean domainSnapshotsEnabled = true;
+
+  // Where the snapshots are kept; the solution's temporary folder unless set
+  private File domainSnapshotFolder;
+
+  // The stamps of the Domains whose snapshot could not be read back, so that they are not written again
+  private final Set<String> unreadableSnapshots = ConcurrentHashMap.newKeySet();
 
   private static final String ERROR_0005_ERROR_RETRIEVING_DOMAIN = "PentahoMetadataDomainRepository.ERROR_0005_ERROR_RETRIEVING_DOMAIN";
 
@@ -312,10 +385,14 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
         .getErrorString( "PentahoMetadataDomainRepository.ERROR_0001_DOMAIN_ID_NULL" ) );
     }
 
-    // Check to see if the domain already exists
-    RepositoryFile domainFile = getMetadataRepositoryFile( domainId );
+    // Check to see if the domain already exists; the mappings are kept up to date by storing, so a miss is expected
+    // here and does not reload them
+    reloadDomainsIfNeeded();
+    String existingDomainId = domainId;
+    RepositoryFile domainFile = metadataMapping.getDomainFile( domainId );
     if ( domainFile == null && domainId.endsWith( XMI_EXTENSION ) ) {
-      domainFile = getMetadataRepositoryFile( domainId.substring( 0, domainId.length() - XMI_EXTENSION.length() ) );
+      existingDomainId = domainId.substring( 0, domainId.length() - XMI_EXTENSION.length() );
+      domainFile = metadataMapping.getDomainFile( existingDomainId );
     }
     if ( !overwrite && domainFile != null ) {
       final String errorString =
@@ -327,6 +404,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     // Check if this is valid xml
     InputStream inputStream2;
     String xmi;
+    Domain parsedDomain;
     try {
       // try to see if the xmi can be parsed (ie, check if it's valid xmi)
       // first, convert our input stream to a string
@@ -348,7 +426,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
       // now, try to see if the xmi can be parsed (ie, check if it's valid xmi)
       byte[] xmiBytes = xmi.getBytes( DEFAULT_ENCODING );
       inputStream2 = new java.io.ByteArrayInputStream( xmiBytes );
-      xmiParser.parseXmi( inputStream2 );
+      parsedDomain = xmiParser.parseXmi( inputStream2 );
       // xmi is valid. Create a new inputstream for the actual import action.
       inputStream2.reset();
     } catch ( Exception ex ) {
@@ -364,16 +442,39 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     final SimpleRepositoryFileData data =
       new SimpleRepositoryFileData( inputStream2, DEFAULT_ENCODING, DOMAIN_MIME_TYPE );
     final RepositoryFile newDomainFile;
-    if ( domainFile == null ) {
-      newDomainFile = createUniqueFile( domainId, null, data );
-    } else {
-      newDomainFile = updateFile( domainFile, data );
+    // an updated file keeps the domain id it was stored with
+    final String storedDomainId;
+    lock.writeLock().lock();
+    try {
+      if ( domainFile == null ) {
+        newDomainFile = createUniqueFile( domainId, null, data );
+        storedDomainId = domainId;
+      } else {
+        final RepositoryFile updatedFile = updateFile( domainFile, data );
+        newDomainFile = updatedFile != null ? updatedFile : domainFile;
+        storedDomainId = existingDomainId;
+      }
+
+      // Keep the mappings up to date, rather than reloading them
+      metadataMapping.putDomain( storedDomainId, newDomainFile );
+      dataSourceTypeMapping.deleteDomainId( storedDomainId );
+      if ( parsedDomain != null ) {
+        dataSourceTypeMapping.addDatasourceType( getDataSourceType( parsedDomain ), storedDomainId );
+      }
+    } finally {
+      lock.writeLock().unlock();
     }
 
+    getAclHelper().setAclFor( newDomainFile, acl );
+
     // This invalidates any caching
-    flushDomains();
+    domainChanged( storedDomainId );
 
-    getAclHelper().setAclFor( newDomainFile, acl );
+    if ( domainSnapshotsEnabled && parsedDomain != null ) {
+      parsedDomain.setId( storedDomainId );
+      loadLocaleStrings( storedDomainId, parsedDomain );
+      storeDomainSnapshot( storedDomainId, newDomainFile, parsedDomain );
+    }
   }
 
   protected synchronized IAclNodeHelper getAclHelper() {
@@ -416,23 +517,19 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
    * file and multiple .properties files.
    */
   public Map<String, InputStream> getDomainFilesData( final String domainId ) {
-    lock.readLock().lock();
-    try {
-      if ( !metadataMapping.getDomainIds().contains( domainId ) ) {
-        return emptyMap();
-      }
-      Map<String, InputStream> localeFiles =
-        ofNullable( metadataMapping.getLocaleFiles( domainId ) ).orElse( emptyMap() ).entrySet().stream()
-          .collect(
-            toMap( entry -> "messages_" + entry.getKey() + ".properties",
-              item -> getRepositoryFileInputStream( item.getValue() ) ) );
-      //    ^ keys of map are locale file names, e.g. "messages_fr_FR.properties"
-      Map<String, InputStream> map = new HashMap<>( localeFiles );
-      map.put( getXmiFilename( domainId ), getRepositoryFileInputStream( metadataMapping.getDomainFile( domainId ) ) );
-      return map;
-    } finally {
-      lock.readLock().unlock();
+    final RepositoryFile domainFile = metadataMapping.getDomainFile( domainId );
+    if ( domainFile == null || !hasAccessFor( domainFile ) ) {
+      return emptyMap();
     }
+    Map<String, InputStream> localeFiles =
+      ofNullable( metadataMapping.getLocaleFiles( domainId ) ).orElse( emptyMap() ).entrySet().stream()
+        .collect(
+          toMap( entry -> "messages_" + entry.getKey() + ".properties",
+            item -> getRepositoryFileInputStream( item.getValue() ) ) );
+    //    ^ keys of map are locale file names, e.g. "messages_fr_FR.properties"
+    Map<String, InputStream> map = new HashMap<>( localeFiles );
+    map.put( getXmiFilename( domainId ), getRepositoryFileInputStream( domainFile ) );
+    return map;
   }
 
   private String getXmiFilename( String domainId ) {
@@ -471,6 +568,11 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
       final RepositoryFile file = getMetadataRepositoryFile( domainId );
       if ( file != null ) {
         if ( hasAccessFor( file ) ) {
+          domain = loadDomainSnapshot( domainId, file );
+          if ( domain != null ) {
+            logger.debug( "loaded domain snapshot" );
+            return domain;
+          }
           SimpleRepositoryFileData data = repository.getDataForRead( file.getId(), SimpleRepositoryFileData.class );
           if ( data != null ) {
             InputStream is = data.getStream();
@@ -484,6 +586,8 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
             // Load any I18N bundles
             loadLocaleStrings( domainId, domain );
             logger.debug( "loaded I18N bundles" );
+            // Replace the missing or stale snapshot; it is a local file, so reads never write to the repository
+            storeDomainSnapshot( domainId, file, domain );
           } else {
             throw new UnifiedRepositoryException( messages.getErrorString(
                     ERROR_0005_ERROR_RETRIEVING_DOMAIN, domainId, "data not found" ) );
@@ -621,13 +725,8 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     logger.debug( "getDomainIdsHelper()" );
     reloadDomainsIfNeeded();
 
-    Collection<String> domainIds;
-    lock.readLock().lock();
-    try {
-      domainIds = getDomainIdsFunction.get();
-    } finally {
-      lock.readLock().unlock();
-    }
+    // the mappings are copied on write, so this is a consistent snapshot
+    Collection<String> domainIds = getDomainIdsFunction.get();
     Set<String> accessibleDomainIds = new HashSet<>( domainIds.size() );
     for ( String domain : domainIds ) {
       if ( hasAccessFor( domain ) ) {
@@ -670,6 +769,11 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     if ( domainFile != null ) {
       // it no node exists, nothing would happen
       getAclHelper().removeAclFor( domainFile );
+
+      final File snapshotFile = getDomainSnapshotFile( domainFile );
+      if ( snapshotFile != null && snapshotFile.exists() && !snapshotFile.delete() ) {
+        logger.warn( "Unable to delete the domain snapshot " + snapshotFile );
+      }
     }
 
     for ( final RepositoryFile file : domainFiles ) {
@@ -681,7 +785,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
 
     // This invalidates any caching
     if ( !domainFiles.isEmpty() ) {
-      flushDomains();
+      domainChanged( domainId );
     }
   }
 
@@ -725,7 +829,6 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
       if ( found ) {
         try {
           storeDomain( domain, true );
-          flushDomains();
         } catch ( DomainAlreadyExistsException ignored ) {
           // This can't happen since we have setup overwrite to true
         }
@@ -734,62 +837,98 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   }
 
   /**
-   * reload domains from disk
+   * reload domains from disk. Until the mappings have been loaded once this waits for them, afterwards they are
+   * rebuilt in the background.
    */
   @Override
   public void reloadDomains() {
     logger.debug( "reloadDomains()" );
-    internalReloadDomains();
+    requestReloadDomains();
+  }
+
+  private void requestReloadDomains() {
+    if ( needToReload ) {
+      reloadDomainsIfNeeded();
+    } else {
+      scheduleReloadDomains();
+    }
   }
 
   /**
-   * Performs the process of reloading the domain information from the repository
+   * Performs the process of reloading the domain information from the repository. The mappings are shared by all
+   * users, so they are rebuilt as the system user and the ACLs are checked per caller when they are read.
    */
-  private void internalReloadDomains() {
-    lock.writeLock().lock();
+  private void reloadDomainsAsSystem() {
     try {
-      metadataMapping.reset();
-      dataSourceTypeMapping.reset();
+      SecurityHelper.getInstance().runAsSystem( () -> {
+        internalReloadDomains();
+        return null;
+      } );
+    } catch ( RuntimeException e ) {
+      throw e;
+    } catch ( Exception e ) {
+      throw new UnifiedRepositoryException( e );
+    }
+  }
+
+  /**
+   * Rebuilds the mappings aside and then replaces them at once; if a domain was stored or removed in the meantime,
+   * they are rebuilt again.
+   */
+  private void internalReloadDomains() {
+    while ( true ) {
+      final long modificationCount = metadataMapping.getModificationCount();
+      final PentahoMetadataInformationMap.Builder rebuiltMapping = new PentahoMetadataInformationMap.Builder();
+      final Map<String, Set<String>> rebuiltDataSourceTypes = new HashMap<>();
 
       // Reload the metadata about the metadata (that was fun to say)
       final List<RepositoryFile> children = repository.getChildren( getMetadataDir().getId(), "*" );
       logger.trace( "\tFound " + children.size() + " files in the repository" );
 
-      for ( final RepositoryFile child : children ) {
-        if ( getAclHelper().canAccess( child, READ ) ) {
-          // Get the metadata for this file
-          final Map<String, Serializable> fileMetadata = getFileMetadataHelper( child.getId() );
-          if ( fileMetadata == null || StringUtils.isEmpty( (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID ) ) ) {
-            logger.warn( messages.getString( "PentahoMetadataDomainRepository.WARN_0001_FILE_WITHOUT_METADATA",
-                    child.getName() ) );
-            continue;
-          }
-          final String domainId = (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID );
-          final String type = (String) fileMetadata.get( PROPERTY_NAME_TYPE );
-          final String locale = (String) fileMetadata.get( PROPERTY_NAME_LOCALE );
-          final String datasourceType = (String) fileMetadata.get( PROPERTY_NAME_DATASOURCE_TYPE );
-
-          logger.trace( "\tprocessing file [type=" + type + " : domainId=" + domainId + " : locale=" + locale + "]" );
-
-          // Save the data in the map
-          if ( StringUtils.equals( type, TYPE_DOMAIN ) ) {
-            metadataMapping.addDomain( domainId, child );
-          } else if ( StringUtils.equals( type, TYPE_LOCALE ) ) {
-            metadataMapping.addLocale( domainId, locale, child );
-          }
+      final List<Map<String, Serializable>> childrenMetadata = repository.getFileMetadataInBatch( children );
 
-          // keep track of datasource type
-          if ( StringUtils.isNotEmpty( datasourceType ) ) {
-            logger.trace( String.format( "\tTracking domainId: %s with datasource type: %s with id: %s",
-                    domainId, datasourceType, child.getId() ) );
-            dataSourceTypeMapping.addDatasourceType( datasourceType, domainId );
-          }
+      for ( int i = 0; i < children.size(); i++ ) {
+        final RepositoryFile child = children.get( i );
+        // Get the metadata for this file
+        final Map<String, Serializable> fileMetadata = migrateDomainIfNeeded( child.getId(), childrenMetadata.get( i ) );
+        if ( fileMetadata == null || StringUtils.isEmpty( (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID ) ) ) {
+          logger.warn( messages.getString( "PentahoMetadataDomainRepository.WARN_0001_FILE_WITHOUT_METADATA",
+                  child.getName() ) );
+          continue;
+        }
+        final String domainId = (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID );
+        final String type = (String) fileMetadata.get( PROPERTY_NAME_TYPE );
+        final String locale = (String) fileMetadata.get( PROPERTY_NAME_LOCALE );
+        final String datasourceType = (String) fileMetadata.get( PROPERTY_NAME_DATASOURCE_TYPE );
+
+        logger.trace( "\tprocessing file [type=" + type + " : domainId=" + domainId + " : locale=" + locale + "]" );
+
+        // Save the data in the map
+        if ( StringUtils.equals( type, TYPE_DOMAIN ) ) {
+          rebuiltMapping.addDomain( domainId, child );
+        } else if ( StringUtils.equals( type, TYPE_LOCALE ) ) {
+          rebuiltMapping.addLocale( domainId, locale, child );
+        }
+
+        // keep track of datasource type
+        if ( StringUtils.isNotEmpty( datasourceType ) ) {
+          logger.trace( String.format( "\tTracking domainId: %s with datasource type: %s with id: %s",
+                  domainId, datasourceType, child.getId() ) );
+          rebuiltDataSourceTypes.computeIfAbsent( datasourceType, key -> new HashSet<>() ).add( domainId );
         }
       }
 
-      needToReload = false;
-    } finally {
-      lock.writeLock().unlock();
+      lock.writeLock().lock();
+      try {
+        if ( metadataMapping.replace( rebuiltMapping, modificationCount ) ) {
+          dataSourceTypeMapping.replace( rebuiltDataSourceTypes );
+          needToReload = false;
+          return;
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+      logger.debug( "domains changed while reloading them, reloading again" );
     }
   }
 
@@ -800,10 +939,13 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
    * @return
    */
   public Map<String, Serializable> getFileMetadataHelper( Serializable serializableId ) {
-    Map<String, Serializable> fileMetadata = repository.getFileMetadata( serializableId );
+    return migrateDomainIfNeeded( serializableId, repository.getFileMetadata( serializableId ) );
+  }
 
+  private Map<String, Serializable> migrateDomainIfNeeded( Serializable serializableId,
+                                                           Map<String, Serializable> fileMetadata ) {
     // check for domain, has not been previously migrated, flag set to migrate
-    if ( isDomain( fileMetadata ) && !hasDatasourceType( fileMetadata ) ) {
+    if ( fileMetadata != null && isDomain( fileMetadata ) && !hasDatasourceType( fileMetadata ) ) {
       fileMetadata = migrateDomain( serializableId, fileMetadata );
     }
 
@@ -855,7 +997,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   @Override
   public void flushDomains() {
     logger.debug( "flushDomains()" );
-    internalReloadDomains();
+    requestReloadDomains();
   }
 
   @Override
@@ -922,10 +1064,13 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
           final RepositoryFile newLocaleFile = createUniqueFile( domainId, locale, data );
           metadataMapping.addLocale( domainId, locale, newLocaleFile );
         } else {
-          updateFile( localeFile, data );
+          final RepositoryFile updatedLocaleFile = updateFile( localeFile, data );
+          if ( updatedLocaleFile != null ) {
+            metadataMapping.putLocale( domainId, locale, updatedLocaleFile );
+          }
         }
         // This invalidates any cached information
-        flushDomains();
+        domainChanged( domainId );
       } finally {
         lock.writeLock().unlock();
       }
@@ -971,6 +1116,147 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     }
   }
 
+  /**
+   * Returns the binary snapshot of a Domain, if there is one and it was taken from the current domain and locale files.
+   * A snapshot holds the Domain as parsed from its XMI, with the locale bundles imported, so loading it skips both.
+   *
+   * @param domainId   the Domain ID
+   * @param domainFile the domain file of the Domain
+   * @return the Domain, or {@code null} if it has to be parsed from its XMI
+   */
+  protected Domain loadDomainSnapshot( final String domainId, final RepositoryFile domainFile ) {
+    final File snapshotFile = getDomainSnapshotFile( domainFile );
+    if ( snapshotFile == null || !snapshotFile.isFile() ) {
+      return null;
+    }
+    try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( snapshotFile ) ) ) ) {
+      if ( in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT_VERSION
+        || !in.readUTF().equals( getDomainSnapshotStamp( domainId, domainFile ) ) ) {
+        logger.debug( "domain snapshot of " + domainId + " is stale" );
+        return null;
+      }
+      final Domain domain = readDomain( new GZIPInputStream( in ) );
+      domain.setId( domainId );
+      return domain;
+    } catch ( Exception e ) {
+      logger.warn( "Unable to load the domain snapshot of " + domainId + ", parsing its xmi instead", e );
+      return null;
+    }
+  }
+
+  /**
+   * Stores a binary snapshot of a Domain in the local snapshot folder. Snapshots are kept out of the repository, so
+   * that reads do not write to it and the servers of a cluster do not invalidate each other's caches with them. Failing
+   * to store one is not an error, the Domain will be parsed from its XMI instead.
+   *
+   * @param domainId   the Domain ID
+   * @param domainFile the domain file the Domain was parsed from
+   * @param domain     the Domain, with its locale bundles imported
+   */
+  protected void storeDomainSnapshot( final String domainId, final RepositoryFile domainFile, final Domain domain ) {
+    final File snapshotFile = getDomainSnapshotFile( domainFile );
+    if ( snapshotFile == null ) {
+      return;
+    }
+    final String stamp = getDomainSnapshotStamp( domainId, domainFile );
+    if ( unreadableSnapshots.contains( stamp ) ) {
+      return;
+    }
+    File tempFile = null;
+    try {
+      final ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try ( ObjectOutputStream objects = new ObjectOutputStream( body ) ) {
+        objects.writeObject( domain );
+      }
+      // a Domain holding classes the filter rejects could never be loaded from its snapshot
+      try {
+        readDomain( new ByteArrayInputStream( body.toByteArray() ) );
+      } catch ( InvalidClassException e ) {
+        unreadableSnapshots.add( stamp );
+        logger.debug( "domain " + domainId + " cannot be kept as a snapshot", e );
+        return;
+      }
+
+      final File folder = snapshotFile.getParentFile();
+      if ( !folder.isDirectory() && !folder.mkdirs() && !folder.isDirectory() ) {
+        throw new IOException( "Unable to create " + folder );
+      }
+      // written aside and moved in place, so concurrent loads never see a partial snapshot
+      tempFile = File.createTempFile( snapshotFile.getName(), ".tmp", folder );
+      try ( DataOutputStream out =
+              new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) ) ) {
+        out.writeInt( SNAPSHOT_MAGIC );
+        out.writeInt( SNAPSHOT_FORMAT_VERSION );
+        out.writeUTF( stamp );
+        final GZIPOutputStream gzip = new GZIPOutputStream( out );
+        body.writeTo( gzip );
+        gzip.finish();
+      }
+      Files.move( tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE );
+      tempFile = null;
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "stored domain snapshot of " + domainId + " (" + body.size() + " bytes)" );
+      }
+    } catch ( Exception e ) {
+      logger.warn( "Unable to store the domain snapshot of " + domainId, e );
+    } finally {
+      if ( tempFile != null && !tempFile.delete() ) {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+
+  private static Domain readDomain( final InputStream in ) throws IOException, ClassNotFoundException {
+    final ObjectInputStream objects = new ObjectInputStream( in );
+    objects.setObjectInputFilter( SNAPSHOT_FILTER );
+    return (Domain) objects.readObject();
+  }
+
+  /**
+   * Identifies the domain and locale files a snapshot was taken from. A snapshot with another stamp is stale.
+   */
+  protected String getDomainSnapshotStamp( final String domainId, final RepositoryFile domainFile ) {
+    final StringBuilder stamp = new StringBuilder();
+    appendSnapshotStamp( stamp, domainFile );
+    final Map<String, RepositoryFile> localeFiles = metadataMapping.getLocaleFiles( domainId );
+    if ( localeFiles != null ) {
+      for ( final Map.Entry<String, RepositoryFile> localeFile : new TreeMap<>( localeFiles ).entrySet() ) {
+        stamp.append( ';' ).append( localeFile.getKey() ).append( '=' );
+        appendSnapshotStamp( stamp, localeFile.getValue() );
+      }
+    }
+    return stamp.toString();
+  }
+
+  private static void appendSnapshotStamp( final StringBuilder stamp, final RepositoryFile file ) {
+    stamp.append( file.getId() ).append( ':' )
+      .append( file.getLastModifiedDate() != null ? file.getLastModifiedDate().getTime() : 0 ).append( ':' )
+      .append( file.getFileSize() ).append( ':' ).append( file.getVersionId() );
+  }
+
+  /**
+   * @return the local file of the snapshot of a Domain, or {@code null} if snapshots are disabled or cannot be kept
+   */
+  protected File getDomainSnapshotFile( final RepositoryFile domainFile ) {
+    final File folder = getDomainSnapshotFolder();
+    if ( !domainSnapshotsEnabled || folder == null || domainFile == null || domainFile.getId() == null ) {
+      return null;
+    }
+    // file ids are UUIDs; anything else is made safe for a file name
+    return new File( folder, domainFile.getId().toString().replaceAll( "[^A-Za-z0-9-]", "_" ) + SNAPSHOT_EXTENSION );
+  }
+
+  protected File getDomainSnapshotFolder() {
+    if ( domainSnapshotFolder == null ) {
+      final IApplicationContext applicationContext = PentahoSystem.getApplicationContext();
+      if ( applicationContext != null ) {
+        domainSnapshotFolder = new File( applicationContext.getSolutionPath( SNAPSHOT_FOLDER ) );
+      }
+    }
+    return domainSnapshotFolder;
+  }
+
   /**
    * Determine if Domain is datasource type metadata.
    * @param domain
@@ -999,12 +1285,21 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   protected void addDataSourceType( Map<String, Serializable> fileMetadata, SimpleRepositoryFileData data ) {
     Domain domain = getDomain( fileMetadata, data );
     if ( domain != null ) {
-      fileMetadata.put( PROPERTY_NAME_DATASOURCE_TYPE, ( isMetadataDataSource( domain )
-              ? PentahoDataSourceType.METADATA.toString()
-              : PentahoDataSourceType.DATA_SOURCE_WIZARD.toString() ) );
+      fileMetadata.put( PROPERTY_NAME_DATASOURCE_TYPE, getDataSourceType( domain ) );
     }
   }
 
+  /**
+   * Determine the datasource type of a Domain.
+   * @param domain
+   * @return
+   */
+  String getDataSourceType( Domain domain ) {
+    return isMetadataDataSource( domain )
+            ? PentahoDataSourceType.METADATA.toString()
+            : PentahoDataSourceType.DATA_SOURCE_WIZARD.toString();
+  }
+
   /**
    * Creates a new repository file (with the supplied data) and applies the proper metadata to this file.
    *
@@ -1076,6 +1371,38 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     return localizationUtil;
   }
 
+  public boolean isDomainSnapshotsEnabled() {
+    return domainSnapshotsEnabled;
+  }
+
+  /**
+   * Sets whether parsed Domains are kept as binary snapshots on the local disk, so that later loads skip parsing their
+   * XMI. Enabled by default.
+   */
+  public void setDomainSnapshotsEnabled( final boolean domainSnapshotsEnabled ) {
+    this.domainSnapshotsEnabled = domainSnapshotsEnabled;
+  }
+
+  /**
+   * Sets the local folder the Domain snapshots are kept in. Defaults to <code>system/tmp/metadata-snapshots</code> in
+   * the solution folder.
+   */
+  public void setDomainSnapshotFolder( final File domainSnapshotFolder ) {
+    this.domainSnapshotFolder = domainSnapshotFolder;
+  }
+
+  /**
+   * Reloads the domains in the background when another server of the cluster changes the metadata folder. Changes made
+   * through this repository already keep the mappings up to date.
+   */
+  public void setCacheInvalidationBus( final ICacheInvalidationBus cacheInvalidationBus ) {
+    cacheInvalidationBus.subscribe( PentahoMetadataDomainRepositoryInfo.getMetadataFolderPath(), paths -> {
+      // the reload needs a session, so it is started by the next lookup
+      changedElsewhere = true;
+      domainChanged( null );
+    }, false );
+  }
+
   protected void setRepository( final IUnifiedRepository repository ) {
     this.repository = repository;
   }
@@ -1105,16 +1432,12 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   }
 
   /**
-   * Accesses the metadata mapping (with 1 retry) to find the metadata file for the specified domainId
+   * Accesses the metadata mapping (with 1 retry) to find the metadata file for the specified domainId. A domain that
+   * is missing from the mappings, for example because it was written without going through this class, reloads them.
    */
   protected RepositoryFile getMetadataRepositoryFile( final String domainId ) {
-    lock.readLock().lock();
-    RepositoryFile domainFile;
-    try {
-      domainFile = metadataMapping.getDomainFile( domainId );
-    } finally {
-      lock.readLock().unlock();
-    }
+    reloadDomainsIfNeeded();
+    RepositoryFile domainFile = metadataMapping.getDomainFile( domainId );
 
     if ( domainFile == null ) {
 
@@ -1126,7 +1449,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
       try {
         domainFile = metadataMapping.getDomainFile( domainId );
         if ( domainFile == null ) {
-          reloadDomainsIfNeeded();
+          reloadDomainsAsSystem();
           domainFile = metadataMapping.getDomainFile( domainId );
         }
       } finally {
@@ -1141,17 +1464,67 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     return domainFile;
   }
 
+  /**
+   * Loads the mappings if they have never been loaded. Only the first load makes callers wait.
+   */
   private void reloadDomainsIfNeeded() {
+    if ( changedElsewhere && !needToReload ) {
+      changedElsewhere = false;
+      scheduleReloadDomains();
+    }
+    if ( !needToReload ) {
+      return;
+    }
     lock.writeLock().lock();
     try {
       if ( needToReload ) {
-        internalReloadDomains();
+        reloadDomainsAsSystem();
       }
     } finally {
       lock.writeLock().unlock();
     }
   }
 
+  /**
+   * Rebuilds the mappings in the background, as the system user rather than as the caller. Readers keep using the
+   * current mappings until the rebuilt ones replace them. Requests made while a rebuild is running are collapsed into
+   * one more rebuild.
+   */
+  private void scheduleReloadDomains() {
+    reloadRequested.set( true );
+    if ( reloadRunning.compareAndSet( false, true ) ) {
+      reloadExecutor.execute( () -> {
+        // the pool thread may have inherited the session of whoever created it
+        PentahoSessionHolder.removeSession();
+        SecurityContextHolder.clearContext();
+        try {
+          while ( reloadRequested.getAndSet( false ) ) {
+            reloadDomainsAsSystem();
+          }
+        } catch ( RuntimeException e ) {
+          logger.error( "Unable to reload the metadata domains", e );
+        } finally {
+          PentahoSessionHolder.removeSession();
+          SecurityContextHolder.clearContext();
+          reloadRunning.set( false );
+          // a request made after the last rebuild started, but before this one stopped running
+          if ( reloadRequested.get() ) {
+            scheduleReloadDomains();
+          }
+        }
+      } );
+    }
+  }
+
+  /**
+   * Called after a domain or its locale files were stored or removed. The mappings are already up to date by then.
+   *
+   * @param domainId the Domain ID, or <code>null</code> if any domain may have been changed by another server
+   */
+  protected void domainChanged( final String domainId ) {
+    // We will let subclasses handle their own caches
+  }
+
   /**
    * Returns the MatadataInformationMap for the specified IUnifiedRepository
    *
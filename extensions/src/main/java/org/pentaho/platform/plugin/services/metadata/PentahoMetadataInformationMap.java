@@ -19,6 +19,7 @@ import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.springframework.util.Assert;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -27,26 +28,29 @@ import java.util.Set;
 /**
  * Holder of information relating to the mappings between Pentaho Metadata Domain IDs, Locales, and the repository
  * filename.
+ * <p/>
+ * The mappings are copied on write: readers always see a consistent snapshot and never wait for writers.
  * 
  * @author <a href="mailto:dkincade@pentaho.com">David M. Kincade</a>
  */
 class PentahoMetadataInformationMap {
   private static final Log log = LogFactory.getLog( PentahoMetadataInformationMap.class );
 
-  private Map<String, Map<String, RepositoryFile>> mapping = new HashMap<String, Map<String, RepositoryFile>>();
+  private volatile Map<String, Map<String, RepositoryFile>> mapping = Collections.emptyMap();
+  private long modificationCount;
   private static final String DOMAIN_ID_KEY = "domain-id";
 
   public Collection<String> getDomainIds() {
     return mapping.keySet();
   }
 
-  public void reset() {
-    mapping.clear();
+  public synchronized void reset() {
+    publish( Collections.<String, Map<String, RepositoryFile>>emptyMap() );
   }
 
   public RepositoryFile getDomainFile( final String domainId ) {
     Assert.notNull( domainId );
-    final Map<String, RepositoryFile> details = getDetails( domainId, false );
+    final Map<String, RepositoryFile> details = mapping.get( domainId );
     if ( details != null ) {
       return details.get( DOMAIN_ID_KEY );
     }
@@ -62,25 +66,37 @@ class PentahoMetadataInformationMap {
     return files;
   }
 
-  public void addDomain( final String domainId, final RepositoryFile child ) {
-    final Map<String, RepositoryFile> details = getDetails( domainId, true );
-    if ( details.get( DOMAIN_ID_KEY ) != null ) {
+  public synchronized void addDomain( final String domainId, final RepositoryFile child ) {
+    if ( getDomainFile( domainId ) != null ) {
       log.warn( "Adding domain when one already exists" ); // TODO I18N
     }
-    details.put( DOMAIN_ID_KEY, child );
+    put( domainId, DOMAIN_ID_KEY, child );
+  }
+
+  /**
+   * Adds the domain file of a domain, or replaces it if the domain already has one
+   */
+  public synchronized void putDomain( final String domainId, final RepositoryFile child ) {
+    put( domainId, DOMAIN_ID_KEY, child );
   }
 
-  public void addLocale( final String domainId, final String locale, final RepositoryFile child ) {
-    final Map<String, RepositoryFile> details = getDetails( domainId, true );
-    if ( details.get( locale ) != null ) {
+  public synchronized void addLocale( final String domainId, final String locale, final RepositoryFile child ) {
+    if ( getLocaleFile( domainId, locale ) != null ) {
       log.warn( "Adding locale when one already exists" ); // TODO I18N
     }
-    details.put( locale, child );
+    put( domainId, locale, child );
+  }
+
+  /**
+   * Adds a locale file of a domain, or replaces it if the domain already has one for that locale
+   */
+  public synchronized void putLocale( final String domainId, final String locale, final RepositoryFile child ) {
+    put( domainId, locale, child );
   }
 
   public RepositoryFile getLocaleFile( final String domainId, final String locale ) {
     RepositoryFile file = null;
-    final Map<String, RepositoryFile> details = getDetails( domainId, false );
+    final Map<String, RepositoryFile> details = mapping.get( domainId );
     if ( details != null ) {
       file = details.get( locale );
     }
@@ -89,7 +105,7 @@ class PentahoMetadataInformationMap {
 
   public Map<String, RepositoryFile> getLocaleFiles( final String domainId ) {
     Map<String, RepositoryFile> files = null;
-    final Map<String, RepositoryFile> details = getDetails( domainId, false );
+    final Map<String, RepositoryFile> details = mapping.get( domainId );
     if ( details != null ) {
       files = new HashMap<String, RepositoryFile>( details.size() );
       files.putAll( details );
@@ -98,16 +114,83 @@ class PentahoMetadataInformationMap {
     return files;
   }
 
-  public void deleteDomain( final String domainId ) {
-    mapping.remove( domainId );
+  public synchronized void deleteDomain( final String domainId ) {
+    if ( mapping.containsKey( domainId ) ) {
+      final Map<String, Map<String, RepositoryFile>> copy = new HashMap<String, Map<String, RepositoryFile>>( mapping );
+      copy.remove( domainId );
+      publish( copy );
+    }
+  }
+
+  /**
+   * @return the number of changes made to the mappings so far
+   */
+  public synchronized long getModificationCount() {
+    return modificationCount;
+  }
+
+  /**
+   * Replaces the mappings with rebuilt ones, unless they have changed since they were at the given modification count.
+   *
+   * @return whether the mappings were replaced
+   */
+  public synchronized boolean replace( final Builder rebuilt, final long expectedCount ) {
+    if ( modificationCount != expectedCount ) {
+      return false;
+    }
+    final Map<String, Map<String, RepositoryFile>> newMapping =
+      new HashMap<String, Map<String, RepositoryFile>>( rebuilt.mapping.size() );
+    for ( final Map.Entry<String, Map<String, RepositoryFile>> entry : rebuilt.mapping.entrySet() ) {
+      newMapping.put( entry.getKey(), Collections.unmodifiableMap( entry.getValue() ) );
+    }
+    publish( newMapping );
+    return true;
+  }
+
+  private void put( final String domainId, final String key, final RepositoryFile child ) {
+    final Map<String, Map<String, RepositoryFile>> copy = new HashMap<String, Map<String, RepositoryFile>>( mapping );
+    final Map<String, RepositoryFile> details = copy.get( domainId );
+    final Map<String, RepositoryFile> detailsCopy = details != null
+      ? new HashMap<String, RepositoryFile>( details ) : new HashMap<String, RepositoryFile>();
+    detailsCopy.put( key, child );
+    copy.put( domainId, Collections.unmodifiableMap( detailsCopy ) );
+    publish( copy );
   }
 
-  private Map<String, RepositoryFile> getDetails( final String domainId, final boolean create ) {
-    Map<String, RepositoryFile> details = mapping.get( domainId );
-    if ( details == null && create ) {
-      details = new HashMap<String, RepositoryFile>();
-      mapping.put( domainId, details );
+  private void publish( final Map<String, Map<String, RepositoryFile>> newMapping ) {
+    modificationCount++;
+    mapping = Collections.unmodifiableMap( newMapping );
+  }
+
+  /**
+   * Collects the mappings of a full rebuild, before they replace the current ones.
+   */
+  static class Builder {
+    private final Map<String, Map<String, RepositoryFile>> mapping = new HashMap<String, Map<String, RepositoryFile>>();
+
+    public void addDomain( final String domainId, final RepositoryFile child ) {
+      final Map<String, RepositoryFile> details = getDetails( domainId );
+      if ( details.get( DOMAIN_ID_KEY ) != null ) {
+        log.warn( "Adding domain when one already exists" ); // TODO I18N
+      }
+      details.put( DOMAIN_ID_KEY, child );
+    }
+
+    public void addLocale( final String domainId, final String locale, final RepositoryFile child ) {
+      final Map<String, RepositoryFile> details = getDetails( domainId );
+      if ( details.get( locale ) != null ) {
+        log.warn( "Adding locale when one already exists" ); // TODO I18N
+      }
+      details.put( locale, child );
+    }
+
+    private Map<String, RepositoryFile> getDetails( final String domainId ) {
+      Map<String, RepositoryFile> details = mapping.get( domainId );
+      if ( details == null ) {
+        details = new HashMap<String, RepositoryFile>();
+        mapping.put( domainId, details );
+      }
+      return details;
     }
-    return details;
   }
 }
@@ -84,6 +84,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -91,6 +92,7 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An IPluginManager implementation based on registering objects to the PentahoSystem and querying for them there. This
@@ -115,6 +117,15 @@ public class PentahoSystemPluginManager implements IPluginManager {
   private final ISystemConfig systemConfig = PentahoSystem.get( ISystemConfig.class );
   private final Logger logger = LoggerFactory.getLogger( getClass() );
   private final Set<IPluginManagerListener> listeners = new HashSet<>();
+  private static final int SLOWEST_PLUGINS_REPORTED = 5;
+  private int registrationThreads = Math.min( 8, Runtime.getRuntime().availableProcessors() );
+  private volatile Map<String, Long> pluginLoadTimes = Collections.emptyMap();
+
+  /**
+   * What the registered plugins provide, or <code>null</code> while plugins are being (un)registered, when lookups
+   * scan the PentahoSystem instead
+   */
+  private volatile PluginIndex pluginIndex;
 
   private static void createAndRegisterLifecycleListeners( IPlatformPlugin plugin, ClassLoader loader )
     throws PlatformPluginRegistrationException {
@@ -176,6 +187,7 @@ public class PentahoSystemPluginManager implements IPluginManager {
   private void unloadPlugins() {
     // we do not need to synchronize here since unloadPlugins
     // is called within the synchronized block in reload
+    pluginIndex = null;
     for ( IPlatformPlugin plugin : PentahoSystem.getAll( IPlatformPlugin.class ) ) {
       try {
         plugin.unLoaded();
@@ -221,7 +233,7 @@ public class PentahoSystemPluginManager implements IPluginManager {
   @Override
   public boolean reload( IPentahoSession session ) {
 
-    boolean anyErrors = false;
+    AtomicBoolean anyErrors = new AtomicBoolean();
     IPluginProvider pluginProvider = PentahoSystem.get( IPluginProvider.class, "IPluginProvider", session );
     List<IPlatformPlugin> providedPlugins = Collections.emptyList();
     try {
@@ -238,10 +250,12 @@ public class PentahoSystemPluginManager implements IPluginManager {
       String msg = Messages.getInstance().getErrorString( "PluginManager.ERROR_0012_PLUGIN_DISCOVERY_FAILED" );
       org.pentaho.platform.util.logging.Logger.error( getClass().toString(), msg, e1 );
       PluginMessageLogger.add( msg );
-      anyErrors = true;
+      anyErrors.set( true );
     }
 
-    for ( IPlatformPlugin plugin : providedPlugins ) {
+    // only the classloaders and Spring contexts are created concurrently
+    PluginRegistrationScheduler contextScheduler = new PluginRegistrationScheduler( registrationThreads );
+    Map<IPlatformPlugin, Long> contextTimes = contextScheduler.run( providedPlugins, session, plugin -> {
       try {
         IPlatformPlugin existingPlugin = getPluginObject( IPlatformPlugin.class, plugin.getId() );
         if ( existingPlugin != null ) {
@@ -279,26 +293,34 @@ public class PentahoSystemPluginManager implements IPluginManager {
           new SingletonPentahoObjectReference.Builder<>( IPentahoObjectFactory.class ).object( pentahoFactory ) );
       } catch ( Throwable t ) {
         // this has been logged already
-        anyErrors = true;
+        anyErrors.set( true );
         String msg =
           Messages.getInstance().getErrorString( "PluginManager.ERROR_0011_FAILED_TO_REGISTER_PLUGIN", plugin.getId() );
         org.pentaho.platform.util.logging.Logger.error( getClass().toString(), msg, t );
         PluginMessageLogger.add( msg );
       }
-    }
+    } );
 
-    for ( IPlatformPlugin plugin : providedPlugins ) {
+    // every plugin's context is available before any plugin is initialized. Plugins are initialized and registered
+    // one at a time: plugin lifecycle listeners, the service managers and the plugin manager listeners are not
+    // thread safe
+    PluginRegistrationScheduler registrationScheduler = new PluginRegistrationScheduler( 1 );
+    Map<IPlatformPlugin, Long> registrationTimes = registrationScheduler.run( providedPlugins, session, plugin -> {
       try {
         registerPlugin( plugin );
       } catch ( Throwable t ) {
         // this has been logged already
-        anyErrors = true;
+        anyErrors.set( true );
         String msg =
           Messages.getInstance().getErrorString( "PluginManager.ERROR_0011_FAILED_TO_REGISTER_PLUGIN", plugin.getId() );
         org.pentaho.platform.util.logging.Logger.error( getClass().toString(), msg, t );
         PluginMessageLogger.add( msg );
       }
-    }
+    } );
+
+    reportLoadTimes( contextTimes, registrationTimes );
+
+    pluginIndex = PluginIndex.build();
 
     IServiceManager svcManager = PentahoSystem.get( IServiceManager.class, null );
     if ( svcManager != null ) {
@@ -315,7 +337,53 @@ public class PentahoSystemPluginManager implements IPluginManager {
       listener.onReload();
     }
 
-    return !anyErrors;
+    return !anyErrors.get();
+  }
+
+  private void reportLoadTimes( Map<IPlatformPlugin, Long> contextTimes,
+                                Map<IPlatformPlugin, Long> registrationTimes ) {
+    Map<String, Long> times = new LinkedHashMap<>();
+    for ( Map.Entry<IPlatformPlugin, Long> entry : contextTimes.entrySet() ) {
+      times.merge( String.valueOf( entry.getKey().getId() ),
+        entry.getValue() + registrationTimes.getOrDefault( entry.getKey(), 0L ), Long::sum );
+    }
+    pluginLoadTimes = Collections.unmodifiableMap( times );
+
+    if ( logger.isInfoEnabled() && !times.isEmpty() ) {
+      List<Map.Entry<String, Long>> slowest = new ArrayList<>( times.entrySet() );
+      slowest.sort( Map.Entry.<String, Long>comparingByValue().reversed() );
+      StringBuilder summary = new StringBuilder();
+      slowest = slowest.subList( 0, Math.min( SLOWEST_PLUGINS_REPORTED, slowest.size() ) );
+      for ( Map.Entry<String, Long> entry : slowest ) {
+        summary.append( summary.length() > 0 ? ", " : "" ).append( entry.getKey() ).append( " (" )
+          .append( entry.getValue() ).append( " ms)" );
+      }
+      logger.info( "Registered {} plugins, creating their contexts on {} threads; slowest: {}", times.size(),
+        registrationThreads, summary );
+    }
+    for ( Map.Entry<String, Long> entry : times.entrySet() ) {
+      logger.debug( "Plugin {} took {} ms to register", entry.getKey(), entry.getValue() );
+    }
+  }
+
+  /**
+   * Returns how long each plugin took to register during the last reload: creating its classloader and Spring
+   * context, and registering its content generators, services, overlays, perspectives and settings.
+   *
+   * @return the time in milliseconds, by plugin id, in the order the plugins were provided
+   */
+  public Map<String, Long> getPluginLoadTimes() {
+    return pluginLoadTimes;
+  }
+
+  /**
+   * Sets how many plugins may have their classloader and Spring context created concurrently; 1 creates them one
+   * after the other. Plugins are always initialized and registered one after the other.
+   *
+   * @param registrationThreads the number of threads creating plugin contexts
+   */
+  public void setRegistrationThreads( int registrationThreads ) {
+    this.registrationThreads = Math.max( 1, registrationThreads );
   }
 
   private void registerPlugin( final IPlatformPlugin plugin ) throws PlatformPluginRegistrationException,
@@ -765,13 +833,12 @@ public class PentahoSystemPluginManager implements IPluginManager {
       throw new IllegalArgumentException( "beanId cannot be null" );
     }
 
-    for ( GenericApplicationContext beanFactory : PentahoSystem.getAll( GenericApplicationContext.class ) ) {
-      if ( beanFactory.containsBean( beanId ) ) {
-        try {
-          return beanFactory.getBean( beanId );
-        } catch ( Throwable ex ) { // Catching throwable on purpose
-          throw new PluginBeanException( ex );
-        }
+    GenericApplicationContext beanFactory = findBeanFactory( beanId );
+    if ( beanFactory != null ) {
+      try {
+        return beanFactory.getBean( beanId );
+      } catch ( Throwable ex ) { // Catching throwable on purpose
+        throw new PluginBeanException( ex );
       }
     }
 
@@ -822,8 +889,19 @@ public class PentahoSystemPluginManager implements IPluginManager {
 
     Class<?> type = null;
 
-    final List<IPentahoObjectReference<GenericApplicationContext>> objectReferences =
-      PentahoSystem.getObjectReferences( GenericApplicationContext.class, null );
+    PluginIndex index = pluginIndex;
+    GenericApplicationContext indexed = index != null ? index.getContext( beanId ) : null;
+    final List<IPentahoObjectReference<GenericApplicationContext>> objectReferences = indexed != null
+      ? Collections.emptyList()
+      : PentahoSystem.getObjectReferences( GenericApplicationContext.class, null );
+
+    if ( indexed != null ) {
+      try {
+        type = indexed.getType( beanId );
+      } catch ( Throwable ex ) { // Catching throwable on purpose
+        throw new PluginBeanException( ex );
+      }
+    }
 
     for ( IPentahoObjectReference<GenericApplicationContext> reference : objectReferences ) {
       if ( !reference.getAttributes().containsKey( PLUGIN_ID ) ) {
@@ -856,13 +934,26 @@ public class PentahoSystemPluginManager implements IPluginManager {
       throw new IllegalArgumentException( "beanId cannot be null" );
     }
 
+    return findBeanFactory( beanId ) != null;
+  }
+
+  /**
+   * Finds the context defining a bean through the index of the plugin beans, or else by asking every context.
+   */
+  private GenericApplicationContext findBeanFactory( String beanId ) {
+    PluginIndex index = pluginIndex;
+    GenericApplicationContext indexed = index != null ? index.getContext( beanId ) : null;
+    if ( indexed != null ) {
+      return indexed;
+    }
+
     for ( GenericApplicationContext beanFactory : PentahoSystem.getAll( GenericApplicationContext.class ) ) {
       if ( beanFactory.containsBean( beanId ) ) {
-        return true;
+        return beanFactory;
       }
     }
 
-    return false;
+    return null;
   }
 
   @Override
@@ -873,6 +964,12 @@ public class PentahoSystemPluginManager implements IPluginManager {
   @Override
   public String getPluginIdForType( String contentType ) {
 
+    PluginIndex index = pluginIndex;
+    String indexed = index != null ? index.getPluginIdForType( contentType ) : null;
+    if ( indexed != null ) {
+      return indexed;
+    }
+
     final IPentahoObjectReference<IContentGenerator> objectReference = PentahoSystem
       .getObjectReference( IContentGenerator.class, null, Collections.singletonMap( CONTENT_TYPE, contentType ) );
 
@@ -931,6 +1028,12 @@ public class PentahoSystemPluginManager implements IPluginManager {
       return null;
     }
 
+    PluginIndex index = pluginIndex;
+    String indexed = index != null ? index.getPluginIdForClassLoader( classLoader ) : null;
+    if ( indexed != null ) {
+      return indexed;
+    }
+
     final List<IPentahoObjectReference<ClassLoader>> objectReferences =
       PentahoSystem.getObjectReferences( ClassLoader.class, null );
 
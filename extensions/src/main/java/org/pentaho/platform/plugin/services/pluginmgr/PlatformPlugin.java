@@ -80,6 +80,8 @@ public class PlatformPlugin implements IPlatformPlugin, IPentahoInitializer {
 
   private ClassLoaderType loaderType;
 
+  private List<String> dependencies = new ArrayList<>();
+
   private Map<String, List<String>> externalResources = new HashMap<String, List<String>>();
 
   /**
@@ -389,6 +391,15 @@ public class PlatformPlugin implements IPlatformPlugin, IPentahoInitializer {
     this.loaderType = loaderType;
   }
 
+  @Override
+  public List<String> getDependencies() {
+    return Collections.unmodifiableList( dependencies );
+  }
+
+  public void addDependency( String pluginId ) {
+    this.dependencies.add( pluginId );
+  }
+
   public void addExternalResource( String context, String resource ) {
     List<String> res = externalResources.get( context );
     if ( res == null ) {
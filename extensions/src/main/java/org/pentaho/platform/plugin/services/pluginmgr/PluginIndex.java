@@ -0,0 +1,133 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.pluginmgr;
+
+import org.pentaho.platform.api.engine.IContentGenerator;
+import org.pentaho.platform.api.engine.IPentahoObjectReference;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.pentaho.platform.plugin.services.pluginmgr.PentahoSystemPluginManager.CONTENT_TYPE;
+import static org.pentaho.platform.plugin.services.pluginmgr.PentahoSystemPluginManager.PLUGIN_ID;
+
+/**
+ * A snapshot of what the plugins registered: which plugin context defines each bean id, which plugin has a content
+ * generator for each content type, and which plugin owns each classloader. It is built once the plugins are
+ * registered and never changes, so {@link PentahoSystemPluginManager} can replace it as a whole on reload.
+ * <p>
+ * Only objects registered by the plugin manager, with a {@link PentahoSystemPluginManager#PLUGIN_ID} attribute, are
+ * indexed; when it finds nothing here, the plugin manager still looks in the rest of the PentahoSystem.
+ */
+final class PluginIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger( PluginIndex.class );
+
+  private final Map<String, GenericApplicationContext> contextsByBeanId;
+
+  private final Map<String, String> pluginIdsByType;
+
+  private final Map<ClassLoader, String> pluginIdsByClassLoader;
+
+  private PluginIndex( final Map<String, GenericApplicationContext> contextsByBeanId,
+                       final Map<String, String> pluginIdsByType,
+                       final Map<ClassLoader, String> pluginIdsByClassLoader ) {
+    this.contextsByBeanId = contextsByBeanId;
+    this.pluginIdsByType = pluginIdsByType;
+    this.pluginIdsByClassLoader = pluginIdsByClassLoader;
+  }
+
+  /**
+   * Indexes the objects currently registered by the plugin manager. Like PentahoSystem lookups, the references of
+   * highest priority win.
+   */
+  static PluginIndex build() {
+    Map<String, GenericApplicationContext> contextsByBeanId = new HashMap<>();
+    for ( IPentahoObjectReference<GenericApplicationContext> reference
+      : PentahoSystem.getObjectReferences( GenericApplicationContext.class, null ) ) {
+      if ( !reference.getAttributes().containsKey( PLUGIN_ID ) ) {
+        continue;
+      }
+      GenericApplicationContext context = reference.getObject();
+      try {
+        for ( String beanName : BeanFactoryUtils.beanNamesIncludingAncestors( context ) ) {
+          contextsByBeanId.putIfAbsent( beanName, context );
+          for ( String alias : context.getAliases( beanName ) ) {
+            contextsByBeanId.putIfAbsent( alias, context );
+          }
+        }
+      } catch ( RuntimeException e ) {
+        // e.g. a context that failed to refresh; it is still found by scanning
+        logger.debug( "Could not index the beans of plugin {}", reference.getAttributes().get( PLUGIN_ID ), e );
+      }
+    }
+
+    Map<String, String> pluginIdsByType = new HashMap<>();
+    for ( IPentahoObjectReference<IContentGenerator> reference
+      : PentahoSystem.getObjectReferences( IContentGenerator.class, null ) ) {
+      Object type = reference.getAttributes().get( CONTENT_TYPE );
+      Object pluginId = reference.getAttributes().get( PLUGIN_ID );
+      if ( type != null && pluginId != null ) {
+        pluginIdsByType.putIfAbsent( type.toString(), pluginId.toString() );
+      }
+    }
+    // generators registered in the form [contentType].[perspective] also identify the plugin of the content type
+    for ( Map.Entry<String, String> entry : new HashMap<>( pluginIdsByType ).entrySet() ) {
+      int dot = entry.getKey().lastIndexOf( '.' );
+      if ( dot > 0 ) {
+        pluginIdsByType.putIfAbsent( entry.getKey().substring( 0, dot ), entry.getValue() );
+      }
+    }
+
+    Map<ClassLoader, String> pluginIdsByClassLoader = new IdentityHashMap<>();
+    for ( IPentahoObjectReference<ClassLoader> reference
+      : PentahoSystem.getObjectReferences( ClassLoader.class, null ) ) {
+      Object pluginId = reference.getAttributes().get( PLUGIN_ID );
+      if ( pluginId != null ) {
+        pluginIdsByClassLoader.putIfAbsent( reference.getObject(), pluginId.toString() );
+      }
+    }
+
+    return new PluginIndex( Collections.unmodifiableMap( contextsByBeanId ),
+      Collections.unmodifiableMap( pluginIdsByType ), Collections.unmodifiableMap( pluginIdsByClassLoader ) );
+  }
+
+  /**
+   * @return the plugin context defining the bean, or <code>null</code>
+   */
+  GenericApplicationContext getContext( final String beanId ) {
+    return contextsByBeanId.get( beanId );
+  }
+
+  /**
+   * @return the id of the plugin with a content generator for the content type, or <code>null</code>
+   */
+  String getPluginIdForType( final String contentType ) {
+    return pluginIdsByType.get( contentType );
+  }
+
+  /**
+   * @return the id of the plugin owning the classloader, or <code>null</code> if it is not a plugin classloader
+   */
+  String getPluginIdForClassLoader( final ClassLoader classLoader ) {
+    return pluginIdsByClassLoader.get( classLoader );
+  }
+}
@@ -0,0 +1,196 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.pluginmgr;
+
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.IPlatformPlugin;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs a registration step for each plugin on a bounded pool of threads. The step of a plugin only starts once the
+ * steps of the plugins it {@link IPlatformPlugin#getDependencies() depends on}, and of any plugin provided earlier
+ * with the same id, have finished. Each step is timed.
+ * <p>
+ * The steps run with the session of the caller. As {@link PluginMessageLogger} keeps its messages per thread, the
+ * messages logged by each step are handed back to the caller's thread, in the order of the plugins.
+ */
+class PluginRegistrationScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger( PluginRegistrationScheduler.class );
+
+  private final int threads;
+
+  PluginRegistrationScheduler( final int threads ) {
+    this.threads = threads;
+  }
+
+  /**
+   * Runs <code>step</code> for each plugin. The step is expected to handle its own errors.
+   *
+   * @return how long the step took for each plugin, in milliseconds, in the order of the plugins
+   */
+  Map<IPlatformPlugin, Long> run( final List<IPlatformPlugin> plugins, final IPentahoSession session,
+                                  final Consumer<IPlatformPlugin> step ) {
+    List<Integer> order = new ArrayList<>();
+    List<List<Integer>> dependencies = resolveDependencies( plugins, order );
+    Result[] results = new Result[ plugins.size() ];
+
+    if ( threads <= 1 || plugins.size() <= 1 ) {
+      for ( int index : order ) {
+        long start = System.nanoTime();
+        step.accept( plugins.get( index ) );
+        results[ index ] = new Result( ( System.nanoTime() - start ) / 1000000L, Collections.emptyList() );
+      }
+    } else {
+      ExecutorService executor = Executors.newFixedThreadPool( Math.min( threads, plugins.size() ),
+        new RegistrationThreadFactory() );
+      try {
+        List<CompletableFuture<Result>> futures = new ArrayList<>( Collections.nCopies( plugins.size(), null ) );
+        for ( int index : order ) {
+          IPlatformPlugin plugin = plugins.get( index );
+          CompletableFuture<?>[] prerequisites = dependencies.get( index ).stream().map( futures::get )
+            .toArray( CompletableFuture[]::new );
+          futures.set( index, CompletableFuture.allOf( prerequisites )
+            .handle( ( ignored, error ) -> plugin )
+            .thenApplyAsync( p -> runStep( p, session, step ), executor ) );
+        }
+        for ( int index = 0; index < plugins.size(); index++ ) {
+          results[ index ] = futures.get( index ).join();
+          for ( String message : results[ index ].messages ) {
+            PluginMessageLogger.add( message );
+          }
+        }
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    Map<IPlatformPlugin, Long> timings = new LinkedHashMap<>();
+    for ( int index = 0; index < plugins.size(); index++ ) {
+      timings.put( plugins.get( index ), results[ index ].millis );
+    }
+    return timings;
+  }
+
+  private static Result runStep( final IPlatformPlugin plugin, final IPentahoSession session,
+                                 final Consumer<IPlatformPlugin> step ) {
+    PentahoSessionHolder.setSession( session );
+    PluginMessageLogger.clear();
+    long start = System.nanoTime();
+    try {
+      step.accept( plugin );
+    } catch ( Throwable t ) {
+      logger.error( "Unexpected error registering plugin {}", plugin.getId(), t );
+    } finally {
+      PentahoSessionHolder.removeSession();
+    }
+    long millis = ( System.nanoTime() - start ) / 1000000L;
+    List<String> messages = new ArrayList<>( PluginMessageLogger.getAll() );
+    PluginMessageLogger.clear();
+    return new Result( millis, messages );
+  }
+
+  /**
+   * Finds the indexes of the plugins each plugin must wait for, and fills <code>order</code> with the indexes of all
+   * the plugins, each after those it waits for. Unknown dependencies and dependency cycles are logged and ignored.
+   */
+  static List<List<Integer>> resolveDependencies( final List<IPlatformPlugin> plugins, final List<Integer> order ) {
+    Map<String, Integer> firstById = new HashMap<>();
+    List<List<Integer>> dependencies = new ArrayList<>( plugins.size() );
+    for ( int index = 0; index < plugins.size(); index++ ) {
+      IPlatformPlugin plugin = plugins.get( index );
+      List<Integer> prerequisites = new ArrayList<>();
+      Integer sameId = plugin.getId() != null ? firstById.putIfAbsent( plugin.getId(), index ) : null;
+      if ( sameId != null ) {
+        // the later one is rejected as already loaded, as long as they are not registered at the same time
+        prerequisites.add( sameId );
+      }
+      dependencies.add( prerequisites );
+    }
+    for ( int index = 0; index < plugins.size(); index++ ) {
+      IPlatformPlugin plugin = plugins.get( index );
+      for ( String dependency : plugin.getDependencies() ) {
+        Integer prerequisite = firstById.get( dependency );
+        if ( prerequisite == null ) {
+          logger.warn( "Plugin {} depends on plugin {}, which is not available", plugin.getId(), dependency );
+        } else if ( prerequisite != index && !dependencies.get( index ).contains( prerequisite ) ) {
+          dependencies.get( index ).add( prerequisite );
+        }
+      }
+    }
+
+    int[] state = new int[ plugins.size() ]; // 0 = not visited, 1 = visiting, 2 = ordered
+    for ( int index = 0; index < plugins.size(); index++ ) {
+      visit( index, plugins, dependencies, state, order );
+    }
+    return dependencies;
+  }
+
+  private static void visit( final int index, final List<IPlatformPlugin> plugins,
+                             final List<List<Integer>> dependencies, final int[] state, final List<Integer> order ) {
+    if ( state[ index ] != 0 ) {
+      return;
+    }
+    state[ index ] = 1;
+    for ( Iterator<Integer> it = dependencies.get( index ).iterator(); it.hasNext(); ) {
+      int prerequisite = it.next();
+      if ( state[ prerequisite ] == 1 ) {
+        logger.warn( "Ignoring the dependency of plugin {} on plugin {}, as they depend on each other",
+          plugins.get( index ).getId(), plugins.get( prerequisite ).getId() );
+        it.remove();
+      } else {
+        visit( prerequisite, plugins, dependencies, state, order );
+      }
+    }
+    state[ index ] = 2;
+    order.add( index );
+  }
+
+  private static class Result {
+    private final long millis;
+    private final List<String> messages;
+
+    Result( final long millis, final List<String> messages ) {
+      this.millis = millis;
+      this.messages = messages;
+    }
+  }
+
+  private static class RegistrationThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread( final Runnable runnable ) {
+      Thread thread = new Thread( runnable, "plugin-registration-" + count.incrementAndGet() ); //$NON-NLS-1$
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+}
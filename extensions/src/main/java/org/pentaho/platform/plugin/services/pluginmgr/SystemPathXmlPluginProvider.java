@@ -304,6 +304,16 @@ public class SystemPathXmlPluginProvider implements IPluginProvider {
       loaderType = IPlatformPlugin.ClassLoaderType.valueOf( loader.toUpperCase() );
     }
     plugin.setLoadertype( loaderType );
+
+    // the plugins that must be registered before this one, e.g. depends-on="common-ui,data-access"
+    String dependsOn = node.attributeValue( "depends-on" ); //$NON-NLS-1$
+    if ( !StringUtils.isEmpty( dependsOn ) ) {
+      for ( String dependency : dependsOn.split( "," ) ) { //$NON-NLS-1$
+        if ( !StringUtils.isBlank( dependency ) ) {
+          plugin.addDependency( dependency.trim() );
+        }
+      }
+    }
   }
 
   protected void processOverlays( PlatformPlugin plugin, Document doc, IPentahoSession session ) {
@@ -99,6 +99,9 @@ public abstract class AbstractGwtRpc {
   @Nullable
   private IGwtRpcSerializationPolicyCache serializationPolicyCache;
 
+  @Nullable
+  private IGwtRpcDispatchCache dispatchCache;
+
   /**
    * Creates an instance given an HTTP request.
    *
@@ -132,6 +135,26 @@ public abstract class AbstractGwtRpc {
     return serializationPolicyCache;
   }
 
+  /**
+   * Sets the dispatch cache which will be used to obtain the target object and target method of this call
+   * before resolving them, or to store the resolved ones if none exist.
+   *
+   * @param dispatchCache A dispatch cache instance, or <code>null</code>.
+   */
+  public void setDispatchCache( @Nullable IGwtRpcDispatchCache dispatchCache ) {
+    this.dispatchCache = dispatchCache;
+  }
+
+  /**
+   * Gets the dispatch cache instance used by this GWT-RPC call.
+   *
+   * @return The dispatch cache instance, if any; <code>null</code>, otherwise.
+   */
+  @Nullable
+  public IGwtRpcDispatchCache getDispatchCache() {
+    return dispatchCache;
+  }
+
   // region Servlet
 
   /**
@@ -200,7 +223,7 @@ public abstract class AbstractGwtRpc {
   public Object getTarget() {
     if ( target == null ) {
       try {
-        target = resolveTarget();
+        target = resolveTargetCached();
       } catch ( GwtRpcProxyException ex ) {
         logger.error( Messages.getInstance().getErrorString(
           "AbstractGwtRpcProxyServlet.ERROR_0001_FAILED_TO_RESOLVE_DISPATCH_TARGET",
@@ -232,6 +255,30 @@ public abstract class AbstractGwtRpc {
    */
   @NonNull
   protected abstract Object resolveTarget();
+
+  /**
+   * Gets the key which identifies the target object of this call in the dispatch cache.
+   * <p>
+   * The default implementation returns <code>null</code>, meaning that the target object is not cacheable.
+   *
+   * @return The target key, if the target object is cacheable; <code>null</code>, otherwise.
+   */
+  @Nullable
+  protected String getTargetKey() {
+    return null;
+  }
+
+  @NonNull
+  private Object resolveTargetCached() {
+    if ( dispatchCache != null ) {
+      String targetKey = getTargetKey();
+      if ( targetKey != null ) {
+        return dispatchCache.getTarget( targetKey, this::resolveTarget );
+      }
+    }
+
+    return resolveTarget();
+  }
   // endregion
 
   // region Request Payload, Decoding
@@ -463,6 +510,10 @@ public abstract class AbstractGwtRpc {
 
     Method serviceInterfaceMethod = rpcRequest.getMethod();
 
+    if ( dispatchCache != null ) {
+      return dispatchCache.getTargetMethod( targetClass, serviceInterfaceMethod );
+    }
+
     // Don't require the target class to implement the service interface.
     return targetClass.getMethod(
       serviceInterfaceMethod.getName(),
@@ -502,6 +553,29 @@ public abstract class AbstractGwtRpc {
     @NonNull HttpServletRequest httpRequest,
     @NonNull Function<HttpServletRequest, R> factory,
     @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache ) {
+    return getInstance( httpRequest, factory, serializationPolicyCache, null );
+  }
+
+  /**
+   * Gets the instance of a sub-class of {@link AbstractGwtRpc}, <code>R</code>,
+   * which is stored in the given HTTP request, if there is one already, or creates one and stores it if not.
+   * <p>
+   * Helper method for custom implementations.
+   *
+   * @param httpRequest              The HTTP request.
+   * @param factory                  A function which creates an instance of class <code>R</code> given an HTTP request.
+   * @param serializationPolicyCache A serialization policy cache instance to initialize a created instance with.
+   * @param dispatchCache            A dispatch cache instance to initialize a created instance with.
+   * @return The associated GWT-RPC instance.
+   * @see #getInstance(HttpServletRequest, Function, IGwtRpcSerializationPolicyCache)
+   * @see AbstractGwtRpc#setDispatchCache(IGwtRpcDispatchCache)
+   */
+  @NonNull
+  protected static <R extends AbstractGwtRpc> R getInstance(
+    @NonNull HttpServletRequest httpRequest,
+    @NonNull Function<HttpServletRequest, R> factory,
+    @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache,
+    @Nullable IGwtRpcDispatchCache dispatchCache ) {
 
     Objects.requireNonNull( httpRequest );
     Objects.requireNonNull( factory );
@@ -515,6 +589,7 @@ public abstract class AbstractGwtRpc {
       }
 
       rpc.setSerializationPolicyCache( serializationPolicyCache );
+      rpc.setDispatchCache( dispatchCache );
 
       httpRequest.setAttribute( HTTP_GWT_RPC_ATTRIBUTE, rpc );
     }
@@ -0,0 +1,59 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.gwt.rpc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+/**
+ * The <code>IGwtRpcDispatchCache</code> interface represents a cache of the dispatch metadata of GWT-RPC services,
+ * namely, the resolved target objects and the target methods which implement each service interface method.
+ * <p>
+ * Cached metadata is valid for as long as the set of deployed services does not change.
+ * Implementations are cleared, via {@link #clear()}, when plugins are reloaded.
+ */
+public interface IGwtRpcDispatchCache {
+  /**
+   * Gets the target object of a service from cache or from the given supplier.
+   *
+   * @param targetKey      The key which identifies the service target.
+   * @param sourceSupplier The supplier to use to obtain a missing target. Cannot return <code>null</code>.
+   * @return The target object.
+   * @throws org.pentaho.platform.web.servlet.GwtRpcProxyException if the supplier returns <code>null</code>.
+   */
+  @NonNull
+  Object getTarget( @NonNull String targetKey, @NonNull Supplier<Object> sourceSupplier );
+
+  /**
+   * Gets the method of a target class which implements a given service interface method.
+   * <p>
+   * The target class is not required to implement the service interface.
+   * The method is matched by name and parameter types.
+   *
+   * @param targetClass   The target class.
+   * @param serviceMethod The service interface method.
+   * @return The target method.
+   * @throws NoSuchMethodException if the target class has no matching public method.
+   */
+  @NonNull
+  Method getTargetMethod( @NonNull Class<?> targetClass, @NonNull Method serviceMethod )
+    throws NoSuchMethodException;
+
+  /**
+   * Removes all cached targets and methods.
+   */
+  void clear();
+}
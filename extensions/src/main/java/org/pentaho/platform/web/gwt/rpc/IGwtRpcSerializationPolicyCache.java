@@ -35,4 +35,12 @@ public interface IGwtRpcSerializationPolicyCache {
   @NonNull
   SerializationPolicy getSerializationPolicy( @Nullable String moduleBaseURL, @Nullable String strongName,
                                               @NonNull SerializationPolicyProvider sourceProvider );
+
+  /**
+   * Removes all cached serialization policies.
+   * <p>
+   * Called when the set of deployed GWT modules may have changed, e.g. when plugins are reloaded.
+   */
+  default void clear() {
+  }
 }
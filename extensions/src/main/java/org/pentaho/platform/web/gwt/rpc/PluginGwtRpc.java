@@ -101,6 +101,11 @@ public class PluginGwtRpc extends AbstractGwtRpc {
     super( request );
   }
 
+  @Nullable @Override
+  protected String getTargetKey() {
+    return getServiceKey();
+  }
+
   @NonNull @Override
   protected Object resolveTarget() throws GwtRpcProxyException {
 
@@ -257,4 +262,23 @@ public class PluginGwtRpc extends AbstractGwtRpc {
                                           @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache ) {
     return getInstance( httpRequest, PluginGwtRpc::new, serializationPolicyCache );
   }
+
+  /**
+   * Gets the instance of {@link PluginGwtRpc} which is associated with the given HTTP request, creating one, if needed.
+   * <p>
+   * When the instance needs to be created, the given {@link IGwtRpcSerializationPolicyCache},
+   * via <code>serializationPolicyCache</code>, and the given {@link IGwtRpcDispatchCache},
+   * via <code>dispatchCache</code>, are associated with it.
+   *
+   * @param httpRequest              The HTTP request.
+   * @param serializationPolicyCache A serialization policy cache instance to initialize a created instance with.
+   * @param dispatchCache            A dispatch cache instance to initialize a created instance with.
+   * @return The associated {@link PluginGwtRpc} instance.
+   */
+  @NonNull
+  public static PluginGwtRpc getInstance( @NonNull HttpServletRequest httpRequest,
+                                          @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache,
+                                          @Nullable IGwtRpcDispatchCache dispatchCache ) {
+    return getInstance( httpRequest, PluginGwtRpc::new, serializationPolicyCache, dispatchCache );
+  }
 }
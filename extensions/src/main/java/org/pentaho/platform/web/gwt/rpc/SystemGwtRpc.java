@@ -64,6 +64,11 @@ public class SystemGwtRpc extends AbstractGwtRpc {
     super( request );
   }
 
+  @Nullable @Override
+  protected String getTargetKey() {
+    return getTargetBeanId();
+  }
+
   @NonNull @Override
   protected Object resolveTarget() throws GwtRpcProxyException {
 
@@ -187,4 +192,23 @@ public class SystemGwtRpc extends AbstractGwtRpc {
                                           @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache ) {
     return getInstance( httpRequest, SystemGwtRpc::new, serializationPolicyCache );
   }
+
+  /**
+   * Gets the instance of {@link SystemGwtRpc} which is associated with the given HTTP request, creating one, if needed.
+   * <p>
+   * When the instance needs to be created, the given {@link IGwtRpcSerializationPolicyCache},
+   * via <code>serializationPolicyCache</code>, and the given {@link IGwtRpcDispatchCache},
+   * via <code>dispatchCache</code>, are associated with it.
+   *
+   * @param httpRequest              The HTTP request.
+   * @param serializationPolicyCache A serialization policy cache instance to initialize a created instance with.
+   * @param dispatchCache            A dispatch cache instance to initialize a created instance with.
+   * @return The associated {@link SystemGwtRpc} instance.
+   */
+  @NonNull
+  public static SystemGwtRpc getInstance( @NonNull HttpServletRequest httpRequest,
+                                          @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache,
+                                          @Nullable IGwtRpcDispatchCache dispatchCache ) {
+    return getInstance( httpRequest, SystemGwtRpc::new, serializationPolicyCache, dispatchCache );
+  }
 }
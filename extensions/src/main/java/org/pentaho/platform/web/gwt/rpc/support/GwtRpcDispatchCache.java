@@ -0,0 +1,74 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.gwt.rpc.support;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.pentaho.platform.web.gwt.rpc.IGwtRpcDispatchCache;
+import org.pentaho.platform.web.servlet.GwtRpcProxyException;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The <code>GwtRpcDispatchCache</code> class is a basic in-memory, multi-threaded implementation of
+ * the {@link IGwtRpcDispatchCache} interface.
+ */
+public class GwtRpcDispatchCache implements IGwtRpcDispatchCache {
+  @NonNull
+  private final Map<String, Object> targetCache = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final Map<Class<?>, Map<Method, Method>> targetMethodCache = new ConcurrentHashMap<>();
+
+  @NonNull @Override
+  public Object getTarget( @NonNull String targetKey, @NonNull Supplier<Object> sourceSupplier ) {
+
+    Object target = targetCache.get( targetKey );
+    if ( target != null ) {
+      return target;
+    }
+
+    target = sourceSupplier.get();
+    if ( target == null ) {
+      throw new GwtRpcProxyException( "Target supplier returned null for " + targetKey + "." );
+    }
+
+    Object existingTarget = targetCache.putIfAbsent( targetKey, target );
+
+    return existingTarget != null ? existingTarget : target;
+  }
+
+  @NonNull @Override
+  public Method getTargetMethod( @NonNull Class<?> targetClass, @NonNull Method serviceMethod )
+    throws NoSuchMethodException {
+
+    Map<Method, Method> methods = targetMethodCache.computeIfAbsent( targetClass, key -> new ConcurrentHashMap<>() );
+
+    Method targetMethod = methods.get( serviceMethod );
+    if ( targetMethod == null ) {
+      targetMethod = targetClass.getMethod( serviceMethod.getName(), serviceMethod.getParameterTypes() );
+      methods.put( serviceMethod, targetMethod );
+    }
+
+    return targetMethod;
+  }
+
+  @Override
+  public void clear() {
+    targetCache.clear();
+    targetMethodCache.clear();
+  }
+}
@@ -52,4 +52,9 @@ public class GwtRpcSerializationPolicyCache implements IGwtRpcSerializationPolic
 
     return serializationPolicy;
   }
+
+  @Override
+  public void clear() {
+    serializationPolicyCache.clear();
+  }
 }
@@ -0,0 +1,147 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.codehaus.enunciate.Facet;
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.plugin.services.cache.CacheRegionStatistics;
+import org.pentaho.platform.plugin.services.cache.ICacheStatisticsProvider;
+import org.pentaho.platform.web.http.api.resources.utils.SystemUtils;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
+
+/**
+ * Reports how the regions of the {@link ICacheManager} are used, when it keeps statistics: hits, misses, evictions,
+ * entries and their approximate size per region, the most read keys of a region, and the sessions whose session cache
+ * entries take the most memory. Only administrators can use it.
+ */
+@Path( "/system/cache" )
+@Facet( name = "Unsupported" )
+public class CacheStatisticsResource extends AbstractJaxRSResource {
+
+  private final ICacheManager cacheManager;
+
+  public CacheStatisticsResource() {
+    this( PentahoSystem.get( ICacheManager.class ) );
+  }
+
+  public CacheStatisticsResource( ICacheManager cacheManager ) {
+    this.cacheManager = cacheManager;
+  }
+
+  /**
+   * Returns the statistics of every cache region.
+   *
+   * @return the statistics of the regions
+   */
+  @GET
+  @Path( "/regions" )
+  @Facet( name = "Unsupported" )
+  @Produces( { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML } )
+  public Response getRegionStatistics() {
+    if ( !canAdminister() ) {
+      return Response.status( UNAUTHORIZED ).build();
+    }
+    ICacheStatisticsProvider provider = getStatisticsProvider();
+    if ( provider == null ) {
+      return Response.status( NOT_FOUND ).build();
+    }
+    return Response.ok( CacheStatisticsWrapper.ofRegions( provider.getRegionStatistics() ) ).build();
+  }
+
+  /**
+   * Returns the statistics of one cache region.
+   *
+   * @param region the region
+   * @return the statistics of the region
+   */
+  @GET
+  @Path( "/regions/{region}" )
+  @Facet( name = "Unsupported" )
+  @Produces( { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML } )
+  public Response getRegionStatistics( @PathParam( "region" ) String region ) {
+    if ( !canAdminister() ) {
+      return Response.status( UNAUTHORIZED ).build();
+    }
+    ICacheStatisticsProvider provider = getStatisticsProvider();
+    CacheRegionStatistics statistics = provider != null ? provider.getRegionStatistics( region ) : null;
+    if ( statistics == null ) {
+      return Response.status( NOT_FOUND ).build();
+    }
+    return Response.ok( statistics ).build();
+  }
+
+  /**
+   * Returns the keys of a cache region that were read the most.
+   *
+   * @param region the region
+   * @param count  the maximum number of keys
+   * @return the keys, most read first
+   */
+  @GET
+  @Path( "/regions/{region}/hotKeys" )
+  @Facet( name = "Unsupported" )
+  @Produces( { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML } )
+  public Response getHotKeys( @PathParam( "region" ) String region,
+                              @DefaultValue( "10" ) @QueryParam( "count" ) int count ) {
+    if ( !canAdminister() ) {
+      return Response.status( UNAUTHORIZED ).build();
+    }
+    ICacheStatisticsProvider provider = getStatisticsProvider();
+    if ( provider == null || provider.getRegionStatistics( region ) == null ) {
+      return Response.status( NOT_FOUND ).build();
+    }
+    return Response.ok( CacheStatisticsWrapper.ofKeys( provider.getHotKeys( region, count ) ) ).build();
+  }
+
+  /**
+   * Returns the sessions whose session cache entries are the largest.
+   *
+   * @param count the maximum number of sessions
+   * @return the sessions, largest first
+   */
+  @GET
+  @Path( "/sessions" )
+  @Facet( name = "Unsupported" )
+  @Produces( { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML } )
+  public Response getSessionCacheStatistics( @DefaultValue( "10" ) @QueryParam( "count" ) int count ) {
+    if ( !canAdminister() ) {
+      return Response.status( UNAUTHORIZED ).build();
+    }
+    ICacheStatisticsProvider provider = getStatisticsProvider();
+    if ( provider == null ) {
+      return Response.status( NOT_FOUND ).build();
+    }
+    return Response.ok( CacheStatisticsWrapper.ofSessions( provider.getSessionCacheStatistics( count ) ) ).build();
+  }
+
+  private ICacheStatisticsProvider getStatisticsProvider() {
+    return cacheManager instanceof ICacheStatisticsProvider ? (ICacheStatisticsProvider) cacheManager : null;
+  }
+
+  private boolean canAdminister() {
+    return SystemUtils.canAdminister();
+  }
+}
@@ -0,0 +1,90 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.plugin.services.cache.CacheKeyStatistics;
+import org.pentaho.platform.plugin.services.cache.CacheRegionStatistics;
+import org.pentaho.platform.plugin.services.cache.CacheSessionStatistics;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+@XmlRootElement( name = "cacheStatistics" )
+public class CacheStatisticsWrapper {
+
+  List<CacheRegionStatistics> regions = new ArrayList<CacheRegionStatistics>();
+
+  List<CacheKeyStatistics> keys = new ArrayList<CacheKeyStatistics>();
+
+  List<CacheSessionStatistics> sessions = new ArrayList<CacheSessionStatistics>();
+
+  public CacheStatisticsWrapper() {
+  }
+
+  public static CacheStatisticsWrapper ofRegions( List<CacheRegionStatistics> regions ) {
+    CacheStatisticsWrapper wrapper = new CacheStatisticsWrapper();
+    wrapper.regions.addAll( regions );
+    return wrapper;
+  }
+
+  public static CacheStatisticsWrapper ofKeys( List<CacheKeyStatistics> keys ) {
+    CacheStatisticsWrapper wrapper = new CacheStatisticsWrapper();
+    wrapper.keys.addAll( keys );
+    return wrapper;
+  }
+
+  public static CacheStatisticsWrapper ofSessions( List<CacheSessionStatistics> sessions ) {
+    CacheStatisticsWrapper wrapper = new CacheStatisticsWrapper();
+    wrapper.sessions.addAll( sessions );
+    return wrapper;
+  }
+
+  @XmlElement( name = "region" )
+  public List<CacheRegionStatistics> getRegions() {
+    return regions;
+  }
+
+  public void setRegions( List<CacheRegionStatistics> regions ) {
+    if ( regions != this.regions ) {
+      this.regions.clear();
+      this.regions.addAll( regions );
+    }
+  }
+
+  @XmlElement( name = "key" )
+  public List<CacheKeyStatistics> getKeys() {
+    return keys;
+  }
+
+  public void setKeys( List<CacheKeyStatistics> keys ) {
+    if ( keys != this.keys ) {
+      this.keys.clear();
+      this.keys.addAll( keys );
+    }
+  }
+
+  @XmlElement( name = "session" )
+  public List<CacheSessionStatistics> getSessions() {
+    return sessions;
+  }
+
+  public void setSessions( List<CacheSessionStatistics> sessions ) {
+    if ( sessions != this.sessions ) {
+      this.sessions.clear();
+      this.sessions.addAll( sessions );
+    }
+  }
+}
@@ -14,6 +14,8 @@
 package org.pentaho.platform.web.http.api.resources;
 
 import com.sun.jersey.core.header.FormDataContentDisposition;
+import com.sun.jersey.multipart.FormDataBodyPart;
+import com.sun.jersey.multipart.FormDataMultiPart;
 import com.sun.jersey.multipart.FormDataParam;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -21,6 +23,7 @@ import org.codehaus.enunciate.Facet;
 import org.codehaus.enunciate.jaxrs.ResponseCode;
 import org.codehaus.enunciate.jaxrs.StatusCodes;
 import org.pentaho.platform.api.engine.PentahoAccessControlException;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.plugin.services.importer.PlatformImportException;
 import org.pentaho.platform.web.http.api.resources.services.FileService;
 import org.pentaho.platform.web.http.api.resources.services.RepositoryPublishService;
@@ -33,11 +36,19 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -54,6 +65,13 @@ public class RepositoryPublishResource {
 
   private static final Log logger = LogFactory.getLog( RepositoryPublishResource.class );
 
+  /**
+   * The setting with the number of folders {@link #writeFiles(FormDataMultiPart)} publishes files to at the same time.
+   */
+  static final String PUBLISH_THREADS = "publish-threads";
+
+  private static final String DEFAULT_PUBLISH_THREADS = "4";
+
   protected RepositoryPublishService repositoryPublishService;
 
   public RepositoryPublishResource() {
@@ -171,15 +189,130 @@ public class RepositoryPublishResource {
     }
   }
 
+  /**
+   * Publishes many files to the repository in one request. The request carries a {@code manifest} field listing the
+   * files to publish, one per line, as the name of the form field containing the data, an equals sign and the path of
+   * the repository file, encoded as for {@linkplain #writeFileWithEncodedName(String, InputStream, Boolean,
+   * FormDataContentDisposition)}. The files are overwritten if {@code overwriteFile} is {@code true}.
+   *
+   * The files of one folder are published in the order of the manifest, and the folders are published concurrently.
+   * The response lists each file as soon as it is published, one per line, as {@code SUCCESS} or the error code the
+   * single file endpoints would respond with, a tab and the path of the file.
+   *
+   * Only the response is streamed. Jersey reads the whole multipart request, buffering large parts in temporary files,
+   * before this method runs, so publishing starts once every file was uploaded.
+   *
+   * <p><b>Example Request:</b><br />
+   *    POST pentaho/api/repo/publish/files
+   * </p>
+   *
+   * @param multiPart the manifest, the overwrite flag and the files
+   *
+   * @return A jax-rs Response object with the appropriate status code, header, and body.
+   */
+  @POST
+  @Path ( "/files" )
+  @Consumes ( { MediaType.MULTIPART_FORM_DATA } )
+  @Produces ( MediaType.TEXT_PLAIN )
+  @StatusCodes ( {
+    @ResponseCode ( code = 200, condition = "Publishing the files, the outcome for each is in the response." ),
+    @ResponseCode ( code = 401, condition = "Failure to publish the files due to permissions." ),
+    @ResponseCode ( code = 422, condition = "Failure to publish the files due to an invalid manifest." ), } )
+  @Facet( name = "Unsupported" )
+  public Response writeFiles( FormDataMultiPart multiPart ) {
+    try {
+      repositoryPublishService.checkPublishAccess();
+    } catch ( PentahoAccessControlException e ) {
+      return buildStatusResponse( UNAUTHORIZED, PlatformImportException.PUBLISH_USERNAME_PASSWORD_FAIL );
+    }
+
+    FormDataBodyPart manifest = multiPart.getField( "manifest" );
+    if ( manifest == null ) {
+      return buildUnprocessableEntityResponse( "Cannot publish without a manifest" );
+    }
+    Map<String, InputStream> files = new LinkedHashMap<>();
+    try ( BufferedReader reader = new BufferedReader( new StringReader( manifest.getValue() ) ) ) {
+      String line;
+      while ( ( line = reader.readLine() ) != null ) {
+        if ( line.trim().isEmpty() || line.startsWith( "#" ) ) {
+          continue;
+        }
+        int separator = line.indexOf( '=' );
+        if ( separator <= 0 ) {
+          return buildUnprocessableEntityResponse( "Cannot publish [" + line + "] because it has no path" );
+        }
+        String decodedPath = URLDecoder.decode( line.substring( separator + 1 ).trim(), "UTF-8" );
+        if ( invalidPath( decodedPath ) ) {
+          return buildUnprocessableEntityResponse(
+            "Cannot publish [" + decodedPath + "] because it contains reserved character(s)" );
+        }
+        FormDataBodyPart filePart = multiPart.getField( line.substring( 0, separator ).trim() );
+        if ( filePart == null ) {
+          return buildUnprocessableEntityResponse( "Cannot publish [" + decodedPath + "] because it was not uploaded" );
+        }
+        if ( files.containsKey( decodedPath ) ) {
+          return buildUnprocessableEntityResponse( "Cannot publish [" + decodedPath + "] more than once" );
+        }
+        files.put( decodedPath, filePart.getValueAs( InputStream.class ) );
+      }
+    } catch ( IOException | IllegalArgumentException e ) {
+      logger.error( e );
+      return buildUnprocessableEntityResponse( "Cannot read the manifest" );
+    }
+
+    FormDataBodyPart overwriteFile = multiPart.getField( "overwriteFile" );
+    Optional<Properties> fileProperties = Optional.of( new Properties() );
+    fileProperties.get().setProperty( "overwriteFile",
+      overwriteFile != null ? overwriteFile.getValue() : String.valueOf( true ) );
+
+    StreamingOutput results = output -> {
+      Writer writer = new OutputStreamWriter( output, StandardCharsets.UTF_8 );
+      try {
+        repositoryPublishService.publishFiles( files, fileProperties, getPublishThreads(), ( path, error ) -> {
+          synchronized ( writer ) {
+            try {
+              writer.write( getPublishStatus( error ) + "\t" + path + "\n" );
+              writer.flush();
+            } catch ( IOException e ) {
+              // the client went away; the files are published all the same
+              logger.debug( e );
+            }
+          }
+        } );
+      } catch ( PentahoAccessControlException e ) {
+        writer.write( PlatformImportException.PUBLISH_USERNAME_PASSWORD_FAIL + "\n" );
+      }
+      writer.flush();
+    };
+    return Response.ok( results ).type( MediaType.TEXT_PLAIN_TYPE ).build();
+  }
+
+  /**
+   * @return what the single file endpoints would respond with after publishing a file
+   */
+  static String getPublishStatus( Exception error ) {
+    if ( error == null ) {
+      return "SUCCESS";
+    } else if ( error instanceof PlatformImportException ) {
+      return Integer.toString( ( (PlatformImportException) error ).getErrorStatus() );
+    }
+    return Integer.toString( PlatformImportException.PUBLISH_GENERAL_ERROR );
+  }
+
+  protected int getPublishThreads() {
+    try {
+      return Integer.parseInt( PentahoSystem.getSystemSetting( PUBLISH_THREADS, DEFAULT_PUBLISH_THREADS ) );
+    } catch ( NumberFormatException e ) {
+      return Integer.parseInt( DEFAULT_PUBLISH_THREADS );
+    }
+  }
+
   private Response writeFile( String pathId, InputStream fileContents, FormDataContentDisposition fileInfo, Optional<Properties> fileProperties ) {
     try {
       String decodedPath = URLDecoder.decode( pathId, "UTF-8" );
       if ( invalidPath( decodedPath ) ) {
-        final int UNPROCESSABLE_ENTITY = 422;
-        return Response.status( UNPROCESSABLE_ENTITY )
-          .type( MediaType.TEXT_PLAIN_TYPE )
-          .entity( "Cannot publish [" + decodedPath + "] because it contains reserved character(s)" )
-          .build();
+        return buildUnprocessableEntityResponse(
+          "Cannot publish [" + decodedPath + "] because it contains reserved character(s)" );
       }
       repositoryPublishService.publishFile( decodedPath, fileContents, fileProperties );
     } catch ( PentahoAccessControlException e ) {
@@ -212,4 +345,9 @@ public class RepositoryPublishResource {
     return Response.serverError().entity( Integer.toString( entity ) ).build();
   }
 
+  private Response buildUnprocessableEntityResponse( String msg ) {
+    final int UNPROCESSABLE_ENTITY = 422;
+    return Response.status( UNPROCESSABLE_ENTITY ).type( MediaType.TEXT_PLAIN_TYPE ).entity( msg ).build();
+  }
+
 }
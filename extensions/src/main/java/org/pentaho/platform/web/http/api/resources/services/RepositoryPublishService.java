@@ -15,21 +15,37 @@ package org.pentaho.platform.web.http.api.resources.services;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
+import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.engine.PentahoAccessControlException;
 import org.pentaho.platform.api.repository2.unified.IPlatformImportBundle;
+import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.plugin.services.importer.IPlatformImporter;
 import org.pentaho.platform.plugin.services.importer.PlatformImportException;
 import org.pentaho.platform.plugin.services.importer.RepositoryFileImportBundle;
 import org.pentaho.platform.security.policy.rolebased.actions.PublishAction;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 public class RepositoryPublishService {
 
@@ -37,6 +53,7 @@ public class RepositoryPublishService {
 
   protected IAuthorizationPolicy policy;
   protected IPlatformImporter platformImporter;
+  protected IUnifiedRepository repository;
 
   /**
    * Publishes the file to the provided path in the repository. The file will be overwritten if the overwrite flag
@@ -121,6 +138,117 @@ public class RepositoryPublishService {
     }
   }
 
+  /**
+   * Publishes many files at once via registered importers. The files of one folder are published one after the other,
+   * in the given order, and after the files of the folders above it; the folders are published concurrently. Folders
+   * that would create the same missing folder are published one after the other, so that it is created only once.
+   * Failing to publish a file does not stop the others.
+   *
+   * @param files          input streams containing the data, by slash-separated path of the repository file
+   * @param fileProperties any options which can be applied to the files
+   * @param threads        the number of folders to publish files to at the same time
+   * @param onPublished    told about each file as soon as it is published, with the exception raised by the
+   *                       importer, or <code>null</code> if it succeeded; may be called from several threads at once
+   * @throws PentahoAccessControlException if current user is not allowed to publish files
+   */
+  public void publishFiles( Map<String, InputStream> files, Optional<Properties> fileProperties, int threads,
+                            BiConsumer<String, Exception> onPublished ) throws PentahoAccessControlException {
+    checkPublishAccess();
+
+    Map<String, List<String>> pathsByFolder = new LinkedHashMap<>();
+    for ( String path : files.keySet() ) {
+      pathsByFolder.computeIfAbsent( "/" + FilenameUtils.getPathNoEndSeparator( path ), f -> new ArrayList<>() )
+        .add( path );
+    }
+    List<String> folders = new ArrayList<>( pathsByFolder.keySet() );
+    // the folders above a folder come first
+    folders.sort( Comparator.comparingInt( String::length ) );
+
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    Map<String, Boolean> existingFolders = new HashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, folders.size() ) ),
+      new BasicThreadFactory.Builder().namingPattern( "publish-files-%d" ).daemon( true ).build() );
+    try {
+      Map<String, CompletableFuture<Void>> published = new HashMap<>();
+      // the folder last published under each missing folder, which creates it if no other one did before
+      Map<String, CompletableFuture<Void>> creating = new HashMap<>();
+      for ( String folder : folders ) {
+        CompletableFuture<Void> parent = CompletableFuture.completedFuture( null );
+        for ( String ancestor = getParentFolder( folder ); ancestor != null; ancestor = getParentFolder( ancestor ) ) {
+          if ( creating.containsKey( ancestor ) ) {
+            parent = creating.get( ancestor );
+            break;
+          }
+          if ( published.containsKey( ancestor ) ) {
+            parent = published.get( ancestor );
+            break;
+          }
+        }
+        List<String> paths = pathsByFolder.get( folder );
+        CompletableFuture<Void> publishing = parent.thenRunAsync( () -> publishFolder( paths, files, fileProperties,
+          session, securityContext, onPublished ), executor );
+        published.put( folder, publishing );
+        String missing = folder;
+        while ( !folderExists( missing, existingFolders ) ) {
+          creating.put( missing, publishing );
+          missing = getParentFolder( missing );
+        }
+      }
+      CompletableFuture.allOf( published.values().toArray( new CompletableFuture[ 0 ] ) ).join();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void publishFolder( List<String> paths, Map<String, InputStream> files, Optional<Properties> fileProperties,
+                              IPentahoSession session, SecurityContext securityContext,
+                              BiConsumer<String, Exception> onPublished ) {
+    PentahoSessionHolder.setSession( session );
+    SecurityContextHolder.setContext( securityContext );
+    try {
+      for ( String path : paths ) {
+        Exception error = null;
+        try ( InputStream fileContents = files.get( path ) ) {
+          getPlatformImporter().importFile( prepareBundle( path, fileContents, fileProperties ) );
+        } catch ( Exception e ) {
+          logger.error( e );
+          error = e;
+        }
+        onPublished.accept( path, error );
+      }
+    } finally {
+      SecurityContextHolder.clearContext();
+      PentahoSessionHolder.removeSession();
+    }
+  }
+
+  private boolean folderExists( String folder, Map<String, Boolean> existingFolders ) {
+    return existingFolders.computeIfAbsent( folder, f -> "/".equals( f ) || getRepository().getFile( f ) != null );
+  }
+
+  private static String getParentFolder( String folder ) {
+    if ( "/".equals( folder ) ) {
+      return null;
+    }
+    String parent = FilenameUtils.getPathNoEndSeparator( folder.substring( 1 ) );
+    return "/" + parent;
+  }
+
+  /**
+   * Checks if the current user may publish files, before publishing any of them.
+   *
+   * @throws PentahoAccessControlException if current user is not allowed to publish files
+   */
+  public void checkPublishAccess() throws PentahoAccessControlException {
+    try {
+      validateAccess();
+    } catch ( PentahoAccessControlException e ) {
+      logger.error( e );
+      throw e;
+    }
+  }
+
   /**
    * Check if user has the rights to publish or is administrator
    *
@@ -146,6 +274,13 @@ public class RepositoryPublishService {
     return platformImporter;
   }
 
+  protected IUnifiedRepository getRepository() {
+    if ( repository == null ) {
+      repository = PentahoSystem.get( IUnifiedRepository.class );
+    }
+    return repository;
+  }
+
   @Deprecated
   protected IPlatformImportBundle buildBundle( String pathId, InputStream fileContents, Boolean overwriteFile ) {
     File file = new File( pathId );
@@ -23,12 +23,21 @@ import org.pentaho.platform.engine.core.audit.MessageTypes;
 import org.pentaho.platform.engine.core.solution.PentahoSessionParameterProvider;
 import org.pentaho.platform.engine.core.system.BaseSession;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.plugin.services.cache.IWeighedSession;
+import org.pentaho.platform.plugin.services.cache.WeightedCacheManager;
 
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class PentahoHttpSession extends BaseSession {
+public class PentahoHttpSession extends BaseSession implements IWeighedSession {
 
   private static final long serialVersionUID = 1500696455420691764L;
 
@@ -36,6 +45,13 @@ public class PentahoHttpSession extends BaseSession {
 
   private long authenticationTime = 0L;
 
+  /**
+   * How long the estimated size of an attribute is trusted, as the attribute may change in place
+   */
+  private static final long ATTRIBUTE_WEIGHT_TTL_MILLIS = 60000L;
+
+  private transient Map<String, AttributeWeight> attributeWeights = new ConcurrentHashMap<String, AttributeWeight>();
+
   private static final Log logger = LogFactory.getLog( PentahoHttpSession.class );
 
   @Override
@@ -65,14 +81,52 @@ public class PentahoHttpSession extends BaseSession {
 
   public void setAttribute( final String attributeName, final Object value ) {
     session.setAttribute( attributeName, value );
+    attributeWeights.remove( attributeName );
   }
 
   public Object removeAttribute( final String attributeName ) {
     Object result = getAttribute( attributeName );
     session.removeAttribute( attributeName );
+    attributeWeights.remove( attributeName );
     return result;
   }
 
+  @Override
+  public long getAttributesWeight() {
+    Set<String> names = new HashSet<String>();
+    long total = 0;
+    long now = System.currentTimeMillis();
+    try {
+      Enumeration<String> attributeNames = session.getAttributeNames();
+      while ( attributeNames.hasMoreElements() ) {
+        String name = attributeNames.nextElement();
+        if ( PentahoSystem.PENTAHO_SESSION_KEY.equals( name ) ) {
+          // that is this session
+          continue;
+        }
+        Object value = session.getAttribute( name );
+        AttributeWeight weight = attributeWeights.get( name );
+        if ( weight == null || weight.value != value || now - weight.estimated > ATTRIBUTE_WEIGHT_TTL_MILLIS ) {
+          weight = new AttributeWeight( value, WeightedCacheManager.estimateSize( value ), now );
+          attributeWeights.put( name, weight );
+        }
+        names.add( name );
+        total += weight.weight;
+      }
+    } catch ( IllegalStateException e ) {
+      // the http session was invalidated
+      attributeWeights.clear();
+      return 0;
+    }
+    attributeWeights.keySet().retainAll( names );
+    return total;
+  }
+
+  private void readObject( final ObjectInputStream in ) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    attributeWeights = new ConcurrentHashMap<String, AttributeWeight>();
+  }
+
   @Override
   public void setAuthenticated( String name ) {
     super.setAuthenticated( name );
@@ -89,4 +143,16 @@ public class PentahoHttpSession extends BaseSession {
     super.destroy();
   }
 
+  private static class AttributeWeight {
+    private final Object value;
+    private final long weight;
+    private final long estimated;
+
+    AttributeWeight( final Object value, final long weight, final long estimated ) {
+      this.value = value;
+      this.weight = weight;
+      this.estimated = estimated;
+    }
+  }
+
 }
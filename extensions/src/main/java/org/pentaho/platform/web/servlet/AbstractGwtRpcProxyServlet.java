@@ -22,13 +22,23 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IPluginManager;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.web.gwt.rpc.AbstractGwtRpc;
+import org.pentaho.platform.web.gwt.rpc.IGwtRpcDispatchCache;
+import org.pentaho.platform.web.gwt.rpc.support.GwtRpcDispatchCache;
 import org.pentaho.platform.web.gwt.rpc.support.GwtRpcSerializationPolicyCache;
 import org.pentaho.platform.web.gwt.rpc.IGwtRpcSerializationPolicyCache;
 
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Base class for GWT RPC proxying servlets, which allows developers to write GWT Services as Pojos and have the GWT
@@ -38,17 +48,38 @@ public abstract class AbstractGwtRpcProxyServlet extends RemoteServiceServlet {
 
   private static final Log logger = LogFactory.getLog( AbstractGwtRpcProxyServlet.class );
 
+  // The failure serialization policy is immutable; build it once instead of on every failed call.
+  private static final StandardSerializationPolicy BASIC_SERIALIZATION_POLICY = createBasicSerializationPolicy();
+
+  // Weakly referenced, so that a servlet which is never destroyed can still be collected.
+  private static final Set<AbstractGwtRpcProxyServlet> LIVE_SERVLETS =
+    Collections.newSetFromMap( new WeakHashMap<>() );
+
+  private static final Map<IPluginManager, Boolean> LISTENED_PLUGIN_MANAGERS = new WeakHashMap<>();
+
   @NonNull
   private final IGwtRpcSerializationPolicyCache serializationPolicyCache;
 
+  @NonNull
+  private final IGwtRpcDispatchCache dispatchCache;
+
   protected AbstractGwtRpcProxyServlet() {
     this( null );
   }
 
   protected AbstractGwtRpcProxyServlet( @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache ) {
+    this( serializationPolicyCache, null );
+  }
+
+  protected AbstractGwtRpcProxyServlet( @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache,
+                                        @Nullable IGwtRpcDispatchCache dispatchCache ) {
     this.serializationPolicyCache = serializationPolicyCache != null
       ? serializationPolicyCache
       : new GwtRpcSerializationPolicyCache();
+
+    this.dispatchCache = dispatchCache != null
+      ? dispatchCache
+      : new GwtRpcDispatchCache();
   }
 
   @NonNull
@@ -56,6 +87,55 @@ public abstract class AbstractGwtRpcProxyServlet extends RemoteServiceServlet {
     return serializationPolicyCache;
   }
 
+  @NonNull
+  public IGwtRpcDispatchCache getDispatchCache() {
+    return dispatchCache;
+  }
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+
+    // Cached targets, methods and serialization policies may belong to plugins which are being replaced.
+    // The plugin manager cannot remove listeners, so a single listener clears the caches of the live servlets.
+    IPluginManager pluginManager = PentahoSystem.get( IPluginManager.class );
+    synchronized ( LIVE_SERVLETS ) {
+      LIVE_SERVLETS.add( this );
+      if ( pluginManager != null && LISTENED_PLUGIN_MANAGERS.put( pluginManager, Boolean.TRUE ) == null ) {
+        pluginManager.addPluginManagerListener( AbstractGwtRpcProxyServlet::clearAllCaches );
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    synchronized ( LIVE_SERVLETS ) {
+      LIVE_SERVLETS.remove( this );
+    }
+    super.destroy();
+  }
+
+  /**
+   * Clears the serialization policy and dispatch caches of all the servlets which are initialized.
+   */
+  static void clearAllCaches() {
+    List<AbstractGwtRpcProxyServlet> servlets;
+    synchronized ( LIVE_SERVLETS ) {
+      servlets = new ArrayList<>( LIVE_SERVLETS );
+    }
+    for ( AbstractGwtRpcProxyServlet servlet : servlets ) {
+      servlet.clearCaches();
+    }
+  }
+
+  /**
+   * Clears the serialization policy and dispatch caches of this servlet.
+   */
+  public void clearCaches() {
+    serializationPolicyCache.clear();
+    dispatchCache.clear();
+  }
+
   protected void doUnexpectedFailure( Throwable e ) {
     super.doUnexpectedFailure( e );
     logger.error( e );
@@ -90,6 +170,11 @@ public abstract class AbstractGwtRpcProxyServlet extends RemoteServiceServlet {
 
   @NonNull
   static StandardSerializationPolicy getBasicSerializationPolicy() {
+    return BASIC_SERIALIZATION_POLICY;
+  }
+
+  @NonNull
+  private static StandardSerializationPolicy createBasicSerializationPolicy() {
     Map<Class<?>, Boolean> whitelist = new HashMap<>();
     whitelist.put( GwtRpcProxyException.class, Boolean.TRUE );
 
@@ -16,6 +16,7 @@ package org.pentaho.platform.web.servlet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.uifoundation.chart.ChartImageCache;
 import org.pentaho.platform.util.StringUtil;
 import org.pentaho.platform.web.servlet.messages.Messages;
 
@@ -82,6 +83,13 @@ public class GetImage extends ServletBase {
         location = "system/tmp/" + image; //$NON-NLS-1$
       }
 
+      // charts rendered by JFreeChartEngine are usually still in memory
+      ChartImageCache.CachedImage cached = ChartImageCache.getInstance().get( location );
+      if ( cached != null ) {
+        writeCachedImage( request, response, cached );
+        return;
+      }
+
       File tmpFile = new File( PentahoSystem.getApplicationContext().getSolutionPath( location ) );
       // if (image.charAt(0) != '/' && image.charAt(0) != '\\') {
       // file = new File(tempDirectory, image);
@@ -138,4 +146,22 @@ public class GetImage extends ServletBase {
 
   }
 
+  private void writeCachedImage( final HttpServletRequest request, final HttpServletResponse response,
+      final ChartImageCache.CachedImage image ) throws IOException {
+    response.setHeader( "ETag", image.getETag() ); //$NON-NLS-1$
+    String ifNoneMatch = request.getHeader( "If-None-Match" ); //$NON-NLS-1$
+    if ( ifNoneMatch != null && ( ifNoneMatch.contains( image.getETag() ) || "*".equals( ifNoneMatch.trim() ) ) ) { //$NON-NLS-1$
+      response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+      return;
+    }
+    response.setContentType( image.getMimeType() );
+    response.setContentLength( image.getBytes().length );
+    OutputStream out = response.getOutputStream();
+    try {
+      out.write( image.getBytes() );
+    } finally {
+      out.close();
+    }
+  }
+
 }
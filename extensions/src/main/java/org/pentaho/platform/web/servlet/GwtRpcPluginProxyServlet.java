@@ -16,6 +16,7 @@ package org.pentaho.platform.web.servlet;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import org.pentaho.platform.web.gwt.rpc.AbstractGwtRpc;
+import org.pentaho.platform.web.gwt.rpc.IGwtRpcDispatchCache;
 import org.pentaho.platform.web.gwt.rpc.IGwtRpcSerializationPolicyCache;
 import org.pentaho.platform.web.gwt.rpc.PluginGwtRpc;
 
@@ -33,9 +34,14 @@ public class GwtRpcPluginProxyServlet extends AbstractGwtRpcProxyServlet {
   public GwtRpcPluginProxyServlet( @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache ) {
     super( serializationPolicyCache );
   }
+
+  public GwtRpcPluginProxyServlet( @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache,
+                                   @Nullable IGwtRpcDispatchCache dispatchCache ) {
+    super( serializationPolicyCache, dispatchCache );
+  }
   
   @NonNull @Override
   protected AbstractGwtRpc getRpc( @NonNull HttpServletRequest httpRequest ) {
-    return PluginGwtRpc.getInstance( httpRequest, getSerializationPolicyCache() );
+    return PluginGwtRpc.getInstance( httpRequest, getSerializationPolicyCache(), getDispatchCache() );
   }
 }
@@ -16,6 +16,7 @@ package org.pentaho.platform.web.servlet;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import org.pentaho.platform.web.gwt.rpc.AbstractGwtRpc;
+import org.pentaho.platform.web.gwt.rpc.IGwtRpcDispatchCache;
 import org.pentaho.platform.web.gwt.rpc.IGwtRpcSerializationPolicyCache;
 import org.pentaho.platform.web.gwt.rpc.SystemGwtRpc;
 
@@ -35,8 +36,13 @@ public class GwtRpcProxyServlet extends AbstractGwtRpcProxyServlet {
     super( serializationPolicyCache );
   }
 
+  public GwtRpcProxyServlet( @Nullable IGwtRpcSerializationPolicyCache serializationPolicyCache,
+                             @Nullable IGwtRpcDispatchCache dispatchCache ) {
+    super( serializationPolicyCache, dispatchCache );
+  }
+
   @NonNull @Override
   protected AbstractGwtRpc getRpc( @NonNull HttpServletRequest httpRequest ) {
-    return SystemGwtRpc.getInstance( httpRequest, getSerializationPolicyCache() );
+    return SystemGwtRpc.getInstance( httpRequest, getSerializationPolicyCache(), getDispatchCache() );
   }
 }
@@ -61,6 +61,7 @@ import org.xml.sax.EntityResolver;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +91,11 @@ public class PentahoXmlaServlet extends DynamicDatasourceXmlaServlet {
    */
   final ICacheManager cacheMgr = PentahoSystem.getCacheManager( null );
 
+  /**
+   * The bodies of the responses to the schema discover requests.
+   */
+  final XmlaDiscoverCache discoverCache = new XmlaDiscoverCache( cacheMgr );
+
   private static final String CACHE_REGION = "org.pentaho.platform.web.servlet.PentahoXmlaServlet";
   private static final long serialVersionUID = 5801343357261568600L;
   private static final Log logger = LogFactory.getLog( PentahoXmlaServlet.class );
@@ -232,6 +238,67 @@ public class PentahoXmlaServlet extends DynamicDatasourceXmlaServlet {
     };
   }
 
+  /**
+   * Answers the schema discover requests of a catalog from {@link XmlaDiscoverCache} when the user may read the
+   * catalog and its schema is the same for every user with the same roles.
+   */
+  @Override
+  protected void handleSoapBody( HttpServletResponse response, org.w3c.dom.Element[] requestSoapParts,
+                                 byte[][] responseSoapParts, Map<String, Object> context ) throws XmlaException {
+    final org.w3c.dom.Element body = requestSoapParts[ 1 ];
+    final String catalogName = body != null ? XmlaDiscoverCache.getCatalogName( body ) : null;
+    MondrianCatalog catalog = null;
+    String key = null;
+
+    if ( catalogName != null && mondrianCatalogService != null ) {
+      final IPentahoSession session = PentahoSessionHolder.getSession();
+      catalog = mondrianCatalogService.getCatalog( catalogName, session );
+
+      if ( catalog != null && !XmlaDiscoverCache.isDynamic( catalog.getDataSourceInfo() ) ) {
+        try {
+          key = XmlaDiscoverCache.key( body, catalogName, mapConnectionRoles( session, catalogName ),
+            response.getCharacterEncoding(), context );
+        } catch ( PentahoAccessControlException e ) {
+          // let the request fail the usual way
+          key = null;
+        }
+      }
+    }
+
+    final byte[] cached = key != null ? discoverCache.get( key, catalog ) : null;
+    if ( cached != null ) {
+      responseSoapParts[ 1 ] = cached;
+      return;
+    }
+
+    super.handleSoapBody( response, requestSoapParts, responseSoapParts, context );
+
+    if ( key != null ) {
+      discoverCache.put( key, catalog, responseSoapParts[ 1 ] );
+    }
+  }
+
+  /**
+   * Maps the roles of the user for a catalog through the {@link IConnectionUserRoleMapper}, if one is configured.
+   */
+  private static String[] mapConnectionRoles( IPentahoSession session, String catalogName )
+    throws PentahoAccessControlException {
+    // Don't use the user session here yet.
+    final IConnectionUserRoleMapper mondrianUserRoleMapper =
+      PentahoSystem.get( IConnectionUserRoleMapper.class, MDXConnection.MDX_CONNECTION_MAPPER_KEY, null );
+
+    /*
+     * If Catalog/Schema are null (this happens with high level metadata requests, like DISCOVER_DATASOURCES) we
+     * can't use the role mapper, even if it is present and configured.
+     */
+    if ( mondrianUserRoleMapper == null || catalogName == null ) {
+      return new String[ 0 ];
+    }
+
+    final String[] effectiveRoles = mondrianUserRoleMapper.mapConnectionRoles( session, catalogName );
+    return effectiveRoles == null ? new String[ 0 ] : effectiveRoles;
+  }
+
   @Override
   protected String makeDataSourcesUrl( ServletConfig config ) {
     return "";
@@ -256,27 +323,11 @@ public class PentahoXmlaServlet extends DynamicDatasourceXmlaServlet {
         // configured.
         final IPentahoSession session = PentahoSessionHolder.getSession();
 
-        // Don't use the user session here yet.
-        final IConnectionUserRoleMapper mondrianUserRoleMapper =
-          PentahoSystem.get( IConnectionUserRoleMapper.class, MDXConnection.MDX_CONNECTION_MAPPER_KEY, null );
-
-        String[] effectiveRoles = new String[ 0 ];
-
-        /*
-         * If Catalog/Schema are null (this happens with high level metadata requests, like DISCOVER_DATASOURCES) we
-         * can't use the role mapper, even if it is present and configured.
-         */
-        if ( mondrianUserRoleMapper != null && catalogName != null ) {
-          // Use the role mapper.
-          try {
-            effectiveRoles = mondrianUserRoleMapper.mapConnectionRoles( session, catalogName );
-
-            if ( effectiveRoles == null ) {
-              effectiveRoles = new String[ 0 ];
-            }
-          } catch ( PentahoAccessControlException e ) {
-            throw new SQLException( e );
-          }
+        final String[] effectiveRoles;
+        try {
+          effectiveRoles = mapConnectionRoles( session, catalogName );
+        } catch ( PentahoAccessControlException e ) {
+          throw new SQLException( e );
         }
 
         // Now we tokenize that list.
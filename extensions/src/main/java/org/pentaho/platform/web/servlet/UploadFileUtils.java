@@ -19,6 +19,9 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.pentaho.di.core.util.StringUtil;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.util.ITempFileDeleter;
@@ -34,20 +37,23 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 public class UploadFileUtils {
 
+  private static final Log logger = LogFactory.getLog( UploadFileUtils.class );
+
   private static final long MAX_FILE_SIZE = 10000000; // about 9m
   private static final long MAX_FOLDER_SIZE = 500000000; // about 476mb
   private static final long MAX_TMP_FOLDER_SIZE = 500000000; // about 476mb
@@ -56,6 +62,7 @@ public class UploadFileUtils {
     + "system" + File.separatorChar + "metadata" + File.separatorChar + "csvfiles" + File.separatorChar;
   private static final char DOT = '.';
   private static final String DOT_TMP = ".tmp";
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
   private String fileName;
   private boolean shouldUnzip;
   private boolean temporary;
@@ -190,6 +197,13 @@ public class UploadFileUtils {
       return false;
     }
 
+    if ( shouldUnzip && getUploadedPart() != null ) {
+      ArchiveType archiveType = getArchiveType();
+      if ( archiveType != null ) {
+        return processArchive( inputStream, archiveType, getArchiveName() );
+      }
+    }
+
     File file = null;
     if ( isTemporary() ) {
       // Use the full filename because GZip relies on the extensions of the file to discover it's content
@@ -213,355 +227,342 @@ public class UploadFileUtils {
       }
     }
 
+    long start = System.currentTimeMillis();
+    long size;
     try {
       OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( file ) );
       try {
-        IOUtils.copy( inputStream, outputStream );
+        size = IOUtils.copyLarge( inputStream, outputStream );
       } finally {
         IOUtils.closeQuietly( outputStream ); // note - close calls flush.
       }
     } finally {
       IOUtils.closeQuietly( inputStream );
     }
+    logThroughput( size, size, start );
 
-    if ( shouldUnzip && getUploadedPart() != null ) {
-      return handleUnzip( file );
-    } else {
-      writer.write( file.getName() );
-    }
+    writer.write( file.getName() );
     return true;
   }
 
-  protected boolean handleUnzip( File file ) throws IOException {
-    String fileNames = file.getName();
-
-    // .zip/.tar/.gz/.tgz files are always considered temporary and deleted on session expire
+  /**
+   * Unpacks an uploaded archive while it is read from the request, so that only the unpacked files are written to
+   * disk. The uncompressed size is not known before the archive is read, so the limits are enforced on the bytes
+   * written so far and the files written are deleted as soon as one of them is exceeded. Outside of the temporary
+   * folder the entries are written next to their destination under a temporary name and only moved in place once the
+   * whole archive was unpacked, so a rejected archive never replaces an existing file.
+   *
+   * @return <code>true</code> if the archive was unpacked and <code>false</code> if it would exceed the limits
+   */
+  private boolean processArchive( InputStream inputStream, ArchiveType archiveType, String archiveName )
+    throws IOException {
+    long start = System.currentTimeMillis();
+    CountingInputStream countingStream = new CountingInputStream( new BufferedInputStream( inputStream ) );
+    UploadQuota quota = createQuota();
+    String fileNames;
+    try {
+      fileNames = unpack( countingStream, archiveType, archiveName, quota );
+    } catch ( UploadLimitExceededException e ) {
+      writer.write( e.getMessage() );
+      return false;
+    } finally {
+      IOUtils.closeQuietly( countingStream );
+    }
+    logThroughput( countingStream.getByteCount(), quota.getWritten(), start );
+    writer.write( fileNames );
+    return true;
+  }
 
-    if ( session != null ) {
-      ITempFileDeleter fileDeleter =
-        (ITempFileDeleter) session.getAttribute( ITempFileDeleter.DELETER_SESSION_VARIABLE );
-      if ( fileDeleter != null ) {
-        fileDeleter.trackTempFile( file ); // make sure the deleter knows to clean this puppy up...
+  /**
+   * Unpacks an archive and moves the unpacked files in place, deleting all of them if the archive could not be
+   * unpacked entirely.
+   *
+   * @return the names of the unpacked files, one per line
+   */
+  private String unpack( InputStream inputStream, ArchiveType archiveType, String archiveName, UploadQuota quota )
+    throws IOException {
+    Map<File, File> files = new LinkedHashMap<>();
+    InputStream archiveStream = null;
+    String fileNames;
+    boolean unpacked = false;
+    try {
+      switch ( archiveType ) {
+        case ZIP:
+          archiveStream = new ZipInputStream( inputStream );
+          fileNames = extractZip( (ZipInputStream) archiveStream, quota, files );
+          break;
+        case TGZ:
+          archiveStream = new TarInputStream( new GZIPInputStream( inputStream ) );
+          fileNames = extractTar( (TarInputStream) archiveStream, quota, files );
+          break;
+        case GZIP:
+          archiveStream = new GZIPInputStream( inputStream );
+          fileNames = extractGZip( archiveStream, archiveName, quota, files );
+          break;
+        default:
+          archiveStream = new TarInputStream( inputStream );
+          fileNames = extractTar( (TarInputStream) archiveStream, quota, files );
+          break;
+      }
+      moveInPlace( files );
+      unpacked = true;
+    } finally {
+      IOUtils.closeQuietly( archiveStream );
+      if ( !unpacked ) {
+        // delete immediately (see requirements on BISERVER-4321)
+        for ( File file : files.keySet() ) {
+          file.delete();
+        }
       }
     }
+    return fileNames;
+  }
+
+  private String unpack( File file, ArchiveType archiveType ) throws IOException {
+    try ( InputStream inputStream = new BufferedInputStream( new FileInputStream( file ) ) ) {
+      return unpack( inputStream, archiveType, getArchiveName( file ), createQuota() );
+    }
+  }
 
+  private UploadQuota createQuota() {
+    return new UploadQuota( maxFileSize, getFolderLimit() - getFolderSize( getLimitedFolder() ) );
+  }
+
+  /**
+   * @return the name of the uploaded archive, which tells a gzip file what it contains
+   */
+  private String getArchiveName() {
+    return isTemporary() ? DOT + removeFileName( getUploadedPart().getSubmittedFileName() ) : fileName;
+  }
+
+  private static String getArchiveName( File file ) {
+    String name = file.getName();
+    return FilenameUtils.isExtension( name, "tmp" ) ? FilenameUtils.removeExtension( name ) : name;
+  }
+
+  /**
+   * Guesses the kind of archive that was uploaded from its name and content type.
+   *
+   * @return the kind of archive, or <code>null</code> if it is not an archive
+   */
+  private ArchiveType getArchiveType() {
     String fileNameLowerCase = getUploadedPart().getSubmittedFileName().toLowerCase();
     String extension = FilenameUtils.getExtension( fileNameLowerCase );
     String contentType = getUploadedPart().getContentType();
 
     if ( "zip".equals( extension ) || "application/zip".equals( contentType ) ) {
-      // handle a zip
-      if ( checkLimits( getUncompressedZipFileSize( file ), true ) ) {
-        fileNames = handleZip( file );
-      } else {
-        file.delete(); // delete immediately (see requirements on BISERVER-4321)
-        return false;
-      }
+      return ArchiveType.ZIP;
     } else if ( "tgz".equals( extension )
       || fileNameLowerCase.endsWith( ".tar.gz" )
       || "application/x-compressed".equals( contentType )
       || "application/tgz".equals( contentType ) ) {
-      // handle a tgz
-      long tarSize = getUncompressedGZipFileSize( file );
-      if ( checkLimits( tarSize, true )
-        && ( isTemporary() || checkLimits( tarSize * 2, true ) ) ) {
-        fileNames = handleTarGZ( file );
-      } else {
-        file.delete(); // delete immediately (see requirements on BISERVER-4321)
-        return false;
-      }
+      return ArchiveType.TGZ;
     } else if ( "gzip".equals( extension ) || "gz".equals( extension ) ) {
-      // handle a gzip
-      if ( checkLimits( getUncompressedGZipFileSize( file ), true ) ) {
-        fileNames = handleGZip( file, false );
-      } else {
-        file.delete(); // delete immediately (see requirements on BISERVER-4321)
-        return false;
-      }
+      return ArchiveType.GZIP;
     } else if ( "tar".equals( extension ) || "application/x-tar".equals( contentType ) ) {
-      // handle a tar
-      //
-      // Note - after the .tar file lands on the file system, you have to
-      // unpack it which means it is again the size of the file. So, we check
-      // disk space before putting the .tar onto the disk. Then, after the .tar
-      // hits disk, we check the size AGAIN because untarring the file will
-      // amount to double the size of the file. If isTemporary is checked, then
-      // we don't need to worry about this since the .tar file will be deleted.
-      // Marc
-      if ( isTemporary() || checkLimits( getUploadedPart().getSize(), true ) ) {
-        fileNames = handleTar( file );
-      } else {
-        file.delete(); // delete immediately (see requirements on BISERVER-4321)
-        return false;
-      }
+      return ArchiveType.TAR;
     }
-    // else - just outputs the file name.
-    writer.write( fileNames );
-    return true;
+    return null;
   }
 
-  /**
-   * Gets the uncompressed file size of a .zip file.
-   *
-   * @param theFile the zip file
-   * @return a long representing the uncompressed file size.
-   * @throws IOException
-   * @see #getUncompressedGZipFileSize(File)
-   */
-  private long getUncompressedZipFileSize( File theFile ) throws IOException {
-    long rtn = 0;
-    try ( ZipFile zf = new ZipFile( theFile ) ) {
-      Enumeration<? extends ZipEntry> zfEntries = zf.entries();
-      ZipEntry ze = null;
-      while ( zfEntries.hasMoreElements() ) {
-        ze = zfEntries.nextElement();
-        rtn += ze.getSize();
+  private String extractZip( ZipInputStream zipStream, UploadQuota quota, Map<File, File> files ) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    ZipEntry entry = zipStream.getNextEntry();
+    while ( entry != null ) {
+      if ( !entry.isDirectory() ) {
+        extractEntry( entry.getName(), zipStream, quota, files, sb );
       }
+      entry = zipStream.getNextEntry();
     }
-
-    return rtn;
+    return getExtractedFileNames( sb );
   }
 
-  /**
-   * Gets the uncompressed file size of a .gz file by reading the last four bytes of the file.
-   *
-   * @param theFile the gzip file
-   * @return a long representing the uncompressed file size.
-   * @throws IOException
-   * @see #getUncompressedZipFileSize(File)
-   */
-  private long getUncompressedGZipFileSize( File theFile ) throws IOException {
-    long rtn = 0;
-    try ( RandomAccessFile gzipFile = new RandomAccessFile( theFile, "r" ) ) {
-      // go 4 bytes from end of file - the original uncompressed file size is there
-      gzipFile.seek( gzipFile.length() - 4 );
-      byte[] intelSize = new byte[ 4 ];
-      gzipFile.read( intelSize ); // read the size ....
-      // rfc1952; ISIZE is the input size modulo 2^32
-      // 00F01E69 is really 691EF000
-      // The &0xFF turns signed byte into unsigned.
-      rtn =
-        ( ( ( intelSize[ 3 ] & 0xFF ) << 24 ) | ( ( intelSize[ 2 ] & 0xFF ) << 16 ) + ( ( intelSize[ 1 ] & 0xFF ) << 8 )
-          + ( intelSize[ 0 ] & 0xFF ) ) & 0xffffffffL;
+  private String extractTar( TarInputStream tarStream, UploadQuota quota, Map<File, File> files ) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    TarEntry entry = tarStream.getNextEntry();
+    while ( entry != null ) {
+      if ( !entry.isDirectory() ) {
+        extractEntry( entry.getName(), tarStream, quota, files, sb );
+      }
+      entry = tarStream.getNextEntry();
     }
-
-    return rtn;
+    return getExtractedFileNames( sb );
   }
 
   /**
-   * Decompress a zip file and return a list of the file names that were unpacked
-   *
-   * @param file
-   * @return
-   * @throws IOException
+   * Writes one entry of a zip or tar archive, unless it is hidden, has an unsupported extension or would land outside
+   * of the upload folder.
    */
-  protected String handleZip( File file ) throws IOException {
-    StringBuilder sb = new StringBuilder();
-    FileInputStream fileStream = new FileInputStream( file );
-    try {
-      // create a zip input stream from the tmp file that was uploaded
-      ZipInputStream zipStream = new ZipInputStream( new BufferedInputStream( fileStream ) );
-      try {
-        ZipEntry entry = zipStream.getNextEntry();
-        // iterate through the entries in the zip file
-        while ( entry != null ) {
-          // ignore hidden directories and files, extract the rest
-          if ( !entry.isDirectory() && !entry.getName().startsWith( "." )
-            && !entry.getName().startsWith( "__MACOSX/" ) ) {
-
-            File entryFile = null;
-
-            String extension = FilenameUtils.getExtension( entry.getName() );
-            if ( checkExtension( extension, false ) ) {
-              boolean isDestinationValid = true;
-
-              if ( isTemporary() ) {
-                entryFile =
-                  PentahoSystem.getApplicationContext()
-                    .createTempFile( session, StringUtil.EMPTY_STRING, DOT + extension + DOT_TMP, true );
-              } else {
-                File destination = new File( getPath() + File.separatorChar );
-                entryFile = new File( destination, entry.getName() );
-                isDestinationValid = validateZipSlip( entryFile, destination );
-              }
-
-              if ( isDestinationValid ) {
-                if ( sb.length() > 0 ) {
-                  sb.append( '\n' );
-                }
-
-                sb.append( entryFile.getName() );
-                FileOutputStream entryOutputStream = new FileOutputStream( entryFile );
-
-                try {
-                  IOUtils.copy( zipStream, entryOutputStream );
-                } finally {
-                  IOUtils.closeQuietly( entryOutputStream );
-                }
-              }
-            }
-          }
-          // go on to the next entry
-          entry = zipStream.getNextEntry();
-        }
-      } finally {
-        IOUtils.closeQuietly( zipStream );
+  private void extractEntry( String entryName, InputStream entryStream, UploadQuota quota,
+                             Map<File, File> files, StringBuilder fileNames ) throws IOException {
+    // ignore hidden directories and files, extract the rest
+    if ( entryName.startsWith( "." ) || entryName.startsWith( "__MACOSX/" ) ) {
+      return;
+    }
+    String extension = FilenameUtils.getExtension( entryName );
+    if ( !checkExtension( extension, false ) ) {
+      return;
+    }
+
+    File entryFile;
+    if ( isTemporary() ) {
+      entryFile =
+        PentahoSystem.getApplicationContext()
+          .createTempFile( session, StringUtil.EMPTY_STRING, DOT + extension + DOT_TMP, true );
+    } else {
+      File destination = new File( getPath() + File.separatorChar );
+      entryFile = new File( destination, entryName );
+      if ( !validateZipSlip( entryFile, destination ) ) {
+        return;
       }
-    } finally {
-      IOUtils.closeQuietly( fileStream );
+      // entries in a subfolder of the archive land in the same subfolder of the upload folder
+      entryFile.getParentFile().mkdirs();
+    }
+
+    if ( fileNames.length() > 0 ) {
+      fileNames.append( '\n' );
     }
+    fileNames.append( entryFile.getName() );
+    write( entryStream, entryFile, quota, files );
+  }
+
+  private String getExtractedFileNames( StringBuilder sb ) {
     if ( sb.length() > 0 ) {
       return sb.toString();
     } else {
-      // no valid entries in the zip - nothing unzipped
+      // no valid entries in the archive - nothing unzipped
       return Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0012_ILLEGAL_CONTENTS" );
     }
   }
 
-  protected String handleGZip( File file, boolean fullPath ) throws IOException {
-    FileInputStream fileStream = new FileInputStream( file );
-
-    try {
-      // Find the real extension (the one of the compressed file)
-      String gzFile = file.getCanonicalPath();
-
-      // First: if this is a temporary file, ignore this extension
-      if ( FilenameUtils.isExtension( gzFile, "tmp" ) ) {
-        gzFile = FilenameUtils.removeExtension( gzFile );
-      }
-      // Second: this is the .gz/.gzip part: ignore it
-      gzFile = FilenameUtils.removeExtension( gzFile );
-      // We now have the real extension
-      String extension = FilenameUtils.getExtension( gzFile );
-      if ( !checkExtension( extension, true ) ) {
-        return StringUtil.EMPTY_STRING;
-      }
-
-      File entryFile = null;
-      if ( isTemporary() || fullPath ) {
-        entryFile =
-          PentahoSystem.getApplicationContext()
-            .createTempFile( session, StringUtil.EMPTY_STRING, DOT + extension + DOT_TMP, true );
-      } else {
-        if ( !extension.isEmpty() ) {
-          entryFile = new File( extension );
-        } else {
-          // Odd - someone specified the name as .gz or .gzip... create a temp file (for naming)
-          // Note - not added to deleter because it's a file that should stay around - it's CSV data
-          File parentFolder = file.getParentFile();
-          entryFile = File.createTempFile( "upload_gzip", DOT_TMP, parentFolder );
-        }
-      }
+  private String extractGZip( InputStream gzipStream, String gzFile, UploadQuota quota, Map<File, File> files )
+    throws IOException {
+    // Find the real extension (the one of the compressed file), ignoring the .gz/.gzip part
+    String unpackedName = FilenameUtils.removeExtension( FilenameUtils.getName( gzFile ) );
+    String extension = FilenameUtils.getExtension( unpackedName );
+    if ( !checkExtension( extension, true ) ) {
+      return StringUtil.EMPTY_STRING;
+    }
 
-      // create a gzip input stream from the tmp file that was uploaded
-      GZIPInputStream zipStream = new GZIPInputStream( new BufferedInputStream( fileStream ) );
+    File entryFile;
+    if ( isTemporary() ) {
+      entryFile =
+        PentahoSystem.getApplicationContext()
+          .createTempFile( session, StringUtil.EMPTY_STRING, DOT + extension + DOT_TMP, true );
+    } else if ( !extension.isEmpty() ) {
+      // data.csv.gz is unpacked to data.csv
+      entryFile = new File( getPathDir(), unpackedName );
+    } else {
+      // Odd - someone specified the name as .gz or .gzip... create a temp file (for naming)
+      // Note - not added to deleter because it's a file that should stay around - it's CSV data
+      entryFile = File.createTempFile( "upload_gzip", DOT_TMP, getPathDir() );
+    }
+    write( gzipStream, entryFile, quota, files );
+    return entryFile.getName();
+  }
 
-      try {
-        FileOutputStream entryOutputStream = new FileOutputStream( entryFile );
-        try {
-          IOUtils.copy( zipStream, entryOutputStream );
-        } finally {
-          IOUtils.closeQuietly( entryOutputStream );
-        }
-      } finally {
-        IOUtils.closeQuietly( zipStream );
-      }
+  /**
+   * Writes an unpacked file, staging it under a temporary name next to its destination unless it is a temporary
+   * upload, and records the file written against its destination.
+   */
+  private void write( InputStream inputStream, File destination, UploadQuota quota, Map<File, File> files )
+    throws IOException {
+    File file = isTemporary() ? destination : File.createTempFile( "upload", DOT_TMP, destination.getParentFile() );
+    files.put( file, destination );
+    copy( inputStream, file, quota );
+  }
 
-      if ( fullPath ) {
-        return entryFile.getCanonicalPath();
-      } else {
-        return entryFile.getName();
+  private static void moveInPlace( Map<File, File> files ) throws IOException {
+    for ( Map.Entry<File, File> file : files.entrySet() ) {
+      if ( !file.getKey().equals( file.getValue() ) ) {
+        Files.move( file.getKey().toPath(), file.getValue().toPath(), StandardCopyOption.REPLACE_EXISTING );
       }
-    } finally {
-      IOUtils.closeQuietly( fileStream );
     }
   }
 
-  protected String handleTar( File file ) throws IOException {
-
-    // now extract the tar files
-    StringBuilder sb = new StringBuilder();
-    FileInputStream fileStream = new FileInputStream( file );
-    try {
-      // create a zip input stream from the tmp file that was uploaded
-      TarInputStream zipStream = new TarInputStream( new BufferedInputStream( fileStream ) );
-      try {
-        TarEntry entry = zipStream.getNextEntry();
-        // iterate through the entries in the zip file
-        while ( entry != null ) {
-          // ignore hidden directories and files, extract the rest
-          if ( !entry.isDirectory() && !entry.getName().startsWith( "." )
-            && !entry.getName().startsWith( "__MACOSX/" ) ) {
-
-            File entryFile = null;
-
-            String extension = FilenameUtils.getExtension( entry.getName() );
-            if ( checkExtension( extension, false ) ) {
-              boolean isDestinationValid = true;
-
-              if ( isTemporary() ) {
-                entryFile =
-                  PentahoSystem.getApplicationContext()
-                    .createTempFile( session, StringUtil.EMPTY_STRING, DOT + extension + DOT_TMP, true );
-              } else {
-                File destination = new File( getPath() + File.separatorChar );
-                entryFile = new File( destination, entry.getName() );
-                isDestinationValid = validateZipSlip( entryFile, destination );
-              }
-
-              if ( isDestinationValid ) {
-                if ( sb.length() > 0 ) {
-                  sb.append( '\n' );
-                }
-
-                sb.append( entryFile.getName() );
-                FileOutputStream entryOutputStream = new FileOutputStream( entryFile );
-
-                try {
-                  IOUtils.copy( zipStream, entryOutputStream );
-                } finally {
-                  IOUtils.closeQuietly( entryOutputStream );
-                }
-              }
-            }
-          }
-          // go on to the next entry
-          entry = zipStream.getNextEntry();
-        }
-      } finally {
-        IOUtils.closeQuietly( zipStream );
+  private static void copy( InputStream inputStream, File file, UploadQuota quota ) throws IOException {
+    try ( OutputStream outputStream = new FileOutputStream( file ) ) {
+      byte[] buffer = new byte[ COPY_BUFFER_SIZE ];
+      int read;
+      while ( ( read = inputStream.read( buffer ) ) != -1 ) {
+        quota.add( read );
+        outputStream.write( buffer, 0, read );
       }
-    } finally {
-      IOUtils.closeQuietly( fileStream );
-    }
-    if ( sb.length() > 0 ) {
-      return sb.toString();
-    } else {
-      // no valid entries in the zip - nothing unzipped
-      return Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0012_ILLEGAL_CONTENTS" );
     }
   }
 
-  private boolean validateZipSlip( File destinationFile, File destinationDir ) throws IOException {
-    return destinationFile.getCanonicalPath().startsWith( destinationDir.getCanonicalPath() + File.separator );
+  private void logThroughput( long bytesRead, long bytesWritten, long start ) {
+    if ( logger.isDebugEnabled() ) {
+      long millis = Math.max( 1, System.currentTimeMillis() - start );
+      logger.debug( "Uploaded " + fileName + ": read " + bytesRead + " bytes and wrote " + bytesWritten
+        + " bytes in " + millis + " ms (" + ( bytesRead * 1000 / millis / 1024 ) + " KB/s)" );
+    }
   }
 
-  protected String handleTarGZ( File file ) throws IOException {
-
-    // first extract the gz
-    String filename = handleGZip( file, true );
-
-    File tarFile = new File( filename );
-
+  /**
+   * @deprecated archives are unpacked while they are uploaded; kept for subclasses, this unpacks an archive that was
+   * already written to disk the same way.
+   */
+  @Deprecated
+  protected boolean handleUnzip( File file ) throws IOException {
+    // .zip/.tar/.gz/.tgz files are always considered temporary and deleted on session expire
     if ( session != null ) {
       ITempFileDeleter fileDeleter =
         (ITempFileDeleter) session.getAttribute( ITempFileDeleter.DELETER_SESSION_VARIABLE );
       if ( fileDeleter != null ) {
-        fileDeleter.trackTempFile( tarFile ); // make sure the deleter knows to clean this puppy up...
+        fileDeleter.trackTempFile( file );
       }
     }
 
-    return handleTar( tarFile );
+    ArchiveType archiveType = getArchiveType();
+    if ( archiveType == null ) {
+      writer.write( file.getName() );
+      return true;
+    }
+    try ( InputStream inputStream = new FileInputStream( file ) ) {
+      return processArchive( inputStream, archiveType, getArchiveName( file ) );
+    }
+  }
+
+  /**
+   * @deprecated see {@link #handleUnzip(File)}
+   */
+  @Deprecated
+  protected String handleZip( File file ) throws IOException {
+    return unpack( file, ArchiveType.ZIP );
+  }
+
+  /**
+   * @param fullPath whether to return the canonical path of the unpacked file instead of its name
+   * @deprecated see {@link #handleUnzip(File)}
+   */
+  @Deprecated
+  protected String handleGZip( File file, boolean fullPath ) throws IOException {
+    String name = unpack( file, ArchiveType.GZIP );
+    if ( fullPath && !name.isEmpty() ) {
+      return new File( getLimitedFolder(), name ).getCanonicalPath();
+    }
+    return name;
+  }
+
+  /**
+   * @deprecated see {@link #handleUnzip(File)}
+   */
+  @Deprecated
+  protected String handleTar( File file ) throws IOException {
+    return unpack( file, ArchiveType.TAR );
+  }
+
+  /**
+   * @deprecated see {@link #handleUnzip(File)}
+   */
+  @Deprecated
+  protected String handleTarGZ( File file ) throws IOException {
+    return unpack( file, ArchiveType.TGZ );
+  }
+
+  private boolean validateZipSlip( File destinationFile, File destinationDir ) throws IOException {
+    return destinationFile.getCanonicalPath().startsWith( destinationDir.getCanonicalPath() + File.separator );
   }
 
   public boolean checkLimits( long itemSize ) throws IOException {
@@ -577,17 +578,8 @@ public class UploadFileUtils {
       return false;
     }
 
-    File checkDir;
-    long folderLimit;
-    if ( !isTemporary() ) {
-      checkDir = pathDir;
-      folderLimit = maxFolderSize;
-    } else {
-      checkDir = tmpPathDir;
-      folderLimit = maxTmpFolderSize;
-    }
-    long actualDirSize = getFolderSize( checkDir );
-    if ( ( itemSize + actualDirSize ) > folderLimit ) {
+    long actualDirSize = getFolderSize( getLimitedFolder() );
+    if ( ( itemSize + actualDirSize ) > getFolderLimit() ) {
       String error =
         compressed ? Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0007_FOLDER_SIZE_LIMIT_REACHED" )
           : Messages.getInstance()
@@ -598,9 +590,20 @@ public class UploadFileUtils {
     return true;
   }
 
+  /**
+   * @return the folder the upload lands in, whose size is limited
+   */
+  private File getLimitedFolder() {
+    return isTemporary() ? tmpPathDir : pathDir;
+  }
+
+  private long getFolderLimit() {
+    return isTemporary() ? maxTmpFolderSize : maxFolderSize;
+  }
+
   private long getFolderSize( File folder ) {
     long foldersize = 0;
-    if ( folder.isDirectory() ) {
+    if ( folder != null && folder.isDirectory() ) {
       for ( File file : folder.listFiles() ) {
         if ( file.isDirectory() ) {
           foldersize += getFolderSize( file );
@@ -703,6 +706,10 @@ public class UploadFileUtils {
     return this.relativePath;
   }
 
+  void setMaxFileSize( long value ) {
+    this.maxFileSize = value;
+  }
+
   void setAllowsNoExtension( boolean value ) {
     this.allowsNoExtension = value;
   }
@@ -724,6 +731,48 @@ public class UploadFileUtils {
     return this.allowedExtensionsString;
   }
 
+  private enum ArchiveType {
+    ZIP, TGZ, GZIP, TAR
+  }
+
+  /**
+   * Counts the bytes unpacked from an upload against the size limits.
+   */
+  private static class UploadQuota {
+    private final long maxFileSize;
+    private final long maxFolderGrowth;
+    private long written;
+
+    UploadQuota( long maxFileSize, long maxFolderGrowth ) {
+      this.maxFileSize = maxFileSize;
+      this.maxFolderGrowth = maxFolderGrowth;
+    }
+
+    void add( long bytes ) throws UploadLimitExceededException {
+      written += bytes;
+      if ( written > maxFileSize ) {
+        throw new UploadLimitExceededException(
+          Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0006_FILE_TOO_BIG" ) );
+      }
+      if ( written > maxFolderGrowth ) {
+        throw new UploadLimitExceededException(
+          Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0007_FOLDER_SIZE_LIMIT_REACHED" ) );
+      }
+    }
+
+    long getWritten() {
+      return written;
+    }
+  }
+
+  private static class UploadLimitExceededException extends IOException {
+    private static final long serialVersionUID = 4372811094723510345L;
+
+    UploadLimitExceededException( String message ) {
+      super( message );
+    }
+  }
+
   private static class FileItemPart implements Part {
     @NonNull
     private final FileItem fileItem;
@@ -0,0 +1,207 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.PentahoSystemPublisher;
+import org.pentaho.platform.plugin.action.olap.impl.OlapServiceImpl;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the bodies of the responses to the XMLA <code>MDSCHEMA_*</code> discover requests that clients such as Excel
+ * send over and over, so that the rowsets are not built again from the schema each time.
+ * <p>
+ * A response is kept for the request, the catalog, the roles the request runs with and the response format. It is
+ * only used as long as the catalog it was built from is current, and it is dropped when the schema of its catalog is
+ * flushed. Member rowsets depend on the data rather than on the schema and are never kept, nor are responses larger
+ * than {@link #MAX_BODY_BYTES}.
+ */
+class XmlaDiscoverCache {
+
+  static final String CACHE_REGION = "org.pentaho.platform.web.servlet.PentahoXmlaServlet.discover"; //$NON-NLS-1$
+
+  /**
+   * With the 200 entries of the region in ehcache.xml, the region holds at most 100 MB
+   */
+  static final int MAX_BODY_BYTES = 512 * 1024;
+
+  private static final String KEY_SEPARATOR = "\u0000"; //$NON-NLS-1$
+
+  private static final String CACHED_REQUEST_TYPE_PREFIX = "MDSCHEMA_"; //$NON-NLS-1$
+
+  private static final String MEMBERS_REQUEST_TYPE = "MDSCHEMA_MEMBERS"; //$NON-NLS-1$
+
+  private static final AtomicBoolean subscribed = new AtomicBoolean();
+
+  private final ICacheManager cacheMgr;
+
+  XmlaDiscoverCache( final ICacheManager cacheMgr ) {
+    this.cacheMgr = cacheMgr;
+    if ( cacheMgr != null && !cacheMgr.cacheEnabled( CACHE_REGION ) ) {
+      cacheMgr.addCacheRegion( CACHE_REGION );
+    }
+    if ( subscribed.compareAndSet( false, true ) ) {
+      PentahoSystemPublisher.getInstance().subscribe( OlapServiceImpl.SCHEMA_FLUSHED_TOPIC,
+        ( String catalogName ) -> flush( PentahoSystem.getCacheManager( null ), catalogName ) );
+    }
+  }
+
+  /**
+   * @return the catalog of a discover request whose response may be kept, or <code>null</code> if it may not be kept
+   */
+  static String getCatalogName( final Element body ) {
+    Element discover = child( body, "Discover" ); //$NON-NLS-1$
+    if ( discover == null ) {
+      return null;
+    }
+    String requestType = text( child( discover, "RequestType" ) ); //$NON-NLS-1$
+    if ( !requestType.startsWith( CACHED_REQUEST_TYPE_PREFIX ) || requestType.equals( MEMBERS_REQUEST_TYPE ) ) {
+      return null;
+    }
+    Element properties = child( child( discover, "Properties" ), "PropertyList" ); //$NON-NLS-1$ //$NON-NLS-2$
+    String catalogName = text( child( properties, "Catalog" ) ); //$NON-NLS-1$
+    return catalogName.isEmpty() ? null : catalogName;
+  }
+
+  /**
+   * Schemas built by a dynamic schema processor may differ from one user to the other.
+   */
+  static boolean isDynamic( final String dataSourceInfo ) {
+    return dataSourceInfo != null && dataSourceInfo.toLowerCase().contains( "dynamicschemaprocessor" ); //$NON-NLS-1$
+  }
+
+  /**
+   * @param context the context of the request, which holds the format of the response
+   */
+  static String key( final Element body, final String catalogName, final String[] roles, final String encoding,
+                     final Map<String, Object> context ) {
+    String[] sortedRoles = roles.clone();
+    Arrays.sort( sortedRoles );
+    // the format Mondrian chose from the Accept header is the only enum in the context
+    Set<String> formats = new TreeSet<>();
+    for ( Map.Entry<String, Object> entry : context.entrySet() ) {
+      if ( entry.getValue() instanceof Enum ) {
+        formats.add( entry.getKey() + "=" + entry.getValue() ); //$NON-NLS-1$
+      }
+    }
+    StringBuilder key = new StringBuilder( catalogName ).append( KEY_SEPARATOR )
+      .append( String.join( ",", sortedRoles ) ).append( KEY_SEPARATOR ) //$NON-NLS-1$
+      .append( encoding ).append( KEY_SEPARATOR )
+      .append( formats ).append( KEY_SEPARATOR );
+    describe( child( body, "Discover" ), key ); //$NON-NLS-1$
+    return key.toString();
+  }
+
+  /**
+   * @return the body kept for the key, or <code>null</code> if there is none or it was built from another catalog
+   */
+  byte[] get( final String key, final Object catalog ) {
+    if ( cacheMgr == null ) {
+      return null;
+    }
+    Object cached = cacheMgr.getFromRegionCache( CACHE_REGION, key );
+    if ( cached instanceof Response && ( (Response) cached ).catalog == catalog ) {
+      return ( (Response) cached ).body;
+    }
+    return null;
+  }
+
+  void put( final String key, final Object catalog, final byte[] body ) {
+    if ( cacheMgr != null && body != null && body.length <= MAX_BODY_BYTES ) {
+      cacheMgr.putInRegionCache( CACHE_REGION, key, new Response( catalog, body ) );
+    }
+  }
+
+  /**
+   * Drops the responses kept for a catalog, or for all of them when <code>catalogName</code> is <code>null</code>.
+   */
+  static void flush( final ICacheManager cacheMgr, final String catalogName ) {
+    if ( cacheMgr == null || !cacheMgr.cacheEnabled( CACHE_REGION ) ) {
+      return;
+    }
+    if ( catalogName == null ) {
+      cacheMgr.clearRegionCache( CACHE_REGION );
+      return;
+    }
+    Set<?> keys = cacheMgr.getAllKeysFromRegionCache( CACHE_REGION );
+    if ( keys != null ) {
+      String prefix = catalogName + KEY_SEPARATOR;
+      for ( Object key : keys.toArray() ) {
+        if ( key instanceof String && ( (String) key ).startsWith( prefix ) ) {
+          cacheMgr.removeFromRegionCache( CACHE_REGION, key );
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the elements and text below a node, without the whitespace between them.
+   */
+  private static void describe( final Node node, final StringBuilder out ) {
+    if ( node == null ) {
+      return;
+    }
+    for ( Node child = node.getFirstChild(); child != null; child = child.getNextSibling() ) {
+      if ( child.getNodeType() == Node.ELEMENT_NODE ) {
+        out.append( '<' ).append( localName( child ) ).append( '>' );
+        describe( child, out );
+        out.append( "</>" ); //$NON-NLS-1$
+      } else if ( child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE ) {
+        out.append( child.getNodeValue().trim() );
+      }
+    }
+  }
+
+  private static Element child( final Element parent, final String name ) {
+    if ( parent == null ) {
+      return null;
+    }
+    for ( Node child = parent.getFirstChild(); child != null; child = child.getNextSibling() ) {
+      if ( child.getNodeType() == Node.ELEMENT_NODE && name.equals( localName( child ) ) ) {
+        return (Element) child;
+      }
+    }
+    return null;
+  }
+
+  private static String localName( final Node node ) {
+    if ( node.getLocalName() != null ) {
+      return node.getLocalName();
+    }
+    String name = node.getNodeName();
+    return name.substring( name.indexOf( ':' ) + 1 );
+  }
+
+  private static String text( final Element element ) {
+    return element == null ? "" : element.getTextContent().trim(); //$NON-NLS-1$
+  }
+
+  private static class Response {
+    private final Object catalog;
+    private final byte[] body;
+
+    Response( final Object catalog, final byte[] body ) {
+      this.catalog = catalog;
+      this.body = body;
+    }
+  }
+}
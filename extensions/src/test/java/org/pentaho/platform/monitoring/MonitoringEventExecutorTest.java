@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.monitoring;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MonitoringEventExecutorTest {
+
+  MonitoringEventExecutor executor;
+
+  CountDownLatch started;
+
+  CountDownLatch release;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = new MonitoringEventExecutor( 1, 1 );
+    started = new CountDownLatch( 1 );
+    release = new CountDownLatch( 1 );
+
+    // occupy the single worker and fill the single queue slot
+    executor.execute( () -> {
+      started.countDown();
+      awaitRelease();
+    } );
+    assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+    assertTrue( executor.tryExecute( () -> { } ) );
+    assertEquals( 1, executor.getQueueDepth() );
+  }
+
+  @Test
+  public void testDropsWhenQueueIsFull() {
+    assertFalse( executor.tryExecute( () -> { } ) );
+    assertEquals( 1, executor.getDroppedCount() );
+    assertEquals( 1, executor.getQueueCapacity() );
+  }
+
+  @Test
+  public void testRunsOnCallerWhenQueueIsFull() {
+    AtomicReference<Thread> ranOn = new AtomicReference<>();
+    executor.execute( () -> ranOn.set( Thread.currentThread() ) );
+
+    assertSame( Thread.currentThread(), ranOn.get() );
+    assertEquals( 0, executor.getDroppedCount() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testRejectsInvalidWorkerCount() {
+    new MonitoringEventExecutor( 0, 1 );
+  }
+
+  @After
+  public void teardown() {
+    release.countDown();
+    executor.shutdown();
+  }
+
+  private void awaitRelease() {
+    try {
+      release.await( 5, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
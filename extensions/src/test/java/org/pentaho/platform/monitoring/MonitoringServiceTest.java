@@ -22,6 +22,16 @@ import org.pentaho.platform.api.monitoring.IMonitoringService;
 import org.pentaho.platform.api.monitoring.IMonitoringSubscriber;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
 
 public class MonitoringServiceTest {
 
@@ -45,6 +55,55 @@ public class MonitoringServiceTest {
     service.post( new MockMonitoringEvent() );
   }
 
+  @Test
+  public void testMonitoringServiceKeepsTheNewestPendingEvent() throws Exception {
+    MonitoringService coalescingService = new MonitoringService( 1, 100 );
+    coalescingService.setCoalescedEventTypes( Collections.singleton( MockCoalescedEvent.class.getName() ) );
+
+    BlockingSubscriber subscriber = new BlockingSubscriber();
+    coalescingService.register( subscriber );
+
+    // occupy the single worker so that coalesced events stay pending
+    coalescingService.post( new MockMonitoringEvent() );
+    assertTrue( subscriber.started.await( 5, TimeUnit.SECONDS ) );
+
+    for ( int i = 0; i < 5; i++ ) {
+      coalescingService.post( new MockCoalescedEvent( i ) );
+    }
+    subscriber.release.countDown();
+
+    assertTrue( subscriber.coalescedReceived.await( 5, TimeUnit.SECONDS ) );
+    assertEquals( 4, coalescingService.getCoalescedCount() );
+    assertEquals( 6, coalescingService.getPostedCount() );
+    assertEquals( 1, subscriber.coalescedCount.get() );
+    assertEquals( 4, subscriber.lastSequence.get() );
+  }
+
+  @Test
+  public void testNewerEventSurvivesTheRejectionOfAnOlderOne() throws Exception {
+    MonitoringEventExecutor executor = spy( new MonitoringEventExecutor( 1, 100 ) );
+    final MonitoringService coalescingService = new MonitoringService( executor );
+    coalescingService.setCoalescedEventTypes( Collections.singleton( MockCoalescedEvent.class.getName() ) );
+    BlockingSubscriber subscriber = new BlockingSubscriber();
+    coalescingService.register( subscriber );
+
+    // the dispatch task of the first event is rejected, and a newer event arrives while that happens
+    final AtomicInteger attempts = new AtomicInteger();
+    doAnswer( invocation -> {
+      if ( attempts.getAndIncrement() == 0 ) {
+        coalescingService.post( new MockCoalescedEvent( 1 ) );
+        return false;
+      }
+      return invocation.callRealMethod();
+    } ).when( executor ).tryExecute( any( Runnable.class ) );
+
+    coalescingService.post( new MockCoalescedEvent( 0 ) );
+
+    assertTrue( subscriber.coalescedReceived.await( 5, TimeUnit.SECONDS ) );
+    assertEquals( 1, subscriber.lastSequence.get() );
+    assertEquals( 2, attempts.get() );
+  }
+
   @After
   public void teardown() {
     service = null;
@@ -61,6 +120,43 @@ public class MonitoringServiceTest {
     }
   }
 
+  private class BlockingSubscriber implements IMonitoringSubscriber {
+
+    final CountDownLatch started = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final CountDownLatch coalescedReceived = new CountDownLatch( 1 );
+    final AtomicInteger coalescedCount = new AtomicInteger();
+    final AtomicInteger lastSequence = new AtomicInteger( -1 );
+
+    @Override public String getSubscriberId() {
+      return getClass().getName();
+    }
+
+    @Subscribe public void handleEvent( MockMonitoringEvent o ) throws InterruptedException {
+      started.countDown();
+      release.await( 5, TimeUnit.SECONDS );
+    }
+
+    @Subscribe public void handleCoalescedEvent( MockCoalescedEvent o ) {
+      coalescedCount.incrementAndGet();
+      lastSequence.set( o.sequence );
+      coalescedReceived.countDown();
+    }
+  }
+
+  private static class MockCoalescedEvent implements IMonitoringEvent {
+
+    final int sequence;
+
+    MockCoalescedEvent( int sequence ) {
+      this.sequence = sequence;
+    }
+
+    @Override public Serializable getId() {
+      return "coalesced";
+    }
+  }
+
   private class MockMonitoringEvent implements IMonitoringEvent {
 
     @Override public Serializable getId() {
@@ -0,0 +1,234 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.datatransforms;
+
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.PentahoDataTransmuter;
+import org.pentaho.commons.connection.memory.MemoryMetaData;
+import org.pentaho.commons.connection.memory.MemoryResultSet;
+
+import java.text.DecimalFormat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class ColumnarTransformsTest {
+
+  private static MemoryResultSet resultSet( String[] headers, Object[][] rows ) {
+    MemoryResultSet resultSet = new MemoryResultSet( new MemoryMetaData( new String[][] { headers }, null ) );
+    for ( Object[] row : rows ) {
+      resultSet.addRow( row );
+    }
+    return resultSet;
+  }
+
+  private static Object[] headers( IPentahoResultSet resultSet ) {
+    return resultSet.getMetaData().getColumnHeaders()[ 0 ];
+  }
+
+  private static Object[] row( IPentahoResultSet resultSet, int row ) {
+    Object[] values = new Object[ resultSet.getColumnCount() ];
+    for ( int column = 0; column < values.length; column++ ) {
+      values[ column ] = resultSet.getValueAt( row, column );
+    }
+    return values;
+  }
+
+  @Test
+  public void testReadEncodesDistinctValues() {
+    MemoryResultSet source = resultSet( new String[] { "region", "sales" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$
+      { "east", 1 }, { "west", 2 }, { "east", 3 }, { null, 4 } } ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    ColumnarResultSet data = ColumnarResultSet.read( source, 0 );
+
+    assertEquals( 4, data.getRowCount() );
+    assertNull( data.getColumn( 1 ) );
+    ColumnarResultSet.Column region = data.getColumn( 0 );
+    assertEquals( 3, region.getDistinctCount() );
+    assertEquals( region.getCode( 0 ), region.getCode( 2 ) );
+    assertEquals( "west", region.getValue( 1 ) ); //$NON-NLS-1$
+    assertNull( region.getValue( 3 ) );
+    assertEquals( -1, region.indexOf( "north" ) ); //$NON-NLS-1$
+    assertEquals( "sales", data.getColumnHeader( 1 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testParallelReadMatchesSerialRead() {
+    int rows = ColumnarResultSet.PARALLEL_THRESHOLD;
+    MemoryResultSet source = new MemoryResultSet( new MemoryMetaData( new String[][] { { "a", "b" } }, null ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    for ( int i = 0; i < rows; i++ ) {
+      source.addRow( new Object[] { i % 7, i % 13 } );
+    }
+
+    ColumnarResultSet data = ColumnarResultSet.read( source );
+
+    assertEquals( rows, data.getRowCount() );
+    assertEquals( 7, data.getColumn( 0 ).getDistinctCount() );
+    assertEquals( 13, data.getColumn( 1 ).getDistinctCount() );
+    assertEquals( ( rows - 1 ) % 13, data.getColumn( 1 ).getValue( rows - 1 ) );
+  }
+
+  @Test
+  public void testCrossTabOrderedInput() {
+    MemoryResultSet source = resultSet( new String[] { "region", "month", "sales" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      { "east", "feb", 10 }, { "east", "jan", 20 }, { "west", "jan", 30 } } ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+    IPentahoResultSet result = ColumnarTransforms.crossTab( source, 1, 2, -1, null, null, false, -1 );
+
+    assertArrayEquals( new Object[] { "region", "feb", "jan" }, headers( result ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    assertEquals( 2, result.getRowCount() );
+    assertArrayEquals( new Object[] { "east", 10, 20 }, row( result, 0 ) ); //$NON-NLS-1$
+    assertArrayEquals( new Object[] { "west", null, 30 }, row( result, 1 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testCrossTabSortsPivotColumns() {
+    MemoryResultSet source = resultSet( new String[] { "region", "month", "sales", "order" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+      { "east", "feb", 10, 2 }, { "east", "jan", 20, 1 } } ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    IPentahoResultSet byPivot = ColumnarTransforms.crossTab( source, 1, 2, -1, null, null, true, -1 );
+    IPentahoResultSet byOrder = ColumnarTransforms.crossTab( source, 1, 2, 3, null, null, true, 0 );
+
+    assertArrayEquals( new Object[] { "region", "order", "feb", "jan" }, headers( byPivot ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    assertEquals( 2, byPivot.getRowCount() );
+    assertArrayEquals( new Object[] { "region", "order", "jan", "feb" }, headers( byOrder ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    assertEquals( 1, byOrder.getRowCount() );
+    assertArrayEquals( new Object[] { "east", 2, 20, 10 }, row( byOrder, 0 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testCrossTabGroupsUnorderedInputOnIdentifier() {
+    MemoryResultSet source = resultSet( new String[] { "region", "month", "sales" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      { "east", 1.0, 10 }, { "west", 1.0, 30 }, { "east", 2.0, 20 } } ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    IPentahoResultSet result =
+        ColumnarTransforms.crossTab( source, 1, 2, -1, new DecimalFormat( "0" ), null, false, 0 ); //$NON-NLS-1$
+
+    assertArrayEquals( new Object[] { "region", "1", "2" }, headers( result ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    assertEquals( 2, result.getRowCount() );
+    assertArrayEquals( new Object[] { "east", 10, 20 }, row( result, 0 ) ); //$NON-NLS-1$
+    assertArrayEquals( new Object[] { "west", 30, null }, row( result, 1 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testCrossTabMergesPivotValuesWithTheSameHeader() {
+    MemoryResultSet source = resultSet( new String[] { "region", "month", "sales" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      { "east", 1.2, 10 }, { "west", 1.4, 30 } } ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    IPentahoResultSet result =
+        ColumnarTransforms.crossTab( source, 1, 2, -1, new DecimalFormat( "0" ), null, false, -1 ); //$NON-NLS-1$
+
+    assertArrayEquals( new Object[] { "region", "1" }, headers( result ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    assertArrayEquals( new Object[] { "west", 30 }, row( result, 1 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testFlatten() {
+    MemoryResultSet source = resultSet( new String[] { "day", "sales", "units" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      { "mon", 1, 10 }, { "mon", 2, 20 }, { "tue", 3, 30 } } ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    IPentahoResultSet result = ColumnarTransforms.flatten( source, 0 );
+
+    assertArrayEquals( new Object[] { "day", "sales", "units", "sales", "units" }, headers( result ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    assertEquals( 2, result.getRowCount() );
+    assertArrayEquals( new Object[] { "mon", 1, 10, 2, 20 }, row( result, 0 ) ); //$NON-NLS-1$
+    assertArrayEquals( new Object[] { "tue", 3, 30, null, null }, row( result, 1 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testFlattenEmptyResultSet() {
+    IPentahoResultSet result =
+        ColumnarTransforms.flatten( resultSet( new String[] { "day", "sales" }, new Object[0][] ), 0 ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    assertEquals( 0, result.getRowCount() );
+    assertArrayEquals( new Object[] { "day" }, headers( result ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testFlattenerKeepsTheTransmuterLayoutUnlessColumnarIsSet() {
+    MemoryResultSet source = resultSet( new String[] { "day", "sales" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$
+      { "mon", 1 }, { "mon", 2 } } ); //$NON-NLS-1$ //$NON-NLS-2$
+    IPentahoResultSet transmuted = mock( IPentahoResultSet.class );
+
+    try ( MockedStatic<PentahoDataTransmuter> transmuter = Mockito.mockStatic( PentahoDataTransmuter.class ) ) {
+      transmuter.when( () -> PentahoDataTransmuter.flattenResultSet( source, 0 ) ).thenReturn( transmuted );
+
+      ResultSetFlattenerComponent byDefault = flattener( source, false );
+      byDefault.executeAction();
+      verify( byDefault ).setOutputValue( "out", transmuted ); //$NON-NLS-1$
+
+      ResultSetFlattenerComponent columnar = flattener( source, true );
+      columnar.executeAction();
+      verify( columnar ).setOutputValue( Mockito.eq( "out" ), Mockito.argThat( //$NON-NLS-1$
+        result -> result != transmuted && ( (IPentahoResultSet) result ).getColumnCount() == 3 ) );
+    }
+  }
+
+  @Test
+  public void testCrosstabKeepsTheTransmuterLayoutUnlessColumnarIsSet() throws Throwable {
+    MemoryResultSet source = resultSet( new String[] { "region", "month", "sales" }, new Object[][] { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      { "east", "jan", 10 } } ); //$NON-NLS-1$ //$NON-NLS-2$
+    IPentahoResultSet transmuted = mock( IPentahoResultSet.class );
+
+    try ( MockedStatic<PentahoDataTransmuter> transmuter = Mockito.mockStatic( PentahoDataTransmuter.class ) ) {
+      transmuter.when( () -> PentahoDataTransmuter.crossTabOrdered( any( IPentahoResultSet.class ), anyInt(), anyInt(),
+        anyInt(), any(), any(), anyBoolean(), anyInt() ) ).thenReturn( transmuted );
+
+      ResultSetCrosstabComponent byDefault = crosstab( source, false );
+      byDefault.executeAction();
+      verify( byDefault ).setOutputValue( "out", transmuted ); //$NON-NLS-1$
+
+      ResultSetCrosstabComponent columnar = crosstab( source, true );
+      columnar.executeAction();
+      verify( columnar ).setOutputValue( Mockito.eq( "out" ), Mockito.argThat( //$NON-NLS-1$
+        result -> result != transmuted && "jan".equals( headers( (IPentahoResultSet) result )[ 1 ] ) ) ); //$NON-NLS-1$
+    }
+  }
+
+  private static ResultSetFlattenerComponent flattener( IPentahoResultSet source, boolean columnar ) {
+    ResultSetFlattenerComponent component = spy( new ResultSetFlattenerComponent() );
+    doReturn( source ).when( component ).getInputValue( "result-set" ); //$NON-NLS-1$
+    doReturn( 1L ).when( component ).getInputLongValue( "flatten-column", 0 ); //$NON-NLS-1$
+    doReturn( columnar ).when( component ).getInputBooleanValue( ResultSetFlattenerComponent.COLUMNAR, false );
+    doReturn( "out" ).when( component ).getResultOutputName(); //$NON-NLS-1$
+    doNothing().when( component ).setOutputValue( anyString(), any() );
+    return component;
+  }
+
+  private static ResultSetCrosstabComponent crosstab( IPentahoResultSet source, boolean columnar ) {
+    ResultSetCrosstabComponent component = spy( new ResultSetCrosstabComponent() );
+    doReturn( source ).when( component ).getInputValue( "result_set" ); //$NON-NLS-1$
+    doReturn( false ).when( component ).isDefinedInput( anyString() );
+    doReturn( null ).when( component ).getInputStringValue( anyString() );
+    doReturn( "2" ).when( component ).getInputStringValue( "pivot_column" ); //$NON-NLS-1$ //$NON-NLS-2$
+    doReturn( "3" ).when( component ).getInputStringValue( "measures_column" ); //$NON-NLS-1$ //$NON-NLS-2$
+    doReturn( columnar ).when( component ).getInputBooleanValue( ResultSetCrosstabComponent.COLUMNAR, false );
+    doReturn( "out" ).when( component ).getResultOutputName(); //$NON-NLS-1$
+    doNothing().when( component ).setOutputValue( anyString(), any() );
+    return component;
+  }
+}
@@ -0,0 +1,78 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.jfreereport.components;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.plugin.action.jfreereport.helper.ReportTemplateCache;
+import org.pentaho.reporting.engine.classic.core.MasterReport;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+public class JFreeReportLoadComponentTest {
+
+  private JFreeReportLoadComponent component;
+
+  private Map<Object, MasterReport> parsed;
+
+  @Before
+  public void setUp() throws Exception {
+    ReportTemplateCache.getInstance().clear();
+    parsed = new HashMap<Object, MasterReport>();
+    component = spy( new JFreeReportLoadComponent() );
+    // remember which report was parsed for which region
+    doAnswer( invocation -> {
+      Map<String, Object> parameters = invocation.getArgument( 1 );
+      MasterReport report = mock( MasterReport.class );
+      when( report.clone() ).thenReturn( report );
+      parsed.put( parameters.get( "region" ), report ); //$NON-NLS-1$
+      return report;
+    } ).when( component ).parseTemplate( anyString(), anyMap() );
+  }
+
+  @After
+  public void tearDown() {
+    ReportTemplateCache.getInstance().clear();
+  }
+
+  @Test
+  public void testTemplatesParsedWithDifferentInputsAreNotShared() throws Exception {
+    MasterReport east = component.getTemplate( "solution:/report.xml", parameters( "east" ), 1L ); //$NON-NLS-1$
+    MasterReport west = component.getTemplate( "solution:/report.xml", parameters( "west" ), 1L ); //$NON-NLS-1$
+
+    assertNotSame( east, west );
+    assertSame( parsed.get( "east" ), east ); //$NON-NLS-1$
+    assertSame( parsed.get( "west" ), west ); //$NON-NLS-1$
+    assertSame( east, component.getTemplate( "solution:/report.xml", parameters( "east" ), 1L ) ); //$NON-NLS-1$
+  }
+
+  private static TreeMap<String, Object> parameters( String region ) {
+    TreeMap<String, Object> parameters = new TreeMap<String, Object>();
+    parameters.put( "serverBaseURL", "http://localhost:8080" ); //$NON-NLS-1$ //$NON-NLS-2$
+    parameters.put( "region", region ); //$NON-NLS-1$
+    return parameters;
+  }
+}
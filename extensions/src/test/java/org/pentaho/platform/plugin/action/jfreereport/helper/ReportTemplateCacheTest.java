@@ -0,0 +1,129 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.jfreereport.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.reporting.engine.classic.core.MasterReport;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReportTemplateCacheTest {
+
+  private ReportTemplateCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new ReportTemplateCache();
+  }
+
+  private static MasterReport template( MasterReport clone ) {
+    MasterReport report = mock( MasterReport.class );
+    when( report.clone() ).thenReturn( clone );
+    return report;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Callable<MasterReport> loaderOf( MasterReport report ) throws Exception {
+    Callable<MasterReport> loader = mock( Callable.class );
+    when( loader.call() ).thenReturn( report );
+    return loader;
+  }
+
+  @Test
+  public void testSameVersionIsParsedOnce() throws Exception {
+    MasterReport clone = mock( MasterReport.class );
+    MasterReport report = template( clone );
+    Callable<MasterReport> loader = loaderOf( report );
+
+    assertSame( clone, cache.getReport( "solution:/a.xml", 1L, loader ) ); //$NON-NLS-1$
+    assertSame( clone, cache.getReport( "solution:/a.xml", 1L, loader ) ); //$NON-NLS-1$
+
+    verify( loader, times( 1 ) ).call();
+    verify( report, times( 2 ) ).clone();
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+    assertEquals( 0.5, cache.getHitRate(), 0.0001 );
+    assertEquals( 1, cache.getSize() );
+  }
+
+  @Test
+  public void testNewVersionIsReparsed() throws Exception {
+    Callable<MasterReport> loader = loaderOf( template( mock( MasterReport.class ) ) );
+
+    cache.getReport( "solution:/a.xml", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "solution:/a.xml", 2L, loader ); //$NON-NLS-1$
+
+    verify( loader, times( 2 ) ).call();
+    assertEquals( 0, cache.getHitCount() );
+  }
+
+  @Test
+  public void testNullVersionBypassesCache() throws Exception {
+    MasterReport report = template( mock( MasterReport.class ) );
+    Callable<MasterReport> loader = loaderOf( report );
+
+    assertSame( report, cache.getReport( "solution:/a.xml", null, loader ) ); //$NON-NLS-1$
+    cache.getReport( "solution:/a.xml", null, loader ); //$NON-NLS-1$
+
+    verify( loader, times( 2 ) ).call();
+    assertEquals( 0, cache.getSize() );
+  }
+
+  @Test
+  public void testNullReportIsNotCached() throws Exception {
+    Callable<MasterReport> loader = loaderOf( null );
+
+    assertNull( cache.getReport( "solution:/a.xml", 1L, loader ) ); //$NON-NLS-1$
+
+    assertEquals( 0, cache.getSize() );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+    cache.setMaxEntries( 2 );
+    Callable<MasterReport> loader = loaderOf( template( mock( MasterReport.class ) ) );
+
+    cache.getReport( "a", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "b", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "a", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "c", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "a", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "b", 1L, loader ); //$NON-NLS-1$
+
+    verify( loader, times( 4 ) ).call();
+    assertEquals( 2, cache.getSize() );
+  }
+
+  @Test
+  public void testInvalidateAndClear() throws Exception {
+    Callable<MasterReport> loader = loaderOf( template( mock( MasterReport.class ) ) );
+    cache.getReport( "a", 1L, loader ); //$NON-NLS-1$
+    cache.getReport( "b", 1L, loader ); //$NON-NLS-1$
+
+    cache.invalidate( "a" ); //$NON-NLS-1$
+    assertEquals( 1, cache.getSize() );
+
+    cache.clear();
+    assertEquals( 0, cache.getSize() );
+  }
+}
@@ -0,0 +1,150 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.kettle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.TransMeta;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KettleMetaCacheTest {
+
+  private KettleMetaCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new KettleMetaCache();
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+  }
+
+  private static TransMeta createTransMeta( TransMeta copy ) {
+    TransMeta transMeta = mock( TransMeta.class );
+    when( transMeta.clone() ).thenReturn( copy );
+    when( transMeta.listVariables() ).thenReturn( new String[ 0 ] );
+    return transMeta;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Callable<TransMeta> createLoader( TransMeta transMeta ) throws Exception {
+    Callable<TransMeta> loader = mock( Callable.class );
+    when( loader.call() ).thenReturn( transMeta );
+    return loader;
+  }
+
+  @Test
+  public void testSameVersionIsLoadedOnceAndCopied() throws Exception {
+    TransMeta copy = mock( TransMeta.class );
+    TransMeta transMeta = createTransMeta( copy );
+    Callable<TransMeta> loader = createLoader( transMeta );
+    Repository repository = mock( Repository.class );
+
+    assertSame( copy, cache.getTransMeta( "file:/a.ktr", "1", loader, repository ) );
+    assertSame( copy, cache.getTransMeta( "file:/a.ktr", "1", loader, repository ) );
+
+    verify( loader, times( 1 ) ).call();
+    verify( transMeta, times( 2 ) ).clone();
+    verify( copy, times( 2 ) ).setRepository( repository );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+    assertEquals( 1, cache.getSize() );
+  }
+
+  @Test
+  public void testChangedVersionReloads() throws Exception {
+    Callable<TransMeta> loader = createLoader( createTransMeta( mock( TransMeta.class ) ) );
+
+    cache.getTransMeta( "file:/a.ktr", "1", loader, null );
+    cache.getTransMeta( "file:/a.ktr", "2", loader, null );
+    cache.getTransMeta( "file:/a.ktr", "2", loader, null );
+
+    verify( loader, times( 2 ) ).call();
+    assertEquals( 1, cache.getInvalidationCount() );
+    assertEquals( 1, cache.getHitCount() );
+  }
+
+  @Test
+  public void testNullVersionBypassesCache() throws Exception {
+    Callable<TransMeta> loader = createLoader( createTransMeta( mock( TransMeta.class ) ) );
+
+    cache.getTransMeta( "repo:r:/dir/a", null, loader, null );
+    cache.getTransMeta( "repo:r:/dir/a", null, loader, null );
+
+    verify( loader, times( 2 ) ).call();
+    assertEquals( 0, cache.getSize() );
+  }
+
+  @Test
+  public void testNullMetaIsNotCached() throws Exception {
+    Callable<TransMeta> loader = createLoader( null );
+
+    assertNull( cache.getTransMeta( "file:/a.ktr", "1", loader, null ) );
+    assertNull( cache.getTransMeta( "file:/a.ktr", "1", loader, null ) );
+
+    verify( loader, times( 2 ) ).call();
+  }
+
+  @Test
+  public void testInvalidateAndMaxEntries() throws Exception {
+    Callable<TransMeta> loader = createLoader( createTransMeta( mock( TransMeta.class ) ) );
+
+    cache.setMaxEntries( 2 );
+    cache.getTransMeta( "a", "1", loader, null );
+    cache.getTransMeta( "b", "1", loader, null );
+    cache.getTransMeta( "c", "1", loader, null );
+    assertEquals( 2, cache.getSize() );
+
+    cache.invalidate( "c" );
+    assertEquals( 1, cache.getSize() );
+
+    cache.setMaxEntries( 0 );
+    cache.getTransMeta( "a", "1", loader, null );
+    assertEquals( 0, cache.getSize() );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testHasJobMeta() throws Exception {
+    JobMeta jobMeta = mock( JobMeta.class );
+    when( jobMeta.clone() ).thenReturn( mock( JobMeta.class ) );
+    when( jobMeta.listVariables() ).thenReturn( new String[ 0 ] );
+    Callable<JobMeta> loader = mock( Callable.class );
+    when( loader.call() ).thenReturn( jobMeta );
+
+    assertFalse( cache.hasJobMeta( "xml:/a.kjb", "<job/>" ) );
+
+    cache.getJobMeta( "xml:/a.kjb", "<job/>", loader, null );
+
+    assertTrue( cache.hasJobMeta( "xml:/a.kjb", "<job/>" ) );
+    assertFalse( cache.hasJobMeta( "xml:/a.kjb", "<job>changed</job>" ) );
+    assertFalse( cache.hasJobMeta( "xml:/a.kjb", null ) );
+  }
+}
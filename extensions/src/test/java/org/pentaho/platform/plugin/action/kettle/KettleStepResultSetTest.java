@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.action.kettle;
+
+import org.junit.Test;
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.memory.MemoryMetaData;
+import org.pentaho.di.trans.Trans;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KettleStepResultSetTest {
+
+  private static MemoryMetaData metaData() {
+    return new MemoryMetaData( new String[][] { { "id", "name" } }, null ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  @Test
+  public void testRowsAreReadInOrderUntilFinished() throws Exception {
+    KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 10, 0 );
+    resultSet.addRow( new Object[] { 1L, "a" } ); //$NON-NLS-1$
+    resultSet.addRow( new Object[] { 2L, "b" } ); //$NON-NLS-1$
+    resultSet.finish();
+
+    assertEquals( 2, resultSet.getColumnCount() );
+    assertEquals( -1, resultSet.getRowCount() );
+    assertArrayEquals( new Object[] { 1L, "a" }, resultSet.peek() ); //$NON-NLS-1$
+    assertArrayEquals( new Object[] { 1L, "a" }, resultSet.next() ); //$NON-NLS-1$
+    assertArrayEquals( new Object[] { 2L, "b" }, resultSet.next() ); //$NON-NLS-1$
+    assertNull( resultSet.next() );
+    assertNull( resultSet.next() );
+    assertEquals( 2, resultSet.getRowCount() );
+    assertFalse( resultSet.isScrollable() );
+  }
+
+  @Test
+  public void testProducerBlocksWhileBufferIsFull() throws Exception {
+    final KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 2, 0 );
+    final CountDownLatch produced = new CountDownLatch( 5 );
+    Thread producer = new Thread( () -> {
+      try {
+        for ( long i = 0; i < 5; i++ ) {
+          resultSet.addRow( new Object[] { i, "row" } ); //$NON-NLS-1$
+          produced.countDown();
+        }
+        resultSet.finish();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    } );
+    producer.start();
+
+    assertFalse( produced.await( 300, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, produced.getCount() );
+
+    int rows = 0;
+    while ( resultSet.next() != null ) {
+      rows++;
+    }
+    producer.join( 5000 );
+    assertEquals( 5, rows );
+    assertEquals( 0, produced.getCount() );
+  }
+
+  @Test
+  public void testCloseReleasesProducerAndRunsCallback() throws Exception {
+    final KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 1, 0 );
+    final AtomicBoolean stopped = new AtomicBoolean();
+    resultSet.setCloseCallback( () -> stopped.set( true ) );
+    final AtomicBoolean accepted = new AtomicBoolean( true );
+    resultSet.addRow( new Object[] { 1L, "a" } ); //$NON-NLS-1$
+    Thread producer = new Thread( () -> {
+      try {
+        accepted.set( resultSet.addRow( new Object[] { 2L, "b" } ) ); //$NON-NLS-1$
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    } );
+    producer.start();
+
+    resultSet.close();
+    producer.join( 5000 );
+
+    assertFalse( producer.isAlive() );
+    assertFalse( accepted.get() );
+    assertTrue( stopped.get() );
+    assertTrue( resultSet.isClosed() );
+    assertNull( resultSet.next() );
+  }
+
+  @Test
+  public void testCloseAfterFinishDoesNotRunCallback() {
+    KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 1, 0 );
+    AtomicBoolean stopped = new AtomicBoolean();
+    resultSet.setCloseCallback( () -> stopped.set( true ) );
+    resultSet.finish();
+    resultSet.close();
+    assertFalse( stopped.get() );
+  }
+
+  @Test
+  public void testStalledConsumerClosesResultSet() throws Exception {
+    KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 1, 200 );
+    AtomicBoolean stopped = new AtomicBoolean();
+    resultSet.setCloseCallback( () -> stopped.set( true ) );
+    assertTrue( resultSet.addRow( new Object[] { 1L, "a" } ) ); //$NON-NLS-1$
+    assertFalse( resultSet.addRow( new Object[] { 2L, "b" } ) ); //$NON-NLS-1$
+    assertTrue( stopped.get() );
+  }
+
+  @Test
+  public void testMemoryCopyDrainsRemainingRows() throws Exception {
+    KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 10, 0 );
+    resultSet.addRow( new Object[] { 1L, "a" } ); //$NON-NLS-1$
+    resultSet.addRow( new Object[] { 2L, "b" } ); //$NON-NLS-1$
+    resultSet.finish();
+
+    IPentahoResultSet copy = resultSet.memoryCopy();
+
+    assertEquals( 2, copy.getRowCount() );
+    assertEquals( "b", copy.getValueAt( 1, 1 ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testFailedTransformationFailsTheStream() throws Exception {
+    KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 10, 0 );
+    AtomicBoolean released = new AtomicBoolean();
+    Trans trans = mock( Trans.class );
+    when( trans.getErrors() ).thenReturn( 1 );
+    resultSet.addRow( new Object[] { 1L, "a" } ); //$NON-NLS-1$
+
+    new KettleComponent.StreamingTransListener( resultSet, () -> released.set( true ) ).transFinished( trans );
+
+    assertTrue( released.get() );
+    assertTrue( resultSet.isFailed() );
+    assertArrayEquals( new Object[] { 1L, "a" }, resultSet.next() ); //$NON-NLS-1$
+    try {
+      resultSet.next();
+      fail();
+    } catch ( IllegalStateException expected ) {
+      // the consumer must not take a failed run for a complete one
+    }
+  }
+
+  @Test
+  public void testFinishedTransformationEndsTheStream() throws Exception {
+    KettleStepResultSet resultSet = new KettleStepResultSet( metaData(), 10, 0 );
+    Trans trans = mock( Trans.class );
+    when( trans.getErrors() ).thenReturn( 0 );
+
+    new KettleComponent.StreamingTransListener( resultSet, () -> { } ).transFinished( trans );
+
+    assertFalse( resultSet.isFailed() );
+    assertNull( resultSet.next() );
+  }
+}
@@ -0,0 +1,313 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WeightedCacheManagerTest {
+
+  private WeightedCacheManager cacheManager;
+
+  @Before
+  public void setUp() {
+    cacheManager = new WeightedCacheManager( new Properties() );
+  }
+
+  @Test
+  public void testRegionCache() {
+    assertTrue( cacheManager.cacheEnabled( ICacheManager.GLOBAL ) );
+    assertFalse( cacheManager.cacheEnabled( "reports" ) ); //$NON-NLS-1$
+    assertTrue( cacheManager.addCacheRegion( "reports" ) ); //$NON-NLS-1$
+
+    cacheManager.putInRegionCache( "reports", "a", "1" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    cacheManager.putInRegionCache( "reports", "b", "2" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    cacheManager.putInRegionCache( "reports", "b", null ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    assertEquals( "1", cacheManager.getFromRegionCache( "reports", "a" ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    assertNull( cacheManager.getFromRegionCache( "reports", "b" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals( new HashSet<Object>( Arrays.asList( "a" ) ), cacheManager.getAllKeysFromRegionCache( "reports" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals( Arrays.asList( "1" ), cacheManager.getAllValuesFromRegionCache( "reports" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals( 1, cacheManager.getElementCountInRegionCache( "reports" ) ); //$NON-NLS-1$
+    assertFalse( cacheManager.addCacheRegion( "reports", new Properties() ) ); //$NON-NLS-1$
+
+    cacheManager.removeRegionCache( "reports" ); //$NON-NLS-1$
+    assertTrue( cacheManager.cacheEnabled( "reports" ) ); //$NON-NLS-1$
+    assertEquals( 0, cacheManager.getElementCountInRegionCache( "reports" ) ); //$NON-NLS-1$
+    assertEquals( -1, cacheManager.getElementCountInRegionCache( "unknown" ) ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testSessionCache() {
+    StandaloneSession joe = new StandaloneSession( "joe", "joe-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    StandaloneSession suzy = new StandaloneSession( "suzy", "suzy-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInSessionCache( joe, "key", "joe's" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInSessionCache( suzy, "key", "suzy's" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    cacheManager.killSessionCache( joe );
+
+    assertNull( cacheManager.getFromSessionCache( joe, "key" ) ); //$NON-NLS-1$
+    assertEquals( "suzy's", cacheManager.getFromSessionCache( suzy, "key" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  @Test
+  public void testExpiredSessionsAreForgotten() {
+    StandaloneSession joe = new StandaloneSession( "joe", "joe-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    StandaloneSession suzy = new StandaloneSession( "suzy", "suzy-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.getFromSessionCache( suzy, "key" ); //$NON-NLS-1$
+    assertTrue( cacheManager.getSessionCacheStatistics( 10 ).isEmpty() );
+
+    cacheManager.putInSessionCache( joe, "key", "joe's" ); //$NON-NLS-1$ //$NON-NLS-2$
+    // what PentahoCacheSessionListener does when the http session expires
+    cacheManager.removeRegionCache( joe.getId() );
+
+    assertNull( cacheManager.getFromSessionCache( joe, "key" ) ); //$NON-NLS-1$
+    assertTrue( cacheManager.getSessionCacheStatistics( 10 ).isEmpty() );
+  }
+
+  @Test
+  public void testRegionsAreBoundedBySize() {
+    Properties properties = new Properties();
+    properties.setProperty( WeightedCacheManager.MAX_REGION_BYTES, String.valueOf( 1024 * 1024 ) );
+    cacheManager.addCacheRegion( "domains", properties ); //$NON-NLS-1$
+
+    for ( int i = 0; i < 100; i++ ) {
+      cacheManager.putInRegionCache( "domains", "big" + i, new byte[ 50 * 1024 ] ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    CacheRegionStatistics statistics = cacheManager.getRegionStatistics( "domains" ); //$NON-NLS-1$
+    assertTrue( statistics.getEntryCount() < 20 );
+    assertTrue( statistics.getWeight() <= 1024 * 1024 );
+    assertTrue( statistics.getEvictionCount() > 80 );
+
+    cacheManager.clearRegionCache( "domains" ); //$NON-NLS-1$
+    for ( int i = 0; i < 1000; i++ ) {
+      cacheManager.putInRegionCache( "domains", "small" + i, "value" + i ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+    assertEquals( 1000, cacheManager.getElementCountInRegionCache( "domains" ) ); //$NON-NLS-1$
+    assertEquals( weightOfSmallEntries(), cacheManager.getRegionStatistics( "domains" ).getWeight() ); //$NON-NLS-1$
+  }
+
+  private long weightOfSmallEntries() {
+    CacheEntryWeigher weigher = new CacheEntryWeigher();
+    long weight = 0;
+    for ( int i = 0; i < 1000; i++ ) {
+      weight += weigher.weigh( "small" + i, "value" + i ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    return weight;
+  }
+
+  @Test
+  public void testStatistics() {
+    cacheManager.putInGlobalCache( "a", "1" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.getFromGlobalCache( "a" ); //$NON-NLS-1$
+    cacheManager.getFromGlobalCache( "a" ); //$NON-NLS-1$
+    cacheManager.getFromGlobalCache( "b" ); //$NON-NLS-1$
+
+    CacheRegionStatistics statistics = cacheManager.getRegionStatistics( ICacheManager.GLOBAL );
+    assertEquals( 2, statistics.getHitCount() );
+    assertEquals( 1, statistics.getMissCount() );
+    assertEquals( 2.0 / 3, statistics.getHitRate(), 0.001 );
+    assertEquals( 2, cacheManager.getRegionStatistics().size() );
+  }
+
+  @Test
+  public void testHotKeys() {
+    cacheManager.putInGlobalCache( "cold", "1" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInGlobalCache( "warm", "2" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInGlobalCache( "hot", "3" ); //$NON-NLS-1$ //$NON-NLS-2$
+    for ( int i = 0; i < 5; i++ ) {
+      cacheManager.getFromGlobalCache( "hot" ); //$NON-NLS-1$
+    }
+    cacheManager.getFromGlobalCache( "warm" ); //$NON-NLS-1$
+
+    List<CacheKeyStatistics> hotKeys = cacheManager.getHotKeys( ICacheManager.GLOBAL, 2 );
+    assertEquals( 2, hotKeys.size() );
+    assertEquals( "hot", hotKeys.get( 0 ).getKey() ); //$NON-NLS-1$
+    assertEquals( 5, hotKeys.get( 0 ).getHitCount() );
+    assertEquals( "warm", hotKeys.get( 1 ).getKey() ); //$NON-NLS-1$
+    assertTrue( hotKeys.get( 0 ).getWeight() > 0 );
+    assertTrue( cacheManager.getHotKeys( "unknown", 10 ).isEmpty() ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testSessionCacheStatistics() {
+    StandaloneSession joe = new StandaloneSession( "joe", "joe-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    StandaloneSession suzy = new StandaloneSession( "suzy", "suzy-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInSessionCache( joe, "small", "x" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInSessionCache( suzy, "big", new byte[ 100000 ] ); //$NON-NLS-1$
+    cacheManager.putInSessionCache( suzy, "small", "x" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    List<CacheSessionStatistics> sessions = cacheManager.getSessionCacheStatistics( 10 );
+    assertEquals( 2, sessions.size() );
+    assertEquals( "suzy", sessions.get( 0 ).getUserName() ); //$NON-NLS-1$
+    assertEquals( CacheStatisticsSupport.maskSessionId( "suzy-id" ), sessions.get( 0 ).getSessionId() ); //$NON-NLS-1$
+    assertEquals( 2, sessions.get( 0 ).getEntryCount() );
+    assertTrue( sessions.get( 0 ).getWeight() > 100000 );
+    assertEquals( "joe", sessions.get( 1 ).getUserName() ); //$NON-NLS-1$
+    assertEquals( 1, cacheManager.getSessionCacheStatistics( 1 ).size() );
+  }
+
+  @Test
+  public void testStatisticsDoNotRevealSessionIds() {
+    StandaloneSession joe = new StandaloneSession( "joe", "joe-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInSessionCache( joe, "report", "x" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.getFromSessionCache( joe, "report" ); //$NON-NLS-1$
+
+    List<CacheKeyStatistics> hotKeys = cacheManager.getHotKeys( ICacheManager.SESSION, 10 );
+    assertEquals( "report", hotKeys.get( 0 ).getKey() ); //$NON-NLS-1$
+    String sessionId = cacheManager.getSessionCacheStatistics( 10 ).get( 0 ).getSessionId();
+    assertFalse( sessionId.contains( "joe-id" ) ); //$NON-NLS-1$
+    assertEquals( CacheStatisticsSupport.maskSessionId( "joe-id" ), sessionId ); //$NON-NLS-1$
+
+    List<CacheSessionStatistics> exported = new CacheStatisticsExporter( cacheManager ).largestSessionCaches( 10 );
+    assertEquals( 1, exported.size() );
+    assertNull( exported.get( 0 ).getSessionId() );
+    assertEquals( "joe", exported.get( 0 ).getUserName() ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testSessionSoftLimitEvictsLeastRecentlyUsedEntries() {
+    Properties properties = new Properties();
+    properties.setProperty( WeightedCacheManager.SESSION_SOFT_LIMIT_BYTES, String.valueOf( 250 * 1024 ) );
+    cacheManager = new WeightedCacheManager( properties );
+    StandaloneSession joe = new StandaloneSession( "joe", "joe-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    StandaloneSession suzy = new StandaloneSession( "suzy", "suzy-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.putInSessionCache( suzy, "result", new byte[ 200 * 1024 ] ); //$NON-NLS-1$
+
+    cacheManager.putInSessionCache( joe, "a", new byte[ 100 * 1024 ] ); //$NON-NLS-1$
+    cacheManager.putInSessionCache( joe, "b", new byte[ 100 * 1024 ] ); //$NON-NLS-1$
+    cacheManager.getFromSessionCache( joe, "a" ); //$NON-NLS-1$
+    cacheManager.putInSessionCache( joe, "c", new byte[ 100 * 1024 ] ); //$NON-NLS-1$
+
+    assertTrue( cacheManager.getFromSessionCache( joe, "a" ) != null ); //$NON-NLS-1$
+    assertNull( cacheManager.getFromSessionCache( joe, "b" ) ); //$NON-NLS-1$
+    assertTrue( cacheManager.getFromSessionCache( joe, "c" ) != null ); //$NON-NLS-1$
+    assertTrue( cacheManager.getFromSessionCache( suzy, "result" ) != null ); //$NON-NLS-1$
+
+    // the entry just put is kept even when it is over the limit on its own
+    cacheManager.putInSessionCache( joe, "huge", new byte[ 300 * 1024 ] ); //$NON-NLS-1$
+    assertTrue( cacheManager.getFromSessionCache( joe, "huge" ) != null ); //$NON-NLS-1$
+    assertEquals( 1, cacheManager.getSessionCacheStatistics( 10 ).get( 0 ).getEntryCount() );
+  }
+
+  @Test
+  public void testSessionHardLimitCountsAttributes() {
+    Properties properties = new Properties();
+    properties.setProperty( WeightedCacheManager.SESSION_HARD_LIMIT_BYTES, String.valueOf( 250 * 1024 ) );
+    cacheManager = new WeightedCacheManager( properties );
+    WeighedSession joe = new WeighedSession( "joe", "joe-id" ); //$NON-NLS-1$ //$NON-NLS-2$
+    joe.attributesWeight = 100 * 1024;
+
+    cacheManager.putInSessionCache( joe, "a", new byte[ 100 * 1024 ] ); //$NON-NLS-1$
+    cacheManager.putInSessionCache( joe, "b", new byte[ 100 * 1024 ] ); //$NON-NLS-1$
+    assertNull( cacheManager.getFromSessionCache( joe, "a" ) ); //$NON-NLS-1$
+    assertTrue( cacheManager.getFromSessionCache( joe, "b" ) != null ); //$NON-NLS-1$
+
+    cacheManager.putInSessionCache( joe, "c", new byte[ 200 * 1024 ] ); //$NON-NLS-1$
+    assertNull( cacheManager.getFromSessionCache( joe, "c" ) ); //$NON-NLS-1$
+    assertTrue( cacheManager.getFromSessionCache( joe, "b" ) != null ); //$NON-NLS-1$
+
+    CacheSessionStatistics statistics = cacheManager.getSessionCacheStatistics( 10 ).get( 0 );
+    assertEquals( "joe", statistics.getUserName() ); //$NON-NLS-1$
+    assertEquals( 100 * 1024, statistics.getAttributesWeight() );
+    assertTrue( statistics.getTotalWeight() <= 250 * 1024 );
+  }
+
+  private static class WeighedSession extends StandaloneSession implements IWeighedSession {
+    private long attributesWeight;
+
+    WeighedSession( final String name, final String id ) {
+      super( name, id );
+    }
+
+    @Override
+    public long getAttributesWeight() {
+      return attributesWeight;
+    }
+  }
+
+  @Test
+  public void testConcurrentRegionCreation() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool( 8 );
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for ( int i = 0; i < 64; i++ ) {
+        final int thread = i;
+        futures.add( executor.submit( () -> {
+          String region = "region" + ( thread % 4 ); //$NON-NLS-1$
+          cacheManager.addCacheRegion( region );
+          cacheManager.putInRegionCache( region, thread, thread );
+          return null;
+        } ) );
+      }
+      for ( Future<?> future : futures ) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for ( int i = 0; i < 4; i++ ) {
+      assertEquals( 16, cacheManager.getElementCountInRegionCache( "region" + i ) ); //$NON-NLS-1$
+    }
+  }
+
+  @Test
+  public void testEstimates() {
+    assertTrue( CacheEntryWeigher.estimate( new byte[ 10000 ], 0 ) > 10000 );
+    assertTrue( CacheEntryWeigher.estimate( Arrays.asList( new byte[ 1000 ], new byte[ 1000 ] ), 0 ) > 2000 );
+    assertEquals( CacheEntryWeigher.DEFAULT_WEIGHT, CacheEntryWeigher.estimate( new Object(), 0 ) );
+    assertEquals( 5000, CacheEntryWeigher.estimate( (IWeighable) () -> 5000, 0 ) );
+  }
+
+  @Test
+  public void testSerializesToWeighOnlyWhenAsked() {
+    Payload payload = new Payload( new byte[ 10000 ] );
+    assertEquals( CacheEntryWeigher.DEFAULT_WEIGHT, CacheEntryWeigher.estimate( payload, 0 ) );
+    assertTrue( CacheEntryWeigher.estimate( payload, 0, true ) > 10000 );
+
+    Properties properties = new Properties();
+    properties.setProperty( WeightedCacheManager.SERIALIZE_TO_WEIGH, "true" ); //$NON-NLS-1$
+    WeightedCacheManager serializing = new WeightedCacheManager( properties );
+    serializing.putInGlobalCache( "payload", payload ); //$NON-NLS-1$
+    assertTrue( serializing.getRegionStatistics( ICacheManager.GLOBAL ).getWeight() > 10000 );
+  }
+
+  private static class Payload implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] bytes;
+
+    Payload( final byte[] bytes ) {
+      this.bytes = bytes;
+    }
+  }
+}
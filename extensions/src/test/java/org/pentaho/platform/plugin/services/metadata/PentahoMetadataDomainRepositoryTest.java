@@ -29,6 +29,7 @@ import org.pentaho.metadata.model.Domain;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.util.XmiParser;
 import org.pentaho.platform.api.engine.IUserRoleListService;
+import org.pentaho.platform.api.repository2.unified.IAclNodeHelper;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.repository2.unified.RepositoryFileAcl;
@@ -52,6 +53,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Stack;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -60,6 +62,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -830,6 +833,173 @@ public class PentahoMetadataDomainRepositoryTest {
             argThat( map -> equalMaps( fileMetadataExpected, map ) ) );
   }
 
+  @Test
+  public void testGetDomainLoadsSnapshotUntilItIsStale() throws Exception {
+    XmiParser xmiParser = Mockito.mock( XmiParser.class );
+    when( xmiParser.parseXmi( any( InputStream.class ) ) ).thenReturn( createDSWTestObject() );
+    IAclNodeHelper aclHelper = Mockito.mock( IAclNodeHelper.class );
+    Mockito.lenient().when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+    PentahoMetadataDomainRepository pmdr = new PentahoMetadataDomainRepository( repos, null, xmiParser, null ) {
+      @Override protected synchronized IAclNodeHelper getAclHelper() {
+        return aclHelper;
+      }
+    };
+
+    pmdr.setDomainSnapshotFolder( tempFolder.newFolder() );
+
+    pmdr.storeDomain( getXmiInputStream(), "snapshotDomain", false );
+    RepositoryFile domainFile = pmdr.getMetadataRepositoryFile( "snapshotDomain" );
+    File snapshotFile = pmdr.getDomainSnapshotFile( domainFile );
+    assertTrue( snapshotFile.isFile() );
+
+    // the snapshot is read instead of the xmi
+    Mockito.clearInvocations( xmiParser );
+    Domain domain = pmdr.getDomain( "snapshotDomain" );
+    assertEquals( "snapshotDomain", domain.getId() );
+    assertEquals( 2, domain.getLogicalModels().size() );
+    assertTrue( pmdr.isDSWDatasource( domain ) );
+    verify( xmiParser, times( 0 ) ).parseXmi( any( InputStream.class ) );
+
+    // a new locale bundle makes the snapshot stale, the xmi is parsed once and the snapshot replaced
+    pmdr.addLocalizationFile( "snapshotDomain", "fr_FR", new Properties() );
+    Mockito.clearInvocations( xmiParser );
+    assertEquals( 2, pmdr.getDomain( "snapshotDomain" ).getLogicalModels().size() );
+    pmdr.getDomain( "snapshotDomain" );
+    verify( xmiParser, times( 1 ) ).parseXmi( any( InputStream.class ) );
+
+    // snapshots are local files, the metadata folder only holds the domain and its locale bundle
+    assertEquals( 2, repos.getChildren( pmdr.getMetadataDir().getId() ).stream()
+      .filter( file -> "snapshotDomain".equals( repos.getFileMetadata( file.getId() )
+        .get( PentahoMetadataDomainRepository.PROPERTY_NAME_DOMAIN_ID ) ) ).count() );
+
+    pmdr.removeDomain( "snapshotDomain" );
+    assertFalse( snapshotFile.exists() );
+  }
+
+  @Test
+  public void testGetDomainIgnoresSnapshotsWhenDisabled() throws Exception {
+    XmiParser xmiParser = Mockito.mock( XmiParser.class );
+    when( xmiParser.parseXmi( any( InputStream.class ) ) ).thenReturn( createMetadataTestObject() );
+    IAclNodeHelper aclHelper = Mockito.mock( IAclNodeHelper.class );
+    Mockito.lenient().when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+    PentahoMetadataDomainRepository pmdr = new PentahoMetadataDomainRepository( repos, null, xmiParser, null ) {
+      @Override protected synchronized IAclNodeHelper getAclHelper() {
+        return aclHelper;
+      }
+    };
+    File snapshotFolder = tempFolder.newFolder();
+    pmdr.setDomainSnapshotFolder( snapshotFolder );
+    pmdr.setDomainSnapshotsEnabled( false );
+
+    pmdr.storeDomain( getXmiInputStream(), "noSnapshotDomain", false );
+    assertNull( pmdr.getDomainSnapshotFile( pmdr.getMetadataRepositoryFile( "noSnapshotDomain" ) ) );
+    assertEquals( 0, snapshotFolder.list().length );
+
+    Mockito.clearInvocations( xmiParser );
+    pmdr.getDomain( "noSnapshotDomain" );
+    verify( xmiParser, times( 1 ) ).parseXmi( any( InputStream.class ) );
+  }
+
+  @Test
+  public void testStoreAndRemoveKeepMappingsWithoutReloading() throws Exception {
+    IUnifiedRepository repository = Mockito.spy( repos );
+    XmiParser xmiParser = Mockito.mock( XmiParser.class );
+    when( xmiParser.parseXmi( any( InputStream.class ) ) ).thenReturn( createDSWTestObject() );
+    IAclNodeHelper aclHelper = Mockito.mock( IAclNodeHelper.class );
+    Mockito.lenient().when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+    PentahoMetadataDomainRepository pmdr = new PentahoMetadataDomainRepository( repository, null, xmiParser, null ) {
+      @Override protected synchronized IAclNodeHelper getAclHelper() {
+        return aclHelper;
+      }
+    };
+    pmdr.setDomainSnapshotsEnabled( false );
+
+    pmdr.storeDomain( getXmiInputStream(), "incrementalDomain1", false );
+    pmdr.storeDomain( getXmiInputStream(), "incrementalDomain2", false );
+    pmdr.addLocalizationFile( "incrementalDomain1", "de", new Properties() );
+    pmdr.storeDomain( getXmiInputStream(), "incrementalDomain2", true );
+    pmdr.removeDomain( "incrementalDomain2" );
+
+    assertTrue( pmdr.getDomainIds().contains( "incrementalDomain1" ) );
+    assertFalse( pmdr.getDomainIds().contains( "incrementalDomain2" ) );
+    assertEquals( Collections.singleton( "incrementalDomain1" ),
+      pmdr.getDataSourceWizardDomainIds().stream().filter( id -> id.startsWith( "incremental" ) )
+        .collect( Collectors.toSet() ) );
+    assertEquals( 2, pmdr.getDomainFilesData( "incrementalDomain1" ).size() );
+    // the mappings were only loaded once, by the first lookup
+    verify( repository, times( 1 ) ).getChildren( any( Serializable.class ), eq( "*" ) );
+    verify( repository, times( 1 ) ).getFileMetadataInBatch( any() );
+
+    pmdr.removeDomain( "incrementalDomain1" );
+  }
+
+  @Test
+  public void testMappingsDoNotDependOnTheLoadingUser() throws Exception {
+    XmiParser xmiParser = Mockito.mock( XmiParser.class );
+    when( xmiParser.parseXmi( any( InputStream.class ) ) ).thenReturn( createMetadataTestObject() );
+    IAclNodeHelper aclHelper = Mockito.mock( IAclNodeHelper.class );
+    when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+    PentahoMetadataDomainRepository writer =
+      new PentahoMetadataDomainRepository( Mockito.spy( repos ), null, xmiParser, null ) {
+        @Override protected synchronized IAclNodeHelper getAclHelper() {
+          return aclHelper;
+        }
+      };
+    writer.setDomainSnapshotsEnabled( false );
+    writer.storeDomain( getXmiInputStream(), "hiddenDomain", false );
+
+    IUnifiedRepository repository = Mockito.spy( repos );
+    PentahoMetadataDomainRepository pmdr = new PentahoMetadataDomainRepository( repository, null, xmiParser, null ) {
+      @Override protected synchronized IAclNodeHelper getAclHelper() {
+        return aclHelper;
+      }
+    };
+    pmdr.setDomainSnapshotsEnabled( false );
+
+    // the first user to load the mappings cannot see the domain
+    when( aclHelper.canAccess( any(), any() ) ).thenReturn( false );
+    assertFalse( pmdr.getDomainIds().contains( "hiddenDomain" ) );
+    assertTrue( pmdr.getDomainFilesData( "hiddenDomain" ).isEmpty() );
+
+    // a user who can see it finds it without another reload
+    when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+    assertTrue( pmdr.getDomainIds().contains( "hiddenDomain" ) );
+    verify( repository, times( 1 ) ).getChildren( any( Serializable.class ), eq( "*" ) );
+
+    pmdr.removeDomain( "hiddenDomain" );
+  }
+
+  @Test
+  public void testDomainStoredElsewhereIsFoundOnMiss() throws Exception {
+    XmiParser xmiParser = Mockito.mock( XmiParser.class );
+    when( xmiParser.parseXmi( any( InputStream.class ) ) ).thenReturn( createMetadataTestObject() );
+    IAclNodeHelper aclHelper = Mockito.mock( IAclNodeHelper.class );
+    Mockito.lenient().when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+    // each repository object has mappings of its own, so the second one writes behind the first one's back
+    PentahoMetadataDomainRepository pmdr =
+      new PentahoMetadataDomainRepository( Mockito.spy( repos ), null, xmiParser, null ) {
+        @Override protected synchronized IAclNodeHelper getAclHelper() {
+          return aclHelper;
+        }
+      };
+    PentahoMetadataDomainRepository elsewhere =
+      new PentahoMetadataDomainRepository( Mockito.spy( repos ), null, xmiParser, null ) {
+        @Override protected synchronized IAclNodeHelper getAclHelper() {
+          return aclHelper;
+        }
+      };
+    pmdr.setDomainSnapshotsEnabled( false );
+    elsewhere.setDomainSnapshotsEnabled( false );
+
+    assertFalse( pmdr.getDomainIds().contains( "elsewhereDomain" ) );
+    elsewhere.storeDomain( getXmiInputStream(), "elsewhereDomain", false );
+
+    assertNotNull( pmdr.getDomain( "elsewhereDomain" ) );
+    assertTrue( pmdr.getDomainIds().contains( "elsewhereDomain" ) );
+
+    pmdr.removeDomain( "elsewhereDomain" );
+  }
+
   Domain createDSWTestObject() {
     Domain domain = new Domain();
 
@@ -0,0 +1,84 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.metadata;
+
+import org.junit.Test;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PentahoMetadataInformationMapTest {
+
+  private static RepositoryFile file( String name ) {
+    return new RepositoryFile.Builder( name, name ).build();
+  }
+
+  @Test
+  public void testReadersKeepTheirSnapshot() {
+    PentahoMetadataInformationMap map = new PentahoMetadataInformationMap();
+    map.addDomain( "domain-1", file( "d1" ) );
+
+    Collection<String> domainIds = map.getDomainIds();
+    map.addDomain( "domain-2", file( "d2" ) );
+    map.deleteDomain( "domain-1" );
+
+    assertEquals( 1, domainIds.size() );
+    assertTrue( domainIds.contains( "domain-1" ) );
+    assertFalse( map.getDomainIds().contains( "domain-1" ) );
+    assertTrue( map.getDomainIds().contains( "domain-2" ) );
+  }
+
+  @Test
+  public void testPutReplacesFiles() {
+    PentahoMetadataInformationMap map = new PentahoMetadataInformationMap();
+    RepositoryFile updated = file( "d1-updated" );
+    RepositoryFile updatedLocale = file( "d1-fr-updated" );
+    map.addDomain( "domain-1", file( "d1" ) );
+    map.addLocale( "domain-1", "fr", file( "d1-fr" ) );
+
+    map.putDomain( "domain-1", updated );
+    map.putLocale( "domain-1", "fr", updatedLocale );
+
+    assertSame( updated, map.getDomainFile( "domain-1" ) );
+    assertSame( updatedLocale, map.getLocaleFile( "domain-1", "fr" ) );
+    assertEquals( 1, map.getLocaleFiles( "domain-1" ).size() );
+    assertEquals( 2, map.getFiles( "domain-1" ).size() );
+  }
+
+  @Test
+  public void testReplaceOnlyIfUnchanged() {
+    PentahoMetadataInformationMap map = new PentahoMetadataInformationMap();
+    map.addDomain( "domain-1", file( "d1" ) );
+    long modificationCount = map.getModificationCount();
+
+    PentahoMetadataInformationMap.Builder rebuilt = new PentahoMetadataInformationMap.Builder();
+    rebuilt.addDomain( "domain-2", file( "d2" ) );
+    rebuilt.addLocale( "domain-2", "de", file( "d2-de" ) );
+
+    map.addDomain( "domain-3", file( "d3" ) );
+    assertFalse( map.replace( rebuilt, modificationCount ) );
+    assertNull( map.getDomainFile( "domain-2" ) );
+
+    assertTrue( map.replace( rebuilt, map.getModificationCount() ) );
+    assertEquals( 1, map.getDomainIds().size() );
+    assertEquals( "d2-de", map.getLocaleFile( "domain-2", "de" ).getName() );
+    assertNull( map.getDomainFile( "domain-3" ) );
+  }
+}
@@ -0,0 +1,116 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.plugin.services.pluginmgr;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.platform.api.engine.IContentGenerator;
+import org.pentaho.platform.api.engine.IPentahoObjectRegistration;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.objfac.references.SingletonPentahoObjectReference;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.pentaho.platform.plugin.services.pluginmgr.PentahoSystemPluginManager.CONTENT_TYPE;
+import static org.pentaho.platform.plugin.services.pluginmgr.PentahoSystemPluginManager.PLUGIN_ID;
+
+public class PluginIndexTest {
+
+  private final List<IPentahoObjectRegistration> registrations = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    for ( IPentahoObjectRegistration registration : registrations ) {
+      registration.remove();
+    }
+  }
+
+  @Test
+  public void testBeans() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.registerBeanDefinition( "reportBean", new RootBeanDefinition( ArrayList.class ) );
+    context.registerAlias( "reportBean", "reportAlias" );
+    context.refresh();
+    register( GenericApplicationContext.class, context, "plugin1", null );
+
+    GenericApplicationContext other = new GenericApplicationContext();
+    other.registerBeanDefinition( "otherBean", new RootBeanDefinition( ArrayList.class ) );
+    other.refresh();
+    register( GenericApplicationContext.class, other, null, null );
+
+    PluginIndex index = PluginIndex.build();
+    assertSame( context, index.getContext( "reportBean" ) );
+    assertSame( context, index.getContext( "reportAlias" ) );
+    // only the contexts of plugins are indexed
+    assertNull( index.getContext( "otherBean" ) );
+    assertNull( index.getContext( "missingBean" ) );
+  }
+
+  @Test
+  public void testContentTypes() {
+    register( IContentGenerator.class, mock( IContentGenerator.class ), "plugin1", "xreport" );
+    register( IContentGenerator.class, mock( IContentGenerator.class ), "plugin2", "xchart.viewer" );
+    register( IContentGenerator.class, mock( IContentGenerator.class ), null, "xother" );
+
+    PluginIndex index = PluginIndex.build();
+    assertEquals( "plugin1", index.getPluginIdForType( "xreport" ) );
+    assertEquals( "plugin2", index.getPluginIdForType( "xchart.viewer" ) );
+    assertEquals( "plugin2", index.getPluginIdForType( "xchart" ) );
+    assertNull( index.getPluginIdForType( "xother" ) );
+  }
+
+  @Test
+  public void testClassLoaders() {
+    ClassLoader pluginLoader = mock( ClassLoader.class );
+    ClassLoader otherLoader = mock( ClassLoader.class );
+    register( ClassLoader.class, pluginLoader, "plugin1", null );
+    register( ClassLoader.class, otherLoader, null, null );
+
+    PluginIndex index = PluginIndex.build();
+    assertEquals( "plugin1", index.getPluginIdForClassLoader( pluginLoader ) );
+    assertNull( index.getPluginIdForClassLoader( otherLoader ) );
+    assertNull( index.getPluginIdForClassLoader( getClass().getClassLoader() ) );
+  }
+
+  @Test
+  public void testSnapshot() {
+    ClassLoader loader = mock( ClassLoader.class );
+    PluginIndex before = PluginIndex.build();
+    register( ClassLoader.class, loader, "plugin1", null );
+
+    // an index does not change once built; the plugin manager builds a new one
+    assertNull( before.getPluginIdForClassLoader( loader ) );
+    assertEquals( "plugin1", PluginIndex.build().getPluginIdForClassLoader( loader ) );
+  }
+
+  private <T> void register( final Class<T> type, final T object, final String pluginId, final String contentType ) {
+    Map<String, Object> attributes = new HashMap<>();
+    if ( pluginId != null ) {
+      attributes.put( PLUGIN_ID, pluginId );
+    }
+    if ( contentType != null ) {
+      attributes.put( CONTENT_TYPE, contentType );
+    }
+    registrations.add( PentahoSystem.registerReference( new SingletonPentahoObjectReference.Builder<>( type )
+      .object( object ).attributes( attributes ).build(), type ) );
+  }
+}
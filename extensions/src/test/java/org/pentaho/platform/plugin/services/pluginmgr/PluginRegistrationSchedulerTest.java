@@ -0,0 +1,100 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.pluginmgr;
+
+import org.junit.Test;
+import org.pentaho.platform.api.engine.IPlatformPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PluginRegistrationSchedulerTest {
+
+  private static PlatformPlugin plugin( String id, String... dependencies ) {
+    PlatformPlugin plugin = new PlatformPlugin();
+    plugin.setId( id );
+    for ( String dependency : dependencies ) {
+      plugin.addDependency( dependency );
+    }
+    return plugin;
+  }
+
+  @Test
+  public void testPluginsAreRegisteredAfterTheirDependencies() {
+    List<IPlatformPlugin> plugins = Arrays.asList( plugin( "a", "c" ), plugin( "b" ), plugin( "c", "b" ),
+      plugin( "d" ) );
+    List<String> registered = Collections.synchronizedList( new ArrayList<>() );
+
+    Map<IPlatformPlugin, Long> times = new PluginRegistrationScheduler( 4 ).run( plugins, null, plugin -> {
+      registered.add( plugin.getId() );
+    } );
+
+    assertEquals( 4, registered.size() );
+    assertTrue( registered.indexOf( "b" ) < registered.indexOf( "c" ) );
+    assertTrue( registered.indexOf( "c" ) < registered.indexOf( "a" ) );
+    assertEquals( plugins, new ArrayList<>( times.keySet() ) );
+  }
+
+  @Test
+  public void testIndependentPluginsAreRegisteredConcurrently() {
+    CountDownLatch bothStarted = new CountDownLatch( 2 );
+    List<IPlatformPlugin> plugins = Arrays.asList( plugin( "a" ), plugin( "b" ) );
+    List<Boolean> concurrent = Collections.synchronizedList( new ArrayList<>() );
+
+    new PluginRegistrationScheduler( 2 ).run( plugins, null, plugin -> {
+      bothStarted.countDown();
+      try {
+        concurrent.add( bothStarted.await( 10, TimeUnit.SECONDS ) );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    } );
+
+    assertEquals( Arrays.asList( true, true ), concurrent );
+  }
+
+  @Test
+  public void testMessagesAreHandedBackInPluginOrder() {
+    PluginMessageLogger.clear();
+    List<IPlatformPlugin> plugins = Arrays.asList( plugin( "a", "b" ), plugin( "b" ) );
+
+    new PluginRegistrationScheduler( 2 ).run( plugins, null, plugin -> PluginMessageLogger.add( plugin.getId() ) );
+
+    assertEquals( Arrays.asList( "a", "b" ), PluginMessageLogger.getAll() );
+    PluginMessageLogger.clear();
+  }
+
+  @Test
+  public void testCyclesAndUnknownDependenciesAreIgnored() {
+    List<IPlatformPlugin> plugins = Arrays.asList( plugin( "a", "b" ), plugin( "b", "a", "unknown" ),
+      plugin( "a" ) );
+    List<Integer> order = new ArrayList<>();
+
+    List<List<Integer>> dependencies = PluginRegistrationScheduler.resolveDependencies( plugins, order );
+
+    assertEquals( Arrays.asList( 1, 0, 2 ), order );
+    assertEquals( Collections.singletonList( 1 ), dependencies.get( 0 ) );
+    assertEquals( Collections.emptyList(), dependencies.get( 1 ) );
+    // a plugin with the id of another waits for it
+    assertEquals( Collections.singletonList( 0 ), dependencies.get( 2 ) );
+  }
+}
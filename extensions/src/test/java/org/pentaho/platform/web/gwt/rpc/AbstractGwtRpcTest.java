@@ -33,6 +33,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 import org.pentaho.platform.web.gwt.rpc.impl.GwtRpcUtil;
 import org.pentaho.platform.web.gwt.rpc.util.ThrowingSupplier;
+import org.pentaho.platform.web.gwt.rpc.support.GwtRpcDispatchCache;
 import org.pentaho.platform.web.servlet.GwtRpcProxyException;
 
 import javax.servlet.ServletContext;
@@ -291,6 +292,28 @@ public class AbstractGwtRpcTest {
     verify( gwtRpcSpy ).resolveTarget();
   }
 
+  @Test
+  public void testGetTargetWithDispatchCacheIsSharedAcrossCalls() {
+    Object target = new Object();
+
+    IGwtRpcDispatchCache dispatchCache = new GwtRpcDispatchCache();
+
+    TestGwtRpc gwtRpcSpy1 = spy( new TestGwtRpc( mock( HttpServletRequest.class ) ) );
+    doReturn( "serviceName" ).when( gwtRpcSpy1 ).getTargetKey();
+    doReturn( target ).when( gwtRpcSpy1 ).resolveTarget();
+    gwtRpcSpy1.setDispatchCache( dispatchCache );
+
+    TestGwtRpc gwtRpcSpy2 = spy( new TestGwtRpc( mock( HttpServletRequest.class ) ) );
+    doReturn( "serviceName" ).when( gwtRpcSpy2 ).getTargetKey();
+    gwtRpcSpy2.setDispatchCache( dispatchCache );
+
+    assertEquals( target, gwtRpcSpy1.getTarget() );
+    assertEquals( target, gwtRpcSpy2.getTarget() );
+
+    verify( gwtRpcSpy1 ).resolveTarget();
+    verify( gwtRpcSpy2, never() ).resolveTarget();
+  }
+
   @Test
   public void testGetTargetLogsAndRethrowsGwtRpcException() {
     // Mocking the exception does not work with doThrow...
@@ -0,0 +1,112 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.gwt.rpc.support;
+
+import org.junit.Test;
+import org.pentaho.platform.web.servlet.GwtRpcProxyException;
+
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GwtRpcDispatchCacheTest {
+
+  public interface TestService {
+    String echo( String value );
+  }
+
+  // Does not implement the service interface.
+  public static class TestTarget {
+    public String echo( String value ) {
+      return value;
+    }
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Supplier<Object> createSupplierMock( Object target ) {
+    Supplier<Object> supplierMock = mock( Supplier.class );
+    when( supplierMock.get() ).thenReturn( target );
+    return supplierMock;
+  }
+
+  @Test
+  public void testGetTargetResolvesOnceAndCaches() {
+    GwtRpcDispatchCache cache = new GwtRpcDispatchCache();
+    Object target = new Object();
+    Supplier<Object> supplierMock = createSupplierMock( target );
+
+    assertSame( target, cache.getTarget( "serviceName", supplierMock ) );
+    assertSame( target, cache.getTarget( "serviceName", supplierMock ) );
+
+    verify( supplierMock, times( 1 ) ).get();
+  }
+
+  @Test
+  public void testGetTargetWithMultipleKeysMaintainsCache() {
+    GwtRpcDispatchCache cache = new GwtRpcDispatchCache();
+    Object target1 = new Object();
+    Object target2 = new Object();
+
+    assertSame( target1, cache.getTarget( "service1", createSupplierMock( target1 ) ) );
+    assertSame( target2, cache.getTarget( "service2", createSupplierMock( target2 ) ) );
+
+    Supplier<Object> supplierMock = createSupplierMock( new Object() );
+    assertSame( target1, cache.getTarget( "service1", supplierMock ) );
+    assertSame( target2, cache.getTarget( "service2", supplierMock ) );
+
+    verify( supplierMock, times( 0 ) ).get();
+  }
+
+  @Test( expected = GwtRpcProxyException.class )
+  public void testGetTargetThrowsWhenSupplierReturnsNull() {
+    new GwtRpcDispatchCache().getTarget( "serviceName", createSupplierMock( null ) );
+  }
+
+  @Test
+  public void testGetTargetMethodMatchesByNameAndParameterTypes() throws Exception {
+    GwtRpcDispatchCache cache = new GwtRpcDispatchCache();
+    Method serviceMethod = TestService.class.getMethod( "echo", String.class );
+
+    Method result1 = cache.getTargetMethod( TestTarget.class, serviceMethod );
+    Method result2 = cache.getTargetMethod( TestTarget.class, serviceMethod );
+
+    assertEquals( TestTarget.class.getMethod( "echo", String.class ), result1 );
+    assertSame( result1, result2 );
+  }
+
+  @Test( expected = NoSuchMethodException.class )
+  public void testGetTargetMethodThrowsWhenTargetHasNoMatchingMethod() throws Exception {
+    Method serviceMethod = TestService.class.getMethod( "echo", String.class );
+
+    new GwtRpcDispatchCache().getTargetMethod( Object.class, serviceMethod );
+  }
+
+  @Test
+  public void testClearRemovesCachedTargets() {
+    GwtRpcDispatchCache cache = new GwtRpcDispatchCache();
+    Object target1 = new Object();
+    Object target2 = new Object();
+
+    cache.getTarget( "serviceName", createSupplierMock( target1 ) );
+    cache.clear();
+
+    assertSame( target2, cache.getTarget( "serviceName", createSupplierMock( target2 ) ) );
+  }
+}
@@ -108,4 +108,17 @@ public class GwtRpcSerializationPolicyCacheTest {
     testSerializationPolicyIsInCache( cache, moduleBaseURL2, strongName2, policy2 );
     testSerializationPolicyIsInCache( cache, moduleBaseURL3, strongName3, policy3 );
   }
+
+  @Test
+  public void testClearRemovesCachedSerializationPolicies() {
+    GwtRpcSerializationPolicyCache cache = new GwtRpcSerializationPolicyCache();
+    SerializationPolicy policy1 = mock( SerializationPolicy.class );
+    SerializationPolicy policy2 = mock( SerializationPolicy.class );
+
+    testSerializationPolicyIsNewAndCreated( cache, "url", "abc", policy1 );
+
+    cache.clear();
+
+    testSerializationPolicyIsNewAndCreated( cache, "url", "abc", policy2 );
+  }
 }
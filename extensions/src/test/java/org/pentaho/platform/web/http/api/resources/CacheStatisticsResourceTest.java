@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.plugin.services.cache.WeightedCacheManager;
+import org.pentaho.platform.web.http.api.resources.utils.SystemUtils;
+
+import javax.ws.rs.core.Response;
+import java.util.Properties;
+
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+public class CacheStatisticsResourceTest {
+
+  private MockedStatic<SystemUtils> systemUtilsMock;
+
+  private WeightedCacheManager cacheManager;
+
+  @Before
+  public void setUp() {
+    systemUtilsMock = mockStatic( SystemUtils.class );
+    cacheManager = new WeightedCacheManager( new Properties() );
+    cacheManager.putInGlobalCache( "key", "value" ); //$NON-NLS-1$ //$NON-NLS-2$
+    cacheManager.getFromGlobalCache( "key" ); //$NON-NLS-1$
+  }
+
+  @After
+  public void tearDown() {
+    systemUtilsMock.close();
+  }
+
+  @Test
+  public void testNotAdmin() {
+    systemUtilsMock.when( SystemUtils::canAdminister ).thenReturn( false );
+    CacheStatisticsResource resource = new CacheStatisticsResource( cacheManager );
+
+    assertEquals( UNAUTHORIZED.getStatusCode(), resource.getRegionStatistics().getStatus() );
+    assertEquals( UNAUTHORIZED.getStatusCode(), resource.getSessionCacheStatistics( 10 ).getStatus() );
+  }
+
+  @Test
+  public void testStatistics() {
+    systemUtilsMock.when( SystemUtils::canAdminister ).thenReturn( true );
+    CacheStatisticsResource resource = new CacheStatisticsResource( cacheManager );
+
+    Response response = resource.getRegionStatistics();
+    assertEquals( OK.getStatusCode(), response.getStatus() );
+    assertEquals( 2, ( (CacheStatisticsWrapper) response.getEntity() ).getRegions().size() );
+
+    response = resource.getHotKeys( ICacheManager.GLOBAL, 10 );
+    assertEquals( OK.getStatusCode(), response.getStatus() );
+    assertEquals( "key", ( (CacheStatisticsWrapper) response.getEntity() ).getKeys().get( 0 ).getKey() ); //$NON-NLS-1$
+    assertEquals( NOT_FOUND.getStatusCode(), resource.getRegionStatistics( "unknown" ).getStatus() ); //$NON-NLS-1$
+    assertEquals( NOT_FOUND.getStatusCode(), resource.getHotKeys( "unknown", 10 ).getStatus() ); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testCacheManagerWithoutStatistics() {
+    systemUtilsMock.when( SystemUtils::canAdminister ).thenReturn( true );
+    CacheStatisticsResource resource = new CacheStatisticsResource( mock( ICacheManager.class ) );
+
+    assertEquals( NOT_FOUND.getStatusCode(), resource.getRegionStatistics().getStatus() );
+    assertEquals( NOT_FOUND.getStatusCode(), resource.getSessionCacheStatistics( 10 ).getStatus() );
+  }
+}
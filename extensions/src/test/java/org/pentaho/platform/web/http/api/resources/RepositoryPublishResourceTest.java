@@ -14,6 +14,8 @@
 package org.pentaho.platform.web.http.api.resources;
 
 import com.sun.jersey.core.header.FormDataContentDisposition;
+import com.sun.jersey.multipart.FormDataBodyPart;
+import com.sun.jersey.multipart.FormDataMultiPart;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -195,6 +197,48 @@ public class RepositoryPublishResourceTest {
   }
 
 
+  @Test
+  public void writeFiles_Returns401_WhenNotAllowedToPublish() throws Exception {
+    doThrow( new PentahoAccessControlException( "denied" ) ).when( repositoryPublishResource.repositoryPublishService )
+      .checkPublishAccess();
+
+    Response response = repositoryPublishResource.writeFiles( new FormDataMultiPart() );
+    assertResponse( response, UNAUTHORIZED, String.valueOf( PUBLISH_USERNAME_PASSWORD_FAIL ) );
+  }
+
+  @Test
+  public void writeFiles_Returns422_OnInvalidManifest() throws Exception {
+    doReturn( false ).when( repositoryPublishResource ).invalidPath( anyString() );
+    FormDataMultiPart missingFile = new FormDataMultiPart().field( "manifest", "report=" + encode( "/public/r.prpt" ) );
+    assertEquals( 422, repositoryPublishResource.writeFiles( missingFile ).getStatus() );
+
+    FormDataMultiPart reservedChars =
+      new FormDataMultiPart().field( "manifest", "report=" + encode( "/public/r:.prpt" ) );
+    doReturn( true ).when( repositoryPublishResource ).invalidPath( "/public/r:.prpt" );
+    assertEquals( 422, repositoryPublishResource.writeFiles( reservedChars ).getStatus() );
+
+    FormDataBodyPart report = mock( FormDataBodyPart.class );
+    doReturn( emptyStream() ).when( report ).getValueAs( InputStream.class );
+    FormDataMultiPart duplicate = spy( new FormDataMultiPart()
+      .field( "manifest", "a=" + encode( "/public/r.prpt" ) + "\nb=" + encode( "/public/r.prpt" ) ) );
+    doReturn( report ).when( duplicate ).getField( "a" );
+    doReturn( report ).when( duplicate ).getField( "b" );
+    assertEquals( 422, repositoryPublishResource.writeFiles( duplicate ).getStatus() );
+
+    assertEquals( 422, repositoryPublishResource.writeFiles( new FormDataMultiPart() ).getStatus() );
+    verify( repositoryPublishResource.repositoryPublishService, never() )
+      .publishFiles( any(), any(), anyInt(), any() );
+  }
+
+  @Test
+  public void testGetPublishStatus() {
+    assertEquals( "SUCCESS", RepositoryPublishResource.getPublishStatus( null ) );
+    assertEquals( "9", RepositoryPublishResource.getPublishStatus(
+      new PlatformImportException( "exists", PlatformImportException.PUBLISH_CONTENT_EXISTS_ERROR ) ) );
+    assertEquals( String.valueOf( PUBLISH_GENERAL_ERROR ),
+      RepositoryPublishResource.getPublishStatus( new RuntimeException() ) );
+  }
+
   private static String encode( String originalPath ) throws UnsupportedEncodingException {
     return URLEncoder.encode( originalPath, "UTF-8" );
   }
@@ -19,6 +19,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.api.engine.PentahoAccessControlException;
+import org.pentaho.platform.api.repository2.unified.IPlatformImportBundle;
+import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.plugin.services.importer.IPlatformImporter;
 import org.pentaho.platform.plugin.services.importer.PlatformImportException;
 import org.pentaho.platform.plugin.services.importer.RepositoryFileImportBundle;
@@ -28,7 +31,17 @@ import org.pentaho.platform.security.policy.rolebased.actions.RepositoryCreateAc
 import org.pentaho.platform.security.policy.rolebased.actions.RepositoryReadAction;
 
 import java.io.InputStream;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
@@ -42,6 +55,8 @@ public class RepositoryPublishServiceTest {
     repositoryPublishService = spy( new RepositoryPublishService() );
     repositoryPublishService.platformImporter = mock( IPlatformImporter.class );
     repositoryPublishService.policy = mock( IAuthorizationPolicy.class );
+    repositoryPublishService.repository = mock( IUnifiedRepository.class );
+    doReturn( mock( RepositoryFile.class ) ).when( repositoryPublishService.repository ).getFile( "/public" );
     mockRepositoryFileImportBundle = mock( RepositoryFileImportBundle.class );
   }
 
@@ -136,4 +151,67 @@ public class RepositoryPublishServiceTest {
     doReturn( policy ).when( repositoryPublishService ).getPolicy();
     repositoryPublishService.validateAccess();
   }
+
+  @Test
+  public void testPublishFiles() throws Exception {
+    List<String> imported = Collections.synchronizedList( new ArrayList<>() );
+    doReturn( true ).when( repositoryPublishService.policy ).isAllowed( PublishAction.NAME );
+    doAnswer( invocation -> {
+      IPlatformImportBundle bundle = invocation.getArgument( 0 );
+      String path = bundle.getPath() + "/" + bundle.getName();
+      if ( path.endsWith( "broken.prpt" ) ) {
+        throw new PlatformImportException( "broken", PlatformImportException.PUBLISH_CONTENT_EXISTS_ERROR );
+      }
+      imported.add( path );
+      return null;
+    } ).when( repositoryPublishService.platformImporter ).importFile( any() );
+
+    Map<String, InputStream> files = new LinkedHashMap<>();
+    for ( String path : new String[] { "/public/a/b/3.prpt", "/public/a/1.prpt", "/public/c/broken.prpt",
+      "/public/a/2.prpt", "/public/c/4.prpt" } ) {
+      files.put( path, IOUtils.toInputStream( path ) );
+    }
+    Map<String, Exception> results = Collections.synchronizedMap( new HashMap<>() );
+
+    repositoryPublishService.publishFiles( files, Optional.empty(), 4, results::put );
+
+    assertEquals( files.keySet(), results.keySet() );
+    assertTrue( results.get( "/public/c/broken.prpt" ) instanceof PlatformImportException );
+    assertEquals( 4, imported.size() );
+    assertTrue( imported.indexOf( "/public/a/1.prpt" ) < imported.indexOf( "/public/a/2.prpt" ) );
+    assertTrue( imported.indexOf( "/public/a/2.prpt" ) < imported.indexOf( "/public/a/b/3.prpt" ) );
+    assertTrue( imported.contains( "/public/c/4.prpt" ) );
+  }
+
+  @Test
+  public void testPublishFilesCreatesMissingFoldersOnce() throws Exception {
+    AtomicInteger publishing = new AtomicInteger();
+    AtomicInteger maxPublishing = new AtomicInteger();
+    doReturn( true ).when( repositoryPublishService.policy ).isAllowed( PublishAction.NAME );
+    doAnswer( invocation -> {
+      maxPublishing.accumulateAndGet( publishing.incrementAndGet(), Math::max );
+      Thread.sleep( 20 );
+      publishing.decrementAndGet();
+      return null;
+    } ).when( repositoryPublishService.platformImporter ).importFile( any() );
+
+    Map<String, InputStream> files = new LinkedHashMap<>();
+    for ( String path : new String[] { "/public/new/a/1.prpt", "/public/new/b/2.prpt", "/public/new/c/3.prpt" } ) {
+      files.put( path, IOUtils.toInputStream( path ) );
+    }
+    Map<String, Exception> results = Collections.synchronizedMap( new HashMap<>() );
+
+    repositoryPublishService.publishFiles( files, Optional.empty(), 4, results::put );
+
+    assertEquals( files.keySet(), results.keySet() );
+    assertEquals( 1, maxPublishing.get() );
+  }
+
+  @Test( expected = PentahoAccessControlException.class )
+  public void testPublishFilesNeedsPublishPermission() throws Exception {
+    doReturn( false ).when( repositoryPublishService.policy ).isAllowed( PublishAction.NAME );
+
+    repositoryPublishService.publishFiles( Collections.singletonMap( "/public/a.prpt", IOUtils.toInputStream( "a" ) ),
+      Optional.empty(), 4, ( path, error ) -> fail() );
+  }
 }
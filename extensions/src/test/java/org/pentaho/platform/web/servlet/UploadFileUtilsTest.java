@@ -23,23 +23,31 @@ import org.junit.Test;
 import org.pentaho.platform.api.engine.IApplicationContext;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.core.system.StandaloneApplicationContext;
+import org.pentaho.platform.web.servlet.messages.Messages;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -118,6 +126,195 @@ public class UploadFileUtilsTest {
       testZipSlipFile( "src/test/resources/UploadFileUtilsTest/invalid.tar", MediaType.TAR.toString() ) );
   }
 
+  @Test
+  public void testZipExceedingTheFileLimitIsRejected() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    PentahoSystem.setApplicationContext( appContext );
+
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try ( ZipOutputStream zipStream = new ZipOutputStream( zip ) ) {
+      zipStream.putNextEntry( new ZipEntry( "a.csv" ) );
+      zipStream.write( new byte[ 600 ] );
+      zipStream.putNextEntry( new ZipEntry( "b.csv" ) );
+      zipStream.write( new byte[ 600 ] );
+    }
+
+    StringWriter writer = new StringWriter();
+    UploadFileUtils utils = createUtils( "data.zip", MediaType.ZIP.toString(), zip.toByteArray(), writer );
+    utils.setMaxFileSize( 1000 );
+
+    assertFalse( utils.process() );
+    assertEquals( Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0006_FILE_TOO_BIG" ),
+      writer.toString() );
+    try ( Stream<Path> files = Files.list( tempDir ) ) {
+      assertEquals( 0, files.filter( file -> !Files.isDirectory( file ) ).count() );
+    }
+  }
+
+  @Test
+  public void testRejectedZipKeepsExistingFiles() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    PentahoSystem.setApplicationContext( appContext );
+    Path existing = Files.write( tempDir.resolve( "a.csv" ), "a,b\n".getBytes( StandardCharsets.UTF_8 ) );
+
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try ( ZipOutputStream zipStream = new ZipOutputStream( zip ) ) {
+      zipStream.putNextEntry( new ZipEntry( "a.csv" ) );
+      zipStream.write( new byte[ 600 ] );
+      zipStream.putNextEntry( new ZipEntry( "b.csv" ) );
+      zipStream.write( new byte[ 600 ] );
+    }
+
+    UploadFileUtils utils =
+      createUtils( "data.zip", MediaType.ZIP.toString(), zip.toByteArray(), new StringWriter() );
+    utils.setMaxFileSize( 1000 );
+
+    assertFalse( utils.process() );
+    assertEquals( "a,b\n", new String( Files.readAllBytes( existing ), StandardCharsets.UTF_8 ) );
+    try ( Stream<Path> files = Files.list( tempDir ) ) {
+      assertEquals( 1, files.filter( file -> !Files.isDirectory( file ) ).count() );
+    }
+  }
+
+  @Test
+  public void testZipReplacesExistingFilesOnceUnpacked() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    PentahoSystem.setApplicationContext( appContext );
+    Files.write( tempDir.resolve( "a.csv" ), "a,b\n".getBytes( StandardCharsets.UTF_8 ) );
+
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try ( ZipOutputStream zipStream = new ZipOutputStream( zip ) ) {
+      zipStream.putNextEntry( new ZipEntry( "a.csv" ) );
+      zipStream.write( "c,d\n".getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    StringWriter writer = new StringWriter();
+    UploadFileUtils utils = createUtils( "data.zip", MediaType.ZIP.toString(), zip.toByteArray(), writer );
+
+    assertTrue( utils.process() );
+    assertEquals( "a.csv", writer.toString() );
+    assertEquals( "c,d\n", new String( Files.readAllBytes( tempDir.resolve( "a.csv" ) ), StandardCharsets.UTF_8 ) );
+    try ( Stream<Path> files = Files.list( tempDir ) ) {
+      assertEquals( 1, files.filter( file -> !Files.isDirectory( file ) ).count() );
+    }
+  }
+
+  @Test
+  public void testGZipIsUnpackedWithoutKeepingTheArchive() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    when( appContext.createTempFile( any(), any(), any(), anyBoolean() ) )
+      .thenAnswer( invocation -> Files.createTempFile( tempDir, "upload", invocation.getArgument( 2 ) ).toFile() );
+    PentahoSystem.setApplicationContext( appContext );
+
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+    try ( GZIPOutputStream gzipStream = new GZIPOutputStream( gzip ) ) {
+      gzipStream.write( "a,b\n1,2\n".getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    StringWriter writer = new StringWriter();
+    UploadFileUtils utils = createUtils( "data.csv.gz", "application/gzip", gzip.toByteArray(), writer );
+    utils.setTemporary( true );
+
+    assertTrue( utils.process() );
+    Path unpacked = tempDir.resolve( writer.toString() );
+    assertTrue( unpacked.toString().endsWith( ".csv.tmp" ) );
+    assertEquals( "a,b\n1,2\n", new String( Files.readAllBytes( unpacked ), StandardCharsets.UTF_8 ) );
+    try ( Stream<Path> files = Files.list( tempDir ) ) {
+      assertEquals( 1, files.filter( file -> !Files.isDirectory( file ) ).count() );
+    }
+  }
+
+  @Test
+  public void testGZipIsUnpackedUnderTheArchiveBaseName() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    PentahoSystem.setApplicationContext( appContext );
+
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+    try ( GZIPOutputStream gzipStream = new GZIPOutputStream( gzip ) ) {
+      gzipStream.write( "a,b\n1,2\n".getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    StringWriter writer = new StringWriter();
+    UploadFileUtils utils = createUtils( "data.csv.gz", "application/gzip", gzip.toByteArray(), writer );
+
+    assertTrue( utils.process() );
+    assertEquals( "data.csv", writer.toString() );
+    assertEquals( "a,b\n1,2\n",
+      new String( Files.readAllBytes( tempDir.resolve( "data.csv" ) ), StandardCharsets.UTF_8 ) );
+    assertFalse( Files.exists( tempDir.resolve( "csv" ) ) );
+  }
+
+  @Test
+  public void testZipEntryInASubfolderIsUnpacked() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    PentahoSystem.setApplicationContext( appContext );
+
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try ( ZipOutputStream zipStream = new ZipOutputStream( zip ) ) {
+      zipStream.putNextEntry( new ZipEntry( "sales/2024/a.csv" ) );
+      zipStream.write( "a,b\n".getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    StringWriter writer = new StringWriter();
+    UploadFileUtils utils = createUtils( "data.zip", MediaType.ZIP.toString(), zip.toByteArray(), writer );
+
+    assertTrue( utils.process() );
+    assertEquals( "a.csv", writer.toString() );
+    assertEquals( "a,b\n",
+      new String( Files.readAllBytes( tempDir.resolve( "sales/2024/a.csv" ) ), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  @SuppressWarnings( "deprecation" )
+  public void testDeprecatedHandleZipUnpacksAnArchiveOnDisk() throws Exception {
+    Path tempDir = Files.createTempDirectory( null );
+    IApplicationContext appContext = mock( IApplicationContext.class );
+    when( appContext.getSolutionPath( any() ) ).thenReturn( tempDir.toString() );
+    PentahoSystem.setApplicationContext( appContext );
+
+    Path archive = Files.createTempFile( null, ".zip" );
+    try ( ZipOutputStream zipStream = new ZipOutputStream( Files.newOutputStream( archive ) ) ) {
+      zipStream.putNextEntry( new ZipEntry( "a.csv" ) );
+      zipStream.write( "a,b\n".getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    // an empty upload sets up the upload folder
+    UploadFileUtils utils = createUtils( "data.zip", MediaType.ZIP.toString(), new byte[ 0 ], new StringWriter() );
+    assertTrue( utils.process() );
+
+    assertEquals( "a.csv", utils.handleZip( archive.toFile() ) );
+    assertEquals( "a,b\n", new String( Files.readAllBytes( tempDir.resolve( "a.csv" ) ), StandardCharsets.UTF_8 ) );
+  }
+
+  private UploadFileUtils createUtils( String fileName, String contentType, byte[] content, StringWriter writer )
+    throws Exception {
+    DiskFileItem diskFileItem = new DiskFileItem( "fileData", contentType, false, fileName, 100000000,
+      Files.createTempDirectory( null ).toFile() );
+    try ( OutputStream os = diskFileItem.getOutputStream() ) {
+      os.write( content );
+    }
+
+    UploadFileUtils utils = new UploadFileUtils( null );
+    utils.setShouldUnzip( true );
+    utils.setTemporary( false );
+    utils.setFileName( fileName );
+    utils.setWriter( writer );
+    utils.setUploadedFileItem( diskFileItem );
+    return utils;
+  }
+
   private List<Long> testZipSlipFile( String filename, String contentType ) throws Exception {
     Path outOfBoundsDir = Files.createTempDirectory( null );
     Path tempDir = Files.createTempDirectory( outOfBoundsDir, null );
@@ -0,0 +1,117 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.plugin.services.cache.WeightedCacheManager;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class XmlaDiscoverCacheTest {
+
+  private static final Map<String, Object> CONTEXT = Collections.emptyMap();
+
+  private ICacheManager cacheManager;
+
+  private XmlaDiscoverCache cache;
+
+  @Before
+  public void setUp() {
+    cacheManager = new WeightedCacheManager( new Properties() );
+    cache = new XmlaDiscoverCache( cacheManager );
+  }
+
+  private static Element body( String requestType, String restrictions, String catalog ) throws Exception {
+    String xml = "<Body><Discover xmlns=\"urn:schemas-microsoft-com:xml-analysis\">"
+      + "<RequestType>" + requestType + "</RequestType>"
+      + "<Restrictions><RestrictionList>" + restrictions + "</RestrictionList></Restrictions>"
+      + "<Properties><PropertyList>"
+      + ( catalog != null ? "<Catalog>" + catalog + "</Catalog>" : "" )
+      + "<Format>Tabular</Format></PropertyList></Properties>"
+      + "</Discover></Body>";
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware( true );
+    return factory.newDocumentBuilder().parse( new InputSource( new StringReader( xml ) ) ).getDocumentElement();
+  }
+
+  @Test
+  public void testOnlySchemaRowsetsOfACatalogAreCached() throws Exception {
+    assertEquals( "SteelWheels", XmlaDiscoverCache.getCatalogName( body( "MDSCHEMA_CUBES", "", "SteelWheels" ) ) );
+    assertNull( XmlaDiscoverCache.getCatalogName( body( "MDSCHEMA_MEMBERS", "", "SteelWheels" ) ) );
+    assertNull( XmlaDiscoverCache.getCatalogName( body( "DISCOVER_DATASOURCES", "", "SteelWheels" ) ) );
+    assertNull( XmlaDiscoverCache.getCatalogName( body( "MDSCHEMA_CUBES", "", null ) ) );
+  }
+
+  @Test
+  public void testKey() throws Exception {
+    String key = XmlaDiscoverCache.key( body( "MDSCHEMA_CUBES", "<CUBE_NAME>Sales</CUBE_NAME>", "SteelWheels" ),
+      "SteelWheels", new String[] { "Power User", "Admin" }, "UTF-8", CONTEXT );
+
+    assertEquals( key, XmlaDiscoverCache.key( body( "MDSCHEMA_CUBES", " <CUBE_NAME>Sales</CUBE_NAME>\n",
+      "SteelWheels" ), "SteelWheels", new String[] { "Admin", "Power User" }, "UTF-8", CONTEXT ) );
+    assertNotEquals( key, XmlaDiscoverCache.key( body( "MDSCHEMA_CUBES", "<CUBE_NAME>Sales</CUBE_NAME>",
+      "SteelWheels" ), "SteelWheels", new String[] { "Admin" }, "UTF-8", CONTEXT ) );
+    assertNotEquals( key, XmlaDiscoverCache.key( body( "MDSCHEMA_CUBES", "<CUBE_NAME>Trucks</CUBE_NAME>",
+      "SteelWheels" ), "SteelWheels", new String[] { "Power User", "Admin" }, "UTF-8", CONTEXT ) );
+  }
+
+  @Test
+  public void testResponsesBuiltFromAnotherCatalogAreIgnored() {
+    Object catalog = new Object();
+    byte[] response = { 1, 2, 3 };
+    cache.put( "key", catalog, response );
+
+    assertArrayEquals( response, cache.get( "key", catalog ) );
+    assertNull( cache.get( "key", new Object() ) );
+  }
+
+  @Test
+  public void testLargeResponsesAreNotCached() {
+    Object catalog = new Object();
+    cache.put( "key", catalog, new byte[ XmlaDiscoverCache.MAX_BODY_BYTES + 1 ] );
+
+    assertNull( cache.get( "key", catalog ) );
+  }
+
+  @Test
+  public void testFlush() throws Exception {
+    Object catalog = new Object();
+    String steelWheels = XmlaDiscoverCache.key( body( "MDSCHEMA_CUBES", "", "SteelWheels" ), "SteelWheels",
+      new String[ 0 ], "UTF-8", CONTEXT );
+    String sampleData = XmlaDiscoverCache.key( body( "MDSCHEMA_CUBES", "", "SampleData" ), "SampleData",
+      new String[ 0 ], "UTF-8", CONTEXT );
+    cache.put( steelWheels, catalog, new byte[ 1 ] );
+    cache.put( sampleData, catalog, new byte[ 1 ] );
+
+    XmlaDiscoverCache.flush( cacheManager, "SteelWheels" );
+    assertNull( cache.get( steelWheels, catalog ) );
+    assertEquals( 1, cache.get( sampleData, catalog ).length );
+
+    XmlaDiscoverCache.flush( cacheManager, null );
+    assertNull( cache.get( sampleData, catalog ) );
+  }
+}
@@ -13,34 +13,29 @@
 
 package org.apache.jackrabbit.core.security.authorization.acl;
 
-import org.apache.commons.collections4.map.LRUMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.jackrabbit.core.NodeImpl;
 import org.apache.jackrabbit.core.SessionImpl;
-import org.apache.jackrabbit.core.cache.GrowingLRUMap;
 import org.apache.jackrabbit.core.id.NodeId;
 import org.apache.jackrabbit.core.security.authorization.AccessControlModifications;
-import org.pentaho.platform.api.engine.ICacheManager;
-import org.pentaho.platform.api.engine.ILogoutListener;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
-import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.security.policy.rolebased.IRoleAuthorizationPolicyRoleBindingDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
 
 import javax.jcr.RepositoryException;
-import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * <code>CachingEntryCollector</code> extends <code>PentahoEntryCollector</code> by keeping a cache of ACEs per access
  * controlled nodeId.
  * <p/>
- * This class is a copy of the one in trunk of Jackrabbit. Backported here for performance reasons.
+ * This class is a copy of the one in trunk of Jackrabbit. Backported here for performance reasons. Unlike the
+ * original, the cache is shared by all sessions; see {@link SharedEntryCache}.
  */
 public class CachingPentahoEntryCollector extends PentahoEntryCollector {
 
@@ -48,12 +43,14 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
    * logger instance
    */
   private static final Logger log = LoggerFactory.getLogger( CachingEntryCollector.class );
-  public static final String ENTRY_COLLECTOR = "ENTRY_COLLECTOR";
-  private final ICacheManager cacheManager;
 
+  private static final int MAX_CACHED_FINGERPRINTS = 10000;
 
-  private final Map<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>> futuresBySession = Collections
-      .synchronizedMap( new LRUMap<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>>( 512, 128 ) );
+  private final SharedEntryCache cache;
+
+  // session -> magic ACE fingerprint of the session; sessions are compared by identity and dropped once collected
+  private final Cache<IPentahoSession, Fingerprint> fingerprints =
+      CacheBuilder.newBuilder().weakKeys().maximumSize( MAX_CACHED_FINGERPRINTS ).build();
 
   /**
    * Create a new instance.
@@ -66,69 +63,64 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
       throws RepositoryException {
     super( systemSession, rootID, configuration );
 
-    // Flush caches of session on logout
-    PentahoSystem.addLogoutListener( new ILogoutListener() {
-      @Override
-      public void onLogout( IPentahoSession iPentahoSession ) {
-
-        log.debug( "Flushing ACL Entries due to logout for session: " + iPentahoSession.getName() );
-        flushCachesOfSession( iPentahoSession );
-      }
-    } );
+    int maxsize = 5000;
+    String propname = "org.apache.jackrabbit.core.security.authorization.acl.CachingEntryCollector.maxsize";
+    try {
+      maxsize = Integer.parseInt( System.getProperty( propname, Integer.toString( maxsize ) ) );
+    } catch ( NumberFormatException ex ) {
+      log.debug( "Parsing system property " + propname + " with value: " + System.getProperty( propname ), ex );
+    }
 
-    cacheManager = PentahoSystem.getCacheManager( null ); // not session instanced
-  }
+    log.info( "Creating cache with max size of: " + maxsize );
 
-  private void flushCachesOfSession( IPentahoSession iPentahoSession ) {
+    String propsrname = "org.apache.jackrabbit.core.security.authorization.acl.CachingEntryCollector.scroot";
+    boolean specialCaseRoot = Boolean.parseBoolean( System.getProperty( propsrname, "true" ) );
 
-    cacheManager.removeFromSessionCache( iPentahoSession, ENTRY_COLLECTOR );
+    log.info( "Root is special-cased: " + specialCaseRoot );
 
-    synchronized ( futuresBySession ) {
-      if ( futuresBySession.containsKey( iPentahoSession ) ) {
-        futuresBySession.get( iPentahoSession ).clear();
-        futuresBySession.remove( iPentahoSession );
-      }
-    }
+    cache = new SharedEntryCache( rootID, maxsize, specialCaseRoot );
   }
 
-  private EntryCache getCache() {
-    IPentahoSession session = PentahoSessionHolder.getSession();
-    EntryCache cache = (EntryCache) cacheManager.getFromSessionCache( session, ENTRY_COLLECTOR );
-    if ( cache == null ) {
-      cache = new EntryCache();
-      cacheManager.putInSessionCache( session, ENTRY_COLLECTOR, cache );
-    }
+  @Override
+  protected void close() {
+    super.close();
+    cache.clear();
+    fingerprints.invalidateAll();
+  }
 
-    return cache;
+  @Override
+  protected void userMagicAceAdded() {
+    cache.markUserSpecific();
   }
 
-  private ConcurrentMap<NodeId, FutureEntries> getFutures() {
+  private String getUserName() {
     IPentahoSession session = PentahoSessionHolder.getSession();
-    if ( futuresBySession.containsKey( session ) ) {
-      return futuresBySession.get( session );
-    }
-    ConcurrentMap<NodeId, FutureEntries> futures = new ConcurrentHashMap<NodeId, FutureEntries>();
-    futuresBySession.put( session, futures );
-    return futures;
+    return session != null ? session.getName() : null;
   }
 
+  /**
+   * Looks the fingerprint up once per session and authentication, and again only when the role bindings change.
+   * Bindings that do not track their changes are looked up on every call.
+   */
   @Override
-  protected void close() {
-    super.close();
-
-    performAgainstAllInCache( new CacheCallable() {
-      @Override public void call( EntryCache cache ) {
-        cache.clear();
-      }
-    } );
-
-    synchronized ( futuresBySession ) {
-      for ( Map.Entry<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>> entry : this.futuresBySession
-          .entrySet() ) {
-        entry.getValue().clear();
-      }
-      futuresBySession.clear();
+  protected String getMagicAceFingerprint() throws RepositoryException {
+    if ( !hasPentahoSession() ) {
+      return ""; //$NON-NLS-1$
+    }
+    IRoleAuthorizationPolicyRoleBindingDao roleBindingDao = getMagicAceRoleBindingDao();
+    long version = roleBindingDao != null ? roleBindingDao.getRoleBindingsVersion() : -1;
+    if ( version < 0 ) {
+      return getMagicAceFingerprint( roleBindingDao );
     }
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    Authentication authentication = SecurityHelper.getInstance().getAuthentication();
+    Fingerprint cached = fingerprints.getIfPresent( session );
+    if ( cached != null && cached.isCurrent( authentication, version ) ) {
+      return cached.value;
+    }
+    String fingerprint = getMagicAceFingerprint( roleBindingDao );
+    fingerprints.put( session, new Fingerprint( authentication, version, fingerprint ) );
+    return fingerprint;
   }
 
   // -----------------------------------------------------< EntryCollector >---
@@ -139,10 +131,11 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
   @Override
   protected PentahoEntries getEntries( NodeImpl node ) throws RepositoryException {
     NodeId nodeId = node.getNodeId();
-    Entries entries = getCache().get( nodeId );
+    String fingerprint = getMagicAceFingerprint();
+    Entries entries = cache.get( nodeId, fingerprint, getUserName() );
     if ( entries == null ) {
       // fetch entries and update the cache
-      entries = updateCache( node );
+      entries = updateCache( node, fingerprint );
     }
     return entries instanceof PentahoEntries ? (PentahoEntries) entries : new PentahoEntries( entries );
   }
@@ -152,80 +145,31 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
    */
   @Override
   protected Entries getEntries( NodeId nodeId ) throws RepositoryException {
-    Entries entries = getCache().get( nodeId );
+    String fingerprint = getMagicAceFingerprint();
+    Entries entries = cache.get( nodeId, fingerprint, getUserName() );
     if ( entries == null ) {
       // fetch entries and update the cache
       NodeImpl n = getNodeById( nodeId );
-      entries = updateCache( n );
+      entries = updateCache( n, fingerprint );
     }
     return entries;
   }
 
   /**
-   * Read the entries defined for the specified node and update the cache accordingly.
+   * Read the entries defined for the specified node and update the cache accordingly. Blocks the current thread if a
+   * concurrent update for the same node id and user takes place.
    *
-   * @param node The target node
+   * @param node        The target node
+   * @param fingerprint The magic ACE fingerprint of the current session
    * @return The list of entries present on the specified node or an empty list.
    * @throws RepositoryException If an error occurs.
    */
-  private Entries internalUpdateCache( NodeImpl node ) throws RepositoryException {
-    Entries entries = super.getEntries( node );
-    if ( ( isRootId( node.getNodeId() ) && getCache().specialCasesRoot() ) || !entries.isEmpty() ) {
-      // adjust the 'nextId' to point to the next access controlled
-      // ancestor node instead of the parent and remember the entries.
-      // entries.setNextId(getNextID(node));
-      getCache().put( node.getNodeId(), entries );
-    } // else: not access controlled -> ignore.
-    return entries;
-  }
-
-  /**
-   * Update cache for the given node id
-   *
-   * @param node The target node
-   * @return The list of entries present on the specified node or an empty list.
-   * @throws RepositoryException
-   */
-  private Entries updateCache( NodeImpl node ) throws RepositoryException {
-    return throttledUpdateCache( node );
-  }
-
-  /**
-   * See {@link CachingEntryCollector#updateCache(NodeImpl)} ; this variant blocks the current thread if a concurrent
-   * update for the same node id takes place
-   */
-  private Entries throttledUpdateCache( NodeImpl node ) throws RepositoryException {
-    NodeId id = node.getNodeId();
-    FutureEntries fe = null;
-    FutureEntries nfe = new FutureEntries();
-    boolean found = true;
-
-    fe = getFutures().putIfAbsent( id, nfe );
-    if ( fe == null ) {
-      found = false;
-      fe = nfe;
-    }
-
-    if ( found ) {
-      // we have found a previous FutureEntries object, so use it
-      return fe.get();
-    } else {
-      // otherwise obtain result and when done notify waiting FutureEntries
-      try {
-        Entries e = internalUpdateCache( node );
-        getFutures().remove( id );
-        fe.setResult( e );
-        return e;
-      } catch ( Throwable problem ) {
-        getFutures().remove( id );
-        fe.setProblem( problem );
-        if ( problem instanceof RepositoryException ) {
-          throw (RepositoryException) problem;
-        } else {
-          throw new RuntimeException( problem );
-        }
+  private Entries updateCache( final NodeImpl node, String fingerprint ) throws RepositoryException {
+    return cache.load( node.getNodeId(), fingerprint, getUserName(), new SharedEntryCache.Loader() {
+      @Override public Entries load() throws RepositoryException {
+        return CachingPentahoEntryCollector.super.getEntries( node );
       }
-    }
+    } );
   }
 
   /**
@@ -239,7 +183,7 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
     NodeId nextId = null;
     while ( nextId == null && !isRootId( n.getNodeId() ) ) {
       NodeId parentId = n.getParentId();
-      if ( getCache().containsKey( parentId ) ) {
+      if ( cache.containsKey( parentId ) ) {
         nextId = parentId;
       } else {
         NodeImpl parent = (NodeImpl) n.getParent();
@@ -281,31 +225,6 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
     return false;
   }
 
-  /**
-   * Utility SMI
-   */
-  private interface CacheCallable {
-    void call( EntryCache cache );
-  }
-
-  private static final Pattern SESSION_KEY_PATTERN = Pattern.compile( "[^\\t]*\\t(.*)" );
-
-  private void performAgainstAllInCache( CacheCallable callable ) {
-    Set allKeysFromRegionCache = cacheManager.getAllKeysFromRegionCache( ICacheManager.SESSION );
-    for ( Object compositeKey : allKeysFromRegionCache ) {
-      Matcher matcher = SESSION_KEY_PATTERN.matcher( compositeKey.toString() );
-      if ( matcher.matches() ) {
-        String key = matcher.toMatchResult().group( 1 );
-        if ( ENTRY_COLLECTOR.equals( key ) ) {
-          Object fromRegionCache = cacheManager.getFromRegionCache( ICacheManager.SESSION, compositeKey );
-          if ( EntryCache.class.isAssignableFrom( fromRegionCache.getClass() ) ) {
-            callable.call( (EntryCache) fromRegionCache );
-          }
-        }
-      }
-    }
-  }
-
   /**
    * @see EntryCollector#notifyListeners(org.apache.jackrabbit.core.security.authorization.AccessControlModifications)
    */
@@ -326,39 +245,22 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
         // clear the complete cache since the nextAcNodeId may
         // have changed due to the added ACL.
         log.debug( "Policy added, clearing the cache" );
-        performAgainstAllInCache( new CacheCallable() {
-          @Override public void call( EntryCache cache ) {
-            cache.clear();
-          }
-        } );
+        cache.clear();
         break; // no need for further processing.
       } else if ( ( type & POLICY_REMOVED ) == POLICY_REMOVED ) {
 
         // clear the entry and change the entries having a nextID
         // pointing to this node.
-        performAgainstAllInCache( new CacheCallable() {
-          @Override public void call( EntryCache cache ) {
-            cache.remove( nodeId, true );
-          }
-        } );
+        cache.remove( nodeId, true );
 
       } else if ( ( type & POLICY_MODIFIED ) == POLICY_MODIFIED ) {
         // simply clear the cache entry -> reload upon next access.
-        performAgainstAllInCache( new CacheCallable() {
-          @Override public void call( EntryCache cache ) {
-            cache.remove( nodeId, false );
-          }
-        } );
+        cache.remove( nodeId, false );
 
       } else if ( ( type & MOVE ) == MOVE ) {
         // some sort of move operation that may affect the cache
         log.debug( "Move operation, clearing the cache" );
-
-        performAgainstAllInCache( new CacheCallable() {
-          @Override public void call( EntryCache cache ) {
-            cache.clear();
-          }
-        } );
+        cache.clear();
         break; // no need for further processing.
       }
     }
@@ -366,159 +268,24 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
   }
 
   /**
-   * A place holder for a yet to be computed {@link Entries} result
+   * The magic ACE fingerprint of an authentication at a given version of the role bindings.
    */
-  private class FutureEntries {
-
-    private boolean ready = false;
-    private Entries result = null;
-    private Throwable problem = null;
-
-    public synchronized Entries get() throws RepositoryException {
-      while ( !ready ) {
-        try {
-          wait();
-        } catch ( InterruptedException e ) {
-          // CHECKSTYLES IGNORE
-        }
-      }
-      if ( problem != null ) {
-        if ( problem instanceof RepositoryException ) {
-          throw new RepositoryException( problem );
-        } else {
-          throw new RuntimeException( problem );
-        }
-      }
-      return result;
-    }
+  private static class Fingerprint {
 
-    public synchronized void setResult( Entries e ) {
-      result = e;
-      ready = true;
-      notifyAll();
-    }
+    private final Authentication authentication;
 
-    public synchronized void setProblem( Throwable t ) {
-      problem = t;
-      ready = true;
-      notifyAll();
-    }
-  }
+    private final long version;
 
-  /**
-   * A cache to lookup the ACEs defined on a given (access controlled) node. The internal map uses the ID of the node as
-   * key while the value consists of {@Entries} objects that not only provide the ACEs defined for that node but also
-   * the ID of the next access controlled parent node.
-   */
-  private class EntryCache {
-
-    private final Map<NodeId, Entries> cache;
-    private Entries rootEntries;
-    private boolean specialCaseRoot = true;
-
-    @SuppressWarnings( "unchecked" )
-    public EntryCache() {
-      int maxsize = 5000;
-      String propname = "org.apache.jackrabbit.core.security.authorization.acl.CachingEntryCollector.maxsize";
-      try {
-        maxsize = Integer.parseInt( System.getProperty( propname, Integer.toString( maxsize ) ) );
-      } catch ( NumberFormatException ex ) {
-        log.debug( "Parsing system property " + propname + " with value: " + System.getProperty( propname ), ex );
-      }
-
-      log.info( "Creating cache with max size of: " + maxsize );
-
-      cache = new GrowingLRUMap( 1024, maxsize );
-
-      String propsrname = "org.apache.jackrabbit.core.security.authorization.acl.CachingEntryCollector.scroot";
-      specialCaseRoot = Boolean.parseBoolean( System.getProperty( propsrname, "true" ) );
-
-      log.info( "Root is special-cased: " + specialCaseRoot );
-    }
+    private final String value;
 
-    public boolean specialCasesRoot() {
-      return specialCaseRoot;
+    Fingerprint( Authentication authentication, long version, String value ) {
+      this.authentication = authentication;
+      this.version = version;
+      this.value = value;
     }
 
-    public boolean containsKey( NodeId id ) {
-      if ( specialCaseRoot && isRootId( id ) ) {
-        return rootEntries != null;
-      } else {
-        synchronized ( cache ) {
-          return cache.containsKey( id );
-        }
-      }
-    }
-
-    public void clear() {
-      rootEntries = null;
-      synchronized ( cache ) {
-        cache.clear();
-      }
-    }
-
-    public Entries get( NodeId id ) {
-      Entries result;
-
-      if ( specialCaseRoot && isRootId( id ) ) {
-        result = rootEntries;
-      } else {
-        synchronized ( cache ) {
-          result = cache.get( id );
-        }
-      }
-
-      if ( result != null ) {
-        log.debug( "Cache hit for nodeId {}", id );
-      } else {
-        log.debug( "Cache miss for nodeId {}", id );
-      }
-
-      return result;
-    }
-
-    public void put( NodeId id, Entries entries ) {
-      log.debug( "Updating cache for nodeId {}", id );
-
-      // fail early on potential cache corruption
-      if ( id.equals( entries.getNextId() ) ) {
-        throw new IllegalArgumentException( "Trying to update cache entry for " + id + " with a circular reference" );
-      }
-
-      if ( specialCaseRoot && isRootId( id ) ) {
-        rootEntries = entries;
-      } else {
-        synchronized ( cache ) {
-          cache.put( id, entries );
-        }
-      }
-    }
-
-    public void remove( NodeId id, boolean adjustNextIds ) {
-      log.debug( "Removing nodeId {} from cache", id );
-      Entries result;
-      synchronized ( cache ) {
-        if ( specialCaseRoot && isRootId( id ) ) {
-          result = rootEntries;
-          rootEntries = null;
-        } else {
-          result = cache.remove( id );
-        }
-
-        if ( adjustNextIds && result != null ) {
-          NodeId nextId = result.getNextId();
-          for ( Entries entry : cache.values() ) {
-            if ( id.equals( entry.getNextId() ) ) {
-              // fail early on potential cache corruption
-              if ( id.equals( nextId ) ) {
-                throw new IllegalArgumentException( "Trying to update cache entry for " + id
-                    + " with a circular reference" );
-              }
-              entry.setNextId( nextId );
-            }
-          }
-        }
-      }
+    boolean isCurrent( Authentication authentication, long version ) {
+      return this.authentication == authentication && this.version == version;
     }
   }
 }
@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.security.AccessControlEntry;
@@ -247,8 +249,7 @@ public class PentahoEntryCollector extends EntryCollector {
   protected List<PentahoEntry> getAcesIncludingMagicAces( final String path, final String owner,
                                                                 final ACLTemplate ancestorAcl, final ACLTemplate acl )
     throws RepositoryException {
-    if ( PentahoSessionHolder.getSession() == null || PentahoSessionHolder.getSession().getId() == null
-        || PentahoSessionHolder.getSession().getId().trim().equals( "" ) ) { //$NON-NLS-1$
+    if ( !hasPentahoSession() ) {
       if ( log.isDebugEnabled() ) {
         log.debug( "no PentahoSession so no magic ACEs" ); //$NON-NLS-1$
       }
@@ -259,14 +260,7 @@ public class PentahoEntryCollector extends EntryCollector {
     }
 
     boolean match = false;
-    IRoleAuthorizationPolicyRoleBindingDao roleBindingDao = null;
-    try {
-      roleBindingDao =
-        PentahoSystem.getObjectFactory().get( IRoleAuthorizationPolicyRoleBindingDao.class,
-          "roleAuthorizationPolicyRoleBindingDaoTarget", PentahoSessionHolder.getSession() );
-    } catch ( ObjectFactoryException e ) {
-      e.printStackTrace();
-    }
+    IRoleAuthorizationPolicyRoleBindingDao roleBindingDao = getMagicAceRoleBindingDao();
 
     ITenant tenant = JcrTenantUtils.getTenant();
     for ( final MagicAceDefinition def : getMagicAceDefinitions() ) {
@@ -301,6 +295,7 @@ public class PentahoEntryCollector extends EntryCollector {
         // later;
         // changed never persisted
         acl.addAccessControlEntry( principal, def.privileges );
+        userMagicAceAdded();
       }
     }
 
@@ -311,6 +306,62 @@ public class PentahoEntryCollector extends EntryCollector {
     return acEntries;
   }
 
+  protected static boolean hasPentahoSession() {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    return session != null && session.getId() != null && !session.getId().trim().equals( "" ); //$NON-NLS-1$
+  }
+
+  protected IRoleAuthorizationPolicyRoleBindingDao getMagicAceRoleBindingDao() {
+    try {
+      return PentahoSystem.getObjectFactory().get( IRoleAuthorizationPolicyRoleBindingDao.class,
+        "roleAuthorizationPolicyRoleBindingDaoTarget", PentahoSessionHolder.getSession() );
+    } catch ( ObjectFactoryException e ) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Returns a fingerprint of the magic ACEs the current session is entitled to: its tenant and the logical roles of the
+   * magic ACE definitions it is granted. Sessions with the same fingerprint get the same entries for a node, except for
+   * magic ACEs naming the session's user; see {@link #userMagicAceAdded()}.
+   */
+  protected String getMagicAceFingerprint() throws RepositoryException {
+    if ( !hasPentahoSession() ) {
+      return ""; //$NON-NLS-1$
+    }
+    return getMagicAceFingerprint( getMagicAceRoleBindingDao() );
+  }
+
+  /**
+   * Computes the fingerprint of the current session from the given bindings, which may be {@code null}.
+   */
+  protected String getMagicAceFingerprint( IRoleAuthorizationPolicyRoleBindingDao roleBindingDao )
+    throws RepositoryException {
+    Set<String> grantedRoles = new TreeSet<String>();
+    if ( roleBindingDao != null ) {
+      List<String> boundRoles = roleBindingDao.getBoundLogicalRoleNames( systemSession, getRuntimeRoleNames() );
+      for ( MagicAceDefinition def : getMagicAceDefinitions() ) {
+        if ( boundRoles.contains( def.logicalRole ) ) {
+          grantedRoles.add( def.logicalRole );
+        }
+      }
+    }
+    ITenant tenant = JcrTenantUtils.getTenant();
+    StringBuilder fingerprint = new StringBuilder( tenant != null ? tenant.getRootFolderAbsolutePath() : "" ); //$NON-NLS-1$
+    for ( String role : grantedRoles ) {
+      fingerprint.append( '\n' ).append( role );
+    }
+    return fingerprint.toString();
+  }
+
+  /**
+   * Called when a magic ACE naming the current user is added to the entries being built, which makes them specific to
+   * that user.
+   */
+  protected void userMagicAceAdded() {
+  }
+
   /**
    * Selects (and modifies) ACEs containing JCR_ADD_CHILD_NODES or JCR_REMOVE_CHILD_NODES privileges from the given
    * ACL.
@@ -0,0 +1,287 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.apache.jackrabbit.core.security.authorization.acl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.jackrabbit.core.id.NodeId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of the ACEs of access controlled nodes shared by all sessions.
+ * <p/>
+ * The entries of a node differ between sessions only through magic ACEs. Which magic ACEs apply is decided by a
+ * fingerprint of the session (its tenant and the logical roles of the magic ACE definitions it is granted), so entries
+ * are stored per node and fingerprint. A magic ACE also names the user it was added for; entries that contain one,
+ * directly or through an ancestor, are stored per node, fingerprint and user instead.
+ * <p/>
+ * Concurrent loads of the same entries are collapsed into one. Once more than the maximum number of nodes are cached,
+ * the least recently used ones are dropped; a special-cased root node is never dropped.
+ */
+class SharedEntryCache {
+
+  private static final Logger log = LoggerFactory.getLogger( SharedEntryCache.class );
+
+  /**
+   * Reads the entries of a node.
+   */
+  interface Loader {
+    Entries load() throws RepositoryException;
+  }
+
+  private final NodeId rootId;
+
+  private final boolean specialCaseRoot;
+
+  private final Cache<NodeId, ConcurrentMap<String, Entries>> cache;
+
+  // holds the root node when it is special-cased, out of reach of the eviction of the cache
+  private final ConcurrentMap<NodeId, ConcurrentMap<String, Entries>> pinned =
+      new ConcurrentHashMap<NodeId, ConcurrentMap<String, Entries>>();
+
+  private final ConcurrentMap<String, FutureEntries> futures = new ConcurrentHashMap<String, FutureEntries>();
+
+  /**
+   * Whether the entries being loaded on this thread contain a magic ACE naming the user.
+   */
+  private final ThreadLocal<Boolean> userSpecific = new ThreadLocal<Boolean>();
+
+  SharedEntryCache( NodeId rootId, int maxSize, boolean specialCaseRoot ) {
+    this.rootId = rootId;
+    this.specialCaseRoot = specialCaseRoot;
+    // the pinned root counts towards the maximum size
+    int evictableSize = specialCaseRoot ? Math.max( 0, maxSize - 1 ) : maxSize;
+    this.cache = CacheBuilder.newBuilder().maximumSize( evictableSize ).build();
+  }
+
+  private ConcurrentMap<NodeId, ConcurrentMap<String, Entries>> mapOf( NodeId id ) {
+    return specialCaseRoot && rootId.equals( id ) ? pinned : cache.asMap();
+  }
+
+  private static String userKey( String fingerprint, String user ) {
+    return fingerprint + '\u0000' + ( user != null ? user : "" );
+  }
+
+  /**
+   * Looks up the entries of a node.
+   *
+   * @return the entries, or <code>null</code> if they have to be loaded
+   */
+  Entries get( NodeId id, String fingerprint, String user ) {
+    Map<String, Entries> variants = mapOf( id ).get( id );
+    if ( variants == null ) {
+      log.debug( "Cache miss for nodeId {}", id );
+      return null;
+    }
+    Entries result = variants.get( fingerprint );
+    if ( result == null ) {
+      result = variants.get( userKey( fingerprint, user ) );
+      if ( result != null ) {
+        markUserSpecific();
+      }
+    }
+    if ( result != null ) {
+      log.debug( "Cache hit for nodeId {}", id );
+    } else {
+      log.debug( "Cache miss for nodeId {}", id );
+    }
+    return result;
+  }
+
+  boolean containsKey( NodeId id ) {
+    return mapOf( id ).containsKey( id );
+  }
+
+  /**
+   * Loads the entries of a node and caches them, unless they are empty. A thread asking for entries that another thread
+   * is already loading for the same fingerprint waits for that load, and uses its result unless it turned out to be
+   * specific to another user.
+   */
+  Entries load( NodeId id, String fingerprint, String user, Loader loader ) throws RepositoryException {
+    String userKey = userKey( fingerprint, user );
+    String futureKey = id + "\t" + fingerprint;
+    FutureEntries nfe = new FutureEntries( userKey );
+    FutureEntries fe;
+    while ( ( fe = futures.putIfAbsent( futureKey, nfe ) ) != null ) {
+      // we have found a previous FutureEntries object, so use it
+      Entries entries = fe.get();
+      if ( !fe.userSpecific ) {
+        return entries;
+      }
+      if ( fe.userKey.equals( userKey ) ) {
+        markUserSpecific();
+        return entries;
+      }
+    }
+
+    Boolean outer = userSpecific.get();
+    boolean specific = false;
+    try {
+      userSpecific.set( Boolean.FALSE );
+      // another thread may have cached the entries between our lookup and now
+      Entries entries = get( id, fingerprint, user );
+      if ( entries == null ) {
+        entries = loader.load();
+        specific = Boolean.TRUE.equals( userSpecific.get() );
+        if ( ( specialCaseRoot && rootId.equals( id ) ) || !entries.isEmpty() ) {
+          put( id, specific ? userKey : fingerprint, entries );
+        } // else: not access controlled -> ignore.
+      } else {
+        specific = Boolean.TRUE.equals( userSpecific.get() );
+      }
+      futures.remove( futureKey );
+      nfe.setResult( entries, specific );
+      return entries;
+    } catch ( Throwable problem ) {
+      futures.remove( futureKey );
+      nfe.setProblem( problem );
+      if ( problem instanceof RepositoryException ) {
+        throw (RepositoryException) problem;
+      } else if ( problem instanceof RuntimeException ) {
+        throw (RuntimeException) problem;
+      } else {
+        throw new RuntimeException( problem );
+      }
+    } finally {
+      // entries built from these entries are user specific too
+      if ( outer == null ) {
+        userSpecific.remove();
+      } else {
+        userSpecific.set( outer || specific );
+      }
+    }
+  }
+
+  /**
+   * Records that the entries being loaded on this thread contain a magic ACE naming the user.
+   */
+  void markUserSpecific() {
+    if ( userSpecific.get() != null ) {
+      userSpecific.set( Boolean.TRUE );
+    }
+  }
+
+  private void put( NodeId id, String key, Entries entries ) {
+    log.debug( "Updating cache for nodeId {}", id );
+
+    // fail early on potential cache corruption
+    if ( id.equals( entries.getNextId() ) ) {
+      throw new IllegalArgumentException( "Trying to update cache entry for " + id + " with a circular reference" );
+    }
+
+    ConcurrentMap<NodeId, ConcurrentMap<String, Entries>> map = mapOf( id );
+    ConcurrentMap<String, Entries> variants = map.get( id );
+    if ( variants == null ) {
+      variants = new ConcurrentHashMap<String, Entries>();
+      ConcurrentMap<String, Entries> existing = map.putIfAbsent( id, variants );
+      if ( existing != null ) {
+        variants = existing;
+      }
+    }
+    variants.put( key, entries );
+  }
+
+  void remove( NodeId id, boolean adjustNextIds ) {
+    log.debug( "Removing nodeId {} from cache", id );
+    Map<String, Entries> removed = mapOf( id ).remove( id );
+    if ( !adjustNextIds || removed == null ) {
+      return;
+    }
+    for ( Entries result : removed.values() ) {
+      NodeId nextId = result.getNextId();
+      adjustNextIds( cache.asMap(), id, nextId );
+      adjustNextIds( pinned, id, nextId );
+    }
+  }
+
+  private static void adjustNextIds( Map<NodeId, ConcurrentMap<String, Entries>> map, NodeId id, NodeId nextId ) {
+    for ( Map<String, Entries> variants : map.values() ) {
+      for ( Entries entry : variants.values() ) {
+        if ( id.equals( entry.getNextId() ) ) {
+          // fail early on potential cache corruption
+          if ( id.equals( nextId ) ) {
+            throw new IllegalArgumentException( "Trying to update cache entry for " + id
+                + " with a circular reference" );
+          }
+          entry.setNextId( nextId );
+        }
+      }
+    }
+  }
+
+  void clear() {
+    cache.invalidateAll();
+    pinned.clear();
+  }
+
+  /**
+   * @return the number of nodes with cached entries
+   */
+  int size() {
+    return (int) cache.size() + pinned.size();
+  }
+
+  /**
+   * A place holder for a yet to be computed {@link Entries} result
+   */
+  private static class FutureEntries {
+
+    private final String userKey;
+    private boolean ready = false;
+    private Entries result = null;
+    private boolean userSpecific = false;
+    private Throwable problem = null;
+
+    FutureEntries( String userKey ) {
+      this.userKey = userKey;
+    }
+
+    public synchronized Entries get() throws RepositoryException {
+      while ( !ready ) {
+        try {
+          wait();
+        } catch ( InterruptedException e ) {
+          // CHECKSTYLES IGNORE
+        }
+      }
+      if ( problem != null ) {
+        if ( problem instanceof RepositoryException ) {
+          throw new RepositoryException( problem );
+        } else {
+          throw new RuntimeException( problem );
+        }
+      }
+      return result;
+    }
+
+    public synchronized void setResult( Entries e, boolean specific ) {
+      result = e;
+      userSpecific = specific;
+      ready = true;
+      notifyAll();
+    }
+
+    public synchronized void setProblem( Throwable t ) {
+      problem = t;
+      ready = true;
+      notifyAll();
+    }
+  }
+}
@@ -13,19 +13,30 @@
 
 package org.pentaho.platform.repository.solution.filebased;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.impl.DecoratedFileObject;
+import org.pentaho.platform.api.engine.ICacheManager;
 import org.pentaho.platform.api.repository2.unified.MondrianSchemaAnnotator;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * FileObject that applies Mondrian schema annotations to the InputStream
+ * FileObject that applies Mondrian schema annotations to the InputStream.
+ * <p>
+ * When both files come from the repository, the annotated schema is cached for the versions of the two files, so
+ * that it is only read and annotated again once either of them changes.
  */
 class MondrianFileObject extends DecoratedFileObject {
 
+  static final String CACHE_REGION = "mondrian-annotated-schema-cache"; //$NON-NLS-1$
+
   private final FileObject annotationsFile;
   private final MondrianSchemaAnnotator annotator;
 
@@ -36,12 +47,83 @@ class MondrianFileObject extends DecoratedFileObject {
     this.annotator = annotator;
   }
 
+  @Override
+  public boolean exists() throws FileSystemException {
+    if ( getDecoratedFileObject() instanceof SolutionRepositoryVfsFileObject ) {
+      // resolved once rather than on every call
+      return ( (SolutionRepositoryVfsFileObject) getDecoratedFileObject() ).getRepositoryFile() != null;
+    }
+    return super.exists();
+  }
+
   @Override
   public FileContent getContent() throws FileSystemException {
     return new DecoratedFileContent( super.getContent() ) {
       @Override public InputStream getInputStream() throws FileSystemException {
-        return annotator.getInputStream( super.getInputStream(), annotationsFile.getContent().getInputStream() );
+        final String key = getCacheKey();
+        final ICacheManager cacheMgr = key != null ? getCacheManager() : null;
+        if ( cacheMgr == null ) {
+          return annotator.getInputStream( super.getInputStream(), annotationsFile.getContent().getInputStream() );
+        }
+
+        final Object cached = cacheMgr.getFromRegionCache( CACHE_REGION, key );
+        if ( cached instanceof byte[] ) {
+          return new ByteArrayInputStream( (byte[]) cached );
+        }
+
+        final byte[] annotated;
+        try ( InputStream inputStream =
+                annotator.getInputStream( super.getInputStream(), annotationsFile.getContent().getInputStream() ) ) {
+          if ( inputStream == null ) {
+            return null;
+          }
+          annotated = IOUtils.toByteArray( inputStream );
+        } catch ( IOException e ) {
+          throw new FileSystemException( e );
+        }
+        cacheMgr.putInRegionCache( CACHE_REGION, key, annotated );
+        return new ByteArrayInputStream( annotated );
       }
     };
   }
+
+  /**
+   * @return the path and versions of the schema and its annotations, or <code>null</code> if they are not both
+   *         readable repository files. The versions are looked up every time, so that a change is never missed.
+   */
+  String getCacheKey() {
+    if ( !( getDecoratedFileObject() instanceof SolutionRepositoryVfsFileObject )
+        || !( annotationsFile instanceof SolutionRepositoryVfsFileObject ) ) {
+      return null;
+    }
+    final RepositoryFile schema =
+        ( (SolutionRepositoryVfsFileObject) getDecoratedFileObject() ).getCurrentRepositoryFile();
+    final RepositoryFile annotations = ( (SolutionRepositoryVfsFileObject) annotationsFile ).getCurrentRepositoryFile();
+    if ( schema == null || annotations == null ) {
+      return null;
+    }
+    return schema.getPath() + "@" + version( schema ) + "+" + version( annotations ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  /**
+   * Files of unversioned folders have no version id, their modification time and size stand for it.
+   */
+  private static String version( final RepositoryFile file ) {
+    if ( file.getVersionId() != null ) {
+      return file.getId() + ":" + file.getVersionId(); //$NON-NLS-1$
+    }
+    final long lastModified = file.getLastModifiedDate() != null ? file.getLastModifiedDate().getTime() : 0;
+    return file.getId() + ":" + lastModified + ":" + file.getFileSize(); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  ICacheManager getCacheManager() {
+    final ICacheManager cacheMgr = PentahoSystem.getCacheManager( null );
+    if ( cacheMgr == null ) {
+      return null;
+    }
+    if ( !cacheMgr.cacheEnabled( CACHE_REGION ) ) {
+      cacheMgr.addCacheRegion( CACHE_REGION );
+    }
+    return cacheMgr;
+  }
 }
@@ -0,0 +1,170 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository.solution.filebased;
+
+import org.pentaho.platform.api.cache.ICacheInvalidationBus;
+import org.pentaho.platform.api.cache.ICacheInvalidationListener;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers, for a few seconds and per user, what {@link SolutionRepositoryVfsFileObject} found about a path: the
+ * repository file when it exists and may be read, and the listing of its children once asked for. Mondrian and the
+ * reporting engine resolve the same few files many times for each query.
+ * <p>
+ * Entries are dropped as soon as the {@link ICacheInvalidationBus} reports a change to their path, to a path below it
+ * or to one of their children. The changes made through this server are reported before the write returns, so a
+ * user never reads their own writes from the cache. Without a bus there is no way to learn about writes, so there is
+ * no cache.
+ */
+class SolutionRepositoryVfsAttributeCache implements ICacheInvalidationListener {
+
+  static final long TIME_TO_LIVE = 5000;
+
+  static final int MAX_ENTRIES = 10000;
+
+  private static final char USER_SEPARATOR = '\t';
+
+  private static volatile SolutionRepositoryVfsAttributeCache instance;
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final long timeToLive;
+
+  SolutionRepositoryVfsAttributeCache( final long timeToLive ) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @return the cache shared by all the file objects, or <code>null</code> while no cache invalidation bus is available
+   */
+  static SolutionRepositoryVfsAttributeCache getInstance() {
+    if ( instance == null ) {
+      synchronized ( SolutionRepositoryVfsAttributeCache.class ) {
+        if ( instance == null ) {
+          ICacheInvalidationBus bus = PentahoSystem.get( ICacheInvalidationBus.class, null );
+          if ( bus != null ) {
+            SolutionRepositoryVfsAttributeCache cache = new SolutionRepositoryVfsAttributeCache( TIME_TO_LIVE );
+            bus.subscribeSynchronously( RepositoryFile.SEPARATOR, cache );
+            instance = cache;
+          }
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * @return what was found about the path for the current user, or <code>null</code> if it has to be looked up again
+   */
+  Entry get( final String path ) {
+    Entry entry = entries.get( key( path ) );
+    if ( entry != null && entry.expires < System.currentTimeMillis() ) {
+      entries.remove( key( path ), entry );
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Remembers the repository file found at a path for the current user.
+   *
+   * @param file the file, or <code>null</code> if it does not exist or may not be read
+   */
+  Entry put( final String path, final RepositoryFile file ) {
+    if ( entries.size() >= MAX_ENTRIES ) {
+      long now = System.currentTimeMillis();
+      entries.values().removeIf( entry -> entry.expires < now );
+      if ( entries.size() >= MAX_ENTRIES ) {
+        entries.clear();
+      }
+    }
+    Entry entry = new Entry( file, System.currentTimeMillis() + timeToLive );
+    entries.put( key( path ), entry );
+    return entry;
+  }
+
+  @Override
+  public void pathsChanged( final Set<String> paths ) {
+    entries.keySet().removeIf( key -> {
+      String path = key.substring( key.indexOf( USER_SEPARATOR ) + 1 );
+      for ( String changed : paths ) {
+        if ( isAffected( path, changed ) ) {
+          return true;
+        }
+      }
+      return false;
+    } );
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  /**
+   * A change to a path affects the entries of the path itself, of the paths below it and of its parent, whose listing
+   * changes when a child is added or removed.
+   */
+  static boolean isAffected( final String path, final String changed ) {
+    if ( path.equals( changed ) || changed.equals( RepositoryFile.SEPARATOR )
+        || path.startsWith( changed + RepositoryFile.SEPARATOR ) ) {
+      return true;
+    }
+    int parentEnd = changed.lastIndexOf( RepositoryFile.SEPARATOR );
+    String parent = parentEnd > 0 ? changed.substring( 0, parentEnd ) : RepositoryFile.SEPARATOR;
+    return path.equals( parent );
+  }
+
+  private static String key( final String path ) {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    String user = session != null && session.getName() != null ? session.getName() : ""; //$NON-NLS-1$
+    return user + USER_SEPARATOR + path;
+  }
+
+  static class Entry {
+    private final RepositoryFile file;
+    private final long expires;
+    private volatile List<RepositoryFile> children;
+
+    Entry( final RepositoryFile file, final long expires ) {
+      this.file = file;
+      this.expires = expires;
+    }
+
+    /**
+     * @return the file, or <code>null</code> if it does not exist or may not be read
+     */
+    RepositoryFile getFile() {
+      return file;
+    }
+
+    /**
+     * @return the children of the file, or <code>null</code> if they were not listed yet
+     */
+    List<RepositoryFile> getChildren() {
+      return children;
+    }
+
+    void setChildren( final List<RepositoryFile> children ) {
+      this.children = children;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.RandomAccessContent;
 import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -44,13 +45,13 @@ public class SolutionRepositoryVfsFileContent implements FileContent {
   }
 
   public long getSize() throws FileSystemException {
-    // not needed for our usage
-    return 0;
+    RepositoryFile file = fileObject.getRepositoryFile();
+    return file != null && file.getFileSize() != null ? file.getFileSize() : 0;
   }
 
   public long getLastModifiedTime() throws FileSystemException {
-    // not needed for our usage
-    return 0;
+    RepositoryFile file = fileObject.getRepositoryFile();
+    return file != null && file.getLastModifiedDate() != null ? file.getLastModifiedDate().getTime() : 0;
   }
 
   public void setLastModifiedTime( final long arg0 ) throws FileSystemException {
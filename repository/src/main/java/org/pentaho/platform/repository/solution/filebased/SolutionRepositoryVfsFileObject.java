@@ -61,6 +61,8 @@ public class SolutionRepositoryVfsFileObject implements FileObject {
 
   private IAclNodeHelper aclHelper;
 
+  private SolutionRepositoryVfsAttributeCache.Entry cachedEntry;
+
   public SolutionRepositoryVfsFileObject( final String fileRef ) {
     super();
     this.fileRef = fileRef;
@@ -109,6 +111,13 @@ public class SolutionRepositoryVfsFileObject implements FileObject {
   }
 
   private void initFile() {
+    initFile( true );
+  }
+
+  /**
+   * @param useCache whether what the attribute cache remembers about the path may be used
+   */
+  private void initFile( final boolean useCache ) {
     // decode URL before 'get'
     String fileUrl = fileRef;
 
@@ -119,6 +128,15 @@ public class SolutionRepositoryVfsFileObject implements FileObject {
       fileUrl = fileRef;
     }
 
+    SolutionRepositoryVfsAttributeCache cache = getAttributeCache();
+    if ( cache != null && useCache ) {
+      cachedEntry = cache.get( fileUrl );
+      if ( cachedEntry != null ) {
+        repositoryFile = cachedEntry.getFile();
+        return;
+      }
+    }
+
     String dsPath = fileUrl;
     if ( fileUrl.matches( "^(/etc/mondrian/)(.*)(/schema.xml)" ) ) {
       dsPath = fileUrl.substring( 0, fileUrl.indexOf( "/schema.xml" ) );
@@ -128,6 +146,16 @@ public class SolutionRepositoryVfsFileObject implements FileObject {
     if ( !getAclHelper().canAccess( getRepository().getFile( dsPath ),  EnumSet.of( RepositoryFilePermission.READ ) ) ) {
       repositoryFile = null;
     }
+    if ( cache != null ) {
+      cachedEntry = cache.put( fileUrl, repositoryFile );
+    }
+  }
+
+  /**
+   * @return the cache of what was found about repository paths, or <code>null</code> to look them up every time
+   */
+  protected SolutionRepositoryVfsAttributeCache getAttributeCache() {
+    return SolutionRepositoryVfsAttributeCache.getInstance();
   }
 
   public boolean exists() throws FileSystemException {
@@ -135,6 +163,26 @@ public class SolutionRepositoryVfsFileObject implements FileObject {
     return repositoryFile != null;
   }
 
+  /**
+   * @return the repository file, as found the last time this object was resolved, or <code>null</code> if it does not
+   *         exist or the user may not read it
+   */
+  public RepositoryFile getRepositoryFile() {
+    if ( repositoryFile == null ) {
+      initFile();
+    }
+    return repositoryFile;
+  }
+
+  /**
+   * @return the repository file as it is now, looked up without the attribute cache, or <code>null</code> if it does
+   *         not exist or the user may not read it
+   */
+  public RepositoryFile getCurrentRepositoryFile() {
+    initFile( false );
+    return repositoryFile;
+  }
+
   public boolean isHidden() throws FileSystemException {
     // not needed for our usage
     return false;
@@ -172,7 +220,15 @@ public class SolutionRepositoryVfsFileObject implements FileObject {
 
     List<FileObject> fileList = new ArrayList<FileObject>();
     if ( exists() ) {
-      for ( RepositoryFile child : getRepository().getChildren( repositoryFile.getId() ) ) {
+      SolutionRepositoryVfsAttributeCache.Entry entry = cachedEntry;
+      List<RepositoryFile> children = entry != null ? entry.getChildren() : null;
+      if ( children == null ) {
+        children = getRepository().getChildren( repositoryFile.getId() );
+        if ( entry != null ) {
+          entry.setChildren( children );
+        }
+      }
+      for ( RepositoryFile child : children ) {
         SolutionRepositoryVfsFileObject fileInfo = new SolutionRepositoryVfsFileObject( child.getPath() );
         fileList.add( fileInfo );
       }
@@ -13,9 +13,14 @@
 
 package org.pentaho.platform.repository.usersettings;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.pentaho.platform.api.cache.ICacheInvalidationBus;
+import org.pentaho.platform.api.cache.ICacheInvalidationListener;
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.usersettings.IAnyUserSettingService;
 import org.pentaho.platform.api.usersettings.IUserSettingService;
 import org.pentaho.platform.api.usersettings.pojo.IUserSetting;
@@ -24,6 +29,7 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.repository.usersettings.pojo.UserSetting;
 import org.pentaho.platform.repository2.ClientRepositoryPaths;
+import org.pentaho.platform.repository2.unified.jcr.JcrTenantUtils;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.RepositoryCreateAction;
 import org.pentaho.platform.security.policy.rolebased.actions.RepositoryReadAction;
@@ -32,20 +38,65 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
-
-public class UserSettingService implements IAnyUserSettingService, IUserSettingService {
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores user settings as prefixed metadata of the user home folder, and global settings as prefixed metadata of the
+ * tenant etc folder.
+ * <p>
+ * Settings are cached after being read in a single metadata fetch per folder: per user for user settings, up to
+ * {@link #MAX_CACHED_USERS} users not accessed for {@link #CACHE_EXPIRY_MINUTES} minutes, and per tenant for the
+ * global settings, which are shared by all users of the tenant. Writes go through this service, refresh the cache and
+ * are serialized per user on a striped lock. Writes made on other servers of a cluster reach the cache through the
+ * {@link ICacheInvalidationBus}, when there is one. When {@link #setWriteBehindDelayMillis(long)} is positive, user
+ * setting writes are applied to the cache immediately and coalesced into a single repository write after the delay;
+ * {@link UserSettingServiceSystemListener} writes what is still pending when the system shuts down.
+ */
+public class UserSettingService implements IAnyUserSettingService, IUserSettingService, ICacheInvalidationListener {
 
   public static final String SETTING_PREFIX = "_USERSETTING"; //$NON-NLS-1$
+
+  public static final int MAX_CACHED_USERS = 10000;
+
+  public static final long CACHE_EXPIRY_MINUTES = 30;
+
   IPentahoSession session = null;
-  private static final byte[] lock = new byte[0];
+
+  private static final int LOCK_STRIPES = 64;
+  private static final Object[] locks = new Object[ LOCK_STRIPES ];
+  private static final Object globalLock = new Object();
+
+  static {
+    for ( int i = 0; i < LOCK_STRIPES; i++ ) {
+      locks[ i ] = new Object();
+    }
+  }
 
   protected IUnifiedRepository repository;
   private Logger log = LoggerFactory.getLogger( getClass() );
 
+  // user name -> settings of the user, without the setting prefix
+  private final Cache<String, Map<String, String>> userSettingsCache = CacheBuilder.newBuilder()
+    .maximumSize( MAX_CACHED_USERS ).expireAfterAccess( CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES ).build();
+  // tenant id -> global settings of the tenant; loaded and dropped under the global lock
+  private final Map<String, Map<String, String>> globalSettingsCache = new ConcurrentHashMap<>();
+  private volatile boolean subscribed = false;
+
+  private long writeBehindDelayMillis = 0;
+  // user name -> settings waiting to be written; guarded by the user's lock
+  private final Map<String, Map<String, String>> pendingUserSettings = new ConcurrentHashMap<>();
+  private ScheduledExecutorService writeBehindExecutor = null;
+
   public UserSettingService( IUnifiedRepository repository ) {
     this.repository = repository;
   }
@@ -54,149 +105,259 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     this.session = session;
   }
 
-  // ////////////////////////////////////////////////////////////////////////////////////////////////
-  // GENERIC/ADMIN METHODS
-  // ////////////////////////////////////////////////////////////////////////////////////////////////
+  /**
+   * Sets the delay after which pending user setting writes are flushed to the repository. A value of zero or less,
+   * the default, writes every setting immediately.
+   *
+   * @param writeBehindDelayMillis the delay, in milliseconds
+   */
+  public void setWriteBehindDelayMillis( long writeBehindDelayMillis ) {
+    this.writeBehindDelayMillis = writeBehindDelayMillis;
+  }
 
-  // delete all settings for a given user
-  public void deleteUserSettings() {
-    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
-    Serializable id = repository.getFile( homePath ).getId();
+  public long getWriteBehindDelayMillis() {
+    return writeBehindDelayMillis;
+  }
 
-    Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
-    Map<String, Serializable> finalMetadata = new HashMap<String, Serializable>( fileMetadata.size() );
-    for ( Map.Entry<String, Serializable> entry : fileMetadata.entrySet() ) {
-      String key = entry.getKey();
-      if ( !key.startsWith( SETTING_PREFIX ) ) {
-        finalMetadata.put( key, entry.getValue() );
+  /**
+   * Writes all pending user settings to the repository.
+   */
+  public void flush() {
+    for ( String username : new ArrayList<>( pendingUserSettings.keySet() ) ) {
+      flushUserSettings( username );
+    }
+  }
+
+  /**
+   * Writes all pending user settings to the repository and stops the write-behind thread. Settings written afterwards
+   * start a new one.
+   */
+  public void shutdown() {
+    flush();
+    synchronized ( this ) {
+      if ( writeBehindExecutor != null ) {
+        writeBehindExecutor.shutdown();
+        writeBehindExecutor = null;
+      }
+    }
+    // settings scheduled while the executor was being stopped
+    flush();
+  }
+
+  /**
+   * Discards all cached settings. Pending user setting writes are kept.
+   */
+  public void clearCache() {
+    userSettingsCache.invalidateAll();
+    globalSettingsCache.clear();
+  }
+
+  /**
+   * Drops the cached settings of the user home folders and etc folders changed on other servers. The changed paths
+   * are tenant relative, so a change to an etc folder drops the global settings of every tenant.
+   */
+  @Override
+  public void pathsChanged( final Set<String> paths ) {
+    String etcPath = ClientRepositoryPaths.getEtcFolderPath();
+    for ( String changed : paths ) {
+      // metadata is kept in a child node of the folder it belongs to
+      if ( isAffected( etcPath, changed ) ) {
+        globalSettingsCache.clear();
       }
     }
-    repository.setFileMetadata( id, finalMetadata );
+    userSettingsCache.asMap().keySet().removeIf( username -> {
+      String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
+      for ( String changed : paths ) {
+        if ( isAffected( homePath, changed ) ) {
+          return true;
+        }
+      }
+      return false;
+    } );
   }
 
   // ////////////////////////////////////////////////////////////////////////////////////////////////
-  // USER SETTINGS METHODS
+  // CACHE METHODS
   // ////////////////////////////////////////////////////////////////////////////////////////////////
 
-  private static UserSetting createSetting( String name, Serializable value ) {
-    return createSetting( name, value.toString() );
+  private static boolean isAffected( String folderPath, String changed ) {
+    if ( changed.equals( folderPath ) || changed.equals( RepositoryFile.SEPARATOR ) ) {
+      return true;
+    }
+    return changed.startsWith( folderPath + RepositoryFile.SEPARATOR )
+      && changed.indexOf( RepositoryFile.SEPARATOR, folderPath.length() + 1 ) < 0;
   }
 
-  private static UserSetting createSetting( String name, String value ) {
-    UserSetting setting = new UserSetting();
-    setting.setSettingName( name );
-    setting.setSettingValue( value );
-    return setting;
+  // subscribes to the changes made on other servers; writes made here already update the cache
+  private void subscribe() {
+    if ( !subscribed ) {
+      synchronized ( globalLock ) {
+        if ( !subscribed ) {
+          ICacheInvalidationBus bus = PentahoSystem.get( ICacheInvalidationBus.class, null );
+          if ( bus != null ) {
+            bus.subscribe( ClientRepositoryPaths.getEtcFolderPath(), this, false );
+            bus.subscribe( ClientRepositoryPaths.getHomeFolderPath(), this, false );
+          }
+          subscribed = true;
+        }
+      }
+    }
   }
 
-  public List<IUserSetting> getUserSettings() {
-    // get the global settings and the user settings
-    // merge unseen global settings into the user settings list
-    List<IUserSetting> userSettings = new ArrayList<IUserSetting>();
+  private static String getTenantId() {
+    return JcrTenantUtils.getTenant().getId();
+  }
 
-    String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-    Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-    Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
+  private static Object getLock( String username ) {
+    return locks[ ( username.hashCode() & 0x7fffffff ) % LOCK_STRIPES ];
+  }
 
-    for ( Map.Entry<String, Serializable> entry : tenantMetadata.entrySet() ) {
+  private static Map<String, String> toSettings( Map<String, Serializable> metadata ) {
+    Map<String, String> settings = new LinkedHashMap<>();
+    for ( Map.Entry<String, Serializable> entry : metadata.entrySet() ) {
       String key = entry.getKey();
-      if ( key.startsWith( SETTING_PREFIX ) ) {
-        UserSetting setting = createSetting( key.substring( SETTING_PREFIX.length() ), entry.getValue() );
-        userSettings.add( setting );
+      if ( key.startsWith( SETTING_PREFIX ) && entry.getValue() != null ) {
+        settings.put( key.substring( SETTING_PREFIX.length() ), entry.getValue().toString() );
       }
     }
+    return Collections.unmodifiableMap( settings );
+  }
 
-    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
-    Serializable userHomeId = repository.getFile( homePath ).getId();
-    Map<String, Serializable> userMetadata = repository.getFileMetadata( userHomeId );
-
-    for ( Map.Entry<String, Serializable> entry : userMetadata.entrySet() ) {
-      String key = entry.getKey();
-      if ( key.startsWith( SETTING_PREFIX ) ) {
-        UserSetting setting = createSetting( key.substring( SETTING_PREFIX.length() ), entry.getValue() );
-        // see if a global setting exists which will be overridden
-        if ( userSettings.contains( setting ) ) {
-          userSettings.remove( setting );
+  private Map<String, String> getCachedUserSettings( String username ) {
+    subscribe();
+    Map<String, String> settings = userSettingsCache.getIfPresent( username );
+    if ( settings == null ) {
+      // loading under the user's lock keeps a concurrent write from being overwritten by a stale read
+      synchronized ( getLock( username ) ) {
+        settings = userSettingsCache.getIfPresent( username );
+        if ( settings == null ) {
+          String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
+          Serializable userHomeId = repository.getFile( homePath ).getId();
+          settings = toSettings( repository.getFileMetadata( userHomeId ) );
+
+          Map<String, String> pending = pendingUserSettings.get( username );
+          if ( pending != null ) {
+            Map<String, String> merged = new LinkedHashMap<>( settings );
+            merged.putAll( pending );
+            settings = Collections.unmodifiableMap( merged );
+          }
+          userSettingsCache.put( username, settings );
         }
-        userSettings.add( setting );
       }
     }
-    return userSettings;
+    return settings;
   }
 
-  public IUserSetting getUserSetting( String settingName, String defaultValue ) {
-    // if the user does not have the setting, check if a global setting exists
-    boolean hasAuth = PentahoSessionHolder.getSession().getAttribute( "SPRING_SECURITY_CONTEXT" ) != null;
-    if ( hasAuth ) {
-      try {
-        String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
+  private Map<String, String> getCachedGlobalSettings() {
+    subscribe();
+    String tenantId = getTenantId();
+    Map<String, String> settings = globalSettingsCache.get( tenantId );
+    if ( settings == null ) {
+      synchronized ( globalLock ) {
+        settings = globalSettingsCache.get( tenantId );
+        if ( settings == null ) {
+          String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
+          Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
+          settings = toSettings( repository.getFileMetadata( tenantHomeId ) );
+          globalSettingsCache.put( tenantId, settings );
+        }
+      }
+    }
+    return settings;
+  }
 
-        Serializable userHomeId = repository.getFile( homePath ).getId();
-        Map<String, Serializable> userMetadata = repository.getFileMetadata( userHomeId );
+  private void writeUserSetting( final String username, final String settingName, final String settingValue ) {
+    if ( writeBehindDelayMillis > 0 ) {
+      scheduleUserSetting( username, settingName, settingValue );
+      return;
+    }
 
-        for ( Map.Entry<String, Serializable> entry : userMetadata.entrySet() ) {
-          String key = entry.getKey();
-          if ( key.startsWith( SETTING_PREFIX ) ) {
-            String settingFromKey = key.substring( SETTING_PREFIX.length() );
-            if ( settingFromKey.equals( settingName ) ) {
-              return createSetting( settingFromKey, entry.getValue() );
-            }
-          }
-        }
+    synchronized ( getLock( username ) ) {
+      storeUserSettings( username, Collections.singletonMap( settingName, settingValue ) );
+    }
+  }
 
-        String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-        Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-        Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
+  // callers must hold the user's lock; runs as system because flushes may run on the write-behind thread, which has
+  // no user credentials
+  private void storeUserSettings( final String username, final Map<String, String> settings ) {
+    try {
+      Map<String, Serializable> stored = SecurityHelper.getInstance().runAsSystem(
+        new Callable<Map<String, Serializable>>() {
+          @Override
+          public Map<String, Serializable> call() throws Exception {
+            String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
+            Serializable id = repository.getFile( homePath ).getId();
 
-        for ( Map.Entry<String, Serializable> entry : tenantMetadata.entrySet() ) {
-          String key = entry.getKey();
-          if ( key.startsWith( SETTING_PREFIX ) ) {
-            String settingFromKey = key.substring( SETTING_PREFIX.length() );
-            if ( settingFromKey.equals( settingName ) ) {
-              return createSetting( settingFromKey, entry.getValue() );
+            Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
+            for ( Map.Entry<String, String> setting : settings.entrySet() ) {
+              fileMetadata.put( SETTING_PREFIX + setting.getKey(), setting.getValue() );
             }
+            repository.setFileMetadata( id, fileMetadata );
+            return fileMetadata;
           }
-        }
-      } catch ( Throwable ignored ) {
-        // if anything goes wrong with authentication (anonymous user) or permissions
-        // just return the default value, if we continue to log these errors (like on before Login)
-        // we'll see *many* errors in the logs which are not helpful
+        } );
+      userSettingsCache.put( username, toSettings( stored ) );
+    } catch ( Exception e ) {
+      userSettingsCache.invalidate( username );
+      if ( log.isDebugEnabled() ) {
+        log.debug( "Error storing user settings for user: " + username + ", settings: " + settings, e );
       }
+      log.error( "Error storing user setting", e );
     }
-    return createSetting( settingName, defaultValue );
   }
 
-  public void setUserSetting( String settingName, String settingValue ) {
-
-    String name = PentahoSessionHolder.getSession().getName();
-    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( name );
-
-    synchronized ( lock ) {
+  private void scheduleUserSetting( final String username, String settingName, String settingValue ) {
+    synchronized ( getLock( username ) ) {
+      Map<String, String> pending = pendingUserSettings.get( username );
+      boolean schedule = pending == null;
+      if ( pending == null ) {
+        pending = new LinkedHashMap<>();
+        pendingUserSettings.put( username, pending );
+      }
+      pending.put( settingName, settingValue );
 
-      final Serializable id = repository.getFile( homePath ).getId();
+      Map<String, String> cached = userSettingsCache.getIfPresent( username );
+      if ( cached != null ) {
+        Map<String, String> updated = new LinkedHashMap<>( cached );
+        updated.put( settingName, settingValue );
+        userSettingsCache.put( username, Collections.unmodifiableMap( updated ) );
+      }
 
-      final Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
-      fileMetadata.put( SETTING_PREFIX + settingName, settingValue );
-      try {
-        SecurityHelper.getInstance().runAsSystem( new Callable<Void>() {
+      if ( schedule ) {
+        getWriteBehindExecutor().schedule( new Runnable() {
           @Override
-          public Void call() throws Exception {
-            repository.setFileMetadata( id, fileMetadata );
-            return null;
+          public void run() {
+            flushUserSettings( username );
           }
-        } );
-      } catch ( Exception e ) {
-        if ( log.isDebugEnabled() ) {
-          log.debug( "Error storing user setting for user: " + name + ", setting: " + settingName + ", value: "
-            + settingValue, e );
-        }
-        log.error( "Error storing user setting", e );
+        }, writeBehindDelayMillis, TimeUnit.MILLISECONDS );
       }
     }
   }
 
-  @Override public void deleteUserSettings( String username ) throws SecurityException {
-    if( canAdminister() ) {
+  private void flushUserSettings( final String username ) {
+    synchronized ( getLock( username ) ) {
+      Map<String, String> pending = pendingUserSettings.remove( username );
+      if ( pending != null && !pending.isEmpty() ) {
+        storeUserSettings( username, pending );
+      }
+    }
+  }
+
+  private synchronized ScheduledExecutorService getWriteBehindExecutor() {
+    if ( writeBehindExecutor == null ) {
+      writeBehindExecutor = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread thread = new Thread( r, "UserSettingService write-behind" );
+        thread.setDaemon( true );
+        return thread;
+      } );
+    }
+    return writeBehindExecutor;
+  }
+
+  private void deleteSettings( String username ) {
+    synchronized ( getLock( username ) ) {
+      pendingUserSettings.remove( username );
+
       String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
       Serializable id = repository.getFile( homePath ).getId();
 
@@ -208,7 +369,85 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
           finalMetadata.put( key, entry.getValue() );
         }
       }
-      repository.setFileMetadata( id, finalMetadata );
+      try {
+        repository.setFileMetadata( id, finalMetadata );
+      } finally {
+        userSettingsCache.invalidate( username );
+      }
+    }
+  }
+
+  // ////////////////////////////////////////////////////////////////////////////////////////////////
+  // GENERIC/ADMIN METHODS
+  // ////////////////////////////////////////////////////////////////////////////////////////////////
+
+  // delete all settings for a given user
+  public void deleteUserSettings() {
+    deleteSettings( PentahoSessionHolder.getSession().getName() );
+  }
+
+  // ////////////////////////////////////////////////////////////////////////////////////////////////
+  // USER SETTINGS METHODS
+  // ////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private static UserSetting createSetting( String name, String value ) {
+    UserSetting setting = new UserSetting();
+    setting.setSettingName( name );
+    setting.setSettingValue( value );
+    return setting;
+  }
+
+  private static List<IUserSetting> createSettings( Map<String, String> settings ) {
+    List<IUserSetting> userSettings = new ArrayList<IUserSetting>( settings.size() );
+    for ( Map.Entry<String, String> entry : settings.entrySet() ) {
+      userSettings.add( createSetting( entry.getKey(), entry.getValue() ) );
+    }
+    return userSettings;
+  }
+
+  public List<IUserSetting> getUserSettings() {
+    // get the global settings and the user settings
+    // merge unseen global settings into the user settings list
+    Map<String, String> settings = new LinkedHashMap<>( getCachedGlobalSettings() );
+
+    Map<String, String> userSettings = getCachedUserSettings( PentahoSessionHolder.getSession().getName() );
+    for ( Map.Entry<String, String> entry : userSettings.entrySet() ) {
+      // a user setting overrides the global setting of the same name
+      settings.remove( entry.getKey() );
+      settings.put( entry.getKey(), entry.getValue() );
+    }
+    return createSettings( settings );
+  }
+
+  public IUserSetting getUserSetting( String settingName, String defaultValue ) {
+    // if the user does not have the setting, check if a global setting exists
+    boolean hasAuth = PentahoSessionHolder.getSession().getAttribute( "SPRING_SECURITY_CONTEXT" ) != null;
+    if ( hasAuth ) {
+      try {
+        String value = getCachedUserSettings( PentahoSessionHolder.getSession().getName() ).get( settingName );
+        if ( value == null ) {
+          value = getCachedGlobalSettings().get( settingName );
+        }
+        if ( value != null ) {
+          return createSetting( settingName, value );
+        }
+      } catch ( Throwable ignored ) {
+        // if anything goes wrong with authentication (anonymous user) or permissions
+        // just return the default value, if we continue to log these errors (like on before Login)
+        // we'll see *many* errors in the logs which are not helpful
+      }
+    }
+    return createSetting( settingName, defaultValue );
+  }
+
+  public void setUserSetting( String settingName, String settingValue ) {
+
+    writeUserSetting( PentahoSessionHolder.getSession().getName(), settingName, settingValue );
+  }
+
+  @Override public void deleteUserSettings( String username ) throws SecurityException {
+    if( canAdminister() ) {
+      deleteSettings( username );
     } else {
       throw new SecurityException( "Unauthorized User" );
     }
@@ -219,18 +458,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     List<IUserSetting> userSettings = new ArrayList<>();
     if ( canAdminister() ) {
       try {
-        String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
-
-        Serializable userHomeId = repository.getFile( homePath ).getId();
-        Map<String, Serializable> userMetadata = repository.getFileMetadata( userHomeId );
-
-        for ( Map.Entry<String, Serializable> entry : userMetadata.entrySet() ) {
-          String key = entry.getKey();
-          if ( key.startsWith( SETTING_PREFIX ) ) {
-            String settingFromKey = key.substring( SETTING_PREFIX.length() );
-            userSettings.add( createSetting( settingFromKey, entry.getValue() ) );
-          }
-        }
+        userSettings.addAll( createSettings( getCachedUserSettings( username ) ) );
       } catch ( Throwable ignored ) {
         // if anything goes wrong with authentication (anonymous user) or permissions
         // just return the default value, if we continue to log these errors (like on before Login)
@@ -248,19 +476,9 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     // if the user does not have the setting, check if a global setting exists
     if ( canAdminister() ) {
       try {
-        String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
-
-        Serializable userHomeId = repository.getFile( homePath ).getId();
-        Map<String, Serializable> userMetadata = repository.getFileMetadata( userHomeId );
-
-        for ( Map.Entry<String, Serializable> entry : userMetadata.entrySet() ) {
-          String key = entry.getKey();
-          if ( key.startsWith( SETTING_PREFIX ) ) {
-            String settingFromKey = key.substring( SETTING_PREFIX.length() );
-            if ( settingFromKey.equals( settingName ) ) {
-              return createSetting( settingFromKey, entry.getValue() );
-            }
-          }
+        String value = getCachedUserSettings( PentahoSessionHolder.getSession().getName() ).get( settingName );
+        if ( value != null ) {
+          return createSetting( settingName, value );
         }
       } catch ( Throwable ignored ) {
         // if anything goes wrong with authentication (anonymous user) or permissions
@@ -278,30 +496,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     throws SecurityException {
 
     if ( canAdminister() ) {
-      String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
-
-      synchronized ( lock ) {
-
-        final Serializable id = repository.getFile( homePath ).getId();
-
-        final Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
-        fileMetadata.put( SETTING_PREFIX + settingName, settingValue );
-        try {
-          SecurityHelper.getInstance().runAsSystem( new Callable<Void>() {
-            @Override
-            public Void call() throws Exception {
-              repository.setFileMetadata( id, fileMetadata );
-              return null;
-            }
-          } );
-        } catch ( Exception e ) {
-          if ( log.isDebugEnabled() ) {
-            log.debug( "Error storing user setting for user: " + username + ", setting: " + settingName + ", value: "
-              + settingValue, e );
-          }
-          log.error( "Error storing user setting", e );
-        }
-      }
+      writeUserSetting( username, settingName, settingValue );
     } else {
       throw new SecurityException( "Unauthorized User" );
     }
@@ -312,42 +507,31 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
   // ////////////////////////////////////////////////////////////////////////////////////////////////
 
   public IUserSetting getGlobalUserSetting( String settingName, String defaultValue ) {
-    String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-    Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-    Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
-
-    String key = SETTING_PREFIX + settingName;
-    Serializable value = tenantMetadata.get( key );
+    String value = getCachedGlobalSettings().get( settingName );
     if ( value != null ) {
-      return createSetting( settingName, value.toString() );
+      return createSetting( settingName, value );
     }
 
     return createSetting( settingName, defaultValue );
   }
 
   public List<IUserSetting> getGlobalUserSettings() {
-
-    String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-    Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-    Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
-
-    List<IUserSetting> userSettings = new ArrayList<IUserSetting>( tenantMetadata.size() );
-    for ( Map.Entry<String, Serializable> entry : tenantMetadata.entrySet() ) {
-      String key = entry.getKey();
-      if ( key.startsWith( SETTING_PREFIX ) ) {
-        userSettings.add( createSetting( key.substring( SETTING_PREFIX.length() ), entry.getValue() ) );
-      }
-    }
-    return userSettings;
+    return createSettings( getCachedGlobalSettings() );
   }
 
   public void setGlobalUserSetting( String settingName, String settingValue ) {
     if ( canAdminister() ) {
-      String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-      Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-      Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
-      tenantMetadata.put( SETTING_PREFIX + settingName, settingValue );
-      repository.setFileMetadata( tenantHomeId, tenantMetadata );
+      synchronized ( globalLock ) {
+        String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
+        Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
+        Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
+        tenantMetadata.put( SETTING_PREFIX + settingName, settingValue );
+        try {
+          repository.setFileMetadata( tenantHomeId, tenantMetadata );
+        } finally {
+          globalSettingsCache.remove( getTenantId() );
+        }
+      }
     }
   }
 
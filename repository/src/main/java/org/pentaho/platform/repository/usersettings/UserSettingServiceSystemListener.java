@@ -0,0 +1,47 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository.usersettings;
+
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.IPentahoSystemListener;
+import org.pentaho.platform.api.usersettings.IUserSettingService;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the user settings still waiting in the write-behind queue of the {@link UserSettingService} when the system
+ * shuts down.
+ */
+public class UserSettingServiceSystemListener implements IPentahoSystemListener {
+
+  private static final Logger logger = LoggerFactory.getLogger( UserSettingServiceSystemListener.class );
+
+  @Override
+  public boolean startup( IPentahoSession session ) {
+    return true;
+  }
+
+  @Override
+  public void shutdown() {
+    try {
+      IUserSettingService service = PentahoSystem.get( IUserSettingService.class, null );
+      if ( service instanceof UserSettingService ) {
+        ( (UserSettingService) service ).shutdown();
+      }
+    } catch ( Exception e ) {
+      logger.error( "Unable to write the pending user settings", e ); //$NON-NLS-1$
+    }
+  }
+}
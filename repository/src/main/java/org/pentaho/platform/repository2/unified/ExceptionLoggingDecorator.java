@@ -589,6 +589,14 @@ public class ExceptionLoggingDecorator implements IUnifiedRepository {
     }, Messages.getInstance().getString( "ExceptionLoggingDecorator.getFileMetadata", fileId ) ); //$NON-NLS-1$
   }
 
+  public List<Map<String, Serializable>> getFileMetadataInBatch( final List<RepositoryFile> files ) {
+    return callLogThrow( new Callable<List<Map<String, Serializable>>>() {
+      public List<Map<String, Serializable>> call() throws Exception {
+        return delegatee.getFileMetadataInBatch( files );
+      }
+    }, Messages.getInstance().getString( "ExceptionLoggingDecorator.getFileMetadataInBatch" ) ); //$NON-NLS-1$
+  }
+
   public List<Character> getReservedChars() {
     return callLogThrow( new Callable<List<Character>>() {
       public List<Character> call() throws Exception {
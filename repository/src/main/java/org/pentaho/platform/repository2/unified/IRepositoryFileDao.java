@@ -14,6 +14,7 @@
 package org.pentaho.platform.repository2.unified;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -117,6 +118,14 @@ public interface IRepositoryFileDao {
 
   Map<String, Serializable> getFileMetadata( final Serializable fileId );
 
+  default List<Map<String, Serializable>> getFileMetadataInBatch( final List<RepositoryFile> files ) {
+    List<Map<String, Serializable>> metadata = new ArrayList<Map<String, Serializable>>( files.size() );
+    for ( RepositoryFile file : files ) {
+      metadata.add( getFileMetadata( file.getId() ) );
+    }
+    return metadata;
+  }
+
   List<Character> getReservedChars();
 
   List<Locale> getAvailableLocalesForFileById( final Serializable fileId );
@@ -0,0 +1,378 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.jackrabbit.api.observation.JackrabbitEvent;
+import org.apache.jackrabbit.core.observation.SynchronousEventListener;
+import org.pentaho.platform.api.cache.ICacheInvalidationBus;
+import org.pentaho.platform.api.cache.ICacheInvalidationListener;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.repository2.unified.ServerRepositoryPaths;
+import org.pentaho.platform.repository2.unified.jcr.sejcr.CredentialsStrategy;
+
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link ICacheInvalidationBus} fed by JCR observation. It listens to node and property events of the whole
+ * workspace through a session of its own, and delivers the affected repository paths to the subscribers after a short
+ * delay, so that the many events of one save reach them as one batch.
+ * <p>
+ * Paths are tenant relative: a change to <code>/pentaho/tenant0/etc/mondrian</code> is reported as
+ * <code>/etc/mondrian</code>. Events outside of the tenants, such as version storage, are ignored.
+ * <p>
+ * The changes made through this server are also seen by a synchronous JCR listener, which hands them to the
+ * {@link #subscribeSynchronously(String, ICacheInvalidationListener) synchronous subscribers} before the save returns.
+ */
+public class JcrCacheInvalidationBus implements ICacheInvalidationBus, EventListener {
+
+  private static final Log logger = LogFactory.getLog( JcrCacheInvalidationBus.class );
+
+  private static final int EVENT_TYPES = Event.NODE_ADDED | Event.NODE_REMOVED | Event.NODE_MOVED
+      | Event.PROPERTY_ADDED | Event.PROPERTY_CHANGED | Event.PROPERTY_REMOVED;
+
+  private static final String MOVE_SOURCE = "srcAbsPath"; //$NON-NLS-1$
+
+  private final Repository repository;
+
+  private final CredentialsStrategy credentialsStrategy;
+
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+
+  private final EventListener localChangeListener = new LocalChangeListener();
+
+  private long batchDelay = 500;
+
+  private Session session;
+
+  private ScheduledExecutorService executor;
+
+  private Changes localChanges = new Changes();
+
+  private Changes externalChanges = new Changes();
+
+  private boolean flushScheduled;
+
+  public JcrCacheInvalidationBus( final Repository repository, final CredentialsStrategy credentialsStrategy ) {
+    this.repository = repository;
+    this.credentialsStrategy = credentialsStrategy;
+  }
+
+  /**
+   * Starts listening to the repository, through a session that stays open until {@link #destroy()}.
+   */
+  public synchronized void init() throws RepositoryException {
+    if ( session == null ) {
+      session = repository.login( credentialsStrategy.getCredentials() );
+      session.getWorkspace().getObservationManager().addEventListener( this, EVENT_TYPES, "/", true, null, null,
+          false );
+      session.getWorkspace().getObservationManager().addEventListener( localChangeListener, EVENT_TYPES, "/", true,
+          null, null, false );
+    }
+  }
+
+  /**
+   * Stops listening to the repository. Changes not delivered yet are dropped.
+   */
+  public synchronized void destroy() {
+    if ( session != null ) {
+      try {
+        session.getWorkspace().getObservationManager().removeEventListener( this );
+        session.getWorkspace().getObservationManager().removeEventListener( localChangeListener );
+      } catch ( RepositoryException e ) {
+        logger.warn( "Unable to remove the cache invalidation listener", e ); //$NON-NLS-1$
+      } finally {
+        session.logout();
+        session = null;
+      }
+    }
+    if ( executor != null ) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  public long getBatchDelay() {
+    return batchDelay;
+  }
+
+  /**
+   * @param batchDelay how long to collect changes before delivering them, in milliseconds
+   */
+  public void setBatchDelay( final long batchDelay ) {
+    this.batchDelay = batchDelay;
+  }
+
+  @Override
+  public void subscribe( final String pathPrefix, final ICacheInvalidationListener listener,
+                         final boolean includeLocalChanges ) {
+    subscribe( pathPrefix, listener, includeLocalChanges, false );
+  }
+
+  @Override
+  public void subscribeSynchronously( final String pathPrefix, final ICacheInvalidationListener listener ) {
+    subscribe( pathPrefix, listener, true, true );
+  }
+
+  private void subscribe( final String pathPrefix, final ICacheInvalidationListener listener,
+                          final boolean includeLocalChanges, final boolean synchronous ) {
+    if ( pathPrefix == null || !pathPrefix.startsWith( RepositoryFile.SEPARATOR ) ) {
+      throw new IllegalArgumentException( "Not an absolute path: " + pathPrefix ); //$NON-NLS-1$
+    }
+    if ( listener == null ) {
+      throw new IllegalArgumentException( "listener is null" ); //$NON-NLS-1$
+    }
+    String prefix = pathPrefix;
+    if ( prefix.length() > 1 && prefix.endsWith( RepositoryFile.SEPARATOR ) ) {
+      prefix = prefix.substring( 0, prefix.length() - 1 );
+    }
+    subscriptions.add( new Subscription( prefix, listener, includeLocalChanges, synchronous ) );
+  }
+
+  @Override
+  public void unsubscribe( final ICacheInvalidationListener listener ) {
+    for ( Subscription subscription : subscriptions ) {
+      if ( subscription.listener == listener ) {
+        subscriptions.remove( subscription );
+      }
+    }
+  }
+
+  @Override
+  public void onEvent( final EventIterator events ) {
+    Changes local = new Changes();
+    Changes external = new Changes();
+    read( events, local, external );
+    if ( !local.isEmpty() || !external.isEmpty() ) {
+      add( local, external );
+    }
+  }
+
+  /**
+   * Collects the paths affected by events, skipping the external events when <code>external</code> is
+   * <code>null</code>.
+   */
+  private static void read( final EventIterator events, final Changes local, final Changes external ) {
+    while ( events.hasNext() ) {
+      Event event = events.nextEvent();
+      Changes changes = event instanceof JackrabbitEvent && ( (JackrabbitEvent) event ).isExternal() ? external : local;
+      if ( changes == null ) {
+        continue;
+      }
+      try {
+        switch ( event.getType() ) {
+          case Event.NODE_ADDED:
+            changes.changed( toRepositoryPath( event.getPath() ) );
+            break;
+          case Event.NODE_REMOVED:
+            changes.removed( toRepositoryPath( event.getPath() ) );
+            break;
+          case Event.NODE_MOVED:
+            Object source = event.getInfo().get( MOVE_SOURCE );
+            if ( source != null ) {
+              changes.removed( toRepositoryPath( source.toString() ) );
+            }
+            changes.changed( toRepositoryPath( event.getPath() ) );
+            break;
+          default:
+            // a property event, which changes its node
+            String path = event.getPath();
+            changes.changed( toRepositoryPath( path.substring( 0, path.lastIndexOf( RepositoryFile.SEPARATOR ) ) ) );
+        }
+      } catch ( RepositoryException e ) {
+        logger.warn( "Unable to read a repository event", e ); //$NON-NLS-1$
+      }
+    }
+  }
+
+  private synchronized void add( final Changes local, final Changes external ) {
+    localChanges.addAll( local );
+    externalChanges.addAll( external );
+    if ( !flushScheduled ) {
+      flushScheduled = true;
+      getExecutor().schedule( new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, batchDelay, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  /**
+   * Delivers the changes collected so far.
+   */
+  void flush() {
+    Changes local;
+    Changes external;
+    synchronized ( this ) {
+      local = localChanges;
+      external = externalChanges;
+      localChanges = new Changes();
+      externalChanges = new Changes();
+      flushScheduled = false;
+    }
+    for ( Subscription subscription : subscriptions ) {
+      Set<String> paths = new TreeSet<String>();
+      external.collect( subscription.prefix, paths );
+      // the synchronous subscribers were told about the local changes already
+      if ( subscription.includeLocalChanges && !subscription.synchronous ) {
+        local.collect( subscription.prefix, paths );
+      }
+      deliver( subscription, paths );
+    }
+  }
+
+  /**
+   * Delivers the changes made through this server to the synchronous subscribers, on the thread that saved them.
+   */
+  void onLocalEvent( final EventIterator events ) {
+    Changes local = new Changes();
+    read( events, local, null );
+    if ( local.isEmpty() ) {
+      return;
+    }
+    for ( Subscription subscription : subscriptions ) {
+      if ( subscription.synchronous ) {
+        Set<String> paths = new TreeSet<String>();
+        local.collect( subscription.prefix, paths );
+        deliver( subscription, paths );
+      }
+    }
+  }
+
+  private static void deliver( final Subscription subscription, final Set<String> paths ) {
+    if ( !paths.isEmpty() ) {
+      try {
+        subscription.listener.pathsChanged( Collections.unmodifiableSet( paths ) );
+      } catch ( RuntimeException e ) {
+        logger.error( "Cache invalidation listener failed for " + subscription.prefix, e ); //$NON-NLS-1$
+      }
+    }
+  }
+
+  private synchronized ScheduledExecutorService getExecutor() {
+    if ( executor == null ) {
+      executor = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread thread = new Thread( r, "JcrCacheInvalidationBus" ); //$NON-NLS-1$
+        thread.setDaemon( true );
+        return thread;
+      } );
+    }
+    return executor;
+  }
+
+  /**
+   * @return the tenant relative, decoded path of a node, or <code>null</code> if it is not in a tenant
+   */
+  static String toRepositoryPath( final String absPath ) {
+    String root = ServerRepositoryPaths.getPentahoRootFolderPath() + RepositoryFile.SEPARATOR;
+    if ( absPath == null || !absPath.startsWith( root ) || absPath.length() == root.length() ) {
+      return null;
+    }
+    int tenantEnd = absPath.indexOf( RepositoryFile.SEPARATOR, root.length() );
+    if ( tenantEnd < 0 ) {
+      return RepositoryFile.SEPARATOR;
+    }
+    return JcrStringHelper.pathDecode( absPath.substring( tenantEnd ) );
+  }
+
+  static boolean isBelow( final String path, final String prefix ) {
+    return RepositoryFile.SEPARATOR.equals( prefix ) || path.equals( prefix )
+        || path.startsWith( prefix + RepositoryFile.SEPARATOR );
+  }
+
+  /**
+   * The paths that changed, and the paths that were removed or moved away. Removing a node also affects the
+   * subscribers of the paths below it.
+   */
+  private static class Changes {
+    private final Set<String> changed = new HashSet<String>();
+    private final Set<String> removed = new HashSet<String>();
+
+    void changed( final String path ) {
+      if ( path != null ) {
+        changed.add( path );
+      }
+    }
+
+    void removed( final String path ) {
+      if ( path != null ) {
+        removed.add( path );
+      }
+    }
+
+    void addAll( final Changes changes ) {
+      changed.addAll( changes.changed );
+      removed.addAll( changes.removed );
+    }
+
+    boolean isEmpty() {
+      return changed.isEmpty() && removed.isEmpty();
+    }
+
+    void collect( final String prefix, final Set<String> paths ) {
+      for ( String path : changed ) {
+        if ( isBelow( path, prefix ) ) {
+          paths.add( path );
+        }
+      }
+      for ( String path : removed ) {
+        if ( isBelow( path, prefix ) || isBelow( prefix, path ) ) {
+          paths.add( path );
+        }
+      }
+    }
+  }
+
+  /**
+   * Called by Jackrabbit before a save returns, with the events of that save.
+   */
+  private class LocalChangeListener implements SynchronousEventListener {
+    @Override
+    public void onEvent( final EventIterator events ) {
+      onLocalEvent( events );
+    }
+  }
+
+  private static class Subscription {
+    private final String prefix;
+    private final ICacheInvalidationListener listener;
+    private final boolean includeLocalChanges;
+    private final boolean synchronous;
+
+    Subscription( final String prefix, final ICacheInvalidationListener listener,
+                  final boolean includeLocalChanges, final boolean synchronous ) {
+      this.prefix = prefix;
+      this.listener = listener;
+      this.includeLocalChanges = includeLocalChanges;
+      this.synchronous = synchronous;
+    }
+  }
+}
@@ -1156,6 +1156,23 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     } );
   }
 
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public List<Map<String, Serializable>> getFileMetadataInBatch( final List<RepositoryFile> files ) {
+    Assert.notNull( files );
+    return (List<Map<String, Serializable>>) jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( Session session ) throws IOException, RepositoryException {
+        List<Map<String, Serializable>> metadata = new ArrayList<Map<String, Serializable>>( files.size() );
+        for ( RepositoryFile file : files ) {
+          Assert.notNull( file );
+          metadata.add( JcrRepositoryFileUtils.getFileMetadata( session, file.getId() ) );
+        }
+        return metadata;
+      }
+    } );
+  }
+
   @Override
   public List<Character> getReservedChars() {
     return JcrRepositoryFileUtils.getReservedChars();
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jcr.NamespaceException;
 import javax.jcr.Node;
@@ -31,6 +32,7 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Value;
 
+import org.pentaho.platform.api.cache.ICacheInvalidationBus;
 import org.pentaho.platform.api.engine.IAuthorizationAction;
 import org.pentaho.platform.api.engine.ICacheManager;
 import org.pentaho.platform.api.engine.IPluginManager;
@@ -38,6 +40,7 @@ import org.pentaho.platform.api.engine.IPluginManagerListener;
 import org.pentaho.platform.api.engine.security.userroledao.NotFoundException;
 import org.pentaho.platform.api.mt.ITenant;
 import org.pentaho.platform.api.mt.ITenantedPrincipleNameResolver;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.core.system.TenantUtils;
 import org.pentaho.platform.repository2.unified.ServerRepositoryPaths;
@@ -64,6 +67,8 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
 
   private List<IAuthorizationAction> authorizationActions = Collections.emptyList();
 
+  private final AtomicLong roleBindingsVersion = new AtomicLong();
+
   public static final String FOLDER_NAME_AUTHZ = ".authz"; //$NON-NLS-1$
 
   public static final String FOLDER_NAME_ROLEBASED = "roleBased"; //$NON-NLS-1$
@@ -128,6 +133,7 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
             if ( cacheManager.cacheEnabled( LOGICAL_ROLE_BINDINGS_REGION ) ) {
               cacheManager.removeRegionCache( LOGICAL_ROLE_BINDINGS_REGION );
             }
+            roleBindingsVersion.incrementAndGet();
             loaded = true;
           }
         }
@@ -142,12 +148,31 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
         roles.add( action.getName() );
       }
     }
+    roleBindingsVersion.incrementAndGet();
+  }
+
+  /**
+   * Drops the cached bindings when another server of the cluster changes them. Changes made through this dao update
+   * the cache themselves.
+   */
+  public void setCacheInvalidationBus( final ICacheInvalidationBus cacheInvalidationBus ) {
+    cacheInvalidationBus.subscribe( RepositoryFile.SEPARATOR + FOLDER_NAME_AUTHZ, paths -> {
+      if ( cacheManager.cacheEnabled( LOGICAL_ROLE_BINDINGS_REGION ) ) {
+        cacheManager.clearRegionCache( LOGICAL_ROLE_BINDINGS_REGION );
+      }
+      roleBindingsVersion.incrementAndGet();
+    }, false );
   }
 
   public void setAuthorizationActions( final List<IAuthorizationAction> authorizationActions ) {
     this.authorizationActions = authorizationActions;
   }
 
+  @Override
+  public long getRoleBindingsVersion() {
+    return roleBindingsVersion.get();
+  }
+
   @Override
   public List<String> getBoundLogicalRoleNames( Session session, List<String> runtimeRoleNames )
       throws NamespaceException, RepositoryException {
@@ -307,6 +332,7 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
     // update cache
     String roleId = tenantedRoleNameUtils.getPrincipleId( tenant, runtimeRoleName );
     cacheManager.putInRegionCache( LOGICAL_ROLE_BINDINGS_REGION, roleId, logicalRoleNames );
+    roleBindingsVersion.incrementAndGet();
   }
 
   private String getPrincipalName( String principalId ) {
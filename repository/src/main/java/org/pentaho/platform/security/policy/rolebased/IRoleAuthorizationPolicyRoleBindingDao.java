@@ -115,4 +115,14 @@ public interface IRoleAuthorizationPolicyRoleBindingDao {
    * @return list of logical role names, never {@code null}
    */
   List<String> getBoundLogicalRoleNames( final Session session, final ITenant tenant, final List<String> runtimeRoleNames ) throws RepositoryException;
+
+  /**
+   * Gets a number that changes whenever bindings change, so that callers can tell whether logical roles they looked
+   * up earlier are still current.
+   *
+   * @return the current version of the bindings, or {@code -1} if this DAO does not track changes
+   */
+  default long getRoleBindingsVersion() {
+    return -1;
+  }
 }
@@ -13,11 +13,17 @@
 
 package org.pentaho.platform.security.policy.rolebased;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -33,6 +39,12 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
   // ~ Static fields/initializers
   // ======================================================================================
 
+  /**
+   * Session attribute holding the logical roles of the session's authentication.
+   */
+  public static final String LOGICAL_ROLES_ATTRIBUTE =
+      RoleAuthorizationPolicy.class.getName() + ".logicalRoles"; //$NON-NLS-1$
+
   // ~ Instance fields
   // =================================================================================================
 
@@ -56,12 +68,12 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
   public List<String> getAllowedActions( String actionNamespace ) {
     List<String> assignedRolesInNamespace = new ArrayList<String>();
     if ( actionNamespace == null ) {
-      assignedRolesInNamespace.addAll( roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() ) );
+      assignedRolesInNamespace.addAll( getLogicalRoleNames() );
     } else {
       if ( !actionNamespace.endsWith( "." ) ) {
         actionNamespace += ".";
       }
-      for ( String assignedRole : roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() ) ) {
+      for ( String assignedRole : getLogicalRoleNames() ) {
         if ( assignedRole.startsWith( actionNamespace ) ) {
           assignedRolesInNamespace.add( assignedRole );
         }
@@ -74,7 +86,30 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
    * {@inheritDoc}
    */
   public boolean isAllowed( String actionName ) {
-    return roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() ).contains( actionName );
+    return getLogicalRoleNames().contains( actionName );
+  }
+
+  /**
+   * Gets the logical roles bound to the runtime roles of the current authentication. They are looked up once per
+   * authentication and kept on the session until the role bindings change.
+   */
+  protected Set<String> getLogicalRoleNames() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    Assert.state( authentication != null );
+    long version = roleBindingDao.getRoleBindingsVersion();
+    IPentahoSession session = version >= 0 ? PentahoSessionHolder.getSession() : null;
+    if ( session != null ) {
+      Object cached = session.getAttribute( LOGICAL_ROLES_ATTRIBUTE );
+      if ( cached instanceof LogicalRoles && ( (LogicalRoles) cached ).isCurrent( authentication, version ) ) {
+        return ( (LogicalRoles) cached ).names;
+      }
+    }
+    List<String> boundRoleNames = roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() );
+    Set<String> names = Collections.unmodifiableSet( new LinkedHashSet<String>( boundRoleNames ) );
+    if ( session != null ) {
+      session.setAttribute( LOGICAL_ROLES_ATTRIBUTE, new LogicalRoles( authentication, version, names ) );
+    }
+    return names;
   }
 
   protected List<String> getRuntimeRoleNames() {
@@ -88,4 +123,29 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
     return runtimeRoles;
   }
 
+  /**
+   * The logical roles of an authentication at a given version of the role bindings.
+   */
+  private static class LogicalRoles implements Serializable {
+
+    private static final long serialVersionUID = 4164427163425036417L;
+
+    // not kept across serialization, so a restored session looks the roles up again
+    private final transient Authentication authentication;
+
+    private final long version;
+
+    private final Set<String> names;
+
+    LogicalRoles( Authentication authentication, long version, Set<String> names ) {
+      this.authentication = authentication;
+      this.version = version;
+      this.names = names;
+    }
+
+    boolean isCurrent( Authentication authentication, long version ) {
+      return this.authentication == authentication && this.version == version;
+    }
+  }
+
 }
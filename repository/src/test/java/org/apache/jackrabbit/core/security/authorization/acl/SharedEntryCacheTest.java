@@ -0,0 +1,196 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.apache.jackrabbit.core.security.authorization.acl;
+
+import org.apache.jackrabbit.core.id.NodeId;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jcr.RepositoryException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SharedEntryCacheTest {
+
+  private NodeId root;
+
+  private SharedEntryCache cache;
+
+  private AtomicInteger loads;
+
+  @Before
+  public void setUp() {
+    root = new NodeId();
+    cache = new SharedEntryCache( root, 5000, true );
+    loads = new AtomicInteger();
+  }
+
+  private static Entries entries() {
+    return new PentahoEntryCollector.PentahoEntries( Collections.singletonList( new Object() ), null );
+  }
+
+  private SharedEntryCache.Loader loader( final Entries entries, final boolean magicAceForUser ) {
+    return new SharedEntryCache.Loader() {
+      @Override public Entries load() {
+        loads.incrementAndGet();
+        if ( magicAceForUser ) {
+          cache.markUserSpecific();
+        }
+        return entries;
+      }
+    };
+  }
+
+  private Entries getOrLoad( NodeId id, String fingerprint, String user, SharedEntryCache.Loader loader )
+    throws RepositoryException {
+    Entries entries = cache.get( id, fingerprint, user );
+    return entries != null ? entries : cache.load( id, fingerprint, user, loader );
+  }
+
+  @Test
+  public void testEntriesAreSharedBetweenSessionsWithTheSameFingerprint() throws Exception {
+    NodeId node = new NodeId();
+    Entries entries = entries();
+
+    assertSame( entries, getOrLoad( node, "tenant\nAdminister", "alice", loader( entries, false ) ) );
+    assertSame( entries, getOrLoad( node, "tenant\nAdminister", "bob", loader( entries(), false ) ) );
+    assertNull( cache.get( node, "tenant", "carol" ) );
+
+    assertEquals( 1, loads.get() );
+  }
+
+  @Test
+  public void testEntriesWithUserMagicAcesAreKeptPerUser() throws Exception {
+    NodeId node = new NodeId();
+    Entries alice = entries();
+
+    cache.load( node, "tenant\nAdminister", "alice", loader( alice, true ) );
+
+    assertSame( alice, cache.get( node, "tenant\nAdminister", "alice" ) );
+    assertNull( cache.get( node, "tenant\nAdminister", "bob" ) );
+  }
+
+  @Test
+  public void testEntriesBuiltFromUserSpecificEntriesAreUserSpecific() throws Exception {
+    final NodeId parent = new NodeId();
+    NodeId child = new NodeId();
+    cache.load( parent, "tenant", "alice", loader( entries(), true ) );
+
+    cache.load( child, "tenant", "alice", new SharedEntryCache.Loader() {
+      @Override public Entries load() throws RepositoryException {
+        // the child's entries include the parent's, as getRelevantAncestorAces does
+        assertNotNull( cache.get( parent, "tenant", "alice" ) );
+        return entries();
+      }
+    } );
+
+    assertNotNull( cache.get( child, "tenant", "alice" ) );
+    assertNull( cache.get( child, "tenant", "bob" ) );
+  }
+
+  @Test
+  public void testEmptyEntriesAreOnlyCachedForRoot() throws Exception {
+    NodeId node = new NodeId();
+    Entries empty = new PentahoEntryCollector.PentahoEntries( Collections.emptyList(), null );
+
+    cache.load( node, "tenant", "alice", loader( empty, false ) );
+    cache.load( root, "tenant", "alice", loader( empty, false ) );
+
+    assertNull( cache.get( node, "tenant", "alice" ) );
+    assertSame( empty, cache.get( root, "tenant", "alice" ) );
+  }
+
+  @Test
+  public void testRemoveDropsEveryVariantOfANode() throws Exception {
+    NodeId node = new NodeId();
+    cache.load( node, "tenant", "alice", loader( entries(), false ) );
+    cache.load( node, "tenant\nAdminister", "bob", loader( entries(), true ) );
+
+    cache.remove( node, true );
+
+    assertNull( cache.get( node, "tenant", "alice" ) );
+    assertNull( cache.get( node, "tenant\nAdminister", "bob" ) );
+  }
+
+  @Test
+  public void testSizeIsBoundedAndRootIsKept() throws Exception {
+    cache = new SharedEntryCache( root, 100, true );
+    cache.load( root, "tenant", "alice", loader( entries(), false ) );
+    for ( int i = 0; i < 500; i++ ) {
+      cache.load( new NodeId(), "tenant", "alice", loader( entries(), false ) );
+    }
+
+    assertTrue( cache.size() <= 100 );
+    assertNotNull( cache.get( root, "tenant", "alice" ) );
+  }
+
+  @Test
+  public void testRecentlyUsedNodesAreKept() throws Exception {
+    cache = new SharedEntryCache( root, 100, false );
+    NodeId used = new NodeId();
+    cache.load( used, "tenant", "alice", loader( entries(), false ) );
+    NodeId first = new NodeId();
+    cache.load( first, "tenant", "alice", loader( entries(), false ) );
+    for ( int i = 0; i < 500; i++ ) {
+      cache.load( new NodeId(), "tenant", "alice", loader( entries(), false ) );
+      assertNotNull( cache.get( used, "tenant", "alice" ) );
+    }
+
+    assertNull( cache.get( first, "tenant", "alice" ) );
+  }
+
+  @Test
+  public void testTwoThousandConcurrentSessionsLoadEachNodeOncePerFingerprint() throws Exception {
+    final int sessions = 2000;
+    final int fingerprints = 4;
+    final List<NodeId> nodes = new ArrayList<NodeId>();
+    for ( int i = 0; i < 50; i++ ) {
+      nodes.add( new NodeId() );
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool( 16 );
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for ( int i = 0; i < sessions; i++ ) {
+        final String user = "user" + i;
+        final String fingerprint = "tenant\nrole" + ( i % fingerprints );
+        futures.add( executor.submit( () -> {
+          for ( NodeId node : nodes ) {
+            assertNotNull( getOrLoad( node, fingerprint, user, loader( entries(), false ) ) );
+          }
+          return null;
+        } ) );
+      }
+      for ( Future<?> future : futures ) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals( nodes.size() * fingerprints, loads.get() );
+    assertEquals( nodes.size(), cache.size() );
+  }
+}
@@ -15,15 +15,25 @@ package org.pentaho.platform.repository.solution.filebased;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileContent;
 import org.junit.Test;
+import org.pentaho.platform.api.engine.ICacheManager;
 import org.pentaho.platform.api.repository2.unified.MondrianSchemaAnnotator;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class MondrianFileObjectTest {
   @Test
@@ -48,4 +58,83 @@ public class MondrianFileObjectTest {
     String actual = IOUtils.toString( mondrianFileObject.getContent().getInputStream() );
     assertEquals( "annotationsFile - schemaFile", actual );
   }
+
+  private static SolutionRepositoryVfsFileObject mockRepositoryFile( String path, String contents,
+                                                                    Serializable version ) throws Exception {
+    SolutionRepositoryVfsFileObject fileObject = mock( SolutionRepositoryVfsFileObject.class );
+    RepositoryFile repositoryFile = new RepositoryFile.Builder( path, path ).path( path ).versionId( version ).build();
+    when( fileObject.getRepositoryFile() ).thenReturn( repositoryFile );
+    when( fileObject.getCurrentRepositoryFile() ).thenReturn( repositoryFile );
+    FileContent fileContent = mock( FileContent.class );
+    when( fileObject.getContent() ).thenReturn( fileContent );
+    when( fileContent.getInputStream() ).thenReturn( IOUtils.toInputStream( contents ) );
+    return fileObject;
+  }
+
+  private static MondrianFileObject cachingFileObject( FileObject schemaFile, FileObject annotationsFile,
+                                                       MondrianSchemaAnnotator annotator, ICacheManager cacheMgr ) {
+    return new MondrianFileObject( schemaFile, annotationsFile, annotator ) {
+      @Override ICacheManager getCacheManager() {
+        return cacheMgr;
+      }
+    };
+  }
+
+  @Test
+  public void testAnnotatedSchemaIsCached() throws Exception {
+    FileObject schemaFile = mockRepositoryFile( "/etc/mondrian/SteelWheels/schema.xml", "schema", "1.0" );
+    FileObject annotationsFile = mockRepositoryFile( "/etc/mondrian/SteelWheels/annotations.xml", "annotations",
+      "1.2" );
+    MondrianSchemaAnnotator annotator = mock( MondrianSchemaAnnotator.class );
+    when( annotator.getInputStream( any(), any() ) ).thenReturn( IOUtils.toInputStream( "annotated" ) );
+    ICacheManager cacheMgr = mock( ICacheManager.class );
+
+    MondrianFileObject fileObject = cachingFileObject( schemaFile, annotationsFile, annotator, cacheMgr );
+    String key = fileObject.getCacheKey();
+
+    assertEquals( "/etc/mondrian/SteelWheels/schema.xml@/etc/mondrian/SteelWheels/schema.xml:1.0"
+      + "+/etc/mondrian/SteelWheels/annotations.xml:1.2", key );
+    assertEquals( "annotated", IOUtils.toString( fileObject.getContent().getInputStream() ) );
+    verify( cacheMgr ).putInRegionCache( MondrianFileObject.CACHE_REGION, key, "annotated".getBytes() );
+  }
+
+  @Test
+  public void testCachedSchemaIsNotAnnotatedAgain() throws Exception {
+    FileObject schemaFile = mockRepositoryFile( "/etc/mondrian/SteelWheels/schema.xml", "schema", "1.0" );
+    FileObject annotationsFile = mockRepositoryFile( "/etc/mondrian/SteelWheels/annotations.xml", "annotations",
+      "1.2" );
+    MondrianSchemaAnnotator annotator = mock( MondrianSchemaAnnotator.class );
+    ICacheManager cacheMgr = mock( ICacheManager.class );
+    MondrianFileObject fileObject = cachingFileObject( schemaFile, annotationsFile, annotator, cacheMgr );
+    when( cacheMgr.getFromRegionCache( MondrianFileObject.CACHE_REGION, fileObject.getCacheKey() ) )
+      .thenReturn( "cached".getBytes() );
+
+    assertEquals( "cached", IOUtils.toString( fileObject.getContent().getInputStream() ) );
+    verify( annotator, never() ).getInputStream( any(), any() );
+    verify( annotationsFile, never() ).getContent();
+  }
+
+  @Test
+  public void testCacheKeyFollowsTheCurrentVersion() throws Exception {
+    String schemaPath = "/etc/mondrian/SteelWheels/schema.xml";
+    SolutionRepositoryVfsFileObject schemaFile = mockRepositoryFile( schemaPath, "schema", "1.0" );
+    FileObject annotationsFile = mockRepositoryFile( "/etc/mondrian/SteelWheels/annotations.xml", "annotations",
+      "1.2" );
+    // the schema was just saved, while the attribute cache may still remember the version before
+    when( schemaFile.getCurrentRepositoryFile() ).thenReturn(
+      new RepositoryFile.Builder( schemaPath, schemaPath ).path( schemaPath ).versionId( "1.1" ).build() );
+
+    assertEquals( "/etc/mondrian/SteelWheels/schema.xml@/etc/mondrian/SteelWheels/schema.xml:1.1"
+      + "+/etc/mondrian/SteelWheels/annotations.xml:1.2",
+      new MondrianFileObject( schemaFile, annotationsFile, mock( MondrianSchemaAnnotator.class ) ).getCacheKey() );
+  }
+
+  @Test
+  public void testFilesOutsideTheRepositoryAreNotCached() throws Exception {
+    FileObject schemaFile = FileObjectTestHelper.mockFile( "schemaFile", true );
+    FileObject annotationsFile = FileObjectTestHelper.mockFile( "annotationsFile", true );
+
+    assertNull( new MondrianFileObject( schemaFile, annotationsFile, mock( MondrianSchemaAnnotator.class ) )
+      .getCacheKey() );
+  }
 }
@@ -32,6 +32,7 @@ import org.pentaho.platform.api.repository2.unified.data.simple.SimpleRepository
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 
 import java.io.ByteArrayInputStream;
+import java.util.Collections;
 import java.util.EnumSet;
 
 import static org.junit.Assert.assertEquals;
@@ -210,4 +211,83 @@ public class SolutionRepositoryVfsFileObjectTest {
     solutionRepositoryVfsFileObject.close();
     assertFalse( solutionRepositoryVfsFileObject.isContentOpen() );
   }
+
+  @Test
+  public void testAttributesAreCachedUntilThePathChanges() throws FileSystemException {
+    String fileRef = "/public/reports/sales.prpt";
+    RepositoryFile mockRepoFile = mock( RepositoryFile.class );
+    IAclNodeHelper mockAclHelper = mock( IAclNodeHelper.class );
+    SolutionRepositoryVfsFileObject.setTestAclHelper( mockAclHelper );
+    SolutionRepositoryVfsAttributeCache cache = new SolutionRepositoryVfsAttributeCache( Long.MAX_VALUE / 2 );
+
+    when( mockUnifiedRepository.getFile( nullable( String.class ) ) ).thenReturn( mockRepoFile );
+    when( mockAclHelper.canAccess( mockRepoFile, EnumSet.of( RepositoryFilePermission.READ ) ) ).thenReturn( true );
+
+    assertTrue( cachedFileObject( fileRef, cache ).exists() );
+    assertTrue( cachedFileObject( fileRef, cache ).exists() );
+    verify( mockUnifiedRepository, times( 2 ) ).getFile( nullable( String.class ) );
+
+    cache.pathsChanged( Collections.singleton( "/public/reports" ) );
+    assertTrue( cachedFileObject( fileRef, cache ).exists() );
+    verify( mockUnifiedRepository, times( 4 ) ).getFile( nullable( String.class ) );
+  }
+
+  @Test
+  public void testCurrentRepositoryFileIsNotCached() throws FileSystemException {
+    String fileRef = "/etc/mondrian/SteelWheels/schema.xml";
+    RepositoryFile mockRepoFile = mock( RepositoryFile.class );
+    IAclNodeHelper mockAclHelper = mock( IAclNodeHelper.class );
+    SolutionRepositoryVfsFileObject.setTestAclHelper( mockAclHelper );
+    SolutionRepositoryVfsAttributeCache cache = new SolutionRepositoryVfsAttributeCache( Long.MAX_VALUE / 2 );
+
+    when( mockUnifiedRepository.getFile( nullable( String.class ) ) ).thenReturn( mockRepoFile );
+    when( mockAclHelper.canAccess( mockRepoFile, EnumSet.of( RepositoryFilePermission.READ ) ) ).thenReturn( true );
+
+    assertTrue( cachedFileObject( fileRef, cache ).exists() );
+    verify( mockUnifiedRepository, times( 2 ) ).getFile( nullable( String.class ) );
+    assertEquals( mockRepoFile, cachedFileObject( fileRef, cache ).getCurrentRepositoryFile() );
+    verify( mockUnifiedRepository, times( 4 ) ).getFile( nullable( String.class ) );
+  }
+
+  @Test
+  public void testChildrenAreListedOnce() throws FileSystemException {
+    String fileRef = "/public/reports";
+    RepositoryFile mockRepoFile = mock( RepositoryFile.class );
+    RepositoryFile child = mock( RepositoryFile.class );
+    IAclNodeHelper mockAclHelper = mock( IAclNodeHelper.class );
+    SolutionRepositoryVfsFileObject.setTestAclHelper( mockAclHelper );
+    SolutionRepositoryVfsAttributeCache cache = new SolutionRepositoryVfsAttributeCache( Long.MAX_VALUE / 2 );
+
+    when( mockRepoFile.getId() ).thenReturn( "id" );
+    when( child.getPath() ).thenReturn( "/public/reports/sales.prpt" );
+    when( mockUnifiedRepository.getFile( nullable( String.class ) ) ).thenReturn( mockRepoFile );
+    when( mockUnifiedRepository.getChildren( "id" ) ).thenReturn( Collections.singletonList( child ) );
+    when( mockAclHelper.canAccess( mockRepoFile, EnumSet.of( RepositoryFilePermission.READ ) ) ).thenReturn( true );
+
+    assertEquals( 1, cachedFileObject( fileRef, cache ).getChildren().length );
+    assertEquals( 1, cachedFileObject( fileRef, cache ).getChildren().length );
+    verify( mockUnifiedRepository, times( 1 ) ).getChildren( "id" );
+
+    cache.pathsChanged( Collections.singleton( "/public/reports/new.prpt" ) );
+    cachedFileObject( fileRef, cache ).getChildren();
+    verify( mockUnifiedRepository, times( 2 ) ).getChildren( "id" );
+  }
+
+  @Test
+  public void testIsAffected() {
+    assertTrue( SolutionRepositoryVfsAttributeCache.isAffected( "/public/a", "/public/a" ) );
+    assertTrue( SolutionRepositoryVfsAttributeCache.isAffected( "/public/a/b", "/public/a" ) );
+    assertTrue( SolutionRepositoryVfsAttributeCache.isAffected( "/public", "/public/a" ) );
+    assertTrue( SolutionRepositoryVfsAttributeCache.isAffected( "/", "/public" ) );
+    assertTrue( SolutionRepositoryVfsAttributeCache.isAffected( "/public/a", "/" ) );
+    assertFalse( SolutionRepositoryVfsAttributeCache.isAffected( "/public/ab", "/public/a" ) );
+    assertFalse( SolutionRepositoryVfsAttributeCache.isAffected( "/", "/public/a" ) );
+  }
+
+  private static SolutionRepositoryVfsFileObject cachedFileObject( String fileRef,
+                                                                   SolutionRepositoryVfsAttributeCache cache ) {
+    SolutionRepositoryVfsFileObject fileObject = spy( new SolutionRepositoryVfsFileObject( fileRef ) );
+    doReturn( cache ).when( fileObject ).getAttributeCache();
+    return fileObject;
+  }
 }
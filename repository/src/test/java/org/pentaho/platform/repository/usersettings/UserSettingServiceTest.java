@@ -29,6 +29,7 @@ import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.repository2.ClientRepositoryPaths;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -45,6 +46,8 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -392,6 +395,87 @@ public class UserSettingServiceTest {
     verify( repository ).setFileMetadata( eq( TENANT_FOLDER_ID ), anyMap() );
   }
 
+  @Test
+  public void testGetUserSettingReadsRepositoryOnce() throws Exception {
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+
+    assertEquals( USER_SETTING_VALUE_3, userSettingService.getUserSetting( USER_SETTING_NAME_3, null ).getSettingValue() );
+    assertEquals( GLOBAL_SETTING_VALUE_3,
+      userSettingService.getUserSetting( GLOBAL_SETTING_NAME_3, null ).getSettingValue() );
+    assertEquals( COMMON_USER_SETTING_VALUE,
+      userSettingService.getUserSetting( COMMON_SETTING_NAME, null ).getSettingValue() );
+    assertEquals( GLOBAL_SETTING_VALUE_3, userSettingService.getGlobalUserSetting( GLOBAL_SETTING_NAME_3, null )
+      .getSettingValue() );
+
+    verify( repository, times( 1 ) ).getFileMetadata( eq( USER_FOLDER_ID ) );
+    verify( repository, times( 1 ) ).getFileMetadata( eq( TENANT_FOLDER_ID ) );
+  }
+
+  @Test
+  public void testSetUserSettingRefreshesCache() throws Exception {
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+
+    assertEquals( USER_SETTING_VALUE_3, userSettingService.getUserSetting( USER_SETTING_NAME_3, null ).getSettingValue() );
+
+    userSettingService.setUserSetting( USER_SETTING_NAME_3, "newValue" );
+
+    assertEquals( "newValue", userSettingService.getUserSetting( USER_SETTING_NAME_3, null ).getSettingValue() );
+  }
+
+  @Test
+  public void testSetUserSettingWriteBehindCoalescesWrites() throws Exception {
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+    userSettingService.setWriteBehindDelayMillis( 60000 );
+
+    userSettingService.setUserSetting( "settingA", "a" );
+    userSettingService.setUserSetting( "settingB", "b" );
+
+    // pending settings are visible before they are written
+    assertEquals( "a", userSettingService.getUserSetting( "settingA", null ).getSettingValue() );
+    verify( repository, never() ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+
+    userSettingService.flush();
+
+    verify( repository, times( 1 ) ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+    assertEquals( "a", userSettings.get( UserSettingService.SETTING_PREFIX + "settingA" ) );
+    assertEquals( "b", userSettings.get( UserSettingService.SETTING_PREFIX + "settingB" ) );
+    assertEquals( "b", userSettingService.getUserSetting( "settingB", null ).getSettingValue() );
+  }
+
+  @Test
+  public void testShutdownWritesPendingSettings() throws Exception {
+    userSettingService.setWriteBehindDelayMillis( 60000 );
+
+    userSettingService.setUserSetting( "settingA", "a" );
+    userSettingService.shutdown();
+
+    verify( repository, times( 1 ) ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+    assertEquals( "a", userSettings.get( UserSettingService.SETTING_PREFIX + "settingA" ) );
+  }
+
+  @Test
+  public void testPathsChangedDropsCachedSettings() throws Exception {
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+    userSettingService.getUserSettings();
+
+    // a change elsewhere keeps the cache
+    userSettingService.pathsChanged( Collections.singleton( ClientRepositoryPaths.getPublicFolderPath() ) );
+    userSettingService.getUserSettings();
+    verify( repository, times( 1 ) ).getFileMetadata( eq( USER_FOLDER_ID ) );
+    verify( repository, times( 1 ) ).getFileMetadata( eq( TENANT_FOLDER_ID ) );
+
+    userSettingService.pathsChanged( Collections.singleton( ClientRepositoryPaths.getEtcFolderPath() ) );
+    userSettingService.getUserSettings();
+    verify( repository, times( 1 ) ).getFileMetadata( eq( USER_FOLDER_ID ) );
+    verify( repository, times( 2 ) ).getFileMetadata( eq( TENANT_FOLDER_ID ) );
+
+    userSettingService.pathsChanged(
+      Collections.singleton( ClientRepositoryPaths.getUserHomeFolderPath( session.getName() ) ) );
+    userSettingService.getUserSettings();
+    verify( repository, times( 2 ) ).getFileMetadata( eq( USER_FOLDER_ID ) );
+    verify( repository, times( 2 ) ).getFileMetadata( eq( TENANT_FOLDER_ID ) );
+  }
+
   private class UserSettingServiceForTesting extends UserSettingService {
 
     private Boolean canAdministerOverrideValue = null;
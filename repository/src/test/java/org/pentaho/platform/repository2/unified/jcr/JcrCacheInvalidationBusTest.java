@@ -0,0 +1,144 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr;
+
+import org.apache.jackrabbit.api.observation.JackrabbitEvent;
+import org.apache.jackrabbit.commons.iterator.EventIteratorAdapter;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.cache.ICacheInvalidationListener;
+
+import javax.jcr.observation.Event;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JcrCacheInvalidationBusTest {
+
+  private JcrCacheInvalidationBus bus;
+
+  @Before
+  public void setUp() {
+    bus = new JcrCacheInvalidationBus( null, null );
+    bus.setBatchDelay( Long.MAX_VALUE );
+  }
+
+  private static Event event( int type, String path, boolean external ) throws Exception {
+    JackrabbitEvent event = mock( JackrabbitEvent.class );
+    when( event.getType() ).thenReturn( type );
+    when( event.getPath() ).thenReturn( path );
+    when( event.isExternal() ).thenReturn( external );
+    return event;
+  }
+
+  private void fire( Event... events ) {
+    bus.onEvent( new EventIteratorAdapter( Arrays.asList( events ) ) );
+  }
+
+  private static Set<String> paths( String... paths ) {
+    return new HashSet<String>( Arrays.asList( paths ) );
+  }
+
+  @Test
+  public void testChangesAreBatchedPerPrefix() throws Exception {
+    ICacheInvalidationListener mondrian = mock( ICacheInvalidationListener.class );
+    ICacheInvalidationListener metadata = mock( ICacheInvalidationListener.class );
+    bus.subscribe( "/etc/mondrian/", mondrian, true );
+    bus.subscribe( "/etc/metadata", metadata, true );
+
+    fire( event( Event.NODE_ADDED, "/pentaho/tenant0/etc/mondrian/SteelWheels", false ),
+      event( Event.PROPERTY_CHANGED, "/pentaho/tenant0/etc/mondrian/SteelWheels/jcr:lastModified", false ) );
+    fire( event( Event.PROPERTY_ADDED, "/pentaho/tenant0/etc/mondrian/SteelWheels/metadata", false ),
+      event( Event.NODE_ADDED, "/pentaho/tenant0/etc/mondrianOther", false ),
+      event( Event.NODE_ADDED, "/jcr:system/jcr:versionStorage/a", false ) );
+    bus.flush();
+
+    verify( mondrian ).pathsChanged( paths( "/etc/mondrian/SteelWheels" ) );
+    verify( metadata, never() ).pathsChanged( any() );
+  }
+
+  @Test
+  public void testLocalChangesAreOnlyDeliveredOnRequest() throws Exception {
+    ICacheInvalidationListener local = mock( ICacheInvalidationListener.class );
+    ICacheInvalidationListener external = mock( ICacheInvalidationListener.class );
+    bus.subscribe( "/", local, true );
+    bus.subscribe( "/", external, false );
+
+    fire( event( Event.NODE_ADDED, "/pentaho/tenant0/public/a.prpt", false ) );
+    fire( event( Event.NODE_ADDED, "/pentaho/tenant0/public/b.prpt", true ) );
+    bus.flush();
+
+    verify( local ).pathsChanged( paths( "/public/a.prpt", "/public/b.prpt" ) );
+    verify( external ).pathsChanged( paths( "/public/b.prpt" ) );
+  }
+
+  @Test
+  public void testSynchronousSubscribersGetLocalChangesRightAway() throws Exception {
+    ICacheInvalidationListener listener = mock( ICacheInvalidationListener.class );
+    bus.subscribeSynchronously( "/public", listener );
+
+    bus.onLocalEvent( new EventIteratorAdapter( Arrays.asList(
+      event( Event.NODE_ADDED, "/pentaho/tenant0/public/a.prpt", false ),
+      event( Event.NODE_ADDED, "/pentaho/tenant0/public/b.prpt", true ) ) ) );
+    verify( listener ).pathsChanged( paths( "/public/a.prpt" ) );
+
+    // the batch only brings the external changes
+    fire( event( Event.NODE_ADDED, "/pentaho/tenant0/public/a.prpt", false ),
+      event( Event.NODE_ADDED, "/pentaho/tenant0/public/b.prpt", true ) );
+    bus.flush();
+    verify( listener ).pathsChanged( paths( "/public/b.prpt" ) );
+  }
+
+  @Test
+  public void testRemovingAFolderNotifiesTheSubscribersBelowIt() throws Exception {
+    ICacheInvalidationListener listener = mock( ICacheInvalidationListener.class );
+    bus.subscribe( "/etc/mondrian", listener, true );
+    Event move = event( Event.NODE_MOVED, "/pentaho/tenant0/public/etc", false );
+    when( move.getInfo() ).thenReturn( Collections.singletonMap( "srcAbsPath", "/pentaho/tenant0/etc" ) );
+
+    fire( move, event( Event.NODE_REMOVED, "/pentaho/tenant0/public", false ) );
+    bus.flush();
+
+    verify( listener ).pathsChanged( paths( "/etc" ) );
+  }
+
+  @Test
+  public void testUnsubscribe() throws Exception {
+    ICacheInvalidationListener listener = mock( ICacheInvalidationListener.class );
+    bus.subscribe( "/", listener, true );
+    bus.unsubscribe( listener );
+
+    fire( event( Event.NODE_ADDED, "/pentaho/tenant0/public/a.prpt", false ) );
+    bus.flush();
+
+    verify( listener, never() ).pathsChanged( any() );
+  }
+
+  @Test
+  public void testToRepositoryPath() {
+    assertEquals( "/etc/metadata", JcrCacheInvalidationBus.toRepositoryPath( "/pentaho/tenant0/etc/metadata" ) );
+    assertEquals( "/", JcrCacheInvalidationBus.toRepositoryPath( "/pentaho/tenant0" ) );
+    assertNull( JcrCacheInvalidationBus.toRepositoryPath( "/pentaho" ) );
+    assertNull( JcrCacheInvalidationBus.toRepositoryPath( "/jcr:system" ) );
+  }
+}
@@ -0,0 +1,125 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.security.policy.rolebased;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RoleAuthorizationPolicyTest {
+
+  private IRoleAuthorizationPolicyRoleBindingDao dao;
+
+  private RoleAuthorizationPolicy policy;
+
+  @Before
+  public void setUp() {
+    dao = mock( IRoleAuthorizationPolicyRoleBindingDao.class );
+    when( dao.getBoundLogicalRoleNames( anyList() ) )
+      .thenReturn( Arrays.asList( "org.pentaho.repository.read", "org.pentaho.repository.create" ) );
+    policy = new RoleAuthorizationPolicy( dao );
+    PentahoSessionHolder.setSession( new StandaloneSession( "joe" ) );
+    authenticate();
+  }
+
+  @After
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    PentahoSessionHolder.removeSession();
+  }
+
+  private static void authenticate() {
+    List<GrantedAuthority> authorities = Collections.singletonList( new SimpleGrantedAuthority( "Power User" ) );
+    Authentication authentication = new UsernamePasswordAuthenticationToken( "joe", null, authorities );
+    SecurityContextHolder.getContext().setAuthentication( authentication );
+  }
+
+  @Test
+  public void testLogicalRolesAreLookedUpOncePerAuthentication() {
+    when( dao.getRoleBindingsVersion() ).thenReturn( 1L );
+
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    assertFalse( policy.isAllowed( "org.pentaho.security.administerSecurity" ) );
+    assertEquals( Collections.singletonList( "org.pentaho.repository.create" ),
+      policy.getAllowedActions( "org.pentaho.repository.c" ) );
+    verify( dao, times( 1 ) ).getBoundLogicalRoleNames( anyList() );
+
+    authenticate();
+    policy.isAllowed( "org.pentaho.repository.read" );
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testLogicalRolesAreLookedUpAgainWhenBindingsChange() {
+    when( dao.getRoleBindingsVersion() ).thenReturn( 1L );
+    policy.isAllowed( "org.pentaho.repository.read" );
+
+    when( dao.getRoleBindingsVersion() ).thenReturn( 2L );
+    when( dao.getBoundLogicalRoleNames( anyList() ) ).thenReturn( Collections.<String>emptyList() );
+
+    assertFalse( policy.isAllowed( "org.pentaho.repository.read" ) );
+  }
+
+  @Test
+  public void testUntrackedBindingsAreNotCached() {
+    when( dao.getRoleBindingsVersion() ).thenReturn( -1L );
+
+    policy.isAllowed( "org.pentaho.repository.read" );
+    policy.isAllowed( "org.pentaho.repository.read" );
+
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testWithoutSession() {
+    PentahoSessionHolder.removeSession();
+    when( dao.getRoleBindingsVersion() ).thenReturn( 1L );
+
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testAllowedActionsKeepTheBindingOrder() {
+    List<String> bound = Arrays.asList( "org.pentaho.repository.read", "org.pentaho.repository.create",
+      "org.pentaho.security.administerSecurity", "org.pentaho.scheduler.manage", "org.pentaho.repository.execute" );
+    when( dao.getBoundLogicalRoleNames( anyList() ) ).thenReturn( bound );
+    when( dao.getRoleBindingsVersion() ).thenReturn( 1L );
+
+    assertEquals( bound, policy.getAllowedActions( null ) );
+    assertEquals( bound, policy.getAllowedActions( null ) );
+  }
+}